@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.cloud;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of reading a new state.json of a large collection in which a single replica
+ * changed, either by building the whole DocCollection again or by sharing the unchanged shards and
+ * replicas of the previous state. Run with <code>-prof gc</code> to compare the allocation rates.
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 3, iterations = 3)
+@Measurement(time = 5, iterations = 5)
+@Threads(value = 1)
+public class ClusterStateParsing {
+
+  static final String COLLECTION = "c1";
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"100"})
+    int numShards;
+
+    @Param({"100"})
+    int replicasPerShard;
+
+    byte[] changedState;
+    DocCollection previous;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+      previous = parse(Utils.toJSON(collectionState(null)), 1, null);
+      // the first replica of the middle shard goes down
+      changedState = Utils.toJSON(collectionState("core_node" + numShards / 2 * replicasPerShard));
+    }
+
+    private Map<String, Object> collectionState(String downReplica) {
+      Map<String, Object> shards = new LinkedHashMap<>();
+      int replicaNum = 0;
+      for (int s = 0; s < numShards; s++) {
+        Map<String, Object> replicas = new LinkedHashMap<>();
+        for (int r = 0; r < replicasPerShard; r++) {
+          String name = "core_node" + replicaNum++;
+          String node = "127.0.0." + (replicaNum % 250) + ":8983_solr";
+          Map<String, Object> replica = new LinkedHashMap<>();
+          replica.put("core", COLLECTION + "_shard" + s + "_replica_n" + r);
+          replica.put("node_name", node);
+          replica.put("base_url", Utils.getBaseUrlForNodeName(node, "http"));
+          replica.put("type", "NRT");
+          replica.put("state", name.equals(downReplica) ? "down" : "active");
+          if (r == 0) {
+            replica.put("leader", "true");
+          }
+          replicas.put(name, replica);
+        }
+        Map<String, Object> shard = new LinkedHashMap<>();
+        shard.put("state", "active");
+        shard.put("replicas", replicas);
+        shards.put("shard" + s, shard);
+      }
+      Map<String, Object> collection = new LinkedHashMap<>();
+      collection.put("configName", "conf");
+      collection.put("router", Map.of("name", "implicit"));
+      collection.put("shards", shards);
+      return Map.of(COLLECTION, collection);
+    }
+  }
+
+  @SuppressWarnings({"unchecked"})
+  static DocCollection parse(byte[] state, int version, DocCollection previous) {
+    Map<String, Object> stateMap = (Map<String, Object>) Utils.fromJSON(state);
+    return ClusterState.createFromCollectionMap(version, stateMap, Set.of(), previous)
+        .getCollection(COLLECTION);
+  }
+
+  @Benchmark
+  public Object fullRebuild(BenchState state) {
+    return parse(state.changedState, 2, null);
+  }
+
+  @Benchmark
+  public Object shareUnchanged(BenchState state) {
+    return parse(state.changedState, 2, state.previous);
+  }
+}
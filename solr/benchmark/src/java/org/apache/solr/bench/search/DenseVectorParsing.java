@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.util.DenseVectors;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of parsing a dense vector given as text (<code>[f1, f2, ... fn]</code>) or in
+ * Base64 by the <code>{!knn}</code> query parser, and of reading a vector sent with javabin as a
+ * list of floats or as a float[].
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 3, iterations = 3)
+@Measurement(time = 5, iterations = 5)
+@Threads(value = 1)
+public class DenseVectorParsing {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"128", "768"})
+    int dimension;
+
+    String text;
+    String base64;
+    byte[] javabinList;
+    byte[] javabinArray;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+      SplittableRandom random = new SplittableRandom(42);
+      float[] vector = new float[dimension];
+      List<Float> list = new ArrayList<>(dimension);
+      for (int i = 0; i < dimension; i++) {
+        vector[i] = (float) (random.nextDouble() * 2 - 1);
+        list.add(vector[i]);
+      }
+      text = Arrays.toString(vector);
+      base64 = DenseVectors.toBase64(vector);
+      javabinList = marshal(list);
+      javabinArray = marshal(vector);
+    }
+
+    private static byte[] marshal(Object o) throws IOException {
+      try (JavaBinCodec codec = new JavaBinCodec();
+          ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        codec.marshal(o, out);
+        return out.toByteArray();
+      }
+    }
+  }
+
+  @Benchmark
+  public Object textQueryVector(BenchState state) {
+    return DenseVectors.parse(state.text, state.dimension);
+  }
+
+  @Benchmark
+  public Object base64QueryVector(BenchState state) {
+    return DenseVectors.parse(state.base64, state.dimension);
+  }
+
+  @Benchmark
+  public Object javabinFloatList(BenchState state) throws IOException {
+    return unmarshal(state.javabinList);
+  }
+
+  @Benchmark
+  public Object javabinFloatArray(BenchState state) throws IOException {
+    return unmarshal(state.javabinArray);
+  }
+
+  private static Object unmarshal(byte[] bytes) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      return codec.unmarshal(new ByteArrayInputStream(bytes));
+    }
+  }
+}
@@ -32,6 +32,8 @@ import static org.apache.solr.common.params.CollectionParams.CollectionAction.MO
 
 import java.lang.invoke.MethodHandles;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
 import org.apache.solr.cloud.api.collections.CollectionHandlingUtils;
 import org.apache.solr.cloud.overseer.*;
@@ -61,6 +63,10 @@ public class DistributedClusterStateUpdater {
    */
   private final boolean useDistributedStateUpdate;
 
+  /** Replica state changes waiting to be written, by collection */
+  private final ConcurrentHashMap<String, PendingStateUpdates> pendingStateUpdates =
+      new ConcurrentHashMap<>();
+
   /**
    * Builds an instance with the specified behavior regarding distribution of state updates,
    * allowing to know distributed updates are not enabled (parameter {@code
@@ -116,6 +122,29 @@ public class DistributedClusterStateUpdater {
     scr.executeStateUpdates(scm, zkStateReader);
   }
 
+  /**
+   * Sets the state of a replica, as described by a {@link MutatingCommand#ReplicaSetState} message.
+   *
+   * <p>Unlike {@link #doSingleStateUpdate}, the replica state changes published concurrently on
+   * this node for the same collection (typically when all the cores of a node start or stop) are
+   * written together in a single update of the collection's <code>state.json</code>, instead of
+   * each competing for the conditional update. State changes superseded by a later state change of
+   * the same replica are skipped (see {@link StateUpdateCoalescer}). Like {@link
+   * #doSingleStateUpdate}, this method returns once the state change has been written.
+   */
+  public void doReplicaStateUpdate(
+      ZkNodeProps message, SolrCloudManager scm, ZkStateReader zkStateReader)
+      throws KeeperException, InterruptedException {
+    if (!useDistributedStateUpdate) {
+      throw new IllegalStateException(
+          "Not expecting to execute doReplicaStateUpdate when not using distributed state update");
+    }
+    String collectionName = MutatingCommand.ReplicaSetState.getCollectionName(message);
+    pendingStateUpdates
+        .computeIfAbsent(collectionName, PendingStateUpdates::new)
+        .execute(message, scm, zkStateReader);
+  }
+
   public void executeNodeDownStateUpdate(String nodeName, ZkStateReader zkStateReader) {
     if (!useDistributedStateUpdate) {
       throw new IllegalStateException(
@@ -573,7 +602,11 @@ public class DistributedClusterStateUpdater {
       } else {
         // Collection update or creation
         DocCollection collection = updatedState.getCollection(updater.getCollectionName());
-        byte[] stateJson = Utils.toJSON(singletonMap(updater.getCollectionName(), collection));
+        byte[] stateJson =
+            zkStateReader
+                .getZkClient()
+                .compressState(
+                    Utils.toJSON(singletonMap(updater.getCollectionName(), collection)));
 
         if (updater.isCollectionCreation()) {
           // The state.json file does not exist yet (more precisely it is assumed not to exist)
@@ -868,6 +901,82 @@ public class DistributedClusterStateUpdater {
     }
   }
 
+  /**
+   * Groups the replica state changes of a collection published concurrently on this node. The
+   * first thread to get the write lock writes all the changes submitted until then, and the threads
+   * whose changes it wrote simply return once it is done.
+   */
+  private static class PendingStateUpdates {
+    private final String collectionName;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // guarded by this
+    private StateUpdateBatch batch = new StateUpdateBatch();
+
+    PendingStateUpdates(String collectionName) {
+      this.collectionName = collectionName;
+    }
+
+    void execute(ZkNodeProps message, SolrCloudManager scm, ZkStateReader zkStateReader)
+        throws KeeperException, InterruptedException {
+      StateUpdateBatch myBatch;
+      synchronized (this) {
+        myBatch = batch;
+        myBatch.messages.add(message);
+      }
+      writeLock.lockInterruptibly();
+      try {
+        if (!myBatch.done) {
+          synchronized (this) {
+            batch = new StateUpdateBatch();
+          }
+          myBatch.write(collectionName, scm, zkStateReader);
+        } else if (myBatch.failure instanceof KeeperException) {
+          throw (KeeperException) myBatch.failure;
+        } else if (myBatch.failure != null) {
+          throw new SolrException(
+              SolrException.ErrorCode.SERVER_ERROR,
+              "Failed to update the state of collection " + collectionName,
+              myBatch.failure);
+        }
+      } finally {
+        writeLock.unlock();
+      }
+    }
+  }
+
+  /** State changes of a collection to be written in a single update. Guarded by the write lock */
+  private static class StateUpdateBatch {
+    final List<ZkNodeProps> messages = new ArrayList<>();
+    boolean done = false;
+    Exception failure = null;
+
+    void write(String collectionName, SolrCloudManager scm, ZkStateReader zkStateReader)
+        throws KeeperException, InterruptedException {
+      try {
+        boolean[] superseded = StateUpdateCoalescer.findSuperseded(messages);
+        StateChangeRecorder scr = new StateChangeRecorder(collectionName, false);
+        for (int i = 0; i < messages.size(); i++) {
+          if (!superseded[i]) {
+            scr.record(MutatingCommand.ReplicaSetState, messages.get(i));
+          }
+        }
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "Writing {} replica state changes of collection {} ({} superseded)",
+              messages.size(),
+              collectionName,
+              StateUpdateCoalescer.count(superseded));
+        }
+        scr.executeStateUpdates(scm, zkStateReader);
+      } catch (KeeperException | InterruptedException | RuntimeException e) {
+        failure = e;
+        throw e;
+      } finally {
+        done = true;
+      }
+    }
+  }
+
   /**
    * This class handles the changes to be made as a result of a {@link OverseerAction#DOWNNODE}
    * event.
@@ -18,10 +18,13 @@ package org.apache.solr.cloud;
 
 import static org.apache.solr.common.params.CommonParams.ID;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -31,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import org.apache.lucene.util.Version;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -47,6 +51,7 @@ import org.apache.solr.cloud.overseer.NodeMutator;
 import org.apache.solr.cloud.overseer.OverseerAction;
 import org.apache.solr.cloud.overseer.ReplicaMutator;
 import org.apache.solr.cloud.overseer.SliceMutator;
+import org.apache.solr.cloud.overseer.StateUpdateCoalescer;
 import org.apache.solr.cloud.overseer.ZkStateWriter;
 import org.apache.solr.cloud.overseer.ZkWriteCommand;
 import org.apache.solr.common.AlreadyClosedException;
@@ -196,6 +201,9 @@ public class Overseer implements SolrCloseable {
     private final Stats zkStats;
 
     private SolrMetricsContext clusterStateUpdaterMetricContext;
+    private final Histogram stateUpdateBatchSize;
+    private final Counter coalescedStateUpdates;
+    private final Timer stateUpdateLatency;
 
     private boolean isClosed = false;
 
@@ -216,6 +224,11 @@ public class Overseer implements SolrCloseable {
           true,
           "stateUpdateQueueSize",
           "queue");
+      stateUpdateBatchSize =
+          clusterStateUpdaterMetricContext.histogram("stateUpdateBatchSize", "queue");
+      coalescedStateUpdates =
+          clusterStateUpdaterMetricContext.counter("coalescedStateUpdates", "queue");
+      stateUpdateLatency = clusterStateUpdaterMetricContext.timer("stateUpdateLatency", "queue");
     }
 
     public Stats getStateUpdateQueueStats() {
@@ -331,19 +344,35 @@ public class Overseer implements SolrCloseable {
           }
           try {
             Set<String> processedNodes = new HashSet<>();
+            List<Long> peekTimes = new ArrayList<>();
             while (queue != null && !queue.isEmpty()) {
+              final long peekTime = System.nanoTime();
+              List<ZkNodeProps> messages = new ArrayList<>(queue.size());
               for (Pair<String, byte[]> head : queue) {
-                byte[] data = head.second();
-                final ZkNodeProps message = ZkNodeProps.load(data);
+                messages.add(ZkNodeProps.load(head.second()));
+              }
+              // state changes of a replica superseded by a later one in the batch can be skipped
+              boolean[] superseded = StateUpdateCoalescer.findSuperseded(messages);
+              stateUpdateBatchSize.update(messages.size());
+              coalescedStateUpdates.inc(StateUpdateCoalescer.count(superseded));
+              int i = 0;
+              for (Pair<String, byte[]> head : queue) {
+                final ZkNodeProps message = messages.get(i);
+                final boolean skip = superseded[i++];
                 if (log.isDebugEnabled()) {
                   log.debug(
-                      "processMessage: queueSize: {}, message = {}",
+                      "processMessage: queueSize: {}, superseded: {}, message = {}",
                       stateUpdateQueue.getZkStats().getQueueLength(),
+                      skip,
                       message);
                 }
 
                 processedNodes.add(head.first());
+                peekTimes.add(peekTime);
                 fallbackQueueSize = processedNodes.size();
+                if (skip) {
+                  continue;
+                }
                 // force flush to ZK after each message because there is no fallback if workQueue
                 // items
                 // are removed from workQueue but fail to be written to ZK
@@ -359,10 +388,7 @@ public class Overseer implements SolrCloseable {
                         clusterState,
                         zkStateWriter,
                         true,
-                        () -> {
-                          stateUpdateQueue.remove(processedNodes);
-                          processedNodes.clear();
-                        });
+                        () -> removeProcessedNodes(processedNodes, peekTimes));
               }
               if (isClosed) break;
               // if an event comes in the next 100ms batch it together
@@ -376,8 +402,7 @@ public class Overseer implements SolrCloseable {
             // until there are more items in the main queue
             clusterState = zkStateWriter.writePendingUpdates();
             // clean work queue
-            stateUpdateQueue.remove(processedNodes);
-            processedNodes.clear();
+            removeProcessedNodes(processedNodes, peekTimes);
           } catch (KeeperException.SessionExpiredException e) {
             log.warn("Solr cannot talk to ZK, exiting Overseer main queue loop", e);
             return;
@@ -400,6 +425,21 @@ public class Overseer implements SolrCloseable {
       }
     }
 
+    /**
+     * Removes the messages whose changes have been written to ZooKeeper from the state update
+     * queue, and records how long it took to process them since they were read from the queue.
+     */
+    private void removeProcessedNodes(Set<String> processedNodes, List<Long> peekTimes)
+        throws KeeperException, InterruptedException {
+      stateUpdateQueue.remove(processedNodes);
+      long now = System.nanoTime();
+      for (long peekTime : peekTimes) {
+        stateUpdateLatency.update(now - peekTime, TimeUnit.NANOSECONDS);
+      }
+      processedNodes.clear();
+      peekTimes.clear();
+    }
+
     // Return true whenever the exception thrown by ZkStateWriter is correspond
     // to a invalid state or 'bad' message (in this case, we should remove that message from queue)
     private boolean isBadMessage(Exception e) {
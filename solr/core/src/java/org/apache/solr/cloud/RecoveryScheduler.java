@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import com.codahale.metrics.Timer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node level scheduler of the full recoveries (i.e. index replications) of the replicas of a node,
+ * so that a node rejoining the cluster doesn't saturate its disks and network, and those of the
+ * leaders, by recovering all of its replicas at once.
+ *
+ * <ul>
+ *   <li>At most <code>maxConcurrentFullRecoveries</code> replicas replicate their index at the
+ *       same time. The others wait in a queue, which is ordered by the number of active replicas of
+ *       their shard, evaluated when a slot frees up, so that the shards which are the least
+ *       available recover first.
+ *   <li>All the index fetches of the node share a bandwidth budget of <code>
+ *       recoveryMaxMBPerSec</code>, see {@link #getRateLimiter()}.
+ * </ul>
+ *
+ * Both limits are configured in the <code>&lt;solrcloud&gt;</code> section of <code>solr.xml
+ * </code>, and are disabled by default. Peer sync recoveries are not throttled, since they only
+ * fetch a few updates.
+ */
+public class RecoveryScheduler implements SolrMetricProducer, Closeable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // how often waiting recoveries check whether they have been cancelled
+  private static final long CANCEL_CHECK_INTERVAL_MS = 1000;
+
+  private final int maxConcurrent;
+  private final RateLimiter rateLimiter;
+
+  private final List<Waiter> waiters = new ArrayList<>();
+  private int running = 0;
+  private long sequence = 0;
+  private boolean closed = false;
+
+  private SolrMetricsContext solrMetricsContext;
+  private Timer waitTimer;
+
+  private static class Waiter {
+    final String coreName;
+    final IntSupplier priority;
+    final long sequence;
+    boolean granted = false;
+
+    Waiter(String coreName, IntSupplier priority, long sequence) {
+      this.coreName = coreName;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+  }
+
+  /** A slot to run a full recovery, which must be closed once the recovery is done. */
+  public interface Permit extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * @param maxConcurrent maximum number of concurrent full recoveries, unlimited if not positive
+   * @param maxMBPerSec bandwidth shared by all the index fetches, unlimited if not positive
+   */
+  public RecoveryScheduler(int maxConcurrent, double maxMBPerSec) {
+    this.maxConcurrent = maxConcurrent;
+    this.rateLimiter = maxMBPerSec > 0 ? new RateLimiter.SimpleRateLimiter(maxMBPerSec) : null;
+  }
+
+  /**
+   * Waits for a slot to run a full recovery of the given core.
+   *
+   * @param coreName name of the recovering core, for logging
+   * @param priority recoveries with the lowest value go first, e.g. the number of active replicas
+   *     of the shard. Evaluated each time a slot is handed out.
+   * @param cancelled checked while waiting, the recovery gives up its place if it returns true
+   * @return the permit, or null if the recovery was cancelled or the scheduler closed
+   */
+  public Permit acquire(String coreName, IntSupplier priority, BooleanSupplier cancelled)
+      throws InterruptedException {
+    if (maxConcurrent <= 0) {
+      return () -> {};
+    }
+    final long start = System.nanoTime();
+    final Waiter waiter;
+    synchronized (this) {
+      waiter = new Waiter(coreName, priority, sequence++);
+      waiters.add(waiter);
+      dispatch();
+      if (!waiter.granted) {
+        log.info(
+            "Full recovery of core {} is queued, {} recoveries running, {} queued",
+            coreName,
+            running,
+            waiters.size());
+      }
+      try {
+        while (!waiter.granted) {
+          if (closed || cancelled.getAsBoolean()) {
+            waiters.remove(waiter);
+            return null;
+          }
+          wait(CANCEL_CHECK_INTERVAL_MS);
+        }
+      } catch (InterruptedException e) {
+        if (waiter.granted) {
+          release();
+        } else {
+          waiters.remove(waiter);
+        }
+        throw e;
+      }
+    }
+    long waited = System.nanoTime() - start;
+    if (waitTimer != null) {
+      waitTimer.update(waited, TimeUnit.NANOSECONDS);
+    }
+    if (log.isInfoEnabled()) {
+      log.info(
+          "Starting full recovery of core {} after waiting {} ms",
+          coreName,
+          TimeUnit.NANOSECONDS.toMillis(waited));
+    }
+    return new Permit() {
+      private boolean released = false;
+
+      @Override
+      public void close() {
+        if (!released) {
+          released = true;
+          release();
+        }
+      }
+    };
+  }
+
+  private synchronized void release() {
+    running--;
+    dispatch();
+  }
+
+  // hands out the free slots to the waiters with the lowest priority value, in arrival order
+  private void dispatch() {
+    assert Thread.holdsLock(this);
+    boolean granted = false;
+    while (running < maxConcurrent && !waiters.isEmpty()) {
+      Waiter next = null;
+      int nextPriority = 0;
+      for (Waiter waiter : waiters) {
+        int priority = priorityOf(waiter);
+        if (next == null
+            || priority < nextPriority
+            || (priority == nextPriority && waiter.sequence < next.sequence)) {
+          next = waiter;
+          nextPriority = priority;
+        }
+      }
+      waiters.remove(next);
+      next.granted = true;
+      running++;
+      granted = true;
+    }
+    if (granted) {
+      notifyAll();
+    }
+  }
+
+  private static int priorityOf(Waiter waiter) {
+    try {
+      return waiter.priority.getAsInt();
+    } catch (Exception e) {
+      log.warn("Unable to compute the recovery priority of core {}", waiter.coreName, e);
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Rate limiter shared by all the index fetches of the node, or null if their bandwidth is not
+   * limited.
+   */
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  public int getMaxConcurrent() {
+    return maxConcurrent;
+  }
+
+  /** Number of full recoveries waiting for a slot. */
+  public synchronized int getQueueSize() {
+    return waiters.size();
+  }
+
+  /** Number of full recoveries which hold a slot. */
+  public synchronized int getRunning() {
+    return running;
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    solrMetricsContext = parentContext.getChildContext(this);
+    String category = SolrInfoBean.Category.CONTAINER.toString();
+    solrMetricsContext.gauge(this::getQueueSize, true, "queued", category, scope);
+    solrMetricsContext.gauge(this::getRunning, true, "running", category, scope);
+    solrMetricsContext.gauge(() -> maxConcurrent, true, "maxConcurrent", category, scope);
+    waitTimer = solrMetricsContext.timer("wait", category, scope);
+  }
+
+  @Override
+  public SolrMetricsContext getSolrMetricsContext() {
+    return solrMetricsContext;
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    SolrMetricProducer.super.close();
+  }
+}
@@ -22,6 +22,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -37,6 +38,7 @@ import org.apache.solr.client.solrj.request.CoreAdminRequest.WaitForState;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
@@ -241,7 +243,14 @@ public class RecoveryStrategy implements Runnable, Closeable {
         ReplicationHandler.SKIP_COMMIT_ON_LEADER_VERSION_ZERO, replicaType == Replica.Type.TLOG);
 
     if (isClosed()) return; // we check closed on return
-    boolean success = replicationHandler.doFetch(solrParams, false).getSuccessful();
+    boolean success;
+    RecoveryScheduler.Permit permit = acquireFullRecoveryPermit(core);
+    if (permit == null) return; // closed while waiting for our turn
+    try {
+      success = replicationHandler.doFetch(solrParams, false).getSuccessful();
+    } finally {
+      permit.close();
+    }
 
     if (!success) {
       throw new SolrException(ErrorCode.SERVER_ERROR, "Replication for recovery failed.");
@@ -278,6 +287,40 @@ public class RecoveryStrategy implements Runnable, Closeable {
     }
   }
 
+  /**
+   * Waits for the node's {@link RecoveryScheduler} to allow this core to replicate its index. The
+   * shards with the fewest active replicas go first.
+   *
+   * @return the permit to close once replication is done, or null if recovery was cancelled
+   */
+  private RecoveryScheduler.Permit acquireFullRecoveryPermit(SolrCore core) {
+    RecoveryScheduler scheduler = cc.getRecoveryScheduler();
+    if (scheduler == null) {
+      return () -> {};
+    }
+    CloudDescriptor cloudDesc = core.getCoreDescriptor().getCloudDescriptor();
+    String collection = cloudDesc.getCollectionName();
+    String shard = cloudDesc.getShardId();
+    try {
+      return scheduler.acquire(
+          coreName,
+          () -> {
+            ClusterState clusterState = zkStateReader.getClusterState();
+            DocCollection docCollection = clusterState.getCollectionOrNull(collection);
+            Slice slice = docCollection == null ? null : docCollection.getSlice(shard);
+            if (slice == null) {
+              return Integer.MAX_VALUE;
+            }
+            Set<String> liveNodes = clusterState.getLiveNodes();
+            return slice.getReplicas(r -> r.isActive(liveNodes)).size();
+          },
+          () -> isClosed() || cc.isShutDown());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(ErrorCode.SERVER_ERROR, "Interrupted while waiting to recover", e);
+    }
+  }
+
   private final void commitOnLeader(String leaderUrl) throws SolrServerException, IOException {
     try (HttpSolrClient client = recoverySolrClientBuilder(leaderUrl).build()) {
       UpdateRequest ureq = new UpdateRequest();
@@ -479,6 +479,8 @@ public class ZkController implements Closeable {
             zkACLProvider,
             cc::isShutDown);
 
+    zkClient.setMinStateByteLenForCompression(cloudConfig.getMinStateByteLenForCompression());
+
     // Refuse to start if ZK has a non empty /clusterstate.json
     checkNoOldClusterstate(zkClient);
 
@@ -1748,11 +1750,8 @@ public class ZkController implements Closeable {
       DocCollection coll = zkStateReader.getCollection(collection);
       if (forcePublish || updateStateDotJson(coll, coreNodeName)) {
         if (distributedClusterStateUpdater.isDistributedStateUpdate()) {
-          distributedClusterStateUpdater.doSingleStateUpdate(
-              DistributedClusterStateUpdater.MutatingCommand.ReplicaSetState,
-              m,
-              getSolrCloudManager(),
-              zkStateReader);
+          distributedClusterStateUpdater.doReplicaStateUpdate(
+              m, getSolrCloudManager(), zkStateReader);
         } else {
           overseerJobQueue.offer(Utils.toJSON(m));
         }
@@ -2921,7 +2920,8 @@ public class ZkController implements Closeable {
    * registered
    */
   private static void ensureRegisteredSearcher(SolrCore core) throws InterruptedException {
-    if (!core.getSolrConfig().useColdSearcher) {
+    // with lazySearcher, the replica is published as active and opens its searcher on first use
+    if (!core.getSolrConfig().useColdSearcher && !core.isSearcherDeferred()) {
       RefCounted<SolrIndexSearcher> registeredSearcher = core.getRegisteredSearcher();
       if (registeredSearcher != null) {
         if (log.isDebugEnabled()) {
@@ -418,8 +418,11 @@ public class CollApiCmds {
             SolrException.ErrorCode.SERVER_ERROR, "Failed to modify collection", e);
       }
 
-      // if switching to/from read-only mode or configName is not null reload the collection
-      if (message.keySet().contains(ZkStateReader.READ_ONLY) || configName != null) {
+      // if switching to/from read-only or bulk load mode or configName is not null reload the
+      // collection
+      if (message.keySet().contains(ZkStateReader.READ_ONLY)
+          || message.keySet().contains(ZkStateReader.BULK_LOAD)
+          || configName != null) {
         new ReloadCollectionCmd(ccc)
             .call(clusterState, new ZkNodeProps(NAME, collectionName), results);
       }
@@ -172,10 +172,11 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
         ZkWriteCommand command =
             new ClusterStateMutator(ccc.getSolrCloudManager())
                 .createCollection(clusterState, message);
-        byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, command.collection));
-        ccc.getZkStateReader()
-            .getZkClient()
-            .create(collectionPath, data, CreateMode.PERSISTENT, true);
+        SolrZkClient zkClient = ccc.getZkStateReader().getZkClient();
+        byte[] data =
+            zkClient.compressState(
+                Utils.toJSON(Collections.singletonMap(collectionName, command.collection)));
+        zkClient.create(collectionPath, data, CreateMode.PERSISTENT, true);
         clusterState = clusterState.copyWith(collectionName, command.collection);
         newColl = command.collection;
         // When cluster state updates are handled by Overseer, ask it to load that collection it
@@ -321,9 +322,12 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
           // update strategies
           ZkWriteCommand command =
               new SliceMutator(ccc.getSolrCloudManager()).addReplica(clusterState, props);
-          byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, command.collection));
+          SolrZkClient zkClient = ccc.getZkStateReader().getZkClient();
+          byte[] data =
+              zkClient.compressState(
+                  Utils.toJSON(Collections.singletonMap(collectionName, command.collection)));
           //        log.info("collection updated : {}", new String(data, StandardCharsets.UTF_8));
-          ccc.getZkStateReader().getZkClient().setData(collectionPath, data, true);
+          zkClient.setData(collectionPath, data, true);
           clusterState = clusterState.copyWith(collectionName, command.collection);
           newColl = command.collection;
         } else {
@@ -437,6 +437,10 @@ public class SplitShardCmd implements CollApiCmds.CollectionApiCommand {
       ModifiableSolrParams params = new ModifiableSolrParams();
       params.set(CoreAdminParams.ACTION, CoreAdminParams.CoreAdminAction.SPLIT.toString());
       params.set(CommonAdminParams.SPLIT_METHOD, splitMethod.toLower());
+      if (message.containsKey(CommonAdminParams.SPLIT_THREADS)) {
+        params.set(
+            CommonAdminParams.SPLIT_THREADS, message.getStr(CommonAdminParams.SPLIT_THREADS));
+      }
       params.set(CoreAdminParams.CORE, parentShardLeader.getStr("core"));
       for (int i = 0; i < subShardNames.size(); i++) {
         String subShardName = subShardNames.get(i);
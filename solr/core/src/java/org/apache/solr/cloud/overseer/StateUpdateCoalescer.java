@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud.overseer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.solr.cloud.Overseer;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.ZkNodeProps;
+import org.apache.solr.common.cloud.ZkStateReader;
+
+/**
+ * Finds the replica state updates ({@link OverseerAction#STATE} messages) of a batch of cluster
+ * state update messages that do not need to be applied, because a later message of the batch sets
+ * the state of the same replica again.
+ *
+ * <p>A state message rebuilds the replica from the properties of the message, so when a replica
+ * goes through several states in quick succession (e.g. <code>down</code>, <code>recovering</code>
+ * and <code>active</code> while a node restarts) only the last state message needs to be
+ * processed. To keep the outcome identical to processing every message in order:
+ *
+ * <ul>
+ *   <li>both messages must target the same collection, shard, replica, node and core, with the
+ *       same <code>force_set_state</code> and <code>numShards</code> properties,
+ *   <li>no other kind of message for the same collection (or for no particular collection, such as
+ *       {@link OverseerAction#DOWNNODE}) may come between them,
+ *   <li>a message setting a replica {@link Replica.State#ACTIVE} is never skipped, since becoming
+ *       active may trigger other changes (e.g. completing a shard split).
+ * </ul>
+ */
+public class StateUpdateCoalescer {
+
+  private StateUpdateCoalescer() {}
+
+  /**
+   * @param messages the cluster state update messages, in the order they are to be processed
+   * @return for each message, true if it can be skipped since a later message supersedes it
+   */
+  public static boolean[] findSuperseded(List<ZkNodeProps> messages) {
+    boolean[] superseded = new boolean[messages.size()];
+    // replicas for which a state message was seen later in the batch, by collection
+    Map<String, Set<List<Object>>> laterStates = new HashMap<>();
+    for (int i = messages.size() - 1; i >= 0; i--) {
+      ZkNodeProps message = messages.get(i);
+      String collection = message.getStr(ZkStateReader.COLLECTION_PROP);
+      if (!OverseerAction.STATE.isEqual(message.getStr(Overseer.QUEUE_OPERATION))) {
+        // an earlier state message can't be moved past this one
+        if (collection == null) {
+          laterStates.clear();
+        } else {
+          laterStates.remove(collection);
+        }
+        continue;
+      }
+      List<Object> replicaKey = replicaKey(message);
+      if (collection == null || replicaKey == null) {
+        continue;
+      }
+      Set<List<Object>> replicas = laterStates.computeIfAbsent(collection, k -> new HashSet<>());
+      if (!replicas.add(replicaKey)
+          && !Replica.State.ACTIVE.toString().equals(message.getStr(ZkStateReader.STATE_PROP))) {
+        superseded[i] = true;
+      }
+    }
+    return superseded;
+  }
+
+  /** Number of messages flagged as superseded */
+  public static int count(boolean[] superseded) {
+    int count = 0;
+    for (boolean s : superseded) {
+      if (s) count++;
+    }
+    return count;
+  }
+
+  private static List<Object> replicaKey(ZkNodeProps message) {
+    String coreNodeName = message.getStr(ZkStateReader.CORE_NODE_NAME_PROP);
+    if (coreNodeName == null) {
+      // the replica will only be assigned a name while processing the message
+      return null;
+    }
+    return List.of(
+        coreNodeName,
+        Objects.toString(message.getStr(ZkStateReader.SHARD_ID_PROP)),
+        Objects.toString(message.getStr(ZkStateReader.NODE_NAME_PROP)),
+        Objects.toString(message.getStr(ZkStateReader.CORE_NAME_PROP)),
+        Objects.toString(message.get(ZkStateReader.FORCE_SET_STATE_PROP)),
+        Objects.toString(message.get(ZkStateReader.NUM_SHARDS_PROP)));
+  }
+}
@@ -52,6 +52,12 @@ public class CloudConfig {
 
   private final boolean useDistributedCollectionConfigSetExecution;
 
+  private final int minStateByteLenForCompression;
+
+  private final int maxConcurrentFullRecoveries;
+
+  private final double recoveryMaxMBPerSec;
+
   CloudConfig(
       String zkHost,
       int zkClientTimeout,
@@ -68,7 +74,10 @@ public class CloudConfig {
       String pkiHandlerPrivateKeyPath,
       String pkiHandlerPublicKeyPath,
       boolean useDistributedClusterStateUpdates,
-      boolean useDistributedCollectionConfigSetExecution) {
+      boolean useDistributedCollectionConfigSetExecution,
+      int minStateByteLenForCompression,
+      int maxConcurrentFullRecoveries,
+      double recoveryMaxMBPerSec) {
     this.zkHost = zkHost;
     this.zkClientTimeout = zkClientTimeout;
     this.hostPort = hostPort;
@@ -85,6 +94,9 @@ public class CloudConfig {
     this.pkiHandlerPublicKeyPath = pkiHandlerPublicKeyPath;
     this.useDistributedClusterStateUpdates = useDistributedClusterStateUpdates;
     this.useDistributedCollectionConfigSetExecution = useDistributedCollectionConfigSetExecution;
+    this.minStateByteLenForCompression = minStateByteLenForCompression;
+    this.maxConcurrentFullRecoveries = maxConcurrentFullRecoveries;
+    this.recoveryMaxMBPerSec = recoveryMaxMBPerSec;
 
     if (useDistributedCollectionConfigSetExecution && !useDistributedClusterStateUpdates) {
       throw new SolrException(
@@ -165,6 +177,21 @@ public class CloudConfig {
     return useDistributedCollectionConfigSetExecution;
   }
 
+  /** Minimum size of the state.json of a collection for it to be compressed, -1 if disabled */
+  public int getMinStateByteLenForCompression() {
+    return minStateByteLenForCompression;
+  }
+
+  /** Maximum number of replicas of the node doing a full recovery at once, -1 if unlimited */
+  public int getMaxConcurrentFullRecoveries() {
+    return maxConcurrentFullRecoveries;
+  }
+
+  /** Bandwidth shared by the index fetches of the node, in MB/s, -1 if unlimited */
+  public double getRecoveryMaxMBPerSec() {
+    return recoveryMaxMBPerSec;
+  }
+
   public static class CloudConfigBuilder {
 
     private static final int DEFAULT_ZK_CLIENT_TIMEOUT = 45000;
@@ -190,6 +217,9 @@ public class CloudConfig {
     private String pkiHandlerPublicKeyPath;
     private boolean useDistributedClusterStateUpdates = false;
     private boolean useDistributedCollectionConfigSetExecution = false;
+    private int minStateByteLenForCompression = -1;
+    private int maxConcurrentFullRecoveries = -1;
+    private double recoveryMaxMBPerSec = -1;
 
     public CloudConfigBuilder(String hostName, int hostPort) {
       this(hostName, hostPort, null);
@@ -270,6 +300,22 @@ public class CloudConfig {
       return this;
     }
 
+    public CloudConfigBuilder setMinStateByteLenForCompression(
+        int minStateByteLenForCompression) {
+      this.minStateByteLenForCompression = minStateByteLenForCompression;
+      return this;
+    }
+
+    public CloudConfigBuilder setMaxConcurrentFullRecoveries(int maxConcurrentFullRecoveries) {
+      this.maxConcurrentFullRecoveries = maxConcurrentFullRecoveries;
+      return this;
+    }
+
+    public CloudConfigBuilder setRecoveryMaxMBPerSec(double recoveryMaxMBPerSec) {
+      this.recoveryMaxMBPerSec = recoveryMaxMBPerSec;
+      return this;
+    }
+
     public CloudConfig build() {
       return new CloudConfig(
           zkHost,
@@ -287,7 +333,10 @@ public class CloudConfig {
           pkiHandlerPrivateKeyPath,
           pkiHandlerPublicKeyPath,
           useDistributedClusterStateUpdates,
-          useDistributedCollectionConfigSetExecution);
+          useDistributedCollectionConfigSetExecution,
+          minStateByteLenForCompression,
+          maxConcurrentFullRecoveries,
+          recoveryMaxMBPerSec);
     }
   }
 }
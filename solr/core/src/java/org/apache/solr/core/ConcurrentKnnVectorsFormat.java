@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import com.codahale.metrics.Timer;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.KnnVectorsReader;
+import org.apache.lucene.codecs.KnnVectorsWriter;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IOContext;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps the {@link KnnVectorsFormat} of a single vector field to time how long writing its vectors
+ * and building its HNSW graph takes, for each flushed or merged segment. The indexed files are the
+ * ones of the wrapped format, which has the same name and reads them back.
+ *
+ * <p>When an executor is given, the graphs of flushed segments are built on the executor and {@link
+ * KnnVectorsWriter#finish()} waits for them, so that the graphs of the different vector fields of a
+ * segment are built concurrently. This relies on each field getting its own instance of this
+ * format, so that {@link org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat} writes each
+ * field in its own files. The graphs of merged segments are always built in the merging thread:
+ * the outputs of a merge are rate limited by the merge scheduler, which only lets the thread that
+ * owns the merge pause.
+ */
+final class ConcurrentKnnVectorsFormat extends KnnVectorsFormat {
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final KnnVectorsFormat delegate;
+  private final ExecutorService executor;
+  private final Timer flushTimer;
+  private final Timer mergeTimer;
+
+  /**
+   * @param delegate the format that writes and reads the vectors
+   * @param executor the executor building the graphs of flushed segments, or null to build them in
+   *     the indexing thread
+   * @param flushTimer times the fields written by flushes
+   * @param mergeTimer times the fields written by merges
+   */
+  ConcurrentKnnVectorsFormat(
+      KnnVectorsFormat delegate, ExecutorService executor, Timer flushTimer, Timer mergeTimer) {
+    super(delegate.getName());
+    this.delegate = delegate;
+    this.executor = executor;
+    this.flushTimer = flushTimer;
+    this.mergeTimer = mergeTimer;
+  }
+
+  KnnVectorsFormat getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public KnnVectorsWriter fieldsWriter(SegmentWriteState state) throws IOException {
+    boolean merge = state.context.context == IOContext.Context.MERGE;
+    return new ConcurrentKnnVectorsWriter(
+        delegate.fieldsWriter(state),
+        state,
+        merge ? mergeTimer : flushTimer,
+        merge ? null : executor);
+  }
+
+  @Override
+  public KnnVectorsReader fieldsReader(SegmentReadState state) throws IOException {
+    return delegate.fieldsReader(state);
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrentKnnVectorsFormat(" + delegate + ")";
+  }
+
+  private class ConcurrentKnnVectorsWriter extends KnnVectorsWriter {
+    private final KnnVectorsWriter writer;
+    private final SegmentWriteState state;
+    private final Timer timer;
+    private final ExecutorService executor;
+    private Future<?> pending;
+
+    ConcurrentKnnVectorsWriter(
+        KnnVectorsWriter writer, SegmentWriteState state, Timer timer, ExecutorService executor) {
+      this.writer = writer;
+      this.state = state;
+      this.timer = timer;
+      this.executor = executor;
+    }
+
+    @Override
+    public void writeField(FieldInfo fieldInfo, KnnVectorsReader knnVectorsReader)
+        throws IOException {
+      awaitPending();
+      if (executor != null) {
+        try {
+          pending =
+              executor.submit(
+                  () -> {
+                    timedWriteField(fieldInfo, knnVectorsReader);
+                    return null;
+                  });
+          return;
+        } catch (RejectedExecutionException e) {
+          // the core is closing, write the field in this thread instead
+        }
+      }
+      timedWriteField(fieldInfo, knnVectorsReader);
+    }
+
+    private void timedWriteField(FieldInfo fieldInfo, KnnVectorsReader knnVectorsReader)
+        throws IOException {
+      long start = System.nanoTime();
+      writer.writeField(fieldInfo, knnVectorsReader);
+      long elapsed = System.nanoTime() - start;
+      timer.update(elapsed, TimeUnit.NANOSECONDS);
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Wrote the vectors of field {} in segment {} ({}) in {} ms",
+            fieldInfo.name,
+            state.segmentInfo.name,
+            state.context.context,
+            TimeUnit.NANOSECONDS.toMillis(elapsed));
+      }
+    }
+
+    private void awaitPending() throws IOException {
+      if (pending == null) {
+        return;
+      }
+      try {
+        pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(
+            ErrorCode.SERVER_ERROR, "Interrupted while writing the vectors", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new SolrException(ErrorCode.SERVER_ERROR, cause);
+      } finally {
+        pending = null;
+      }
+    }
+
+    @Override
+    public void finish() throws IOException {
+      awaitPending();
+      writer.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (pending != null) {
+          // finish() wasn't called, the segment is aborted but the files can't be closed while
+          // the graph is still being written
+          try {
+            pending.get();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (ExecutionException e) {
+            // the segment is aborted anyway
+          }
+        }
+      } finally {
+        pending = null;
+        writer.close();
+      }
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.apache.solr.common.params.CommonParams.*;
 import static org.apache.solr.core.CorePropertiesLocator.PROPERTIES_FILENAME;
 import static org.apache.solr.security.AuthenticationPlugin.AUTHENTICATION_PLUGIN_PROP;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
@@ -46,7 +47,10 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 import org.apache.commons.lang3.StringUtils;
@@ -68,6 +72,7 @@ import org.apache.solr.client.solrj.util.SolrIdentifierValidator;
 import org.apache.solr.cloud.CloudDescriptor;
 import org.apache.solr.cloud.ClusterSingleton;
 import org.apache.solr.cloud.OverseerTaskQueue;
+import org.apache.solr.cloud.RecoveryScheduler;
 import org.apache.solr.cloud.ZkController;
 import org.apache.solr.cloud.api.collections.DistributedCollectionConfigSetCommandRunner;
 import org.apache.solr.cluster.events.ClusterEventProducer;
@@ -85,6 +90,7 @@ import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Replica.State;
 import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.ObjectCache;
@@ -99,6 +105,7 @@ import org.apache.solr.handler.CollectionBackupsAPI;
 import org.apache.solr.handler.CollectionsAPI;
 import org.apache.solr.handler.RequestHandlerBase;
 import org.apache.solr.handler.SnapShooter;
+import org.apache.solr.handler.admin.ClusterStateVersionsHandler;
 import org.apache.solr.handler.admin.CollectionsHandler;
 import org.apache.solr.handler.admin.ConfigSetsHandler;
 import org.apache.solr.handler.admin.ContainerPluginsApi;
@@ -122,6 +129,8 @@ import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricProducer;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.pkg.PackageLoader;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestHandler;
 import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.search.SolrFieldCacheBean;
@@ -133,7 +142,10 @@ import org.apache.solr.security.HttpClientBuilderPlugin;
 import org.apache.solr.security.PKIAuthenticationPlugin;
 import org.apache.solr.security.PublicKeyHandler;
 import org.apache.solr.security.SecurityPluginHolder;
+import org.apache.solr.update.CommitUpdateCommand;
 import org.apache.solr.update.SolrCoreState;
+import org.apache.solr.update.SolrIndexConfig;
+import org.apache.solr.update.UpdateLog;
 import org.apache.solr.update.UpdateShardHandler;
 import org.apache.solr.util.OrderedExecutor;
 import org.apache.solr.util.RefCounted;
@@ -207,6 +219,19 @@ public class CoreContainer {
   protected volatile LogWatcher<?> logging = null;
 
   private volatile CloserThread backgroundCloser = null;
+
+  // releases the searchers of cores which have not been searched for searcherMaxIdleTime ms. It's
+  // created when the first core with a searcherMaxIdleTime is registered, guarded by this
+  private ScheduledExecutorService idleSearcherReleaseExecutor = null;
+  private boolean idleSearcherReleaseStopped = false;
+
+  // collects the segments of the graph queries of all the cores in parallel. It's created by the
+  // first graph query with several threads, guarded by this
+  private ExecutorService graphTraversalExecutor = null;
+  private boolean graphTraversalStopped = false;
+
+  // throttles the full recoveries of the replicas of this node, only set in SolrCloud mode
+  private volatile RecoveryScheduler recoveryScheduler = null;
   protected final NodeConfig cfg;
   protected final SolrResourceLoader loader;
 
@@ -671,6 +696,20 @@ public class CoreContainer {
     return replayUpdatesExecutor;
   }
 
+  /**
+   * Returns the executor shared by the graph queries of all the cores to collect segments in
+   * parallel, with one thread per available processor, or null once this container is shut down.
+   */
+  public synchronized ExecutorService getGraphTraversalExecutor() {
+    if (graphTraversalExecutor == null && !graphTraversalStopped) {
+      graphTraversalExecutor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              Runtime.getRuntime().availableProcessors(),
+              new SolrNamedThreadFactory("graphTraversal"));
+    }
+    return graphTraversalExecutor;
+  }
+
   public PackageLoader getPackageLoader() {
     return packageLoader;
   }
@@ -742,6 +781,12 @@ public class CoreContainer {
 
     zkSys.initZooKeeper(this, cfg.getCloudConfig());
     if (isZooKeeperAware()) {
+      recoveryScheduler =
+          new RecoveryScheduler(
+              cfg.getCloudConfig().getMaxConcurrentFullRecoveries(),
+              cfg.getCloudConfig().getRecoveryMaxMBPerSec());
+      recoveryScheduler.initializeMetrics(solrMetricsContext, "recovery");
+
       pkiAuthenticationSecurityBuilder =
           new PKIAuthenticationPlugin(
               this,
@@ -771,6 +816,10 @@ public class CoreContainer {
     createHandler(ZK_PATH, ZookeeperInfoHandler.class.getName(), ZookeeperInfoHandler.class);
     createHandler(
         ZK_STATUS_PATH, ZookeeperStatusHandler.class.getName(), ZookeeperStatusHandler.class);
+    createHandler(
+        STATE_VERSIONS_PATH,
+        ClusterStateVersionsHandler.class.getName(),
+        ClusterStateVersionsHandler.class);
 
     // CoreContainer is initialized enough at this stage so we can set
     // distributedCollectionCommandRunner (the construction of
@@ -927,6 +976,13 @@ public class CoreContainer {
             SolrMetricManager.mkName(
                 "coreLoadExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
     final List<Future<SolrCore>> futures = new ArrayList<>();
+    // time spent by each core loaded on startup opening its index, and registering in ZooKeeper
+    final Timer startupLoadTimer =
+        solrMetricsContext.timer(
+            "load", SolrInfoBean.Category.CONTAINER.toString(), "cores", "startup");
+    final Timer startupRegisterTimer =
+        solrMetricsContext.timer(
+            "register", SolrInfoBean.Category.CONTAINER.toString(), "cores", "startup");
     try {
       List<CoreDescriptor> cds = coresLocator.discover(this);
       cds = CoreSorter.sortCores(this, cds);
@@ -949,17 +1005,30 @@ public class CoreContainer {
                         zkSys.getZkController().throwErrorIfReplicaReplaced(cd);
                       }
                       solrCores.waitAddPendingCoreOps(cd.getName());
+                      Timer.Context loadTime = startupLoadTimer.time();
                       core = createFromDescriptor(cd, false, false);
+                      loadTime.stop();
                     } finally {
                       solrCores.removeFromPendingOps(cd.getName());
                       if (asyncSolrCoreLoad) {
                         solrCores.markCoreAsNotLoading(cd);
                       }
                     }
-                    try {
-                      zkSys.registerInZk(core, true, false);
-                    } catch (RuntimeException e) {
-                      SolrException.log(log, "Error registering SolrCore", e);
+                    if (isZooKeeperAware()) {
+                      // register in the background, overlapping with the loading of other cores
+                      zkSys
+                          .getCoreZkRegisterExecutorService()
+                          .execute(
+                              () -> {
+                                Timer.Context registerTime = startupRegisterTimer.time();
+                                try {
+                                  zkSys.registerInZk(core, false, false);
+                                } catch (RuntimeException e) {
+                                  SolrException.log(log, "Error registering SolrCore", e);
+                                } finally {
+                                  registerTime.stop();
+                                }
+                              });
                     }
                     return core;
                   }));
@@ -1115,12 +1184,24 @@ public class CoreContainer {
     }
 
     ExecutorUtil.shutdownAndAwaitTermination(coreContainerAsyncTaskExecutor);
+    synchronized (this) {
+      idleSearcherReleaseStopped = true;
+      if (idleSearcherReleaseExecutor != null) {
+        ExecutorUtil.shutdownAndAwaitTermination(idleSearcherReleaseExecutor);
+      }
+      graphTraversalStopped = true;
+      if (graphTraversalExecutor != null) {
+        ExecutorUtil.shutdownAndAwaitTermination(graphTraversalExecutor);
+      }
+    }
     ExecutorService customThreadPool =
         ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("closeThreadPool"));
 
     isShutDown = true;
     try {
       if (isZooKeeperAware()) {
+        // wake up the recoveries waiting for their turn, so that they notice they are cancelled
+        IOUtils.closeQuietly(recoveryScheduler);
         cancelCoreRecoveries();
         zkSys.zkController.preClose();
       }
@@ -1341,6 +1422,10 @@ public class CoreContainer {
 
     coreInitFailures.remove(cd.getName());
 
+    if (core.getSolrConfig().searcherMaxIdleTime > 0) {
+      startIdleSearcherRelease();
+    }
+
     if (old == null || old == core) {
       if (log.isDebugEnabled()) {
         log.debug("registering core: {}", cd.getName());
@@ -1569,6 +1654,18 @@ public class CoreContainer {
         core.getUpdateHandler().getUpdateLog().recoverFromLog();
       }
 
+      if (isZooKeeperAware()) {
+        DocCollection docCollection =
+            getZkController()
+                .getClusterState()
+                .getCollectionOrNull(dcore.getCloudDescriptor().getCollectionName());
+        // a core created or restarted while its collection is bulk loaded enters the mode now,
+        // later changes are applied when the property is toggled, which reloads the collection
+        if (docCollection != null && docCollection.isBulkLoad()) {
+          applyBulkLoadMode(core, true);
+        }
+      }
+
       registerCore(dcore, core, publishState, newCollection);
 
       return core;
@@ -1720,6 +1817,40 @@ public class CoreContainer {
     return solrCores.getCores();
   }
 
+  /**
+   * Starts the periodic release of idle searchers, the first time a core with a {@code
+   * searcherMaxIdleTime} is registered.
+   */
+  private synchronized void startIdleSearcherRelease() {
+    if (idleSearcherReleaseExecutor != null || idleSearcherReleaseStopped) {
+      return;
+    }
+    final long idleSearcherCheckInterval =
+        Long.getLong("solr.idleSearcherCheckIntervalMs", 10000L);
+    idleSearcherReleaseExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new SolrNamedThreadFactory("idleSearcherRelease"));
+    idleSearcherReleaseExecutor.scheduleWithFixedDelay(
+        this::releaseIdleSearchers,
+        idleSearcherCheckInterval,
+        idleSearcherCheckInterval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** Releases the searchers of the loaded cores which have been idle for too long. */
+  private void releaseIdleSearchers() {
+    for (SolrCore core : getCores()) {
+      if (core.getSolrConfig().searcherMaxIdleTime <= 0) {
+        continue;
+      }
+      try {
+        core.releaseSearcherIfIdle();
+      } catch (Exception e) {
+        log.warn("Unable to release the idle searcher of core {}", core.getName(), e);
+      }
+    }
+  }
+
   /**
    * Gets the permanent and transient cores that are currently loaded, i.e. cores that have 1:
    * loadOnStartup=true and are either not-transient or, if transient, have been loaded and have not
@@ -1825,6 +1956,35 @@ public class CoreContainer {
     reload(name, null);
   }
 
+  /**
+   * Switches the RAM buffer of the index writer of a core to or from its bulk load size, and hard
+   * commits the documents added in bulk load mode once it is turned off, since the update log
+   * cannot recover them.
+   */
+  private void applyBulkLoadMode(SolrCore core, boolean bulkLoad) throws IOException {
+    SolrIndexConfig indexConfig = core.getSolrConfig().indexConfig;
+    if (indexConfig.bulkLoadRamBufferSizeMB != -1) {
+      RefCounted<IndexWriter> iwRef = core.getSolrCoreState().getIndexWriter(core);
+      try {
+        iwRef
+            .get()
+            .getConfig()
+            .setRAMBufferSizeMB(
+                bulkLoad ? indexConfig.bulkLoadRamBufferSizeMB : indexConfig.ramBufferSizeMB);
+      } finally {
+        iwRef.decref();
+      }
+    }
+
+    UpdateLog ulog = core.getUpdateHandler().getUpdateLog();
+    if (!bulkLoad && ulog != null && ulog.hasUncommittedBulkLoadUpdates()) {
+      log.info("Committing the documents bulk loaded in core {}", core.getName());
+      try (SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams())) {
+        core.getUpdateHandler().commit(new CommitUpdateCommand(req, false));
+      }
+    }
+  }
+
   /**
    * Recreates a SolrCore. While the new core is loading, requests will continue to be dispatched to
    * and processed by the old core
@@ -1884,6 +2044,10 @@ public class CoreContainer {
           }
         }
 
+        if (docCollection != null && !newCore.readOnly) {
+          applyBulkLoadMode(newCore, docCollection.isBulkLoad());
+        }
+
         if (docCollection != null) {
           Replica replica = docCollection.getReplica(cd.getCloudDescriptor().getCoreNodeName());
           assert replica != null : cd.getCloudDescriptor().getCoreNodeName() + " had no replica";
@@ -2271,6 +2435,11 @@ public class CoreContainer {
     return updateShardHandler;
   }
 
+  /** The scheduler of the full recoveries of this node, or null if not in SolrCloud mode. */
+  public RecoveryScheduler getRecoveryScheduler() {
+    return recoveryScheduler;
+  }
+
   public SolrResourceLoader getResourceLoader() {
     return loader;
   }
@@ -35,8 +35,8 @@ import org.apache.solr.common.cloud.Slice;
 
 /**
  * This is a utility class that sorts cores in such a way as to minimize other cores waiting for
- * replicas in the current node. This helps in avoiding leaderVote timeouts happening in other nodes
- * of the cluster
+ * replicas in the current node. Cores of shards without an active leader on another live node come
+ * first. This helps in avoiding leaderVote timeouts happening in other nodes of the cluster
  */
 public final class CoreSorter implements Comparator<CoreDescriptor> {
 
@@ -46,6 +46,12 @@ public final class CoreSorter implements Comparator<CoreDescriptor> {
       (c1, c2) -> {
         if (c1 == null) c1 = zero; // just to avoid  NPE
         if (c2 == null) c2 = zero;
+        // Prioritize shards without an active leader: until one of their replicas is up, they can't
+        // accept any update. The other replicas of the shard may be waiting for this one to elect
+        // a leader.
+        if (c1.withoutActiveLeader != c2.withoutActiveLeader) {
+          return c1.withoutActiveLeader ? -1 : 1;
+        }
         if (c1.totalReplicasInDownNodes < c2.totalReplicasInDownNodes) {
           // Prioritize replicas with least no:of down nodes waiting.
           // It's better to bring up a node that is a member of a shard
@@ -102,6 +108,7 @@ public final class CoreSorter implements Comparator<CoreDescriptor> {
       String sliceName = getShardName(cloudDescriptor);
       if (shardsVsReplicaCounts.containsKey(sliceName)) continue;
       CountsForEachShard c = new CountsForEachShard(0, 0, 0);
+      c.withoutActiveLeader = true;
       for (Replica replica : getReplicas(state, coll, cloudDescriptor.getShardId())) {
         if (replica.getNodeName().equals(myNodeName)) {
           c.myReplicas++;
@@ -109,6 +116,9 @@ public final class CoreSorter implements Comparator<CoreDescriptor> {
           Set<String> liveNodes = state.getLiveNodes();
           if (liveNodes.contains(replica.getNodeName())) {
             c.totalReplicasInLiveNodes++;
+            if (replica.isLeader() && replica.getState() == Replica.State.ACTIVE) {
+              c.withoutActiveLeader = false;
+            }
           } else {
             c.totalReplicasInDownNodes++;
           }
@@ -132,6 +142,8 @@ public final class CoreSorter implements Comparator<CoreDescriptor> {
 
   static class CountsForEachShard {
     public int totalReplicasInDownNodes = 0, myReplicas = 0, totalReplicasInLiveNodes = 0;
+    /** True if no replica of the shard on another live node is an active leader */
+    public boolean withoutActiveLeader = false;
 
     public CountsForEachShard(
         int totalReplicasInDownNodes, int totalReplicasInLiveNodes, int myReplicas) {
@@ -147,7 +159,8 @@ public final class CoreSorter implements Comparator<CoreDescriptor> {
           + " , up :  "
           + totalReplicasInLiveNodes
           + " my : "
-          + myReplicas;
+          + myReplicas
+          + (withoutActiveLeader ? " , no active leader" : "");
     }
 
     // for tests
@@ -158,12 +171,14 @@ public final class CoreSorter implements Comparator<CoreDescriptor> {
       CountsForEachShard that = (CountsForEachShard) o;
       return totalReplicasInDownNodes == that.totalReplicasInDownNodes
           && myReplicas == that.myReplicas
-          && totalReplicasInLiveNodes == that.totalReplicasInLiveNodes;
+          && totalReplicasInLiveNodes == that.totalReplicasInLiveNodes
+          && withoutActiveLeader == that.withoutActiveLeader;
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(totalReplicasInDownNodes, myReplicas, totalReplicasInLiveNodes);
+      return Objects.hash(
+          totalReplicasInDownNodes, myReplicas, totalReplicasInLiveNodes, withoutActiveLeader);
     }
   }
 
@@ -16,9 +16,11 @@
  */
 package org.apache.solr.core;
 
+import com.codahale.metrics.Timer;
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 import org.apache.lucene.backward_codecs.lucene90.Lucene90HnswVectorsFormat;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesFormat;
@@ -29,7 +31,11 @@ import org.apache.lucene.codecs.lucene91.Lucene91Codec.Mode;
 import org.apache.lucene.codecs.lucene91.Lucene91HnswVectorsFormat;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.SolrInfoBean.Category;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
@@ -41,7 +47,11 @@ import org.slf4j.LoggerFactory;
  * Per-field CodecFactory implementation, extends Lucene's and returns postings format
  * implementations according to the schema configuration. <br>
  * Also, a string argument with name <code>compressionMode</code> can be provided to chose between
- * the different compression options for stored fields
+ * the different compression options for stored fields. <br>
+ * An integer argument with name <code>vectorWriterThreads</code> sets how many threads build the
+ * HNSW graphs of the vector fields of a segment concurrently, the graphs are built by the indexing
+ * or merging thread by default. The time spent writing the vectors of each field is recorded in the
+ * <code>INDEX.vectors.flush</code> and <code>INDEX.vectors.merge</code> metrics of the core.
  *
  * @lucene.experimental
  */
@@ -52,10 +62,20 @@ public class SchemaCodecFactory extends CodecFactory implements SolrCoreAware {
 
   public static final Mode SOLR_DEFAULT_COMPRESSION_MODE = Mode.BEST_SPEED;
 
+  /**
+   * Key to use in init arguments to set the number of threads building the HNSW graphs of the
+   * vector fields.
+   */
+  public static final String VECTOR_WRITER_THREADS = "vectorWriterThreads";
+
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private Codec codec;
   private volatile SolrCore core;
+  private int vectorWriterThreads = 1;
+  private ExecutorService vectorWriterExecutor;
+  private Timer vectorFlushTimer;
+  private Timer vectorMergeTimer;
 
   // TODO: we need to change how solr does this?
   // rather than a string like "Direct" you need to be able to pass parameters
@@ -68,6 +88,21 @@ public class SchemaCodecFactory extends CodecFactory implements SolrCoreAware {
   @Override
   public void inform(SolrCore core) {
     this.core = core;
+    SolrMetricsContext metricsContext = core.getSolrMetricsContext();
+    vectorFlushTimer = metricsContext.timer("flush", Category.INDEX.toString(), "vectors");
+    vectorMergeTimer = metricsContext.timer("merge", Category.INDEX.toString(), "vectors");
+    if (vectorWriterThreads > 1) {
+      vectorWriterExecutor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              vectorWriterThreads, new SolrNamedThreadFactory("vectorWriter"));
+      core.addCloseHook(
+          new CloseHook() {
+            @Override
+            public void postClose(SolrCore core) {
+              ExecutorUtil.shutdownAndAwaitTermination(vectorWriterExecutor);
+            }
+          });
+    }
   }
 
   @Override
@@ -92,6 +127,19 @@ public class SchemaCodecFactory extends CodecFactory implements SolrCoreAware {
       compressionMode = SOLR_DEFAULT_COMPRESSION_MODE;
       log.debug("Using default compressionMode: {}", compressionMode);
     }
+    Object vectorWriterThreadsArg = args.get(VECTOR_WRITER_THREADS);
+    if (vectorWriterThreadsArg != null) {
+      try {
+        vectorWriterThreads = Integer.parseInt(vectorWriterThreadsArg.toString());
+      } catch (NumberFormatException e) {
+        vectorWriterThreads = 0;
+      }
+      if (vectorWriterThreads < 1) {
+        throw new SolrException(
+            ErrorCode.SERVER_ERROR,
+            "Invalid " + VECTOR_WRITER_THREADS + ": '" + vectorWriterThreadsArg + "'");
+      }
+    }
     codec =
         new Lucene91Codec(compressionMode) {
           @Override
@@ -120,24 +168,32 @@ public class SchemaCodecFactory extends CodecFactory implements SolrCoreAware {
 
           @Override
           public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+            // a new instance for each field, so that each field is written in its own files
+            return new ConcurrentKnnVectorsFormat(
+                getVectorsFormat(field), vectorWriterExecutor, vectorFlushTimer, vectorMergeTimer);
+          }
+
+          private KnnVectorsFormat getVectorsFormat(String field) {
             final SchemaField schemaField = core.getLatestSchema().getFieldOrNull(field);
             FieldType fieldType = (schemaField == null ? null : schemaField.getType());
             if (fieldType instanceof DenseVectorField) {
               DenseVectorField vectorType = (DenseVectorField) fieldType;
               String knnVectorFormatName = vectorType.getCodecFormat();
+              int maxConn = vectorType.getHnswMaxConn();
+              int beamWidth = vectorType.getHnswBeamWidth();
               if (knnVectorFormatName != null) {
                 if (knnVectorFormatName.equals(Lucene91HnswVectorsFormat.class.getSimpleName())) {
-                  int maxConn = vectorType.getHnswMaxConn();
-                  int beamWidth = vectorType.getHnswBeamWidth();
                   return new Lucene91HnswVectorsFormat(maxConn, beamWidth);
                 } else if (knnVectorFormatName.equals(
                     Lucene90HnswVectorsFormat.class.getSimpleName())) {
-                  int maxConn = vectorType.getHnswMaxConn();
-                  int beamWidth = vectorType.getHnswBeamWidth();
                   return new Lucene90HnswVectorsFormat(maxConn, beamWidth);
                 } else {
                   return KnnVectorsFormat.forName(knnVectorFormatName);
                 }
+              } else if (maxConn != Lucene91HnswVectorsFormat.DEFAULT_MAX_CONN
+                  || beamWidth != Lucene91HnswVectorsFormat.DEFAULT_BEAM_WIDTH) {
+                // graph parameters of the field type without a codec format
+                return new Lucene91HnswVectorsFormat(maxConn, beamWidth);
               }
             }
             return super.getKnnVectorsFormatForField(field);
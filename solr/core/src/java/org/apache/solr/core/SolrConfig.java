@@ -317,6 +317,8 @@ public class SolrConfig implements MapSerializable {
       //    filtOptThreshold = getFloat("query/boolTofilterOptimizer/@threshold",.05f);
 
       useFilterForSortedQuery = get("query").get("useFilterForSortedQuery").boolVal(false);
+      normalizeCacheKeys = get("query").get("normalizeCacheKeys").boolVal(false);
+      lazyFilterRatio = Math.max(0, get("query").get("lazyFilterRatio").intVal(0));
       queryResultWindowSize = Math.max(1, get("query").get("queryResultWindowSize").intVal(1));
       queryResultMaxDocsCached =
           get("query").get("queryResultMaxDocsCached").intVal(Integer.MAX_VALUE);
@@ -340,6 +342,8 @@ public class SolrConfig implements MapSerializable {
       }
       fieldValueCacheConfig = conf;
       useColdSearcher = get("query").get("useColdSearcher").boolVal(false);
+      lazySearcher = get("query").get("lazySearcher").boolVal(false);
+      searcherMaxIdleTime = get("query").get("searcherMaxIdleTime").intVal(-1);
       dataDir = get("dataDir").txt();
       if (dataDir != null && dataDir.length() == 0) dataDir = null;
 
@@ -715,6 +719,8 @@ public class SolrConfig implements MapSerializable {
   public final Map<String, CacheConfig> userCacheConfigs;
   // SolrIndexSearcher - more...
   public final boolean useFilterForSortedQuery;
+  public final boolean normalizeCacheKeys;
+  public final int lazyFilterRatio;
   public final int queryResultWindowSize;
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
@@ -728,6 +734,10 @@ public class SolrConfig implements MapSerializable {
 
   public final int maxWarmingSearchers;
   public final boolean useColdSearcher;
+  // defer opening the first searcher until it is requested
+  public final boolean lazySearcher;
+  // time in ms after which an unused searcher is released, -1 to never release it
+  public final int searcherMaxIdleTime;
   public final Version luceneMatchVersion;
   protected String dataDir;
   public final int slowQueryThresholdMillis; // threshold above which a query is considered slow
@@ -1040,6 +1050,8 @@ public class SolrConfig implements MapSerializable {
     Map<String, Object> m = new LinkedHashMap<>();
     result.put("query", m);
     m.put("useFilterForSortedQuery", useFilterForSortedQuery);
+    m.put("normalizeCacheKeys", normalizeCacheKeys);
+    m.put("lazyFilterRatio", lazyFilterRatio);
     m.put("queryResultWindowSize", queryResultWindowSize);
     m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
     m.put("enableLazyFieldLoading", enableLazyFieldLoading);
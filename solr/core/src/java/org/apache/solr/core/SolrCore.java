@@ -61,6 +61,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -251,6 +252,8 @@ public final class SolrCore implements SolrInfoBean, Closeable {
   private Counter newSearcherCounter;
   private Counter newSearcherMaxReachedCounter;
   private Counter newSearcherOtherErrorsCounter;
+  private Timer coldStartSearcherTimer;
+  private Counter idleReleasedSearcherCounter;
 
   private final String metricTag = SolrMetricProducer.getUniqueMetricTag(this, null);
   private final SolrMetricsContext solrMetricsContext;
@@ -1145,7 +1148,14 @@ public final class SolrCore implements SolrInfoBean, Closeable {
 
       this.updateHandler = initUpdateHandler(updateHandler);
 
-      initSearcher(prev);
+      if (solrConfig.lazySearcher && prev == null) {
+        // the first searcher (and the seeding of the version buckets) is deferred until a searcher
+        // is requested, see getSearcher()
+        searcherDeferred.set(true);
+        versionBucketsSeedPending = true;
+      } else {
+        initSearcher(prev);
+      }
 
       // Initialize the RestManager
       restManager = initRestManager();
@@ -1173,7 +1183,9 @@ public final class SolrCore implements SolrInfoBean, Closeable {
 
       // seed version buckets with max from index during core initialization ... requires a
       // searcher!
-      seedVersionBuckets();
+      if (!versionBucketsSeedPending) {
+        seedVersionBuckets();
+      }
 
       bufferUpdatesIfConstructing(coreDescriptor);
 
@@ -1226,6 +1238,28 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     }
   }
 
+  /**
+   * Seeds the version buckets if it was deferred by {@code lazySearcher}. Called before updates are
+   * versioned, so that they get versions higher than the ones in the index even when no searcher
+   * has been requested yet.
+   */
+  public void ensureVersionBucketsSeeded() {
+    if (!versionBucketsSeedPending) {
+      return;
+    }
+    synchronized (versionBucketsSeedLock) {
+      if (versionBucketsSeedPending && !seedingVersionBuckets) {
+        seedingVersionBuckets = true;
+        try {
+          seedVersionBuckets();
+          versionBucketsSeedPending = false;
+        } finally {
+          seedingVersionBuckets = false;
+        }
+      }
+    }
+  }
+
   /** Set UpdateLog to buffer updates if the slice is in construction. */
   private void bufferUpdatesIfConstructing(CoreDescriptor coreDescriptor) {
 
@@ -1317,6 +1351,9 @@ public final class SolrCore implements SolrInfoBean, Closeable {
         parentContext.counter("maxReached", Category.SEARCHER.toString(), "new");
     newSearcherOtherErrorsCounter =
         parentContext.counter("errors", Category.SEARCHER.toString(), "new");
+    coldStartSearcherTimer = parentContext.timer("coldStart", Category.SEARCHER.toString(), "new");
+    idleReleasedSearcherCounter =
+        parentContext.counter("idleReleased", Category.SEARCHER.toString(), "new");
 
     parentContext.gauge(
         () -> name == null ? parentContext.nullString() : name,
@@ -2055,6 +2092,15 @@ public final class SolrCore implements SolrInfoBean, Closeable {
   private RefCounted<SolrIndexSearcher> realtimeSearcher;
   private Callable<DirectoryReader> newReaderCreator;
 
+  // true while no searcher has been opened because of lazySearcher, or after an idle searcher has
+  // been released. The next request for a searcher opens it and records the cold start time.
+  private final AtomicBoolean searcherDeferred = new AtomicBoolean();
+  private volatile boolean versionBucketsSeedPending;
+  // guards the deferred seeding, which opens a searcher and so may call itself through getSearcher
+  private final Object versionBucketsSeedLock = new Object();
+  private boolean seedingVersionBuckets;
+  private volatile long lastSearcherAccessNanos = System.nanoTime();
+
   // For testing
   boolean areAllSearcherReferencesEmpty() {
     boolean isEmpty;
@@ -2482,6 +2528,31 @@ public final class SolrCore implements SolrInfoBean, Closeable {
       boolean returnSearcher,
       final Future<Void>[] waitSearcher,
       boolean updateHandlerReopens) {
+    lastSearcherAccessNanos = System.nanoTime();
+    if (!searcherDeferred.compareAndSet(true, false)) {
+      return openOrGetSearcher(forceNew, returnSearcher, waitSearcher, updateHandlerReopens);
+    }
+
+    // first searcher requested since the core was loaded lazily or its searcher was released
+    Timer.Context timerContext = coldStartSearcherTimer.time();
+    try {
+      RefCounted<SolrIndexSearcher> holder =
+          openOrGetSearcher(forceNew, returnSearcher, waitSearcher, updateHandlerReopens);
+      ensureVersionBucketsSeeded();
+      return holder;
+    } catch (RuntimeException e) {
+      searcherDeferred.set(true);
+      throw e;
+    } finally {
+      timerContext.stop();
+    }
+  }
+
+  private RefCounted<SolrIndexSearcher> openOrGetSearcher(
+      boolean forceNew,
+      boolean returnSearcher,
+      final Future<Void>[] waitSearcher,
+      boolean updateHandlerReopens) {
     // it may take some time to open an index.... we may need to make
     // sure that two threads aren't trying to open one at the same time
     // if it isn't necessary.
@@ -2834,6 +2905,68 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     }
   }
 
+  /**
+   * Returns true if this core currently has no searcher because of {@code lazySearcher}, or because
+   * its searcher was released after being idle. The next call to {@link #getSearcher()} opens one.
+   */
+  public boolean isSearcherDeferred() {
+    return searcherDeferred.get();
+  }
+
+  /**
+   * Releases the registered and realtime searchers of this core if no searcher has been requested
+   * for at least {@code searcherMaxIdleTime} ms, freeing their caches and readers. Searchers in use
+   * are only closed once their last reference is released. Does nothing if another searcher is
+   * being opened.
+   *
+   * @return true if the searchers were released
+   * @see SolrConfig#searcherMaxIdleTime
+   */
+  public boolean releaseSearcherIfIdle() {
+    final int maxIdleTime = solrConfig.searcherMaxIdleTime;
+    if (maxIdleTime <= 0 || isClosed()) {
+      return false;
+    }
+    final long lastAccess = lastSearcherAccessNanos;
+    final long idleNanos = System.nanoTime() - lastAccess;
+    if (idleNanos < TimeUnit.MILLISECONDS.toNanos(maxIdleTime)) {
+      return false;
+    }
+    // Lock ordering: openSearcherLock before searcherLock. Don't wait for a searcher being opened,
+    // it means the core is not idle.
+    if (!openSearcherLock.tryLock()) {
+      return false;
+    }
+    try {
+      synchronized (searcherLock) {
+        if (_searcher == null || onDeckSearchers > 0 || isClosed()) {
+          return false;
+        }
+        // don't race with a concurrent getSearcher() which updated the access time
+        if (lastSearcherAccessNanos != lastAccess) {
+          return false;
+        }
+        searcherDeferred.set(true);
+        if (realtimeSearcher != null) {
+          realtimeSearcher.decref();
+          realtimeSearcher = null;
+        }
+        _searcher.decref();
+        _searcher = null;
+      }
+    } finally {
+      openSearcherLock.unlock();
+    }
+    idleReleasedSearcherCounter.inc();
+    if (log.isInfoEnabled()) {
+      log.info(
+          "Released searcher of core {} after {} ms of inactivity",
+          getName(),
+          TimeUnit.NANOSECONDS.toMillis(idleNanos));
+    }
+    return true;
+  }
+
   public void execute(SolrRequestHandler handler, SolrQueryRequest req, SolrQueryResponse rsp) {
     if (handler == null) {
       String msg = "Null Request Handler '" + req.getParams().get(CommonParams.QT) + "'";
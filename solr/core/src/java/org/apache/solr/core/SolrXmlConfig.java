@@ -315,6 +315,16 @@ public class SolrXmlConfig {
     }
   }
 
+  private static double parseDouble(String field, String value) {
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Error parsing '" + field + "', value '" + value + "' cannot be parsed as double");
+    }
+  }
+
   private static NodeConfig fillSolrSection(
       NodeConfig.NodeConfigBuilder builder, NamedList<Object> nl) {
 
@@ -547,6 +557,15 @@ public class SolrXmlConfig {
         case "distributedCollectionConfigSetExecution":
           builder.setUseDistributedCollectionConfigSetExecution(Boolean.parseBoolean(value));
           break;
+        case "minStateByteLenForCompression":
+          builder.setMinStateByteLenForCompression(parseInt(name, value));
+          break;
+        case "maxConcurrentFullRecoveries":
+          builder.setMaxConcurrentFullRecoveries(parseInt(name, value));
+          break;
+        case "recoveryMaxMBPerSec":
+          builder.setRecoveryMaxMBPerSec(parseDouble(name, value));
+          break;
         default:
           throw new SolrException(
               SolrException.ErrorCode.SERVER_ERROR,
@@ -75,12 +75,14 @@ import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimiter;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.HttpClientUtil;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.impl.HttpSolrClient.Builder;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.cloud.CloudDescriptor;
+import org.apache.solr.cloud.RecoveryScheduler;
 import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
@@ -133,6 +135,9 @@ public class IndexFetcher {
 
   private final SolrCore solrCore;
 
+  // bandwidth budget shared by all the index fetches of the node, null if unlimited
+  private final RateLimiter rateLimiter;
+
   private volatile List<Map<String, Object>> filesToDownload;
 
   private volatile List<Map<String, Object>> confFilesToDownload;
@@ -251,6 +256,8 @@ public class IndexFetcher {
   public IndexFetcher(
       final NamedList<?> initArgs, final ReplicationHandler handler, final SolrCore sc) {
     solrCore = sc;
+    RecoveryScheduler recoveryScheduler = sc.getCoreContainer().getRecoveryScheduler();
+    rateLimiter = recoveryScheduler == null ? null : recoveryScheduler.getRateLimiter();
     Object fetchFromLeader = initArgs.get(FETCH_FROM_LEADER);
     if (fetchFromLeader != null && fetchFromLeader instanceof Boolean) {
       this.fetchFromLeader = (boolean) fetchFromLeader;
@@ -1722,6 +1729,7 @@ public class IndexFetcher {
 
     private final long size;
     private long bytesDownloaded = 0;
+    private long bytesSinceLastPause = 0;
     private byte[] buf;
     private final Checksum checksum;
     private int errorCount = 0;
@@ -1847,6 +1855,13 @@ public class IndexFetcher {
           file.write(buf, packetSize);
           bytesDownloaded += packetSize;
           log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
+          if (rateLimiter != null) {
+            bytesSinceLastPause += packetSize;
+            if (bytesSinceLastPause >= rateLimiter.getMinPauseCheckBytes()) {
+              rateLimiter.pause(bytesSinceLastPause);
+              bytesSinceLastPause = 0;
+            }
+          }
           // errorCount is always set to zero after a successful packet
           errorCount = 0;
           if (bytesDownloaded >= size) return 0;
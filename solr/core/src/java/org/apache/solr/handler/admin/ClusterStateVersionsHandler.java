@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.admin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.DocCollectionWatcher;
+import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.security.AuthorizationContext;
+
+/**
+ * Long-polling endpoint notifying clients of changes of the state of collections, so that clients
+ * which don't have access to ZooKeeper (see {@code Http2ClusterStateProvider}) can refresh their
+ * cached collection states as soon as they change, instead of finding out with a stale state
+ * error.
+ *
+ * <p>The client sends the state versions it knows of, as <code>versions=coll1:v1|coll2:v2</code>.
+ * If the current version of any of these collections is different, the current versions of those
+ * collections are returned right away. Otherwise the request waits up to <code>wait</code> ms for
+ * one of them to change. The response contains a <code>stateVersions</code> map holding the
+ * collections whose version changed, which is empty if none did.
+ *
+ * <p>A state version is an opaque number which changes with any change of the collection: the
+ * version of its <code>state.json</code> in the upper 32 bits, and, for collections with per
+ * replica states, the version of their children in the lower 32 bits. Deleted collections have a
+ * version of -1. Clients which don't know the version of a collection yet can send any other
+ * negative value to get it.
+ */
+public class ClusterStateVersionsHandler extends RequestHandlerBase {
+
+  public static final String VERSIONS_PARAM = "versions";
+  public static final String WAIT_PARAM = "wait";
+
+  /** Maximum time a request may wait for a change. */
+  public static final long MAX_WAIT_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private final CoreContainer cores;
+
+  public ClusterStateVersionsHandler(CoreContainer cc) {
+    this.cores = cc;
+  }
+
+  /** The state version of the given collection, as defined in the class description. */
+  public static long stateVersion(DocCollection collection) {
+    if (collection == null) {
+      return -1;
+    }
+    long version = ((long) collection.getZNodeVersion()) << 32;
+    if (collection.isPerReplicaState()) {
+      version |= collection.getChildNodesVersion() & 0xFFFFFFFFL;
+    }
+    return version;
+  }
+
+  @Override
+  public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
+    if (!cores.isZooKeeperAware()) {
+      throw new SolrException(
+          ErrorCode.BAD_REQUEST, "The state versions API is only available in SolrCloud mode");
+    }
+    final Map<String, Long> known = parseVersions(req.getParams().get(VERSIONS_PARAM));
+    final long wait = Math.min(req.getParams().getLong(WAIT_PARAM, 0L), MAX_WAIT_MS);
+    final ZkStateReader zkStateReader = cores.getZkController().getZkStateReader();
+
+    Map<String, Long> changed = getChangedVersions(zkStateReader, known);
+    if (changed.isEmpty() && !known.isEmpty() && wait > 0) {
+      awaitChange(zkStateReader, known, wait);
+      changed = getChangedVersions(zkStateReader, known);
+    }
+    rsp.add("stateVersions", changed);
+  }
+
+  static Map<String, Long> parseVersions(String versions) {
+    Map<String, Long> result = new LinkedHashMap<>();
+    if (versions == null || versions.isEmpty()) {
+      return result;
+    }
+    for (String pair : StringUtils.split(versions, '|')) {
+      int sep = pair.lastIndexOf(':');
+      if (sep <= 0 || sep == pair.length() - 1) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "Invalid state version: " + pair);
+      }
+      try {
+        result.put(pair.substring(0, sep), Long.parseLong(pair.substring(sep + 1)));
+      } catch (NumberFormatException e) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "Invalid state version: " + pair, e);
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, Long> getChangedVersions(
+      ZkStateReader zkStateReader, Map<String, Long> known) {
+    Map<String, Long> changed = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> e : known.entrySet()) {
+      DocCollection collection = zkStateReader.getClusterState().getCollectionOrNull(e.getKey());
+      long version = stateVersion(collection);
+      if (version != e.getValue()) {
+        changed.put(e.getKey(), version);
+      }
+    }
+    return changed;
+  }
+
+  private static void awaitChange(ZkStateReader zkStateReader, Map<String, Long> known, long wait)
+      throws InterruptedException {
+    final CountDownLatch changed = new CountDownLatch(1);
+    final List<Map.Entry<String, DocCollectionWatcher>> watchers = new ArrayList<>(known.size());
+    try {
+      for (Map.Entry<String, Long> e : known.entrySet()) {
+        final long knownVersion = e.getValue();
+        DocCollectionWatcher watcher =
+            collection -> {
+              if (stateVersion(collection) != knownVersion) {
+                changed.countDown();
+              }
+              return changed.getCount() == 0;
+            };
+        watchers.add(Map.entry(e.getKey(), watcher));
+        zkStateReader.registerDocCollectionWatcher(e.getKey(), watcher);
+      }
+      changed.await(wait, TimeUnit.MILLISECONDS);
+    } finally {
+      for (Map.Entry<String, DocCollectionWatcher> e : watchers) {
+        zkStateReader.removeDocCollectionWatcher(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  @Override
+  public String getDescription() {
+    return "Notify clients of changes of collection states";
+  }
+
+  @Override
+  public Category getCategory() {
+    return Category.ADMIN;
+  }
+
+  @Override
+  public Name getPermissionName(AuthorizationContext request) {
+    return Name.COLL_READ_PERM;
+  }
+}
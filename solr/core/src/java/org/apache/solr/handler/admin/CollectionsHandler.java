@@ -811,6 +811,7 @@ public class CollectionsHandler extends RequestHandlerBase implements Permission
                   WAIT_FOR_FINAL_STATE,
                   TIMING,
                   SPLIT_METHOD,
+                  SPLIT_THREADS,
                   NUM_SUB_SHARDS,
                   SPLIT_FUZZ,
                   SPLIT_BY_PREFIX,
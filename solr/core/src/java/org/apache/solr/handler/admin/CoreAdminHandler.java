@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.api.AnnotatedApi;
 import org.apache.solr.api.Api;
@@ -102,6 +103,7 @@ public class CoreAdminHandler extends RequestHandlerBase implements PermissionNa
   public static String RESPONSE_STATUS = "STATUS";
   public static String RESPONSE_MESSAGE = "msg";
   public static String OPERATION_RESPONSE = "response";
+  public static String RESPONSE_PROGRESS = "progress";
 
   public CoreAdminHandler() {
     super();
@@ -339,6 +341,7 @@ public class CoreAdminHandler extends RequestHandlerBase implements PermissionNa
     String taskId;
     String rspInfo;
     Object operationRspInfo;
+    volatile Supplier<Object> progress;
 
     public TaskObject(String taskId) {
       this.taskId = taskId;
@@ -363,6 +366,26 @@ public class CoreAdminHandler extends RequestHandlerBase implements PermissionNa
     public void setOperationRspObject(SolrQueryResponse rspObject) {
       this.operationRspInfo = rspObject.getResponse();
     }
+
+    /** Returns the progress reported by the operation while it runs, or null. */
+    public Object getProgress() {
+      Supplier<Object> progress = this.progress;
+      return progress == null ? null : progress.get();
+    }
+  }
+
+  /**
+   * Sets how the progress of a running async task is reported by the request status API. Does
+   * nothing if the task id is null, i.e. the request is not async.
+   */
+  void setTaskProgress(String taskId, Supplier<Object> progress) {
+    if (taskId == null) {
+      return;
+    }
+    TaskObject taskObject = getRequestStatusMap(RUNNING).get(taskId);
+    if (taskObject != null) {
+      taskObject.progress = progress;
+    }
   }
 
   /** Helper method to add a task to a tracking type. */
@@ -113,6 +113,13 @@ class SplitOp implements CoreAdminHandler.CoreAdminOp {
           SolrException.ErrorCode.BAD_REQUEST,
           "Unsupported value of '" + CommonAdminParams.SPLIT_METHOD + "': " + methodStr);
     }
+    int numThreads =
+        params.getInt(CommonAdminParams.SPLIT_THREADS, SolrIndexSplitter.DEFAULT_NUM_THREADS);
+    if (numThreads < 1) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "'" + CommonAdminParams.SPLIT_THREADS + "' must be greater than 0: " + numThreads);
+    }
     SolrCore parentCore = it.handler.coreContainer.getCore(cname);
     List<SolrCore> newCores = null;
     SolrQueryRequest req = null;
@@ -185,6 +192,9 @@ class SplitOp implements CoreAdminHandler.CoreAdminOp {
       SplitIndexCommand cmd =
           new SplitIndexCommand(
               req, it.rsp, paths, newCores, ranges, router, routeFieldName, splitKey, splitMethod);
+      cmd.numThreads = numThreads;
+      // report the progress of async splits in the status of the request
+      it.handler.setTaskProgress(params.get(CommonAdminParams.ASYNC), cmd.progress::toMap);
       parentCore.getUpdateHandler().split(cmd);
 
       if (it.handler.coreContainer.isZooKeeperAware()) {
@@ -114,7 +114,7 @@ class CloudReplicaSource implements ReplicaSource {
                 builder,
                 shardsParam,
                 clusterState,
-                clusterState.getCollection(builder.collection).getSlice(sliceOrUrl));
+                clusterState.getCollection(builder.collection, true).getSlice(sliceOrUrl));
       } else {
         // this has urls
         this.replicas[i] = StrUtils.splitSmart(sliceOrUrl, "|", true);
@@ -189,7 +189,8 @@ class CloudReplicaSource implements ReplicaSource {
       String collectionName,
       String shardKeys,
       boolean multiCollection) {
-    DocCollection coll = state.getCollection(collectionName);
+    // a recently fetched state is good enough to route a query, and doesn't block
+    DocCollection coll = state.getCollection(collectionName, true);
     Collection<Slice> slices = coll.getRouter().getSearchSlices(shardKeys, params, coll);
     ClientUtils.addSlices(target, collectionName, slices, multiCollection);
   }
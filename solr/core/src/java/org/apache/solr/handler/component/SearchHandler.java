@@ -377,6 +377,10 @@ public class SearchHandler extends RequestHandlerBase
 
     // creates a ShardHandler object only if it's needed
     final ShardHandler shardHandler1 = getAndPrepShardHandler(req, rb);
+    if (shardHandler1 == null) {
+      // runs locally, the searcher must see the updates of the version token, if any
+      VersionTokenAwaiter.await(req);
+    }
 
     if (timer == null) {
       // non-debugging prepare phase
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.solr.cloud.CloudDescriptor;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.VersionToken;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.UpdateLog;
+import org.apache.solr.update.UpdateVisibilityTracker;
+import org.apache.solr.util.RefCounted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Makes the queries which carry a {@link VersionToken} (see {@link CommonParams#VERSION_TOKEN})
+ * wait until the registered searcher of the core can see the updates of the token for its shard.
+ *
+ * <p>The query waits up to {@link CommonParams#VERSION_TOKEN_WAIT} ms for a commit to open such a
+ * searcher. If none did, replicas which index the updates themselves (NRT replicas and leaders)
+ * open a new searcher, while other replicas reject the query with a 503 error so that it's retried
+ * on another replica of the shard.
+ */
+public class VersionTokenAwaiter {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final long DEFAULT_WAIT_MS = 1000;
+  public static final long MAX_WAIT_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final long POLL_INTERVAL_MS = 10;
+
+  private VersionTokenAwaiter() {}
+
+  /** Waits until the searcher of the core can see the updates of the token of the request. */
+  public static void await(SolrQueryRequest req) throws IOException, InterruptedException {
+    VersionToken token = VersionToken.parse(req.getParams().get(CommonParams.VERSION_TOKEN));
+    if (token == null) {
+      return;
+    }
+    SolrCore core = req.getCore();
+    CloudDescriptor cloudDesc = core.getCoreDescriptor().getCloudDescriptor();
+    if (cloudDesc == null) {
+      // tokens are only returned in SolrCloud mode
+      return;
+    }
+    long version = token.getVersion(cloudDesc.getShardId());
+    if (version < 0) {
+      return;
+    }
+    UpdateLog ulog = core.getUpdateHandler().getUpdateLog();
+    boolean indexesUpdates =
+        cloudDesc.getReplicaType() == Replica.Type.NRT || cloudDesc.isLeader();
+    if (ulog == null || !indexesUpdates) {
+      throw new SolrException(
+          ErrorCode.SERVICE_UNAVAILABLE,
+          "Core "
+              + core.getName()
+              + " can't tell whether it sees the updates of the version token");
+    }
+
+    UpdateVisibilityTracker tracker = ulog.getVisibilityTracker();
+    long wait =
+        Math.min(
+            req.getParams().getLong(CommonParams.VERSION_TOKEN_WAIT, DEFAULT_WAIT_MS), MAX_WAIT_MS);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait);
+    while (!isVisible(core, tracker, version)) {
+      long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (remaining <= 0) {
+        openSearcher(req, tracker, version);
+        return;
+      }
+      Thread.sleep(Math.min(remaining, POLL_INTERVAL_MS));
+    }
+  }
+
+  private static boolean isVisible(SolrCore core, UpdateVisibilityTracker tracker, long version) {
+    RefCounted<SolrIndexSearcher> holder = core.getSearcher();
+    try {
+      return tracker.isVisible(version, holder.get().getIndexReader().getVersion());
+    } finally {
+      holder.decref();
+    }
+  }
+
+  private static void openSearcher(
+      SolrQueryRequest req, UpdateVisibilityTracker tracker, long version) throws IOException {
+    ReentrantLock lock = tracker.getRefreshLock();
+    lock.lock();
+    try {
+      // another query may have opened one while we were waiting for the lock
+      if (isVisible(req.getCore(), tracker, version)) {
+        return;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Opening a new searcher on core {} to see the updates up to version {}",
+            req.getCore().getName(),
+            version);
+      }
+      CommitUpdateCommand cmd = new CommitUpdateCommand(req, false);
+      cmd.softCommit = true;
+      cmd.waitSearcher = true;
+      req.getCore().getUpdateHandler().commit(cmd);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.solr.response.transform.DocTransformer;
 import org.apache.solr.schema.BinaryField;
 import org.apache.solr.schema.BoolField;
 import org.apache.solr.schema.DatePointField;
+import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.DoublePointField;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.FloatPointField;
@@ -198,6 +199,10 @@ public class DocsStreamer implements Iterator<SolrDocument> {
     } else {
       if (KNOWN_TYPES.contains(ft.getClass())) {
         return ft.toObject(f);
+      } else if (ft instanceof DenseVectorField && f.binaryValue() != null) {
+        // a vector stored in a single value is returned as its elements, the elements of vectors
+        // stored as floats keep their external form
+        return ft.toObject(f);
       } else {
         return ft.toExternal(f);
       }
@@ -20,6 +20,7 @@ import static java.util.Optional.ofNullable;
 import static org.apache.lucene.codecs.lucene91.Lucene91HnswVectorsFormat.DEFAULT_BEAM_WIDTH;
 import static org.apache.lucene.codecs.lucene91.Lucene91HnswVectorsFormat.DEFAULT_MAX_CONN;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -27,14 +28,17 @@ import java.util.Map;
 import org.apache.lucene.backward_codecs.lucene90.Lucene90HnswVectorsFormat;
 import org.apache.lucene.codecs.lucene91.Lucene91HnswVectorsFormat;
 import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.queries.function.ValueSource;
 import org.apache.lucene.search.KnnVectorQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.hnsw.HnswGraph;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.DenseVectors;
 import org.apache.solr.search.QParser;
 import org.apache.solr.uninverting.UninvertingReader;
 
@@ -48,7 +52,8 @@ import org.apache.solr.uninverting.UninvertingReader;
  * org.apache.lucene.codecs.lucene91.Lucene91HnswVectorsFormat} are supported for advanced
  * hyper-parameter customisation. See {@link org.apache.lucene.util.hnsw.HnswGraph} for more details
  * about the implementation. <br>
- * Only {@code Indexed} and {@code Stored} attributes are supported.
+ * Only {@code Indexed} and {@code Stored} attributes are supported. The {@code storedEncoding}
+ * attribute selects how the stored values are encoded, see {@link StoredEncoding}.
  */
 public class DenseVectorField extends FloatPointField {
 
@@ -58,6 +63,15 @@ public class DenseVectorField extends FloatPointField {
   static final String CODEC_FORMAT = "codecFormat";
   static final String HNSW_MAX_CONNECTIONS = "hnswMaxConnections";
   static final String HNSW_BEAM_WIDTH = "hnswBeamWidth";
+  static final String STORED_ENCODING = "storedEncoding";
+
+  /** How the vectors of stored fields are encoded in the stored fields of the index. */
+  public enum StoredEncoding {
+    /** A stored float per element of the vector. */
+    FLOATS,
+    /** A single stored binary value with the little-endian floats of the vector, lossless. */
+    BINARY
+  }
 
   private int dimension;
   private VectorSimilarityFunction similarityFunction;
@@ -79,6 +93,8 @@ public class DenseVectorField extends FloatPointField {
    */
   private int hnswBeamWidth;
 
+  private StoredEncoding storedEncoding = StoredEncoding.FLOATS;
+
   public DenseVectorField() {
     super();
   }
@@ -128,6 +144,18 @@ public class DenseVectorField extends FloatPointField {
             .orElse(DEFAULT_BEAM_WIDTH);
     args.remove(HNSW_BEAM_WIDTH);
 
+    if (hnswMaxConn < 1 || hnswBeamWidth < 1) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          HNSW_MAX_CONNECTIONS + " and " + HNSW_BEAM_WIDTH + " must be greater than 0");
+    }
+
+    this.storedEncoding =
+        ofNullable(args.get(STORED_ENCODING))
+            .map(value -> StoredEncoding.valueOf(value.toUpperCase(Locale.ROOT)))
+            .orElse(StoredEncoding.FLOATS);
+    args.remove(STORED_ENCODING);
+
     this.properties &= ~MULTIVALUED;
     this.properties &= ~UNINVERTIBLE;
 
@@ -154,6 +182,10 @@ public class DenseVectorField extends FloatPointField {
     return hnswBeamWidth;
   }
 
+  public StoredEncoding getStoredEncoding() {
+    return storedEncoding;
+  }
+
   @Override
   public void checkSchemaField(final SchemaField field) throws SolrException {
     super.checkSchemaField(field);
@@ -182,7 +214,8 @@ public class DenseVectorField extends FloatPointField {
               + field
               + "' from value '"
               + value
-              + "', expected format:'[f1, f2, f3...fn]' e.g. [1.0, 3.4, 5.6]",
+              + "', expected format:'[f1, f2, f3...fn]' e.g. [1.0, 3.4, 5.6]"
+              + " or the Base64 encoded little-endian floats",
           e);
     }
 
@@ -190,14 +223,52 @@ public class DenseVectorField extends FloatPointField {
       fields.add(createField(field, parsedVector));
     }
     if (field.stored()) {
-      fields.ensureCapacity(parsedVector.length + 1);
-      for (float vectorElement : parsedVector) {
-        fields.add(getStoredField(field, vectorElement));
+      switch (storedEncoding) {
+        case BINARY:
+          fields.add(new StoredField(field.getName(), DenseVectors.toBytes(parsedVector)));
+          break;
+        default:
+          fields.ensureCapacity(parsedVector.length + 1);
+          for (float vectorElement : parsedVector) {
+            fields.add(getStoredField(field, vectorElement));
+          }
       }
     }
     return fields;
   }
 
+  /**
+   * Returns the elements of a vector stored with the {@link StoredEncoding#BINARY} encoding, or the
+   * element of a stored float.
+   */
+  @Override
+  public Object toObject(IndexableField f) {
+    BytesRef bytes = f.binaryValue();
+    if (bytes == null) {
+      return super.toObject(f);
+    }
+    float[] vector = decodeStoredVector(bytes);
+    List<Float> elements = new ArrayList<>(vector.length);
+    for (float element : vector) {
+      elements.add(element);
+    }
+    return elements;
+  }
+
+  @Override
+  public String toExternal(IndexableField f) {
+    return f.binaryValue() == null ? super.toExternal(f) : toObject(f).toString();
+  }
+
+  private float[] decodeStoredVector(BytesRef bytes) {
+    if (bytes.length == dimension * Float.BYTES) {
+      return DenseVectors.fromBytes(bytes.bytes, bytes.offset, bytes.length);
+    }
+    throw new SolrException(
+        SolrException.ErrorCode.SERVER_ERROR,
+        "Stored vector of " + bytes.length + " bytes doesn't match the dimension " + dimension);
+  }
+
   @Override
   public IndexableField createField(SchemaField field, Object parsedVector) {
     if (parsedVector == null) return null;
@@ -212,10 +283,37 @@ public class DenseVectorField extends FloatPointField {
    * org.apache.solr.handler.loader.JsonLoader} produces an ArrayList of Double - {@link
    * org.apache.solr.handler.loader.JavabinLoader} produces an ArrayList of Float
    *
+   * <p>The vector may also be given in its binary form (see {@link DenseVectors}): as a Base64
+   * String by any loader, or as a float[] or byte[] by the JavabinLoader.
+   *
    * @param inputValue - An {@link ArrayList} containing the elements of the vector
    * @return the vector parsed
    */
   float[] parseVector(Object inputValue) {
+    if (inputValue instanceof float[]) {
+      return checkDimension((float[]) inputValue);
+    } else if (inputValue instanceof byte[]) {
+      byte[] bytes = (byte[]) inputValue;
+      return checkDimension(DenseVectors.fromBytes(bytes, 0, bytes.length));
+    } else if (inputValue instanceof ByteBuffer) {
+      ByteBuffer buf = (ByteBuffer) inputValue;
+      return checkDimension(
+          DenseVectors.fromBytes(
+              buf.array(), buf.arrayOffset() + buf.position(), buf.remaining()));
+    } else if (inputValue instanceof CharSequence) {
+      float[] vector;
+      try {
+        vector = DenseVectors.fromBase64(inputValue.toString());
+      } catch (IllegalArgumentException e) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "incorrect vector format."
+                + " The expected format is an array :'[f1,f2..f3]' where each element f is a float"
+                + " or the Base64 encoded little-endian floats",
+            e);
+      }
+      return checkDimension(vector);
+    }
     if (!(inputValue instanceof List)) {
       throw new SolrException(
           SolrException.ErrorCode.BAD_REQUEST,
@@ -260,6 +358,19 @@ public class DenseVectorField extends FloatPointField {
     return vector;
   }
 
+  private float[] checkDimension(float[] vector) {
+    if (vector.length != dimension) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "incorrect vector dimension."
+              + " The vector value has size "
+              + vector.length
+              + " while it is expected a vector with size "
+              + dimension);
+    }
+    return vector;
+  }
+
   @Override
   public UninvertingReader.Type getUninversionType(SchemaField sf) {
     return null;
@@ -273,7 +384,19 @@ public class DenseVectorField extends FloatPointField {
   }
 
   public Query getKnnVectorQuery(String fieldName, float[] vectorToSearch, int topK) {
-    return new KnnVectorQuery(fieldName, vectorToSearch, topK);
+    return getKnnVectorQuery(fieldName, vectorToSearch, topK, null);
+  }
+
+  /**
+   * Builds a query for the topK nearest neighbours of the given vector among the documents matching
+   * the filter. The filter is applied while the graph is searched, and the nearest neighbours are
+   * computed exactly when the filter matches few documents.
+   *
+   * @param filterQuery the documents to search, or null to search all of them
+   */
+  public Query getKnnVectorQuery(
+      String fieldName, float[] vectorToSearch, int topK, Query filterQuery) {
+    return new KnnVectorQuery(fieldName, vectorToSearch, topK, filterQuery);
   }
 
   /**
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.HitQueue;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TotalHits;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.request.SolrRequestInfo;
+
+/**
+ * Collects the top documents of the main query and of the vector query of a {@link HybridQuery},
+ * and ranks them by fusing both rankings. The documents matching either query are counted as hits,
+ * but only the top ones of each query can be returned.
+ *
+ * <p>The rankings are saved in the request context, so that {@link HybridMergeStrategy} can return
+ * them to the coordinator of a distributed search.
+ */
+public class HybridCollector extends TopDocsCollector<ScoreDoc> {
+
+  static final String CANDIDATES_KEY = HybridCollector.class.getName() + ".candidates";
+
+  /** The top documents of each query by decreasing score, with their scores. */
+  static final class Candidates {
+    final HybridQuery query;
+    final ScoreDoc[] lexical;
+    final ScoreDoc[] vector;
+
+    Candidates(HybridQuery query, ScoreDoc[] lexical, ScoreDoc[] vector) {
+      this.query = query;
+      this.lexical = lexical;
+      this.vector = vector;
+    }
+  }
+
+  private final HybridQuery query;
+  private final int window;
+  private final HitQueue lexicalQueue;
+  private final HitQueue vectorQueue;
+
+  public HybridCollector(HybridQuery query, int window) {
+    super(null);
+    this.query = query;
+    this.window = window;
+    this.lexicalQueue = new HitQueue(window, false);
+    this.vectorQueue = new HitQueue(window, false);
+  }
+
+  @Override
+  public ScoreMode scoreMode() {
+    return ScoreMode.COMPLETE;
+  }
+
+  @Override
+  public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+    final int docBase = context.docBase;
+    return new LeafCollector() {
+      HybridQuery.HybridScorer scorer;
+
+      @Override
+      public void setScorer(Scorable scorer) throws IOException {
+        this.scorer = HybridQuery.HybridScorer.find(scorer);
+        if (this.scorer == null) {
+          // e.g. a post filter which replays the documents with its own scorer
+          throw new SolrException(
+              SolrException.ErrorCode.BAD_REQUEST,
+              "The "
+                  + HybridQParserPlugin.NAME
+                  + " rank query can't read the scores of its queries");
+        }
+      }
+
+      @Override
+      public void collect(int doc) throws IOException {
+        totalHits++;
+        insert(lexicalQueue, docBase + doc, scorer.lexicalScore());
+        insert(vectorQueue, docBase + doc, scorer.vectorScore());
+      }
+    };
+  }
+
+  private void insert(HitQueue queue, int doc, float score) {
+    if (Float.isNaN(score)) {
+      return;
+    }
+    // documents are collected in order, so a later document with the same score isn't competitive
+    if (queue.size() == window && score <= queue.top().score) {
+      return;
+    }
+    queue.insertWithOverflow(new ScoreDoc(doc, score));
+  }
+
+  private static ScoreDoc[] drain(HitQueue queue) {
+    ScoreDoc[] docs = new ScoreDoc[queue.size()];
+    for (int i = docs.length - 1; i >= 0; i--) {
+      docs[i] = queue.pop();
+    }
+    return docs;
+  }
+
+  @Override
+  public TopDocs topDocs(int start, int howMany) {
+    Candidates candidates = new Candidates(query, drain(lexicalQueue), drain(vectorQueue));
+    SolrRequestInfo info = SolrRequestInfo.getRequestInfo();
+    if (info != null) {
+      info.getReq().getContext().put(CANDIDATES_KEY, candidates);
+    }
+
+    List<Map.Entry<Integer, Float>> fused =
+        query.fuse(
+            docs(candidates.lexical),
+            scores(candidates.lexical),
+            docs(candidates.vector),
+            scores(candidates.vector));
+    int end = (int) Math.min(fused.size(), (long) start + howMany);
+    ScoreDoc[] scoreDocs = new ScoreDoc[Math.max(0, end - start)];
+    for (int i = start; i < end; i++) {
+      Map.Entry<Integer, Float> entry = fused.get(i);
+      scoreDocs[i - start] = new ScoreDoc(entry.getKey(), entry.getValue());
+    }
+    return new TopDocs(new TotalHits(totalHits, TotalHits.Relation.EQUAL_TO), scoreDocs);
+  }
+
+  static List<Integer> docs(ScoreDoc[] scoreDocs) {
+    List<Integer> docs = new ArrayList<>(scoreDocs.length);
+    for (ScoreDoc scoreDoc : scoreDocs) {
+      docs.add(scoreDoc.doc);
+    }
+    return docs;
+  }
+
+  static float[] scores(ScoreDoc[] scoreDocs) {
+    float[] scores = new float[scoreDocs.length];
+    for (int i = 0; i < scoreDocs.length; i++) {
+      scores[i] = scoreDocs[i].score;
+    }
+    return scores;
+  }
+}
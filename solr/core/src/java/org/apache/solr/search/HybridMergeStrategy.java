@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.handler.component.MergeStrategy;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.handler.component.ShardDoc;
+import org.apache.solr.handler.component.ShardRequest;
+import org.apache.solr.handler.component.ShardResponse;
+import org.apache.solr.response.SolrQueryResponse;
+
+/**
+ * Merges the results of a {@link HybridQuery} in a distributed search.
+ *
+ * <p>The fused rank of a document depends on its rank in each query over the whole collection, so
+ * the shards can't fuse the rankings themselves. Each shard returns the ids and scores of the top
+ * documents of each query in a <code>hybrid</code> section of its response, and the coordinator
+ * merges these per query rankings before fusing them.
+ */
+public class HybridMergeStrategy implements MergeStrategy {
+
+  static final String RESPONSE_KEY = "hybrid";
+  static final String LEXICAL = "lexical";
+  static final String VECTOR = "vector";
+  static final String IDS = "ids";
+  static final String SCORES = "scores";
+
+  private final HybridQuery query;
+
+  public HybridMergeStrategy(HybridQuery query) {
+    this.query = query;
+  }
+
+  @Override
+  public int getCost() {
+    return 1;
+  }
+
+  @Override
+  public boolean mergesIds() {
+    return true;
+  }
+
+  @Override
+  public boolean handlesMergeFields() {
+    return true;
+  }
+
+  /** Adds the top documents of each query to the response of a shard. */
+  @Override
+  public void handleMergeFields(ResponseBuilder rb, SolrIndexSearcher searcher)
+      throws IOException {
+    if (!rb.req.getParams().getBool(ShardParams.IS_SHARD, false)) {
+      return;
+    }
+    HybridCollector.Candidates candidates = getCandidates(rb, searcher);
+    String keyField = rb.req.getSchema().getUniqueKeyField().getName();
+    NamedList<Object> hybrid = new SimpleOrderedMap<>();
+    hybrid.add(LEXICAL, toResponse(candidates.lexical, keyField, searcher));
+    hybrid.add(VECTOR, toResponse(candidates.vector, keyField, searcher));
+    rb.rsp.add(RESPONSE_KEY, hybrid);
+  }
+
+  private HybridCollector.Candidates getCandidates(ResponseBuilder rb, SolrIndexSearcher searcher)
+      throws IOException {
+    Object candidates = rb.req.getContext().get(HybridCollector.CANDIDATES_KEY);
+    if (candidates instanceof HybridCollector.Candidates
+        && query.equals(((HybridCollector.Candidates) candidates).query)) {
+      return (HybridCollector.Candidates) candidates;
+    }
+    // the results came from the query result cache, which doesn't keep the rankings
+    QueryCommand cmd = rb.createQueryCommand();
+    cmd.setNeedDocSet(false);
+    cmd.setFlags(SolrIndexSearcher.NO_CHECK_QCACHE | SolrIndexSearcher.NO_SET_QCACHE);
+    searcher.search(new QueryResult(), cmd);
+    candidates = rb.req.getContext().get(HybridCollector.CANDIDATES_KEY);
+    if (!(candidates instanceof HybridCollector.Candidates)) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "The hybrid rankings weren't collected");
+    }
+    return (HybridCollector.Candidates) candidates;
+  }
+
+  private static NamedList<Object> toResponse(
+      ScoreDoc[] scoreDocs, String keyField, SolrIndexSearcher searcher) {
+    List<String> ids = new ArrayList<>(scoreDocs.length);
+    List<Float> scores = new ArrayList<>(scoreDocs.length);
+    // fetches the stored value of the key, or its docValues when it isn't stored
+    SolrReturnFields returnFields = new SolrReturnFields(Collections.singleton(keyField), null);
+    SolrDocumentFetcher docFetcher = searcher.getDocFetcher();
+    for (ScoreDoc scoreDoc : scoreDocs) {
+      Object id = docFetcher.solrDoc(scoreDoc.doc, returnFields).getFirstValue(keyField);
+      if (id == null) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "The uniqueKey " + keyField + " of document " + scoreDoc.doc + " can't be retrieved");
+      }
+      ids.add(id.toString());
+      scores.add(scoreDoc.score);
+    }
+    NamedList<Object> ranking = new SimpleOrderedMap<>();
+    ranking.add(IDS, ids);
+    ranking.add(SCORES, scores);
+    return ranking;
+  }
+
+  /** A document of the ranking of a query on a shard. */
+  private static final class ShardHit {
+    final String id;
+    final float score;
+    final String shard;
+    final int orderInShard;
+
+    ShardHit(String id, float score, String shard, int orderInShard) {
+      this.id = id;
+      this.score = score;
+      this.shard = shard;
+      this.orderInShard = orderInShard;
+    }
+  }
+
+  private static final Comparator<ShardHit> HIT_COMP =
+      Comparator.<ShardHit>comparingDouble(hit -> -hit.score)
+          .thenComparing(hit -> hit.shard)
+          .thenComparingInt(hit -> hit.orderInShard);
+
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public void merge(ResponseBuilder rb, ShardRequest sreq) {
+    NamedList<Object> shardInfo = null;
+    if (rb.req.getParams().getBool(ShardParams.SHARDS_INFO, false)) {
+      shardInfo = new SimpleOrderedMap<>();
+      rb.rsp.getValues().add(ShardParams.SHARDS_INFO, shardInfo);
+    }
+
+    long numFound = 0;
+    boolean partialResults = false;
+    List<ShardHit> lexicalHits = new ArrayList<>();
+    List<ShardHit> vectorHits = new ArrayList<>();
+
+    for (ShardResponse srsp : sreq.responses) {
+      if (shardInfo != null) {
+        SimpleOrderedMap<Object> nl = new SimpleOrderedMap<>();
+        if (srsp.getException() != null) {
+          Throwable t = srsp.getException();
+          if (t instanceof SolrServerException) {
+            t = ((SolrServerException) t).getCause();
+          }
+          nl.add("error", t.toString());
+          StringWriter trace = new StringWriter();
+          t.printStackTrace(new PrintWriter(trace));
+          nl.add("trace", trace.toString());
+          if (srsp.getShardAddress() != null) {
+            nl.add("shardAddress", srsp.getShardAddress());
+          }
+        } else {
+          SolrDocumentList docs =
+              (SolrDocumentList) srsp.getSolrResponse().getResponse().get("response");
+          nl.add("numFound", docs.getNumFound());
+          nl.add("maxScore", docs.getMaxScore());
+          nl.add("shardAddress", srsp.getShardAddress());
+        }
+        if (srsp.getSolrResponse() != null) {
+          nl.add("time", srsp.getSolrResponse().getElapsedTime());
+        }
+        shardInfo.add(srsp.getShard(), nl);
+      }
+      // now that we've added the shard info, let's only proceed if we have no error.
+      if (srsp.getException() != null) {
+        partialResults = true;
+        continue;
+      }
+
+      NamedList<Object> response = srsp.getSolrResponse().getResponse();
+      NamedList<?> responseHeader = (NamedList<?>) response.get("responseHeader");
+      if (responseHeader != null
+          && Boolean.TRUE.equals(
+              responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY))) {
+        partialResults = true;
+      }
+      numFound += ((SolrDocumentList) response.get("response")).getNumFound();
+
+      NamedList<Object> hybrid = (NamedList<Object>) response.get(RESPONSE_KEY);
+      if (hybrid == null) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "Shard " + srsp.getShard() + " didn't return the hybrid rankings");
+      }
+      addHits(lexicalHits, (NamedList<Object>) hybrid.get(LEXICAL), srsp.getShard());
+      addHits(vectorHits, (NamedList<Object>) hybrid.get(VECTOR), srsp.getShard());
+    }
+
+    int offset = rb.getSortSpec().getOffset();
+    int count = rb.getSortSpec().getCount();
+    int window = query.getHybridDocs();
+
+    // the shard of each document, the first one wins if it was indexed in several shards
+    Map<String, ShardHit> shardOfId = new HashMap<>();
+    List<String> lexicalIds = new ArrayList<>();
+    float[] lexicalScores = topHits(lexicalHits, window, shardOfId, lexicalIds);
+    List<String> vectorIds = new ArrayList<>();
+    float[] vectorScores = topHits(vectorHits, window, shardOfId, vectorIds);
+    List<Map.Entry<String, Float>> fused =
+        query.fuse(lexicalIds, lexicalScores, vectorIds, vectorScores);
+
+    int end = (int) Math.min(fused.size(), (long) offset + count);
+    int resultSize = Math.max(0, end - offset);
+    Map<Object, ShardDoc> resultIds = new HashMap<>();
+    for (int i = offset; i < end; i++) {
+      Map.Entry<String, Float> entry = fused.get(i);
+      ShardHit hit = shardOfId.get(entry.getKey());
+      ShardDoc shardDoc = new ShardDoc();
+      shardDoc.id = entry.getKey();
+      shardDoc.shard = hit.shard;
+      shardDoc.orderInShard = hit.orderInShard;
+      shardDoc.score = entry.getValue();
+      shardDoc.positionInResponse = i - offset;
+      resultIds.put(shardDoc.id.toString(), shardDoc);
+    }
+
+    // Add hits for distributed requests
+    // https://issues.apache.org/jira/browse/SOLR-3518
+    rb.rsp.addToLog("hits", numFound);
+
+    SolrDocumentList responseDocs = new SolrDocumentList();
+    if (!fused.isEmpty()) {
+      responseDocs.setMaxScore(fused.get(0).getValue());
+    }
+    responseDocs.setNumFound(numFound);
+    responseDocs.setStart(offset);
+    // size appropriately
+    for (int i = 0; i < resultSize; i++) responseDocs.add(null);
+
+    rb.resultIds = resultIds;
+    rb.setResponseDocs(responseDocs);
+
+    if (partialResults) {
+      rb.rsp
+          .getResponseHeader()
+          .asShallowMap()
+          .put(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY, Boolean.TRUE);
+    }
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static void addHits(List<ShardHit> hits, NamedList<Object> ranking, String shard) {
+    if (ranking == null) {
+      return;
+    }
+    List<Object> ids = (List<Object>) ranking.get(IDS);
+    List<Object> scores = (List<Object>) ranking.get(SCORES);
+    for (int i = 0; i < ids.size(); i++) {
+      float score = ((Number) scores.get(i)).floatValue();
+      hits.add(new ShardHit(ids.get(i).toString(), score, shard, i));
+    }
+  }
+
+  /** Sorts the hits of all the shards and keeps the top distinct documents in ids. */
+  private static float[] topHits(
+      List<ShardHit> hits, int window, Map<String, ShardHit> shardOfId, List<String> ids) {
+    hits.sort(HIT_COMP);
+    float[] scores = new float[Math.min(window, hits.size())];
+    for (ShardHit hit : hits) {
+      if (ids.size() == scores.length) {
+        break;
+      }
+      ShardHit first = shardOfId.putIfAbsent(hit.id, hit);
+      if (first != null && !first.shard.equals(hit.shard)) {
+        // duplicate detected
+        continue;
+      }
+      scores[ids.size()] = hit.score;
+      ids.add(hit.id);
+    }
+    return ids.size() == scores.length ? scores : Arrays.copyOf(scores, ids.size());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.Query;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+
+/**
+ * Ranks the documents matching the main query or a vector query by fusing both rankings, e.g.
+ * <code>q=title:solr&amp;rq={!hybrid vectorQuery=$vq}&amp;vq={!knn f=vector topK=10}[1.0, 2.0]
+ * </code>
+ *
+ * <p>The local params are:
+ *
+ * <ul>
+ *   <li><code>vectorQuery</code>: the query to combine with the main query, mandatory
+ *   <li><code>fusion</code>: <code>rrf</code> (reciprocal rank fusion, default) or <code>linear
+ *       </code> (weighted sum of the min-max normalized scores)
+ *   <li><code>hybridDocs</code>: the number of top documents of each query which are ranked,
+ *       200 by default. At most twice as many documents are returned
+ *   <li><code>rrfK</code>: the rank constant of the reciprocal rank fusion, 60 by default
+ *   <li><code>lexicalWeight</code> and <code>vectorWeight</code>: the weights of the main and
+ *       vector queries, 1 by default
+ * </ul>
+ *
+ * @see HybridQuery
+ */
+public class HybridQParserPlugin extends QParserPlugin {
+
+  public static final String NAME = "hybrid";
+
+  public static final String VECTOR_QUERY = "vectorQuery";
+
+  public static final String FUSION = "fusion";
+  public static final HybridQuery.Fusion FUSION_DEFAULT = HybridQuery.Fusion.RRF;
+
+  public static final String HYBRID_DOCS = "hybridDocs";
+  public static final int HYBRID_DOCS_DEFAULT = 200;
+
+  public static final String RRF_K = "rrfK";
+  public static final int RRF_K_DEFAULT = 60;
+
+  public static final String LEXICAL_WEIGHT = "lexicalWeight";
+  public static final String VECTOR_WEIGHT = "vectorWeight";
+  public static final float WEIGHT_DEFAULT = 1.0f;
+
+  @Override
+  public QParser createParser(
+      String query, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+    return new HybridQParser(query, localParams, params, req);
+  }
+
+  private static class HybridQParser extends QParser {
+
+    public HybridQParser(
+        String query, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+      super(query, localParams, params, req);
+    }
+
+    @Override
+    public Query parse() throws SyntaxError {
+      String vectorQueryString = localParams.get(VECTOR_QUERY);
+      if (StringUtils.isBlank(vectorQueryString)) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST, VECTOR_QUERY + " parameter is mandatory");
+      }
+      if (params.get(CursorMarkParams.CURSOR_MARK_PARAM) != null) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "The " + NAME + " rank query can't be used with " + CursorMarkParams.CURSOR_MARK_PARAM);
+      }
+      Query vectorQuery = QParser.getParser(vectorQueryString, req).parse();
+
+      String fusionName = localParams.get(FUSION);
+      HybridQuery.Fusion fusion =
+          fusionName == null ? FUSION_DEFAULT : HybridQuery.Fusion.get(fusionName);
+      if (fusion == null) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "Unknown " + FUSION + " '" + fusionName + "', expected 'rrf' or 'linear'");
+      }
+
+      int hybridDocs = Math.max(1, localParams.getInt(HYBRID_DOCS, HYBRID_DOCS_DEFAULT));
+      int rrfK = localParams.getInt(RRF_K, RRF_K_DEFAULT);
+      if (rrfK < 0) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST, RRF_K + " must not be negative, got " + rrfK);
+      }
+      float lexicalWeight = localParams.getFloat(LEXICAL_WEIGHT, WEIGHT_DEFAULT);
+      float vectorWeight = localParams.getFloat(VECTOR_WEIGHT, WEIGHT_DEFAULT);
+
+      return new HybridQuery(vectorQuery, fusion, hybridDocs, rrfK, lexicalWeight, vectorWeight);
+    }
+  }
+}
@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.Weight;
+import org.apache.solr.handler.component.MergeStrategy;
+
+/**
+ * Ranks the documents matching the main (lexical) query or a second query, typically a <code>
+ * {!knn}</code> query, by fusing the rankings of both queries. See {@link HybridQParserPlugin}.
+ *
+ * <p>The documents are collected in a single pass: the scorer of this query iterates over the
+ * documents matching either query, and {@link HybridCollector} keeps the top {@link
+ * #getHybridDocs()} documents of each query by its own score. Only these documents are ranked, with
+ * the reciprocal rank fusion (RRF) or a linear combination of the min-max normalized scores, so at
+ * most twice that many documents can be returned.
+ */
+public class HybridQuery extends RankQuery {
+
+  /** How the rankings of the two queries are combined. */
+  public enum Fusion {
+    /** Sum of <code>weight / (rrfK + rank)</code> over the rankings the document appears in. */
+    RRF,
+    /** Sum of <code>weight * (score - min) / (max - min)</code> over the rankings. */
+    LINEAR;
+
+    public static Fusion get(String name) {
+      for (Fusion fusion : values()) {
+        if (fusion.name().equalsIgnoreCase(name)) {
+          return fusion;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final Query defaultQuery = new MatchAllDocsQuery();
+
+  private Query mainQuery = defaultQuery;
+  private final Query vectorQuery;
+  private final Fusion fusion;
+  private final int hybridDocs;
+  private final int rrfK;
+  private final float lexicalWeight;
+  private final float vectorWeight;
+
+  public HybridQuery(
+      Query vectorQuery,
+      Fusion fusion,
+      int hybridDocs,
+      int rrfK,
+      float lexicalWeight,
+      float vectorWeight) {
+    this.vectorQuery = vectorQuery;
+    this.fusion = fusion;
+    this.hybridDocs = hybridDocs;
+    this.rrfK = rrfK;
+    this.lexicalWeight = lexicalWeight;
+    this.vectorWeight = vectorWeight;
+  }
+
+  private HybridQuery copy(Query mainQuery, Query vectorQuery) {
+    return new HybridQuery(vectorQuery, fusion, hybridDocs, rrfK, lexicalWeight, vectorWeight)
+        .wrap(mainQuery);
+  }
+
+  public Query getMainQuery() {
+    return mainQuery;
+  }
+
+  public Query getVectorQuery() {
+    return vectorQuery;
+  }
+
+  /** The number of top documents of each query which are ranked. */
+  public int getHybridDocs() {
+    return hybridDocs;
+  }
+
+  @Override
+  public HybridQuery wrap(Query mainQuery) {
+    if (mainQuery != null) {
+      this.mainQuery = mainQuery;
+    }
+    return this;
+  }
+
+  @Override
+  public TopDocsCollector<ScoreDoc> getTopDocsCollector(
+      int len, QueryCommand cmd, IndexSearcher searcher) {
+    // independent of the rows, so that all the pages and the shards rank the same documents
+    return new HybridCollector(this, hybridDocs);
+  }
+
+  @Override
+  public MergeStrategy getMergeStrategy() {
+    return new HybridMergeStrategy(this);
+  }
+
+  /**
+   * Fuses the rankings of the two queries.
+   *
+   * @param lexicalKeys the top documents of the main query, by decreasing score
+   * @param lexicalScores the scores of these documents
+   * @param vectorKeys the top documents of the vector query, by decreasing score
+   * @param vectorScores the scores of these documents
+   * @return the fused score of the documents, by decreasing score. Ties are in the order of the
+   *     lexical and then the vector ranking
+   */
+  <K> List<Map.Entry<K, Float>> fuse(
+      List<K> lexicalKeys, float[] lexicalScores, List<K> vectorKeys, float[] vectorScores) {
+    Map<K, Float> fused = new LinkedHashMap<>();
+    addRanking(fused, lexicalKeys, lexicalScores, lexicalWeight);
+    addRanking(fused, vectorKeys, vectorScores, vectorWeight);
+    List<Map.Entry<K, Float>> ranked = new ArrayList<>(fused.entrySet());
+    // stable, so ties keep their insertion order
+    ranked.sort((a, b) -> Float.compare(b.getValue(), a.getValue()));
+    return ranked;
+  }
+
+  private <K> void addRanking(Map<K, Float> fused, List<K> keys, float[] scores, float weight) {
+    int size = keys.size();
+    if (size == 0) {
+      return;
+    }
+    float max = scores[0];
+    float min = scores[size - 1];
+    for (int i = 0; i < size; i++) {
+      float score;
+      if (fusion == Fusion.RRF) {
+        score = weight / (rrfK + i + 1);
+      } else {
+        score = weight * (max > min ? (scores[i] - min) / (max - min) : 1f);
+      }
+      fused.merge(keys.get(i), score, Float::sum);
+    }
+  }
+
+  @Override
+  public Query rewrite(IndexReader reader) throws IOException {
+    Query rewrittenMain = mainQuery.rewrite(reader);
+    Query rewrittenVector = vectorQuery.rewrite(reader);
+    if (rewrittenMain != mainQuery || rewrittenVector != vectorQuery) {
+      return copy(rewrittenMain, rewrittenVector);
+    }
+    return super.rewrite(reader);
+  }
+
+  @Override
+  public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost)
+      throws IOException {
+    // the collector reads the scores of both queries, which can't skip non-competitive documents
+    ScoreMode subScoreMode = scoreMode.needsScores() ? ScoreMode.COMPLETE : scoreMode;
+    return new HybridWeight(
+        this,
+        searcher.createWeight(mainQuery, subScoreMode, boost),
+        searcher.createWeight(vectorQuery, subScoreMode, boost));
+  }
+
+  @Override
+  public void visit(QueryVisitor visitor) {
+    QueryVisitor v = visitor.getSubVisitor(BooleanClause.Occur.SHOULD, this);
+    mainQuery.visit(v);
+    vectorQuery.visit(v);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * classHash()
+        + Objects.hash(
+            mainQuery, vectorQuery, fusion, hybridDocs, rrfK, lexicalWeight, vectorWeight);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return sameClassAs(other) && equalsTo(getClass().cast(other));
+  }
+
+  private boolean equalsTo(HybridQuery other) {
+    return mainQuery.equals(other.mainQuery)
+        && vectorQuery.equals(other.vectorQuery)
+        && fusion == other.fusion
+        && hybridDocs == other.hybridDocs
+        && rrfK == other.rrfK
+        && lexicalWeight == other.lexicalWeight
+        && vectorWeight == other.vectorWeight;
+  }
+
+  @Override
+  public String toString(String field) {
+    StringBuilder sb = new StringBuilder(100);
+    sb.append("{!").append(HybridQParserPlugin.NAME);
+    sb.append(" mainQuery='").append(mainQuery.toString()).append("' ");
+    sb.append(HybridQParserPlugin.VECTOR_QUERY)
+        .append("='")
+        .append(vectorQuery.toString())
+        .append("' ");
+    sb.append(HybridQParserPlugin.FUSION)
+        .append('=')
+        .append(fusion.name().toLowerCase(Locale.ROOT))
+        .append(' ');
+    sb.append(HybridQParserPlugin.HYBRID_DOCS).append('=').append(hybridDocs).append(' ');
+    sb.append(HybridQParserPlugin.RRF_K).append('=').append(rrfK).append(' ');
+    sb.append(HybridQParserPlugin.LEXICAL_WEIGHT).append('=').append(lexicalWeight).append(' ');
+    sb.append(HybridQParserPlugin.VECTOR_WEIGHT).append('=').append(vectorWeight).append('}');
+    return sb.toString();
+  }
+
+  private static final class HybridWeight extends Weight {
+    private final Weight lexicalWeight;
+    private final Weight vectorWeight;
+
+    HybridWeight(Query query, Weight lexicalWeight, Weight vectorWeight) {
+      super(query);
+      this.lexicalWeight = lexicalWeight;
+      this.vectorWeight = vectorWeight;
+    }
+
+    @Override
+    public Scorer scorer(LeafReaderContext context) throws IOException {
+      Scorer lexical = lexicalWeight.scorer(context);
+      Scorer vector = vectorWeight.scorer(context);
+      if (lexical == null && vector == null) {
+        return null;
+      }
+      return new HybridScorer(this, lexical, vector);
+    }
+
+    @Override
+    public boolean isCacheable(LeafReaderContext ctx) {
+      return lexicalWeight.isCacheable(ctx) && vectorWeight.isCacheable(ctx);
+    }
+
+    @Override
+    public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+      Explanation lexical = lexicalWeight.explain(context, doc);
+      Explanation vector = vectorWeight.explain(context, doc);
+      List<Explanation> matches = new ArrayList<>(2);
+      float sum = 0f;
+      for (Explanation explanation : List.of(lexical, vector)) {
+        if (explanation.isMatch()) {
+          matches.add(explanation);
+          sum += explanation.getValue().floatValue();
+        }
+      }
+      if (matches.isEmpty()) {
+        return Explanation.noMatch("no matching query", lexical, vector);
+      }
+      return Explanation.match(
+          sum, "sum of the matching queries, the documents are ranked by fusing", matches);
+    }
+  }
+
+  /**
+   * Iterates over the documents matching either query, and gives the score of each query on the
+   * current document.
+   */
+  static final class HybridScorer extends Scorer {
+    private final Scorer lexical;
+    private final Scorer vector;
+    private final DocIdSetIterator iterator;
+
+    HybridScorer(Weight weight, Scorer lexical, Scorer vector) {
+      super(weight);
+      this.lexical = lexical;
+      this.vector = vector;
+      if (lexical == null) {
+        iterator = vector.iterator();
+      } else if (vector == null) {
+        iterator = lexical.iterator();
+      } else {
+        iterator = new DisjunctionIterator(lexical.iterator(), vector.iterator());
+      }
+    }
+
+    /** Finds the hybrid scorer among the given scorer and its children. */
+    static HybridScorer find(Scorable scorer) throws IOException {
+      if (scorer instanceof HybridScorer) {
+        return (HybridScorer) scorer;
+      }
+      for (ChildScorable child : scorer.getChildren()) {
+        HybridScorer found = find(child.child);
+        if (found != null) {
+          return found;
+        }
+      }
+      return null;
+    }
+
+    /** The score of the main query on the current document, or NaN if it doesn't match. */
+    float lexicalScore() throws IOException {
+      return matches(lexical) ? lexical.score() : Float.NaN;
+    }
+
+    /** The score of the vector query on the current document, or NaN if it doesn't match. */
+    float vectorScore() throws IOException {
+      return matches(vector) ? vector.score() : Float.NaN;
+    }
+
+    private boolean matches(Scorer scorer) {
+      return scorer != null && scorer.docID() == iterator.docID();
+    }
+
+    @Override
+    public int docID() {
+      return iterator.docID();
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return iterator;
+    }
+
+    @Override
+    public float getMaxScore(int upTo) {
+      return Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public float score() throws IOException {
+      float score = 0f;
+      if (matches(lexical)) {
+        score += lexical.score();
+      }
+      if (matches(vector)) {
+        score += vector.score();
+      }
+      return score;
+    }
+
+    @Override
+    public Collection<ChildScorable> getChildren() {
+      List<ChildScorable> children = new ArrayList<>(2);
+      if (lexical != null) {
+        children.add(new ChildScorable(lexical, "SHOULD"));
+      }
+      if (vector != null) {
+        children.add(new ChildScorable(vector, "SHOULD"));
+      }
+      return children;
+    }
+  }
+
+  private static final class DisjunctionIterator extends DocIdSetIterator {
+    private final DocIdSetIterator first;
+    private final DocIdSetIterator second;
+    private int doc = -1;
+
+    DisjunctionIterator(DocIdSetIterator first, DocIdSetIterator second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return doc == NO_MORE_DOCS ? doc : advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      if (first.docID() < target) {
+        first.advance(target);
+      }
+      if (second.docID() < target) {
+        second.advance(target);
+      }
+      return doc = Math.min(first.docID(), second.docID());
+    }
+
+    @Override
+    public long cost() {
+      return first.cost() + second.cost();
+    }
+  }
+}
@@ -23,7 +23,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiPostingsEnum;
 import org.apache.lucene.index.PostingsEnum;
@@ -38,9 +37,14 @@ import org.apache.lucene.search.QueryVisitor;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefArray;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.StringHelper;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SimpleOrderedMap;
@@ -55,6 +59,12 @@ import org.apache.solr.util.RTimer;
 import org.apache.solr.util.RefCounted;
 
 class JoinQuery extends Query {
+  /**
+   * Name of the optional user cache of the from searcher, where the terms or ordinals of the from
+   * field that match the from query are cached, per from query and from field.
+   */
+  static final String CACHE_NAME = "joinCache";
+
   String fromField;
   String toField;
   // TODO: name is missleading here compared to JoinQParserPlugin usage - here it must be a core
@@ -176,6 +186,7 @@ class JoinQuery extends Query {
           dbg.add("toTermHitsTotalDf", toTermHitsTotalDf);
           dbg.add("toTermDirectCount", toTermDirectCount);
           dbg.add("smallSetsDeferred", smallSetsDeferred);
+          dbg.add("fromCacheHit", fromCacheHit);
           dbg.add("toSetDocsAdded", resultListDocs);
 
           // TODO: perhaps synchronize  addDebug in the future...
@@ -211,6 +222,7 @@ class JoinQuery extends Query {
     // number of small sets collected to be used later to intersect w/ bitset or create another
     // small set
     int smallSetsDeferred;
+    boolean fromCacheHit; // whether the from terms came from the join cache
 
     public DocSet getDocSet() throws IOException {
       SchemaField fromSchemaField = fromSearcher.getSchema().getField(fromField);
@@ -243,20 +255,34 @@ class JoinQuery extends Query {
       return result;
     }
 
-    public DocSet getDocSetEnumerate() throws IOException {
-      FixedBitSet resultBits = null;
+    /**
+     * Returns the terms of the from field that match the from query, from the {@link #CACHE_NAME}
+     * cache of the from searcher if there's one.
+     */
+    private FromTerms getFromTerms() throws IOException {
+      @SuppressWarnings("unchecked")
+      SolrCache<FromCacheKey, Object> cache = fromSearcher.getCache(CACHE_NAME);
+      FromCacheKey key = new FromCacheKey(q, fromField, false);
+      if (cache != null) {
+        FromTerms fromTerms = (FromTerms) cache.get(key);
+        if (fromTerms != null) {
+          fromCacheHit = true;
+          return fromTerms;
+        }
+      }
+      FromTerms fromTerms = findFromTerms();
+      if (cache != null) {
+        cache.put(key, fromTerms);
+      }
+      return fromTerms;
+    }
 
+    private FromTerms findFromTerms() throws IOException {
       // minimum docFreq to use the cache
       int minDocFreqFrom = Math.max(5, fromSearcher.maxDoc() >> 13);
-      int minDocFreqTo = Math.max(5, toSearcher.maxDoc() >> 13);
-
-      // use a smaller size than normal since we will need to sort and dedup the results
-      int maxSortedIntSize = Math.max(10, toSearcher.maxDoc() >> 10);
 
       DocSet fromSet = fromSearcher.getDocSet(q);
-      fromSetSize = fromSet.size();
-
-      List<DocSet> resultList = new ArrayList<>(10);
+      FromTerms fromTerms = new FromTerms(fromSet.size());
 
       // make sure we have a set that is fast for random access, if we will use it for that
       Bits fastForRandomSet;
@@ -266,21 +292,14 @@ class JoinQuery extends Query {
         fastForRandomSet = fromSet.getBits();
       }
 
-      LeafReader fromReader = fromSearcher.getSlowAtomicReader();
-      LeafReader toReader =
-          fromSearcher == toSearcher ? fromReader : toSearcher.getSlowAtomicReader();
-      Terms terms = fromReader.terms(fromField);
-      Terms toTerms = toReader.terms(toField);
-      if (terms == null || toTerms == null) return DocSet.empty();
+      Terms terms = fromSearcher.getSlowAtomicReader().terms(fromField);
+      if (terms == null) return fromTerms;
       String prefixStr =
           TrieField.getMainValuePrefix(fromSearcher.getSchema().getFieldType(fromField));
       BytesRef prefix = prefixStr == null ? null : new BytesRef(prefixStr);
 
       BytesRef term = null;
       TermsEnum termsEnum = terms.iterator();
-      TermsEnum toTermsEnum = toTerms.iterator();
-      SolrIndexSearcher.DocsEnumState fromDeState = null;
-      SolrIndexSearcher.DocsEnumState toDeState = null;
 
       if (prefix == null) {
         term = termsEnum.next();
@@ -290,23 +309,13 @@ class JoinQuery extends Query {
         }
       }
 
-      Bits fromLiveDocs = fromSearcher.getLiveDocsBits();
-      Bits toLiveDocs = fromSearcher == toSearcher ? fromLiveDocs : toSearcher.getLiveDocsBits();
-
-      fromDeState = new SolrIndexSearcher.DocsEnumState();
+      SolrIndexSearcher.DocsEnumState fromDeState = new SolrIndexSearcher.DocsEnumState();
       fromDeState.fieldName = fromField;
-      fromDeState.liveDocs = fromLiveDocs;
+      fromDeState.liveDocs = fromSearcher.getLiveDocsBits();
       fromDeState.termsEnum = termsEnum;
       fromDeState.postingsEnum = null;
       fromDeState.minSetSizeCached = minDocFreqFrom;
 
-      toDeState = new SolrIndexSearcher.DocsEnumState();
-      toDeState.fieldName = toField;
-      toDeState.liveDocs = toLiveDocs;
-      toDeState.termsEnum = toTermsEnum;
-      toDeState.postingsEnum = null;
-      toDeState.minSetSizeCached = minDocFreqTo;
-
       while (term != null) {
         if (prefix != null && !StringHelper.startsWith(term, prefix)) break;
 
@@ -357,75 +366,109 @@ class JoinQuery extends Query {
         if (intersects) {
           fromTermHits++;
           fromTermHitsTotalDf++;
-          TermsEnum.SeekStatus status = toTermsEnum.seekCeil(term);
-          if (status == TermsEnum.SeekStatus.END) break;
-          if (status == TermsEnum.SeekStatus.FOUND) {
-            toTermHits++;
-            int df = toTermsEnum.docFreq();
-            toTermHitsTotalDf += df;
-            if (resultBits == null
-                && df + resultListDocs > maxSortedIntSize
-                && resultList.size() > 0) {
-              resultBits = new FixedBitSet(toSearcher.maxDoc());
-            }
+          fromTerms.terms.append(term);
+        }
 
-            // if we don't have a bitset yet, or if the resulting set will be too large
-            // use the filterCache to get a DocSet
-            if (toTermsEnum.docFreq() >= minDocFreqTo || resultBits == null) {
-              // use filter cache
-              SolrCache<?, ?> filterCache = toSearcher.getFilterCache();
-              if (filterCache != null && !filterCache.isRecursionSupported()) {
-                throw new SolrException(
-                    SolrException.ErrorCode.INVALID_STATE,
-                    "Using join queries with synchronous filterCache is not supported! Details can be found in Solr Reference Guide under 'query-settings-in-solrconfig'.");
-              }
-              DocSet toTermSet = toSearcher.getDocSet(toDeState);
-              resultListDocs += toTermSet.size();
-              if (resultBits != null) {
-                toTermSet.addAllTo(resultBits);
-              } else {
-                if (toTermSet instanceof BitDocSet) {
-                  resultBits = ((BitDocSet) toTermSet).getBits().clone();
-                } else {
-                  resultList.add(toTermSet);
-                }
-              }
+        term = termsEnum.next();
+      }
+      return fromTerms;
+    }
+
+    public DocSet getDocSetEnumerate() throws IOException {
+      FixedBitSet resultBits = null;
+
+      // minimum docFreq to use the cache
+      int minDocFreqTo = Math.max(5, toSearcher.maxDoc() >> 13);
+
+      // use a smaller size than normal since we will need to sort and dedup the results
+      int maxSortedIntSize = Math.max(10, toSearcher.maxDoc() >> 10);
+
+      FromTerms fromTerms = getFromTerms();
+      fromSetSize = fromTerms.fromSetSize;
+
+      List<DocSet> resultList = new ArrayList<>(10);
+
+      Terms toTerms = toSearcher.getSlowAtomicReader().terms(toField);
+      if (fromTerms.terms.size() == 0 || toTerms == null) return DocSet.empty();
+      TermsEnum toTermsEnum = toTerms.iterator();
+
+      SolrIndexSearcher.DocsEnumState toDeState = new SolrIndexSearcher.DocsEnumState();
+      toDeState.fieldName = toField;
+      toDeState.liveDocs = toSearcher.getLiveDocsBits();
+      toDeState.termsEnum = toTermsEnum;
+      toDeState.postingsEnum = null;
+      toDeState.minSetSizeCached = minDocFreqTo;
+
+      // the from terms are sorted, so the to terms enum only moves forward
+      BytesRefIterator fromTermsIterator = fromTerms.terms.iterator();
+      for (BytesRef term = fromTermsIterator.next();
+          term != null;
+          term = fromTermsIterator.next()) {
+        TermsEnum.SeekStatus status = toTermsEnum.seekCeil(term);
+        if (status == TermsEnum.SeekStatus.END) break;
+        if (status == TermsEnum.SeekStatus.FOUND) {
+          toTermHits++;
+          int df = toTermsEnum.docFreq();
+          toTermHitsTotalDf += df;
+          if (resultBits == null
+              && df + resultListDocs > maxSortedIntSize
+              && resultList.size() > 0) {
+            resultBits = new FixedBitSet(toSearcher.maxDoc());
+          }
+
+          // if we don't have a bitset yet, or if the resulting set will be too large
+          // use the filterCache to get a DocSet
+          if (toTermsEnum.docFreq() >= minDocFreqTo || resultBits == null) {
+            // use filter cache
+            SolrCache<?, ?> filterCache = toSearcher.getFilterCache();
+            if (filterCache != null && !filterCache.isRecursionSupported()) {
+              throw new SolrException(
+                  SolrException.ErrorCode.INVALID_STATE,
+                  "Using join queries with synchronous filterCache is not supported! Details can be found in Solr Reference Guide under 'query-settings-in-solrconfig'.");
+            }
+            DocSet toTermSet = toSearcher.getDocSet(toDeState);
+            resultListDocs += toTermSet.size();
+            if (resultBits != null) {
+              toTermSet.addAllTo(resultBits);
             } else {
-              toTermDirectCount++;
-
-              // need to use liveDocs here so we don't map to any deleted ones
-              toDeState.postingsEnum =
-                  toDeState.termsEnum.postings(toDeState.postingsEnum, PostingsEnum.NONE);
-              toDeState.postingsEnum =
-                  BitsFilteredPostingsEnum.wrap(toDeState.postingsEnum, toDeState.liveDocs);
-              PostingsEnum postingsEnum = toDeState.postingsEnum;
-
-              if (postingsEnum instanceof MultiPostingsEnum) {
-                MultiPostingsEnum.EnumWithSlice[] subs =
-                    ((MultiPostingsEnum) postingsEnum).getSubs();
-                int numSubs = ((MultiPostingsEnum) postingsEnum).getNumSubs();
-                for (int subindex = 0; subindex < numSubs; subindex++) {
-                  MultiPostingsEnum.EnumWithSlice sub = subs[subindex];
-                  if (sub.postingsEnum == null) continue;
-                  int base = sub.slice.start;
-                  int docid;
-                  while ((docid = sub.postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-                    resultListDocs++;
-                    resultBits.set(docid + base);
-                  }
-                }
+              if (toTermSet instanceof BitDocSet) {
+                resultBits = ((BitDocSet) toTermSet).getBits().clone();
               } else {
+                resultList.add(toTermSet);
+              }
+            }
+          } else {
+            toTermDirectCount++;
+
+            // need to use liveDocs here so we don't map to any deleted ones
+            toDeState.postingsEnum =
+                toDeState.termsEnum.postings(toDeState.postingsEnum, PostingsEnum.NONE);
+            toDeState.postingsEnum =
+                BitsFilteredPostingsEnum.wrap(toDeState.postingsEnum, toDeState.liveDocs);
+            PostingsEnum postingsEnum = toDeState.postingsEnum;
+
+            if (postingsEnum instanceof MultiPostingsEnum) {
+              MultiPostingsEnum.EnumWithSlice[] subs = ((MultiPostingsEnum) postingsEnum).getSubs();
+              int numSubs = ((MultiPostingsEnum) postingsEnum).getNumSubs();
+              for (int subindex = 0; subindex < numSubs; subindex++) {
+                MultiPostingsEnum.EnumWithSlice sub = subs[subindex];
+                if (sub.postingsEnum == null) continue;
+                int base = sub.slice.start;
                 int docid;
-                while ((docid = postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                while ((docid = sub.postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
                   resultListDocs++;
-                  resultBits.set(docid);
+                  resultBits.set(docid + base);
                 }
               }
+            } else {
+              int docid;
+              while ((docid = postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                resultListDocs++;
+                resultBits.set(docid);
+              }
             }
           }
         }
-
-        term = termsEnum.next();
       }
 
       smallSetsDeferred = resultList.size();
@@ -472,6 +515,56 @@ class JoinQuery extends Query {
     }
   }
 
+  /** Key of the entries of the {@link #CACHE_NAME} cache. */
+  static final class FromCacheKey {
+    private final Query q;
+    private final String fromField;
+    // ordinals for the top-level method, terms for the index method
+    private final boolean ordinals;
+
+    FromCacheKey(Query q, String fromField, boolean ordinals) {
+      this.q = q;
+      this.fromField = fromField;
+      this.ordinals = ordinals;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof FromCacheKey)) return false;
+      FromCacheKey other = (FromCacheKey) o;
+      return ordinals == other.ordinals && fromField.equals(other.fromField) && q.equals(other.q);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(q, fromField, ordinals);
+    }
+
+    @Override
+    public String toString() {
+      return (ordinals ? "ords" : "terms") + "(" + fromField + ":" + q + ")";
+    }
+  }
+
+  /** The sorted terms of the from field that match the from query. */
+  static final class FromTerms implements Accountable {
+    private static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.shallowSizeOfInstance(FromTerms.class);
+
+    final BytesRefArray terms = new BytesRefArray(Counter.newCounter());
+    final int fromSetSize;
+
+    FromTerms(int fromSetSize) {
+      this.fromSetSize = fromSetSize;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + terms.ramBytesUsed();
+    }
+  }
+
   @Override
   public String toString(String field) {
     return "{!join from="
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.Query;
+
+/**
+ * Rewrites queries into a normal form before they are used as keys of the queryResultCache and the
+ * filterCache, so that queries which only differ by their structure share the same cache entries.
+ * The normal form of a query matches the same documents, and the normal form of a scoring query
+ * also gives them the same scores, so it can be executed in place of the original query, e.g. when
+ * warming the caches.
+ *
+ * <p>Only {@link BooleanQuery}, {@link BoostQuery} and {@link ConstantScoreQuery} are rewritten,
+ * other queries (including {@link ExtendedQuery} wrappers) are kept as is. The order of the
+ * clauses doesn't need to be normalized, {@link BooleanQuery#equals(Object)} already ignores it.
+ * The rules are:
+ *
+ * <ul>
+ *   <li>a boolean query with a single required or optional clause is replaced by the clause, as
+ *       {@link BooleanQuery#rewrite} does
+ *   <li>duplicate filter and prohibited clauses are removed
+ *   <li>when scores don't matter (filters, and clauses that don't score): boosts and constant score
+ *       wrappers are removed, required clauses become filter clauses, nested conjunctions and
+ *       disjunctions are flattened, and optional clauses are removed when there are required
+ *       clauses
+ * </ul>
+ *
+ * @lucene.internal
+ */
+public final class QueryNormalizer {
+
+  private QueryNormalizer() {}
+
+  /** Returns the normal form of a query whose scores matter. */
+  public static Query normalize(Query query) {
+    if (query instanceof BoostQuery) {
+      BoostQuery boostQuery = (BoostQuery) query;
+      Query subQuery = normalize(boostQuery.getQuery());
+      if (boostQuery.getBoost() == 1f) {
+        return subQuery;
+      }
+      return subQuery == boostQuery.getQuery()
+          ? query
+          : new BoostQuery(subQuery, boostQuery.getBoost());
+    }
+    if (query instanceof ConstantScoreQuery) {
+      Query subQuery = ((ConstantScoreQuery) query).getQuery();
+      Query normalized = normalizeFilter(subQuery);
+      return normalized == subQuery ? query : new ConstantScoreQuery(normalized);
+    }
+    if (query instanceof BooleanQuery) {
+      return normalizeScoring((BooleanQuery) query);
+    }
+    return query;
+  }
+
+  /** Returns the normal form of a query that is only used to match documents. */
+  public static Query normalizeFilter(Query query) {
+    while (query instanceof BoostQuery || query instanceof ConstantScoreQuery) {
+      query =
+          query instanceof BoostQuery
+              ? ((BoostQuery) query).getQuery()
+              : ((ConstantScoreQuery) query).getQuery();
+    }
+    if (query instanceof BooleanQuery) {
+      return normalizeNonScoring((BooleanQuery) query);
+    }
+    return query;
+  }
+
+  /**
+   * Returns the normal forms of a list of filters, without the duplicates of the filters that are
+   * cached, or the list itself if it's already normalized.
+   */
+  public static List<Query> normalizeFilters(List<Query> filters) {
+    if (filters == null || filters.isEmpty()) {
+      return filters;
+    }
+    List<Query> normalized = new ArrayList<>(filters.size());
+    Set<Query> cached = new HashSet<>();
+    boolean changed = false;
+    for (Query filter : filters) {
+      Query normalizedFilter = normalizeFilter(filter);
+      changed |= normalizedFilter != filter;
+      if (isCached(normalizedFilter) && !cached.add(normalizedFilter)) {
+        // intersecting the same filter twice doesn't change the result
+        changed = true;
+        continue;
+      }
+      normalized.add(normalizedFilter);
+    }
+    return changed ? normalized : filters;
+  }
+
+  private static boolean isCached(Query filter) {
+    return !(filter instanceof ExtendedQuery) || ((ExtendedQuery) filter).getCache();
+  }
+
+  private static Query normalizeScoring(BooleanQuery query) {
+    List<BooleanClause> clauses = new ArrayList<>(query.clauses().size());
+    Set<BooleanClause> nonScoring = new HashSet<>();
+    boolean changed = false;
+    for (BooleanClause clause : query.clauses()) {
+      Query subQuery = clause.getQuery();
+      Query normalized = clause.isScoring() ? normalize(subQuery) : normalizeFilter(subQuery);
+      BooleanClause normalizedClause =
+          normalized == subQuery ? clause : new BooleanClause(normalized, clause.getOccur());
+      changed |= normalized != subQuery;
+      if (!clause.isScoring() && !nonScoring.add(normalizedClause)) {
+        changed = true;
+        continue;
+      }
+      clauses.add(normalizedClause);
+    }
+
+    if (clauses.size() == 1 && query.getMinimumNumberShouldMatch() == 0) {
+      BooleanClause clause = clauses.get(0);
+      if (clause.getOccur() == Occur.MUST || clause.getOccur() == Occur.SHOULD) {
+        return clause.getQuery();
+      }
+    }
+    return changed ? build(clauses, query.getMinimumNumberShouldMatch()) : query;
+  }
+
+  private static Query normalizeNonScoring(BooleanQuery query) {
+    int minShouldMatch = query.getMinimumNumberShouldMatch();
+    List<BooleanClause> clauses = new ArrayList<>(query.clauses().size());
+    boolean changed = false;
+    for (BooleanClause clause : query.clauses()) {
+      Query subQuery = clause.getQuery();
+      Query normalized = normalizeFilter(subQuery);
+      Occur occur = clause.getOccur() == Occur.MUST ? Occur.FILTER : clause.getOccur();
+      if (normalized instanceof BooleanQuery
+          && (occur == Occur.FILTER || minShouldMatch == 0)
+          && canFlatten((BooleanQuery) normalized, occur)) {
+        clauses.addAll(((BooleanQuery) normalized).clauses());
+        changed = true;
+      } else if (normalized == subQuery && occur == clause.getOccur()) {
+        clauses.add(clause);
+      } else {
+        clauses.add(new BooleanClause(normalized, occur));
+        changed = true;
+      }
+    }
+
+    boolean required = false;
+    for (BooleanClause clause : clauses) {
+      required |= clause.getOccur() == Occur.FILTER;
+    }
+    List<BooleanClause> normalizedClauses = new ArrayList<>(clauses.size());
+    Set<BooleanClause> unique = new HashSet<>();
+    for (BooleanClause clause : clauses) {
+      if (clause.getOccur() == Occur.SHOULD && minShouldMatch == 0 && required) {
+        // optional clauses don't change which documents match when there are required ones
+        changed = true;
+      } else if (clause.getOccur() == Occur.SHOULD && minShouldMatch != 0) {
+        // duplicate optional clauses count against the minimum number that should match
+        normalizedClauses.add(clause);
+      } else if (unique.add(clause)) {
+        normalizedClauses.add(clause);
+      } else {
+        changed = true;
+      }
+    }
+
+    if (normalizedClauses.size() == 1) {
+      // as in BooleanQuery#rewrite, a minimum number of optional clauses that should match only
+      // keeps the query of a single optional clause, a required clause then matches nothing
+      BooleanClause clause = normalizedClauses.get(0);
+      if ((clause.getOccur() == Occur.FILTER && minShouldMatch == 0)
+          || (clause.getOccur() == Occur.SHOULD && minShouldMatch <= 1)) {
+        return clause.getQuery();
+      }
+    }
+    return changed ? build(normalizedClauses, minShouldMatch) : query;
+  }
+
+  /**
+   * Whether the clauses of a nested query can be added to its parent, which is true of
+   * conjunctions in a filter clause and of pure disjunctions in an optional clause.
+   */
+  private static boolean canFlatten(BooleanQuery nested, Occur occur) {
+    if (nested.getMinimumNumberShouldMatch() != 0 || nested.clauses().isEmpty()) {
+      return false;
+    }
+    boolean positive = false;
+    for (BooleanClause clause : nested.clauses()) {
+      Occur nestedOccur = clause.getOccur();
+      if (occur == Occur.FILTER) {
+        if (nestedOccur == Occur.SHOULD) {
+          return false;
+        }
+        positive |= nestedOccur == Occur.FILTER;
+      } else if (occur == Occur.SHOULD) {
+        if (nestedOccur != Occur.SHOULD) {
+          return false;
+        }
+        positive = true;
+      } else {
+        return false;
+      }
+    }
+    // a nested query that only has prohibited clauses matches no documents
+    return positive;
+  }
+
+  private static BooleanQuery build(List<BooleanClause> clauses, int minShouldMatch) {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    builder.setMinimumNumberShouldMatch(minShouldMatch);
+    for (BooleanClause clause : clauses) {
+      builder.add(clause);
+    }
+    return builder.build();
+  }
+}
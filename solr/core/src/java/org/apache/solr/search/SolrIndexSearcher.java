@@ -120,6 +120,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private final int queryResultWindowSize;
   private final int queryResultMaxDocsCached;
   private final boolean useFilterForSortedQuery;
+  private final boolean normalizeCacheKeys;
+  private final int lazyFilterRatio;
 
   private final boolean cachingEnabled;
   private final SolrCache<Query, DocSet> filterCache;
@@ -130,6 +132,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private final LongAdder liveDocsNaiveCacheHitCount = new LongAdder();
   private final LongAdder liveDocsInsertsCount = new LongAdder();
   private final LongAdder liveDocsHitCount = new LongAdder();
+  private final LongAdder normalizedFilterKeysCount = new LongAdder();
+  private final LongAdder normalizedQueryResultKeysCount = new LongAdder();
+  private final LongAdder lazyFiltersCount = new LongAdder();
 
   // map of generic caches - not synchronized since it's read-only after the constructor.
   private final Map<String, SolrCache<?, ?>> cacheMap;
@@ -339,6 +344,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     this.queryResultWindowSize = solrConfig.queryResultWindowSize;
     this.queryResultMaxDocsCached = solrConfig.queryResultMaxDocsCached;
     this.useFilterForSortedQuery = solrConfig.useFilterForSortedQuery;
+    this.normalizeCacheKeys = solrConfig.normalizeCacheKeys;
+    this.lazyFilterRatio = solrConfig.lazyFilterRatio;
 
     this.docFetcher = new SolrDocumentFetcher(this, solrConfig, enableCache);
 
@@ -847,7 +854,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     // or OS disk cache.
     if (optionalAnswer != null) {
       if (filterCache != null) {
-        filterCache.put(query, optionalAnswer);
+        filterCache.put(getFilterCacheKey(query), optionalAnswer);
       }
       return;
     }
@@ -879,7 +886,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     DocSet answer = getDocSet(q);
     BitDocSet answerBits = makeBitDocSet(answer);
     if (answerBits != answer && filterCache != null) {
-      filterCache.put(q, answerBits);
+      filterCache.put(getFilterCacheKey(q), answerBits);
     }
     return answerBits;
   }
@@ -922,6 +929,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     assert !(query instanceof WrappedQuery) : "should have unwrapped";
     assert filterCache != null : "must check for caching before calling this method";
 
+    query = getFilterCacheKey(query);
+
     if (query instanceof MatchAllDocsQuery) {
       // bypass the filterCache for MatchAllDocsQuery
       return getLiveDocSet();
@@ -944,6 +953,87 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return filterCache.computeIfAbsent(query, q -> getDocSetNC(q, null));
   }
 
+  /**
+   * Returns the key of the filterCache entry of a query, which is its normal form if
+   * normalizeCacheKeys is enabled.
+   *
+   * @see QueryNormalizer#normalizeFilter(Query)
+   */
+  private Query getFilterCacheKey(Query query) {
+    if (!normalizeCacheKeys) {
+      return query;
+    }
+    Query key = QueryNormalizer.normalizeFilter(query);
+    if (key != query) {
+      normalizedFilterKeysCount.increment();
+    }
+    return key;
+  }
+
+  /**
+   * Returns the cached DocSet of a cached filter, or null if it isn't in the filterCache.
+   *
+   * @param key the unwrapped filter, as returned by {@link #getFilterCacheKey(Query)}
+   */
+  private DocSet getCachedDocSet(Query key) {
+    if (key instanceof MatchAllDocsQuery) {
+      return getLiveDocSet();
+    }
+    return filterCache.get(key);
+  }
+
+  /**
+   * Computes the DocSet of a cached filter that {@link #getCachedDocSet(Query)} didn't find, and
+   * inserts it into the filterCache. Like {@link #getAndCacheDocSet(Query)}, concurrent requests
+   * for the same filter wait for a single computation unless a timeout may stop it.
+   *
+   * @param key the unwrapped filter, as returned by {@link #getFilterCacheKey(Query)}
+   */
+  private DocSet computeAndCacheDocSet(Query key) throws IOException {
+    if (SolrQueryTimeoutImpl.getInstance().isTimeoutEnabled()) {
+      // the filter was just looked up, see getAndCacheDocSet for why no computation is reserved
+      DocSet answer = getDocSetNC(key, null);
+      filterCache.put(key, answer);
+      return answer;
+    }
+    return filterCache.computeIfAbsent(key, q -> getDocSetNC(q, null));
+  }
+
+  /**
+   * Estimates the number of documents matching a filter without computing it: the document
+   * frequency of term queries and the estimated point count of point range queries. The count of
+   * other queries is unknown, which is {@link Long#MAX_VALUE}.
+   */
+  private long estimateFilterCount(Query query) throws IOException {
+    while (query instanceof WrappedQuery
+        || query instanceof ConstantScoreQuery
+        || query instanceof BoostQuery) {
+      if (query instanceof WrappedQuery) {
+        query = ((WrappedQuery) query).getWrappedQuery();
+      } else if (query instanceof ConstantScoreQuery) {
+        query = ((ConstantScoreQuery) query).getQuery();
+      } else {
+        query = ((BoostQuery) query).getQuery();
+      }
+    }
+    if (query instanceof TermQuery) {
+      return getIndexReader().docFreq(((TermQuery) query).getTerm());
+    }
+    if (query instanceof PointRangeQuery || query instanceof IndexOrDocValuesQuery) {
+      // the cost of the scorer supplier of a point range query is the estimated point count
+      Weight weight = createWeight(rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+      long count = 0;
+      for (LeafReaderContext leaf : getTopReaderContext().leaves()) {
+        ScorerSupplier supplier = weight.scorerSupplier(leaf);
+        if (supplier != null) {
+          count += supplier.cost();
+        }
+      }
+      return count;
+    }
+    return Long.MAX_VALUE;
+  }
+
   private static final MatchAllDocsQuery MATCH_ALL_DOCS_QUERY = new MatchAllDocsQuery();
 
   /** Used as a synchronization point to handle the lazy-init of {@link #liveDocs}. */
@@ -1130,14 +1220,14 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     List<PostFilter> postFilters = null;
 
     int end = 0;
-    int smallestIndex = -1;
 
     if (setFilter != null) {
-      answer = sets[end++] = setFilter;
-      smallestIndex = end;
+      sets[end++] = setFilter;
     } // we are done with setFilter at this point
 
-    int smallestCount = Integer.MAX_VALUE;
+    // the keys of the cached filters missing from the filterCache, when they may be lazy
+    List<Query> uncachedFilters = null;
+
     for (Query q : queries) {
       if (q instanceof ExtendedQuery) {
         ExtendedQuery eq = (ExtendedQuery) q;
@@ -1163,29 +1253,77 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
 
       Query posQuery = QueryUtils.getAbs(q);
-      sets[end] = getPositiveDocSet(posQuery);
       // Negative query if absolute value different from original
-      if (q == posQuery) {
-        neg[end] = false;
-        // keep track of the smallest positive set.
-        // This optimization is only worth it if size() is cached, which it would
-        // be if we don't do any set operations.
-        int sz = sets[end].size();
-        if (sz < smallestCount) {
-          smallestCount = sz;
-          smallestIndex = end;
-          answer = sets[end];
+      neg[end] = q != posQuery;
+      if (lazyFilterRatio > 0 && !neg[end]) {
+        // the key is normalized once, for both the lookup and the computation of a missing filter
+        Query key =
+            getFilterCacheKey(
+                posQuery instanceof WrappedQuery
+                    ? ((WrappedQuery) posQuery).getWrappedQuery()
+                    : posQuery);
+        DocSet cached = getCachedDocSet(key);
+        if (cached == null) {
+          if (uncachedFilters == null) uncachedFilters = new ArrayList<>(sets.length - end);
+          uncachedFilters.add(key);
+          continue;
         }
+        sets[end] = cached;
       } else {
-        neg[end] = true;
+        sets[end] = getPositiveDocSet(posQuery);
       }
-
       end++;
     }
 
+    if (uncachedFilters != null) {
+      // Compute the most selective filters first. A filter that is estimated to match many more
+      // documents than the smallest set isn't computed, it's rather evaluated lazily by a
+      // conjunction led by the smallest set, so only the documents that the other filters match
+      // are checked. Filters whose count can't be estimated are always computed, last.
+      long smallestCount = Long.MAX_VALUE;
+      for (int i = 0; i < end; i++) {
+        if (!neg[i]) smallestCount = Math.min(smallestCount, sets[i].size());
+      }
+      long[] costs = new long[uncachedFilters.size()];
+      Integer[] order = new Integer[costs.length];
+      for (int i = 0; i < costs.length; i++) {
+        costs[i] = estimateFilterCount(uncachedFilters.get(i));
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingLong(i -> costs[i]));
+      for (int i : order) {
+        Query filter = uncachedFilters.get(i);
+        if (smallestCount != Long.MAX_VALUE
+            && costs[i] != Long.MAX_VALUE
+            && costs[i] > lazyFilterRatio * smallestCount) {
+          if (notCached == null) notCached = new ArrayList<>(uncachedFilters.size());
+          WrappedQuery lazy = new WrappedQuery(filter);
+          lazy.setCache(false);
+          notCached.add(lazy);
+          lazyFiltersCount.increment();
+          continue;
+        }
+        sets[end] = computeAndCacheDocSet(filter);
+        neg[end] = false;
+        smallestCount = Math.min(smallestCount, sets[end].size());
+        end++;
+      }
+    }
+
+    // Intersect the positive sets from the smallest to the largest, so that the intermediate
+    // results are as small as possible. This is only worth it if size() is cached, which it would
+    // be if we don't do any set operations.
+    List<DocSet> positives = new ArrayList<>(end);
+    for (int i = 0; i < end; i++) {
+      if (!neg[i]) positives.add(sets[i]);
+    }
+    positives.sort(Comparator.comparingInt(DocSet::size));
+
     // Are all of our normal cached filters negative?
-    if (end > 0 && answer == null) {
+    if (end > 0 && positives.isEmpty()) {
       answer = getLiveDocSet();
+    } else if (!positives.isEmpty()) {
+      answer = positives.get(0);
     }
 
     // do negative queries first to shrink set size
@@ -1193,8 +1331,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       if (neg[i]) answer = answer.andNot(sets[i]);
     }
 
-    for (int i = 0; i < end; i++) {
-      if (!neg[i] && i != smallestIndex) answer = answer.intersection(sets[i]);
+    for (int i = 1; i < positives.size(); i++) {
+      answer = answer.intersection(positives.get(i));
     }
 
     // ignore "answer" if it simply matches all docs
@@ -1510,8 +1648,16 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         && (flags & (NO_CHECK_QCACHE | NO_SET_QCACHE)) != ((NO_CHECK_QCACHE | NO_SET_QCACHE))) {
       // all of the current flags can be reused during warming,
       // so set all of them on the cache key.
-      key =
-          new QueryResultKey(q, cmd.getFilterList(), cmd.getSort(), flags, cmd.getMinExactCount());
+      Query keyQuery = q;
+      List<Query> keyFilters = cmd.getFilterList();
+      if (normalizeCacheKeys) {
+        keyQuery = QueryNormalizer.normalize(q);
+        keyFilters = QueryNormalizer.normalizeFilters(keyFilters);
+        if (keyQuery != q || keyFilters != cmd.getFilterList()) {
+          normalizedQueryResultKeysCount.increment();
+        }
+      }
+      key = new QueryResultKey(keyQuery, keyFilters, cmd.getSort(), flags, cmd.getMinExactCount());
       if ((flags & NO_CHECK_QCACHE) == 0) {
         superset = queryResultCache.get(key);
 
@@ -1642,7 +1788,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         DocSet qDocSet = getDocListAndSetNC(qr, cmd);
         // cache the docSet matching the query w/o filtering
         if (qDocSet != null && filterCache != null && !qr.isPartialResults())
-          filterCache.put(cmd.getQuery(), qDocSet);
+          filterCache.put(getFilterCacheKey(cmd.getQuery()), qDocSet);
       } else {
         getDocListNC(qr, cmd);
       }
@@ -2514,6 +2660,20 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
             });
     parentContext.gauge(
         liveDocsCacheMetrics, true, "liveDocsCache", Category.SEARCHER.toString(), scope);
+    final MetricsMap normalizedCacheKeysMetrics =
+        new MetricsMap(
+            (map) -> {
+              map.put("filterCache", normalizedFilterKeysCount.sum());
+              map.put("queryResultCache", normalizedQueryResultKeysCount.sum());
+            });
+    parentContext.gauge(
+        normalizedCacheKeysMetrics,
+        true,
+        "normalizedCacheKeys",
+        Category.SEARCHER.toString(),
+        scope);
+    parentContext.gauge(
+        () -> lazyFiltersCount.sum(), true, "lazyFilters", Category.SEARCHER.toString(), scope);
     // reader stats
     parentContext.gauge(
         rgauge(parentContext.nullNumber(), () -> reader.numDocs()),
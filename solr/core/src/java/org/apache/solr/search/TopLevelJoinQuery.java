@@ -78,8 +78,7 @@ public class TopLevelJoinQuery extends JoinQuery {
         return createNoMatchesWeight(boost);
       }
 
-      final LongBitSet fromOrdBitSet =
-          findFieldOrdinalsMatchingQuery(q, fromField, fromSearcher, topLevelFromDocValues);
+      final LongBitSet fromOrdBitSet = getFromOrdinals(fromSearcher, topLevelFromDocValues);
       final LongBitSet toOrdBitSet = new LongBitSet(topLevelToDocValues.getValueCount());
       final BitsetBounds toBitsetBounds =
           convertFromOrdinalsIntoToField(
@@ -177,6 +176,32 @@ public class TopLevelJoinQuery extends JoinQuery {
     return DocValues.singleton(DocValues.getSorted(leafReader, fieldName));
   }
 
+  /**
+   * Returns the ordinals of the from field that match the from query, from the {@link
+   * JoinQuery#CACHE_NAME} cache of the from searcher if there's one. The cached bit set must not
+   * be modified.
+   */
+  private LongBitSet getFromOrdinals(
+      SolrIndexSearcher fromSearcher, SortedSetDocValues topLevelFromDocValues)
+      throws IOException {
+    @SuppressWarnings("unchecked")
+    final SolrCache<FromCacheKey, Object> cache = fromSearcher.getCache(CACHE_NAME);
+    final FromCacheKey key = new FromCacheKey(q, fromField, true);
+    if (cache != null) {
+      final LongBitSet fromOrdBitSet = (LongBitSet) cache.get(key);
+      if (fromOrdBitSet != null) {
+        assert fromOrdBitSet.length() == topLevelFromDocValues.getValueCount();
+        return fromOrdBitSet;
+      }
+    }
+    final LongBitSet fromOrdBitSet =
+        findFieldOrdinalsMatchingQuery(q, fromField, fromSearcher, topLevelFromDocValues);
+    if (cache != null) {
+      cache.put(key, fromOrdBitSet);
+    }
+    return fromOrdBitSet;
+  }
+
   private static LongBitSet findFieldOrdinalsMatchingQuery(
       Query q, String field, SolrIndexSearcher searcher, SortedSetDocValues docValues)
       throws IOException {
@@ -198,15 +223,22 @@ public class TopLevelJoinQuery extends JoinQuery {
     long fromOrdinal = 0;
     long firstToOrd = BitsetBounds.NO_MATCHES;
     long lastToOrd = 0;
+    // both fields are sorted, so each lookup starts after the previous one
+    long nextToOrd = 0;
+    final long toValueCount = toDocValues.getValueCount();
 
     while (fromOrdinal < fromOrdBitSet.length()
+        && nextToOrd < toValueCount
         && (fromOrdinal = fromOrdBitSet.nextSetBit(fromOrdinal)) >= 0) {
       final BytesRef fromBytesRef = fromDocValues.lookupOrd(fromOrdinal);
-      final long toOrdinal = lookupTerm(toDocValues, fromBytesRef, lastToOrd);
+      final long toOrdinal = lookupTerm(toDocValues, fromBytesRef, nextToOrd);
       if (toOrdinal >= 0) {
         toOrdBitSet.set(toOrdinal);
         if (firstToOrd == BitsetBounds.NO_MATCHES) firstToOrd = toOrdinal;
         lastToOrd = toOrdinal;
+        nextToOrd = toOrdinal + 1;
+      } else {
+        nextToOrd = -toOrdinal - 1;
       }
       fromOrdinal++;
     }
@@ -217,13 +249,29 @@ public class TopLevelJoinQuery extends JoinQuery {
   /*
    * Same binary-search based implementation as SortedSetDocValues.lookupTerm(BytesRef), but with an
    * optimization to narrow the search space where possible by providing a startOrd instead of beginning each search
-   * at 0.
+   * at 0. The search first gallops from startOrd, as consecutive keys are often close to each
+   * other.
    */
   private long lookupTerm(SortedSetDocValues docValues, BytesRef key, long startOrd)
       throws IOException {
     long low = startOrd;
     long high = docValues.getValueCount() - 1;
 
+    long step = 1;
+    while (low + step <= high) {
+      final long probe = low + step;
+      final int cmp = docValues.lookupOrd(probe).compareTo(key);
+      if (cmp < 0) {
+        low = probe + 1;
+        step <<= 1;
+      } else if (cmp > 0) {
+        high = probe - 1;
+        break;
+      } else {
+        return probe; // key found
+      }
+    }
+
     while (low <= high) {
       long mid = (low + high) >>> 1;
       final BytesRef term = docValues.lookupOrd(mid);
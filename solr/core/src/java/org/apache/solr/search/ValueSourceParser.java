@@ -54,6 +54,7 @@ import org.apache.solr.schema.StrField;
 import org.apache.solr.schema.TextField;
 import org.apache.solr.search.facet.AggValueSource;
 import org.apache.solr.search.facet.AvgAgg;
+import org.apache.solr.search.facet.BloomAgg;
 import org.apache.solr.search.facet.CountAgg;
 import org.apache.solr.search.facet.CountValsAgg;
 import org.apache.solr.search.facet.HLLAgg;
@@ -1151,6 +1152,35 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
           }
         });
 
+    addParser(
+        "agg_bloom",
+        new ValueSourceParser() {
+          @Override
+          public ValueSource parse(FunctionQParser fp) throws SyntaxError {
+            String field = fp.parseArg();
+            int expectedKeys =
+                fp.hasMoreArguments() ? fp.parseInt() : BloomAgg.DEFAULT_EXPECTED_KEYS;
+            double fpp = fp.hasMoreArguments() ? fp.parseDouble() : BloomAgg.DEFAULT_FPP;
+            String keyTypeName = fp.hasMoreArguments() ? fp.parseArg() : null;
+            if (expectedKeys < 1) {
+              throw new SyntaxError("bloom() expected keys must be positive, got " + expectedKeys);
+            }
+            if (!(fpp > 0 && fpp < 1)) {
+              throw new SyntaxError(
+                  "bloom() false positive rate must be between 0 and 1, got " + fpp);
+            }
+            BloomAgg.KeyType keyType = null;
+            if (keyTypeName != null) {
+              keyType = BloomAgg.KeyType.get(keyTypeName);
+              if (keyType == null) {
+                throw new SyntaxError(
+                    "bloom() key type must be 'terms' or 'numeric', got " + keyTypeName);
+              }
+            }
+            return new BloomAgg(field, expectedKeys, fpp, keyType);
+          }
+        });
+
     addParser(
         "agg_sum",
         new ValueSourceParser() {
@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.io.IOException;
+import java.util.Locale;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.schema.NumberType;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.util.BloomFilter;
+
+/**
+ * Builds a {@link BloomFilter} of the values of a string or integer docValues field, returned as
+ * its serialized bytes. The filters of the shards have the same size and are merged by OR-ing
+ * their bits, so a distributed request returns the filter of the values of the whole collection.
+ *
+ * <p>Usage: <code>bloom(field[,expectedKeys[,fpp[,keyType]]])</code>, sizing the filter for
+ * expectedKeys distinct values (1000000 by default) with a false positive rate of fpp (0.01 by
+ * default). When keyType is given, the request fails unless the values of the field are hashed as
+ * that {@link KeyType}, so that the filter can't be silently matched against incompatible keys.
+ */
+public class BloomAgg extends StrAggValueSource {
+  public static final int DEFAULT_EXPECTED_KEYS = 1000000;
+  public static final double DEFAULT_FPP = 0.01;
+
+  /** How the values of a field are hashed in the filter. */
+  public enum KeyType {
+    /** The indexed bytes of the terms of string fields. */
+    TERMS,
+    /** The long values of int and long point fields. */
+    NUMERIC;
+
+    /**
+     * Returns how the values of the field are hashed, or null when its values can't be hashed
+     * consistently from its docValues and its indexed terms.
+     */
+    public static KeyType of(SchemaField sf) {
+      NumberType numberType = sf.getType().getNumberType();
+      if (numberType == null) {
+        return TERMS;
+      } else if (sf.getType().isPointField()
+          && (numberType == NumberType.INTEGER || numberType == NumberType.LONG)) {
+        return NUMERIC;
+      }
+      return null;
+    }
+
+    public static KeyType get(String name) {
+      for (KeyType keyType : values()) {
+        if (keyType.name().equalsIgnoreCase(name)) {
+          return keyType;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final int expectedKeys;
+  private final double fpp;
+  private final KeyType keyType;
+  private final long numBits;
+  private final int numHashes;
+
+  public BloomAgg(String field, int expectedKeys, double fpp) {
+    this(field, expectedKeys, fpp, null);
+  }
+
+  /**
+   * @param keyType if not null, the type the values of the field must be hashed as
+   */
+  public BloomAgg(String field, int expectedKeys, double fpp, KeyType keyType) {
+    super("bloom", field);
+    this.expectedKeys = expectedKeys;
+    this.fpp = fpp;
+    this.keyType = keyType;
+    this.numBits = BloomFilter.optimalNumBits(expectedKeys, fpp);
+    this.numHashes = BloomFilter.optimalNumHashes(expectedKeys, numBits);
+  }
+
+  @Override
+  public SlotAcc createSlotAcc(FacetContext fcontext, long numDocs, int numSlots)
+      throws IOException {
+    SchemaField sf = fcontext.qcontext.searcher().getSchema().getField(getArg());
+    if (!sf.hasDocValues()) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "bloom() requires a field with docValues: " + sf.getName());
+    }
+    KeyType fieldKeyType = KeyType.of(sf);
+    if (fieldKeyType == null) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "bloom() requires a string, int point or long point field: " + sf.getName());
+    }
+    if (keyType != null && keyType != fieldKeyType) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "bloom() keys of type "
+              + keyType
+              + " were requested, but field "
+              + sf.getName()
+              + " has keys of type "
+              + fieldKeyType);
+    }
+    return fieldKeyType == KeyType.TERMS
+        ? new TermsAcc(fcontext, sf, numSlots)
+        : new NumericAcc(fcontext, sf, numSlots);
+  }
+
+  @Override
+  public FacetMerger createFacetMerger(Object prototype) {
+    return new Merger();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return super.equals(o)
+        && expectedKeys == ((BloomAgg) o).expectedKeys
+        && fpp == ((BloomAgg) o).fpp
+        && keyType == ((BloomAgg) o).keyType;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * super.hashCode() + expectedKeys) + Double.hashCode(fpp);
+  }
+
+  @Override
+  public String description() {
+    return name()
+        + "("
+        + arg
+        + ","
+        + expectedKeys
+        + ","
+        + fpp
+        + (keyType == null ? "" : "," + keyType.name().toLowerCase(Locale.ROOT))
+        + ")";
+  }
+
+  private static class Merger extends FacetModule.FacetSortableMerger {
+    BloomFilter aggregate;
+
+    @Override
+    public void merge(Object facetResult, Context mcontext) {
+      BloomFilter filter = BloomFilter.fromBytes((byte[]) facetResult);
+      if (aggregate == null) {
+        aggregate = filter;
+      } else {
+        aggregate.union(filter);
+      }
+    }
+
+    @Override
+    public Object getMergedResult() {
+      return aggregate == null ? null : aggregate.toBytes();
+    }
+
+    private long getCardinality() {
+      return aggregate == null ? 0 : aggregate.cardinality();
+    }
+
+    @Override
+    public int compareTo(
+        FacetModule.FacetSortableMerger other, FacetRequest.SortDirection direction) {
+      return Long.compare(getCardinality(), ((Merger) other).getCardinality());
+    }
+  }
+
+  abstract class BaseAcc extends DocValuesAcc {
+    BloomFilter[] filters;
+
+    BaseAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
+      super(fcontext, sf);
+      filters = new BloomFilter[numSlots];
+    }
+
+    BloomFilter getFilter(int slot) {
+      BloomFilter filter = filters[slot];
+      if (filter == null) {
+        filter = filters[slot] = new BloomFilter(numBits, numHashes);
+      }
+      return filter;
+    }
+
+    @Override
+    public Object getValue(int slot) throws IOException {
+      return getFilter(slot).toBytes();
+    }
+
+    @Override
+    public int compare(int slotA, int slotB) {
+      return Long.compare(getCardinality(slotA), getCardinality(slotB));
+    }
+
+    long getCardinality(int slot) {
+      return filters[slot] == null ? 0 : filters[slot].cardinality();
+    }
+
+    @Override
+    public void reset() throws IOException {
+      filters = new BloomFilter[filters.length];
+    }
+
+    @Override
+    public void resize(Resizer resizer) {
+      filters = resizer.resize(filters, null);
+    }
+  }
+
+  /**
+   * Collects the ords of each slot in the current segment, so that each distinct term of a segment
+   * is looked up and hashed only once.
+   */
+  class TermsAcc extends BaseAcc {
+    SortedSetDocValues values;
+    FixedBitSet[] segmentOrds;
+
+    TermsAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
+      super(fcontext, sf, numSlots);
+      segmentOrds = new FixedBitSet[numSlots];
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext readerContext) throws IOException {
+      flush();
+      super.setNextReader(readerContext);
+      values = DocValues.getSortedSet(readerContext.reader(), sf.getName());
+    }
+
+    @Override
+    protected boolean advanceExact(int doc) throws IOException {
+      return values.advanceExact(doc);
+    }
+
+    @Override
+    protected void collectValues(int doc, int slot) throws IOException {
+      FixedBitSet ords = segmentOrds[slot];
+      if (ords == null) {
+        ords = segmentOrds[slot] = new FixedBitSet((int) values.getValueCount());
+      }
+      for (long ord = values.nextOrd();
+          ord != SortedSetDocValues.NO_MORE_ORDS;
+          ord = values.nextOrd()) {
+        ords.set((int) ord);
+      }
+    }
+
+    /** Adds the terms collected in the current segment to the filters. */
+    private void flush() throws IOException {
+      for (int slot = 0; slot < segmentOrds.length; slot++) {
+        FixedBitSet ords = segmentOrds[slot];
+        if (ords == null) {
+          continue;
+        }
+        BloomFilter filter = getFilter(slot);
+        BitSetIterator it = new BitSetIterator(ords, 0L);
+        for (int ord = it.nextDoc(); ord != DocIdSetIterator.NO_MORE_DOCS; ord = it.nextDoc()) {
+          filter.add(values.lookupOrd(ord));
+        }
+        segmentOrds[slot] = null;
+      }
+    }
+
+    @Override
+    public Object getValue(int slot) throws IOException {
+      flush();
+      return super.getValue(slot);
+    }
+
+    @Override
+    public int compare(int slotA, int slotB) {
+      try {
+        flush();
+      } catch (IOException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+      return super.compare(slotA, slotB);
+    }
+
+    @Override
+    public void reset() throws IOException {
+      super.reset();
+      segmentOrds = new FixedBitSet[segmentOrds.length];
+    }
+
+    @Override
+    public void resize(Resizer resizer) {
+      try {
+        flush();
+      } catch (IOException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+      super.resize(resizer);
+      segmentOrds = new FixedBitSet[resizer.getNewSize()];
+    }
+  }
+
+  class NumericAcc extends BaseAcc {
+    SortedNumericDocValues values;
+
+    NumericAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
+      super(fcontext, sf, numSlots);
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext readerContext) throws IOException {
+      super.setNextReader(readerContext);
+      values = DocValues.getSortedNumeric(readerContext.reader(), sf.getName());
+    }
+
+    @Override
+    protected boolean advanceExact(int doc) throws IOException {
+      return values.advanceExact(doc);
+    }
+
+    @Override
+    protected void collectValues(int doc, int slot) throws IOException {
+      BloomFilter filter = getFilter(slot);
+      for (int i = 0, count = values.docValueCount(); i < count; i++) {
+        filter.add(values.nextValue());
+      }
+    }
+  }
+}
@@ -28,6 +28,7 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.QueryParsing;
 import org.apache.solr.search.SyntaxError;
+import org.apache.solr.search.facet.BloomAgg;
 
 @SuppressWarnings("WeakerAccess")
 public class CrossCollectionJoinQParser extends QParser {
@@ -39,6 +40,9 @@ public class CrossCollectionJoinQParser extends QParser {
   public static final String TO = "to";
   public static final String ROUTED_BY_JOIN_KEY = "routed";
   public static final String TTL = "ttl";
+  public static final String BLOOM_FILTER = "bloomFilter";
+  public static final String BLOOM_EXPECTED_KEYS = "bloomExpectedKeys";
+  public static final String BLOOM_FPP = "bloomFpp";
 
   public static final int TTL_DEFAULT = 60 * 60; // in seconds
 
@@ -53,7 +57,10 @@ public class CrossCollectionJoinQParser extends QParser {
               FROM,
               TO,
               ROUTED_BY_JOIN_KEY,
-              TTL));
+              TTL,
+              BLOOM_FILTER,
+              BLOOM_EXPECTED_KEYS,
+              BLOOM_FPP));
 
   private final String routerField;
   private final Set<String> allowSolrUrls;
@@ -94,6 +101,20 @@ public class CrossCollectionJoinQParser extends QParser {
     boolean routedByJoinKey = localParams.getBool(ROUTED_BY_JOIN_KEY, toField.equals(routerField));
     int ttl = localParams.getInt(TTL, TTL_DEFAULT);
 
+    boolean bloomFilter = localParams.getBool(BLOOM_FILTER, false);
+    int bloomExpectedKeys = localParams.getInt(BLOOM_EXPECTED_KEYS, BloomAgg.DEFAULT_EXPECTED_KEYS);
+    if (bloomExpectedKeys < 1) {
+      throw new SyntaxError(BLOOM_EXPECTED_KEYS + " must be positive: " + bloomExpectedKeys);
+    }
+    double bloomFpp = localParams.getDouble(BLOOM_FPP, BloomAgg.DEFAULT_FPP);
+    if (!(bloomFpp > 0 && bloomFpp < 1)) {
+      throw new SyntaxError(BLOOM_FPP + " must be between 0 and 1: " + bloomFpp);
+    }
+    if (bloomFilter) {
+      // fail fast, rather than when the query is executed
+      CrossCollectionJoinQuery.getBloomKeyType(req.getSchema().getField(toField));
+    }
+
     ModifiableSolrParams otherParams = new ModifiableSolrParams();
     for (Iterator<String> it = localParams.getParameterNamesIterator(); it.hasNext(); ) {
       String paramName = it.next();
@@ -103,6 +124,17 @@ public class CrossCollectionJoinQParser extends QParser {
     }
 
     return new CrossCollectionJoinQuery(
-        query, zkHost, solrUrl, collection, fromField, toField, routedByJoinKey, ttl, otherParams);
+        query,
+        zkHost,
+        solrUrl,
+        collection,
+        fromField,
+        toField,
+        routedByJoinKey,
+        bloomFilter,
+        bloomExpectedKeys,
+        bloomFpp,
+        ttl,
+        otherParams);
   }
 }
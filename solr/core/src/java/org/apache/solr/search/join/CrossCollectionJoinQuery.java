@@ -18,12 +18,15 @@
 package org.apache.solr.search.join;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.ConstantScoreScorer;
@@ -35,8 +38,11 @@ import org.apache.lucene.search.QueryVisitor;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -55,14 +61,27 @@ import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.DocSetUtil;
 import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.facet.BloomAgg;
+import org.apache.solr.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CrossCollectionJoinQuery extends Query {
 
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // the key of the bloom filter in the facets of the from collection
+  private static final String BLOOM_FILTER_FACET = "joinKeys";
+
   protected final String query;
   protected final String zkHost;
   protected final String solrUrl;
@@ -70,6 +89,9 @@ public class CrossCollectionJoinQuery extends Query {
   protected final String fromField;
   protected final String toField;
   protected final boolean routedByJoinKey;
+  protected final boolean bloomFilter;
+  protected final int bloomExpectedKeys;
+  protected final double bloomFpp;
 
   protected final long timestamp;
   protected final int ttl;
@@ -87,6 +109,39 @@ public class CrossCollectionJoinQuery extends Query {
       boolean routedByJoinKey,
       int ttl,
       SolrParams otherParams) {
+    this(
+        query,
+        zkHost,
+        solrUrl,
+        collection,
+        fromField,
+        toField,
+        routedByJoinKey,
+        false,
+        BloomAgg.DEFAULT_EXPECTED_KEYS,
+        BloomAgg.DEFAULT_FPP,
+        ttl,
+        otherParams);
+  }
+
+  /**
+   * @param bloomFilter if true, the from collection returns a bloom filter of its join keys sized
+   *     for bloomExpectedKeys with a false positive rate of bloomFpp, rather than streaming them.
+   *     The join then also matches the documents whose keys are false positives of the filter.
+   */
+  public CrossCollectionJoinQuery(
+      String query,
+      String zkHost,
+      String solrUrl,
+      String collection,
+      String fromField,
+      String toField,
+      boolean routedByJoinKey,
+      boolean bloomFilter,
+      int bloomExpectedKeys,
+      double bloomFpp,
+      int ttl,
+      SolrParams otherParams) {
 
     this.query = query;
     this.zkHost = zkHost;
@@ -95,6 +150,9 @@ public class CrossCollectionJoinQuery extends Query {
     this.fromField = fromField;
     this.toField = toField;
     this.routedByJoinKey = routedByJoinKey;
+    this.bloomFilter = bloomFilter;
+    this.bloomExpectedKeys = bloomExpectedKeys;
+    this.bloomFpp = bloomFpp;
 
     this.timestamp = System.nanoTime();
     this.ttl = ttl;
@@ -106,6 +164,26 @@ public class CrossCollectionJoinQuery extends Query {
     }
   }
 
+  /**
+   * Returns how the values of the to field are matched against a bloom filter of join keys.
+   *
+   * @throws SolrException with BAD_REQUEST if the to field can't be matched against a bloom filter
+   */
+  static BloomAgg.KeyType getBloomKeyType(SchemaField sf) {
+    BloomAgg.KeyType keyType = BloomAgg.KeyType.of(sf);
+    if (keyType == null) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "bloomFilter requires a string, int point or long point to field: " + sf.getName());
+    }
+    if (keyType == BloomAgg.KeyType.NUMERIC && !sf.hasDocValues()) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "bloomFilter requires docValues on point field " + sf.getName());
+    }
+    return keyType;
+  }
+
   private interface JoinKeyCollector {
     void collect(Object value) throws IOException;
 
@@ -215,13 +293,16 @@ public class CrossCollectionJoinQuery extends Query {
       }
     }
 
-    private TupleStream createCloudSolrStream(SolrClientCache solrClientCache) throws IOException {
-      String streamZkHost;
+    private String getZkHost() {
       if (zkHost != null) {
-        streamZkHost = zkHost;
+        return zkHost;
       } else {
-        streamZkHost = searcher.getCore().getCoreContainer().getZkController().getZkServerAddress();
+        return searcher.getCore().getCoreContainer().getZkController().getZkServerAddress();
       }
+    }
+
+    private TupleStream createCloudSolrStream(SolrClientCache solrClientCache) throws IOException {
+      String streamZkHost = getZkHost();
 
       ModifiableSolrParams params = new ModifiableSolrParams(otherParams);
       params.set(CommonParams.Q, query);
@@ -277,6 +358,9 @@ public class CrossCollectionJoinQuery extends Query {
     }
 
     private DocSet getDocSet() throws IOException {
+      if (bloomFilter) {
+        return getBloomFilterDocSet();
+      }
       SolrClientCache solrClientCache = searcher.getCore().getCoreContainer().getSolrClientCache();
       TupleStream solrStream;
       if (zkHost != null || solrUrl == null) {
@@ -322,6 +406,110 @@ public class CrossCollectionJoinQuery extends Query {
       return collector.getDocSet();
     }
 
+    /** Requests the bloom filter of the join keys of the from collection. */
+    private BloomFilter fetchBloomFilter(BloomAgg.KeyType keyType) throws IOException {
+      SolrClientCache solrClientCache = searcher.getCore().getCoreContainer().getSolrClientCache();
+      SolrClient client;
+      if (zkHost != null || solrUrl == null) {
+        client = solrClientCache.getCloudSolrClient(getZkHost());
+      } else {
+        client = solrClientCache.getHttpSolrClient(solrUrl);
+      }
+
+      ModifiableSolrParams params = new ModifiableSolrParams(otherParams);
+      params.set(CommonParams.Q, query);
+      String fq = createHashRangeFq();
+      if (fq != null) {
+        params.add(CommonParams.FQ, fq);
+      }
+      params.set(CommonParams.ROWS, 0);
+      params.set(
+          "json.facet",
+          String.format(
+              Locale.ROOT,
+              "{%s:\"bloom(%s,%d,%s,%s)\"}",
+              BLOOM_FILTER_FACET,
+              fromField,
+              bloomExpectedKeys,
+              bloomFpp,
+              keyType.name().toLowerCase(Locale.ROOT)));
+
+      NamedList<?> facets;
+      try {
+        facets = (NamedList<?>) client.query(collection, params).getResponse().get("facets");
+      } catch (SolrServerException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+      byte[] bytes = facets == null ? null : (byte[]) facets.get(BLOOM_FILTER_FACET);
+      // there's no filter when no document matched
+      return bytes == null ? null : BloomFilter.fromBytes(bytes);
+    }
+
+    private DocSet getBloomFilterDocSet() throws IOException {
+      SchemaField sf = searcher.getSchema().getField(toField);
+      BloomAgg.KeyType keyType = getBloomKeyType(sf);
+      // the from collection fails the request when its keys are hashed differently
+      BloomFilter filter = fetchBloomFilter(keyType);
+      if (filter == null) {
+        return DocSet.empty();
+      }
+
+      double falsePositiveRate = filter.estimatedFalsePositiveRate();
+      SolrMetricsContext metricsContext = searcher.getCore().getSolrMetricsContext();
+      String category = SolrInfoBean.Category.QUERY.toString();
+      metricsContext
+          .histogram("bloomFilterFalsePositivePpm", category, "crossCollectionJoin")
+          .update(Math.round(falsePositiveRate * 1_000_000));
+      metricsContext
+          .histogram("bloomFilterKeys", category, "crossCollectionJoin")
+          .update(filter.estimatedKeys());
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Bloom filter of {} from {}.{}: {} bits, {} keys, false positive rate {}",
+            query,
+            collection,
+            fromField,
+            filter.getNumBits(),
+            filter.estimatedKeys(),
+            falsePositiveRate);
+      }
+
+      FixedBitSet bitSet = new FixedBitSet(searcher.maxDoc());
+      if (keyType == BloomAgg.KeyType.NUMERIC) {
+        for (LeafReaderContext leaf : searcher.getTopReaderContext().leaves()) {
+          SortedNumericDocValues values = DocValues.getSortedNumeric(leaf.reader(), toField);
+          for (int doc = values.nextDoc();
+              doc != DocIdSetIterator.NO_MORE_DOCS;
+              doc = values.nextDoc()) {
+            for (int i = 0, count = values.docValueCount(); i < count; i++) {
+              if (filter.mightContain(values.nextValue())) {
+                bitSet.set(leaf.docBase + doc);
+                break;
+              }
+            }
+          }
+        }
+      } else {
+        Terms terms = searcher.getSlowAtomicReader().terms(toField);
+        if (terms == null) {
+          return DocSet.empty();
+        }
+        TermsEnum termsEnum = terms.iterator();
+        PostingsEnum postingsEnum = null;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+          if (filter.mightContain(term)) {
+            postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
+            bitSet.or(postingsEnum);
+          }
+        }
+      }
+
+      if (searcher.getIndexReader().hasDeletions()) {
+        bitSet.and(searcher.getLiveDocSet().getBits());
+      }
+      return new BitDocSet(bitSet);
+    }
+
     @Override
     public Scorer scorer(LeafReaderContext context) throws IOException {
       if (docs == null) {
@@ -363,6 +551,9 @@ public class CrossCollectionJoinQuery extends Query {
     result = prime * result + Objects.hashCode(fromField);
     result = prime * result + Objects.hashCode(toField);
     result = prime * result + Objects.hashCode(routedByJoinKey);
+    result = prime * result + Objects.hashCode(bloomFilter);
+    result = prime * result + bloomExpectedKeys;
+    result = prime * result + Double.hashCode(bloomFpp);
     result = prime * result + Objects.hashCode(otherParamsString);
     // timestamp and ttl should not be included in hash code
     return result;
@@ -381,6 +572,9 @@ public class CrossCollectionJoinQuery extends Query {
         && Objects.equals(fromField, other.fromField)
         && Objects.equals(toField, other.toField)
         && routedByJoinKey == other.routedByJoinKey
+        && bloomFilter == other.bloomFilter
+        && bloomExpectedKeys == other.bloomExpectedKeys
+        && bloomFpp == other.bloomFpp
         && Objects.equals(otherParamsString, other.otherParamsString)
         && TimeUnit.SECONDS.convert(Math.abs(timestamp - other.timestamp), TimeUnit.NANOSECONDS)
             < Math.min(ttl, other.ttl);
@@ -388,6 +582,20 @@ public class CrossCollectionJoinQuery extends Query {
 
   @Override
   public String toString(String field) {
+    if (bloomFilter) {
+      return String.format(
+          Locale.ROOT,
+          "{!xcjf collection=%s from=%s to=%s routed=%b bloomFilter=true bloomExpectedKeys=%d"
+              + " bloomFpp=%s ttl=%d}%s",
+          collection,
+          fromField,
+          toField,
+          routedByJoinKey,
+          bloomExpectedKeys,
+          bloomFpp,
+          ttl,
+          query.toString());
+    }
     return String.format(
         Locale.ROOT,
         "{!xcjf collection=%s from=%s to=%s routed=%b ttl=%d}%s",
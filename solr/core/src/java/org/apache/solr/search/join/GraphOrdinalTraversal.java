@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiDocValues.MultiSortedDocValues;
+import org.apache.lucene.index.MultiDocValues.MultiSortedSetDocValues;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Breadth first traversal of a graph whose node ids and edge ids are string docValues fields, used
+ * by {@link GraphQuery} when {@link GraphQuery#isUseOrdinals()} is set. Instead of building a
+ * query from the edge terms of each level, the edges of a level are kept as a bit set of the global
+ * ordinals of the edge field, which is converted to a bit set of the global ordinals of the node
+ * field with a sorted merge of the two fields. The edges of the frontier and the documents of the
+ * next level are collected segment by segment, by up to the given number of tasks of the given
+ * executor if there's one.
+ *
+ * <p>Edge values are expanded only once per traversal, so the work of each level is bounded by the
+ * new edges and the size of the index rather than by the size of the frontier: each level reads
+ * the docValues of every segment, even for a frontier of a few documents.
+ *
+ * @lucene.internal
+ */
+class GraphOrdinalTraversal {
+
+  private final List<LeafReaderContext> leaves;
+  private final String nodeField;
+  private final String edgeField;
+  private final Bits traversalBits;
+  private final ExecutorService executor;
+  private final int threads;
+
+  // top-level values, used for term lookups by the traversing thread only
+  private final SortedSetDocValues nodeValues;
+  private final SortedSetDocValues edgeValues;
+  private final OrdinalMap nodeOrdinalMap;
+  private final OrdinalMap edgeOrdinalMap;
+  // the edge values already expanded
+  private final LongBitSet expandedEdges;
+
+  /**
+   * @param nodeField the field with the node id, whose values are matched
+   * @param edgeField the field with the edge ids, whose values are collected
+   * @param traversalBits the documents that may be reached, or null for all of them
+   * @param executor the executor collecting the segments, or null to collect them in this thread
+   * @param threads the max number of tasks collecting the segments on the executor
+   */
+  GraphOrdinalTraversal(
+      SolrIndexSearcher searcher,
+      SchemaField nodeField,
+      SchemaField edgeField,
+      Bits traversalBits,
+      ExecutorService executor,
+      int threads)
+      throws IOException {
+    this.leaves = searcher.getTopReaderContext().leaves();
+    this.nodeField = nodeField.getName();
+    this.edgeField = edgeField.getName();
+    this.traversalBits = traversalBits;
+    this.executor = executor;
+    this.threads = threads;
+
+    LeafReader reader = searcher.getSlowAtomicReader();
+    this.nodeValues = DocValues.getSortedSet(reader, this.nodeField);
+    this.edgeValues = DocValues.getSortedSet(reader, this.edgeField);
+    this.nodeOrdinalMap = getOrdinalMap(nodeValues);
+    this.edgeOrdinalMap = getOrdinalMap(edgeValues);
+    this.expandedEdges = new LongBitSet(Math.max(1, edgeValues.getValueCount()));
+  }
+
+  /** Whether the graph of the given fields can be traversed with ordinals. */
+  static boolean supports(SchemaField nodeField, SchemaField edgeField) {
+    return nodeField.hasDocValues()
+        && edgeField.hasDocValues()
+        && !nodeField.getType().isPointField()
+        && !edgeField.getType().isPointField();
+  }
+
+  private static OrdinalMap getOrdinalMap(SortedSetDocValues values) {
+    if (values instanceof MultiSortedSetDocValues) {
+      return ((MultiSortedSetDocValues) values).mapping;
+    }
+    SortedDocValues singleton = DocValues.unwrapSingleton(values);
+    if (singleton instanceof MultiSortedDocValues) {
+      return ((MultiSortedDocValues) singleton).mapping;
+    }
+    return null; // a single segment, segment ords are global ords
+  }
+
+  private static LongValues getGlobalOrds(OrdinalMap ordinalMap, int leafOrd) {
+    return ordinalMap == null ? LongValues.IDENTITY : ordinalMap.getGlobalOrds(leafOrd);
+  }
+
+  /**
+   * Follows the edges of the documents of the frontier.
+   *
+   * @param frontier the documents reached by the previous level
+   * @param visited the documents reached so far, which aren't returned again
+   * @return the documents reached by this level, or null if there are none
+   */
+  FixedBitSet expand(FixedBitSet frontier, FixedBitSet visited) throws IOException {
+    LongBitSet edgeOrds = collectEdges(frontier);
+    if (edgeOrds == null) {
+      return null;
+    }
+    LongBitSet nodeOrds = toNodeOrds(edgeOrds);
+    if (nodeOrds == null) {
+      return null;
+    }
+    return collectNodes(nodeOrds, visited);
+  }
+
+  /** Returns the global ords of the edge values of the frontier that weren't expanded yet. */
+  private LongBitSet collectEdges(FixedBitSet frontier) throws IOException {
+    List<FixedBitSet> segmentOrds =
+        forEachLeaf(
+            leaf -> {
+              int docBase = leaf.docBase;
+              int end = docBase + leaf.reader().maxDoc();
+              SortedSetDocValues edges = DocValues.getSortedSet(leaf.reader(), edgeField);
+              if (docBase == end || edges.getValueCount() == 0) {
+                return null;
+              }
+              FixedBitSet ords = null;
+              for (int doc = frontier.nextSetBit(docBase);
+                  doc < end;
+                  doc = doc + 1 < end ? frontier.nextSetBit(doc + 1) : end) {
+                if (edges.advanceExact(doc - docBase)) {
+                  if (ords == null) {
+                    ords = new FixedBitSet((int) edges.getValueCount());
+                  }
+                  for (long ord = edges.nextOrd();
+                      ord != SortedSetDocValues.NO_MORE_ORDS;
+                      ord = edges.nextOrd()) {
+                    ords.set((int) ord);
+                  }
+                }
+              }
+              return ords;
+            });
+
+    LongBitSet edgeOrds = null;
+    for (int i = 0; i < segmentOrds.size(); i++) {
+      FixedBitSet ords = segmentOrds.get(i);
+      if (ords == null) {
+        continue;
+      }
+      LongValues globalOrds = getGlobalOrds(edgeOrdinalMap, i);
+      BitSetIterator it = new BitSetIterator(ords, 0L);
+      for (int ord = it.nextDoc(); ord != DocIdSetIterator.NO_MORE_DOCS; ord = it.nextDoc()) {
+        long globalOrd = globalOrds.get(ord);
+        if (!expandedEdges.getAndSet(globalOrd)) {
+          if (edgeOrds == null) {
+            edgeOrds = new LongBitSet(edgeValues.getValueCount());
+          }
+          edgeOrds.set(globalOrd);
+        }
+      }
+    }
+    return edgeOrds;
+  }
+
+  /** Converts edge ords to the ords of the same values in the node field, with a sorted merge. */
+  private LongBitSet toNodeOrds(LongBitSet edgeOrds) throws IOException {
+    if (nodeField.equals(edgeField)) {
+      return edgeOrds;
+    }
+    final long nodeValueCount = nodeValues.getValueCount();
+    LongBitSet nodeOrds = null;
+    // both fields are sorted, so each lookup starts after the previous one
+    long nextNodeOrd = 0;
+    for (long ord = edgeOrds.nextSetBit(0);
+        ord >= 0 && nextNodeOrd < nodeValueCount;
+        ord = ord + 1 < edgeOrds.length() ? edgeOrds.nextSetBit(ord + 1) : -1) {
+      long nodeOrd = lookupTerm(nodeValues, edgeValues.lookupOrd(ord), nextNodeOrd);
+      if (nodeOrd >= 0) {
+        if (nodeOrds == null) {
+          nodeOrds = new LongBitSet(nodeValueCount);
+        }
+        nodeOrds.set(nodeOrd);
+        nextNodeOrd = nodeOrd + 1;
+      } else {
+        nextNodeOrd = -nodeOrd - 1;
+      }
+    }
+    return nodeOrds;
+  }
+
+  /**
+   * Same as {@link SortedSetDocValues#lookupTerm(BytesRef)}, but starting at startOrd and
+   * galloping before the binary search, as consecutive keys are often close to each other.
+   */
+  private static long lookupTerm(SortedSetDocValues values, BytesRef key, long startOrd)
+      throws IOException {
+    long low = startOrd;
+    long high = values.getValueCount() - 1;
+
+    long step = 1;
+    while (low + step <= high) {
+      long probe = low + step;
+      int cmp = values.lookupOrd(probe).compareTo(key);
+      if (cmp < 0) {
+        low = probe + 1;
+        step <<= 1;
+      } else if (cmp > 0) {
+        high = probe - 1;
+        break;
+      } else {
+        return probe;
+      }
+    }
+
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      int cmp = values.lookupOrd(mid).compareTo(key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /** Returns the documents that weren't visited yet and have one of the node ords. */
+  private FixedBitSet collectNodes(LongBitSet nodeOrds, FixedBitSet visited) throws IOException {
+    List<FixedBitSet> segmentDocs =
+        forEachLeaf(
+            leaf -> {
+              SortedSetDocValues nodes = DocValues.getSortedSet(leaf.reader(), nodeField);
+              long valueCount = nodes.getValueCount();
+              if (valueCount == 0) {
+                return null;
+              }
+              // the node ords in the ordinal space of the segment
+              LongValues globalOrds = getGlobalOrds(nodeOrdinalMap, leaf.ord);
+              FixedBitSet ords = null;
+              for (int ord = 0; ord < valueCount; ord++) {
+                if (nodeOrds.get(globalOrds.get(ord))) {
+                  if (ords == null) {
+                    ords = new FixedBitSet((int) valueCount);
+                  }
+                  ords.set(ord);
+                }
+              }
+              if (ords == null) {
+                return null;
+              }
+
+              int docBase = leaf.docBase;
+              Bits liveDocs = leaf.reader().getLiveDocs();
+              FixedBitSet docs = null;
+              for (int doc = nodes.nextDoc();
+                  doc != DocIdSetIterator.NO_MORE_DOCS;
+                  doc = nodes.nextDoc()) {
+                if (visited.get(docBase + doc)
+                    || (liveDocs != null && !liveDocs.get(doc))
+                    || (traversalBits != null && !traversalBits.get(docBase + doc))) {
+                  continue;
+                }
+                for (long ord = nodes.nextOrd();
+                    ord != SortedSetDocValues.NO_MORE_ORDS;
+                    ord = nodes.nextOrd()) {
+                  if (ords.get((int) ord)) {
+                    if (docs == null) {
+                      docs = new FixedBitSet(leaf.reader().maxDoc());
+                    }
+                    docs.set(doc);
+                    break;
+                  }
+                }
+              }
+              return docs;
+            });
+
+    FixedBitSet reached = null;
+    for (int i = 0; i < segmentDocs.size(); i++) {
+      FixedBitSet docs = segmentDocs.get(i);
+      if (docs == null) {
+        continue;
+      }
+      if (reached == null) {
+        reached = new FixedBitSet(visited.length());
+      }
+      int docBase = leaves.get(i).docBase;
+      BitSetIterator it = new BitSetIterator(docs, 0L);
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        reached.set(docBase + doc);
+      }
+    }
+    return reached;
+  }
+
+  private interface LeafCollector<T> {
+    T collect(LeafReaderContext leaf) throws IOException;
+  }
+
+  /** Returns the results of the collector for each leaf, in the order of the leaves. */
+  private <T> List<T> forEachLeaf(LeafCollector<T> collector) throws IOException {
+    int numTasks = Math.min(threads, leaves.size());
+    if (executor == null || numTasks < 2) {
+      List<T> results = new ArrayList<>(leaves.size());
+      for (LeafReaderContext leaf : leaves) {
+        results.add(collector.collect(leaf));
+      }
+      return results;
+    }
+
+    // the executor is shared by all the graph queries, each task collects every numTasks-th leaf
+    List<T> results = new ArrayList<>(Collections.nCopies(leaves.size(), null));
+    List<Future<Object>> futures = new ArrayList<>(numTasks);
+    for (int task = 0; task < numTasks; task++) {
+      final int firstLeaf = task;
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = firstLeaf; i < leaves.size(); i += numTasks) {
+                  results.set(i, collector.collect(leaves.get(i)));
+                }
+                return null;
+              }));
+    }
+    try {
+      for (Future<Object> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    } finally {
+      for (Future<Object> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return results;
+  }
+}
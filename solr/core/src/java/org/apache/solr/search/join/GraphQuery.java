@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
@@ -37,6 +38,8 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefHash;
 import org.apache.lucene.util.FixedBitSet;
@@ -54,7 +57,15 @@ import org.apache.solr.search.SolrIndexSearcher;
  * edge ids traversalFilter = a query that can be applied for each hop in the graph. maxDepth = the
  * max depth to traverse. (start nodes is depth=1) onlyLeafNodes = only return documents that have
  * no edge id values. returnRoot = if false, the documents matching the initial query will not be
- * returned.
+ * returned. maxNodes = the max number of documents to collect, the traversal stops at the level
+ * that reaches it. useOrdinals = traverse the graph with the global ordinals of the docValues of
+ * the fields, see {@link GraphOrdinalTraversal}. threads = the max number of threads of the
+ * executor shared by the graph queries of the container that collect the segments of each level.
+ *
+ * <p>By default, or when the fields aren't both string fields with docValues, each level searches
+ * the edge values collected by the previous one. The ordinal traversal visits the docValues of
+ * every segment at each level, whatever the size of the frontier, so it only pays off for graphs
+ * whose levels reach a large part of the index.
  *
  * @lucene.experimental
  */
@@ -70,6 +81,15 @@ public class GraphQuery extends Query {
   private Query traversalFilter;
   /** The max depth to traverse the graph, -1 means no limit. */
   private int maxDepth = -1;
+  /**
+   * The max number of documents the traversal collects, including the root nodes, -1 means no
+   * limit. The traversal stops at the level that reaches it.
+   */
+  private int maxNodes = -1;
+  /** Traverse the graph with the ordinals of the docValues of the fields, when they support it. */
+  private boolean useOrdinals = false;
+  /** The max number of threads collecting the segments of a level, when traversing ordinals. */
+  private int threads = 1;
 
   /** Use automaton compilation for graph query traversal (experimental + expert use only) */
   private boolean useAutn = true;
@@ -127,6 +147,9 @@ public class GraphQuery extends Query {
       sb.append(" [TraversalFilter: ").append(traversalFilter.toString()).append(']');
     }
     sb.append("[maxDepth=").append(maxDepth).append(']');
+    if (maxNodes != -1) {
+      sb.append("[maxNodes=").append(maxNodes).append(']');
+    }
     sb.append("[returnRoot=").append(returnRoot).append(']');
     sb.append("[onlyLeafNodes=").append(onlyLeafNodes).append(']');
     sb.append("[useAutn=").append(useAutn).append(']');
@@ -174,6 +197,32 @@ public class GraphQuery extends Query {
      * @throws IOException - if a sub search fails... maybe other cases too! :)
      */
     private DocSet getDocSet() throws IOException {
+      // Find all documents in this graph that are leaf nodes to speed traversal
+      DocSet leafNodes = null;
+      FixedBitSet resultBits;
+      if (useOrdinals && GraphOrdinalTraversal.supports(matchSchemaField, collectSchemaField)) {
+        resultBits = traverseOrdinals();
+      } else {
+        leafNodes = resolveLeafNodes();
+        resultBits = traverseQueries(leafNodes);
+      }
+      // this is the final resulting filter.
+      BitDocSet resultSet = new BitDocSet(resultBits);
+      // If we only want to return leaf nodes do that here.
+      if (onlyLeafNodes) {
+        if (leafNodes == null) {
+          leafNodes = resolveLeafNodes();
+        }
+        return resultSet.intersection(leafNodes);
+      } else {
+        return resultSet;
+      }
+    }
+
+    /**
+     * Traverses the graph by searching the values of the edges of each level in the node field.
+     */
+    private FixedBitSet traverseQueries(DocSet leafNodes) throws IOException {
       // Size that the bit set needs to be.
       int capacity = fromSearcher.getRawReader().maxDoc();
       // The bit set to contain the results that match the query.
@@ -184,8 +233,8 @@ public class GraphQuery extends Query {
       FixedBitSet rootBits = null;
       // the initial query for the frontier for the first query
       Query frontierQuery = q;
-      // Find all documents in this graph that are leaf nodes to speed traversal
-      DocSet leafNodes = resolveLeafNodes();
+      // the number of documents that can still be added to the result, if there's a budget
+      long remainingNodes = maxNodes;
       // Start the breadth first graph traversal.
 
       do {
@@ -222,6 +271,16 @@ public class GraphQuery extends Query {
             frontierQuery = builder.build();
           }
         }
+        if (remainingNodes != -1) {
+          // only count the documents this level adds to the result
+          FixedBitSet levelBits = fromSet.getBits().clone();
+          levelBits.andNot(resultBits);
+          remainingNodes = applyNodeBudget(levelBits, remainingNodes);
+          fromSet = new BitDocSet(levelBits);
+          if (remainingNodes == 0) {
+            frontierQuery = null;
+          }
+        }
         if (currentDepth == 0 && !returnRoot) {
           // grab a copy of the root bits but only if we need it.
           rootBits = fromSet.getBits();
@@ -237,14 +296,69 @@ public class GraphQuery extends Query {
       if (!returnRoot) {
         resultBits.andNot(rootBits);
       }
-      // this is the final resulting filter.
-      BitDocSet resultSet = new BitDocSet(resultBits);
-      // If we only want to return leaf nodes do that here.
-      if (onlyLeafNodes) {
-        return resultSet.intersection(leafNodes);
-      } else {
-        return resultSet;
+      return resultBits;
+    }
+
+    /**
+     * Traverses the graph with {@link GraphOrdinalTraversal}, keeping the edges of each level as
+     * ordinals and collecting the segments with up to {@link #getThreads()} threads.
+     */
+    private FixedBitSet traverseOrdinals() throws IOException {
+      int capacity = fromSearcher.getRawReader().maxDoc();
+      FixedBitSet resultBits = new FixedBitSet(capacity);
+      // the documents reached by the last level, starting with the roots
+      FixedBitSet frontier = new FixedBitSet(capacity);
+      fromSearcher.getDocSet(q).addAllTo(frontier);
+      long remainingNodes = applyNodeBudget(frontier, maxNodes);
+      resultBits.or(frontier);
+      FixedBitSet rootBits = frontier;
+
+      Bits traversalBits =
+          traversalFilter == null ? null : fromSearcher.getDocSet(traversalFilter).getBits();
+      ExecutorService executor =
+          threads > 1
+              ? fromSearcher.getCore().getCoreContainer().getGraphTraversalExecutor()
+              : null;
+      GraphOrdinalTraversal traversal =
+          new GraphOrdinalTraversal(
+              fromSearcher, matchSchemaField, collectSchemaField, traversalBits, executor, threads);
+      for (currentDepth = 1;
+          (maxDepth == -1 || currentDepth <= maxDepth) && remainingNodes != 0;
+          currentDepth++) {
+        frontier = traversal.expand(frontier, resultBits);
+        if (frontier == null) {
+          break;
+        }
+        remainingNodes = applyNodeBudget(frontier, remainingNodes);
+        resultBits.or(frontier);
       }
+      if (!returnRoot) {
+        resultBits.andNot(rootBits);
+      }
+      return resultBits;
+    }
+
+    /**
+     * Keeps the first remainingNodes documents of a level, in docid order, if there's a budget.
+     *
+     * @return the number of documents that can still be added after this level, or -1 if there's
+     *     no budget
+     */
+    private long applyNodeBudget(FixedBitSet levelBits, long remainingNodes) {
+      if (remainingNodes == -1) {
+        return -1;
+      }
+      long count = 0;
+      BitSetIterator it = new BitSetIterator(levelBits, 0L);
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        if (count == remainingNodes) {
+          // the budget is spent, the traversal stops after this level
+          levelBits.clear(doc, levelBits.length());
+          break;
+        }
+        count++;
+      }
+      return remainingNodes - count;
     }
 
     private DocSet resolveLeafNodes() throws IOException {
@@ -375,6 +489,40 @@ public class GraphQuery extends Query {
     this.maxDepth = maxDepth;
   }
 
+  /**
+   * @return Max number of documents collected by the traversal, -1 for no limit.
+   */
+  public int getMaxNodes() {
+    return maxNodes;
+  }
+
+  public void setMaxNodes(int maxNodes) {
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * @return If true, the graph is traversed with the ordinals of the docValues of the fields when
+   *     both are string fields with docValues.
+   */
+  public boolean isUseOrdinals() {
+    return useOrdinals;
+  }
+
+  public void setUseOrdinals(boolean useOrdinals) {
+    this.useOrdinals = useOrdinals;
+  }
+
+  /**
+   * @return Max number of threads collecting the segments of each level of the traversal.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
   /**
    * @return If true , an automaton query will be compiled for each new frontier traversal this
    *     helps to avoid max boolean clause errors.
@@ -416,6 +564,7 @@ public class GraphQuery extends Query {
     int result = classHash();
     result = prime * result + Objects.hashCode(fromField);
     result = prime * result + maxDepth;
+    result = prime * result + maxNodes;
     result = prime * result + (onlyLeafNodes ? 1231 : 1237);
     result = prime * result + Objects.hashCode(q);
     result = prime * result + (returnRoot ? 1231 : 1237);
@@ -430,9 +579,11 @@ public class GraphQuery extends Query {
     return sameClassAs(other) && equalsTo(getClass().cast(other));
   }
 
+  // useOrdinals and threads aren't compared, they don't change the matching documents
   private boolean equalsTo(GraphQuery other) {
     return Objects.equals(fromField, other.fromField)
         && maxDepth == other.maxDepth
+        && maxNodes == other.maxNodes
         && onlyLeafNodes == other.onlyLeafNodes
         && returnRoot == other.returnRoot
         && useAutn == other.useAutn
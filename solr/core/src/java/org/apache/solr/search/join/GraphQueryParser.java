@@ -58,6 +58,18 @@ public class GraphQueryParser extends QParser {
     // if true, an automaton will be compiled to issue the next graph hop
     // this avoid having a large number of boolean clauses. (and it's faster too!)
     boolean useAutn = localParams.getBool("useAutn", false);
+    // the max number of documents to collect, the traversal stops at the level that reaches it.
+    int maxNodes = localParams.getInt("maxNodes", -1);
+    if (maxNodes < -1 || maxNodes == 0) {
+      throw new SyntaxError("maxNodes must be -1 (no limit) or a positive number: " + maxNodes);
+    }
+    // traverse the graph with the ordinals of the docValues of string fields, rather than queries.
+    boolean useOrdinals = localParams.getBool("useOrdinals", false);
+    // the number of threads collecting the segments of each level of an ordinal traversal.
+    int threads = localParams.getInt("threads", 1);
+    if (threads < 1) {
+      throw new SyntaxError("threads must be a positive number: " + threads);
+    }
 
     // Construct a graph query object based on parameters passed in.
     GraphQuery gq = new GraphQuery(rootNodeQuery, fromField, toField, traversalFilter);
@@ -66,6 +78,9 @@ public class GraphQueryParser extends QParser {
     gq.setOnlyLeafNodes(onlyLeafNodes);
     gq.setReturnRoot(returnRootNodes);
     gq.setUseAutn(useAutn);
+    gq.setMaxNodes(maxNodes);
+    gq.setUseOrdinals(useOrdinals);
+    gq.setThreads(threads);
     // return the parsed graph query.
     return gq;
   }
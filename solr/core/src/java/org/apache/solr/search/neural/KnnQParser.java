@@ -16,22 +16,34 @@
  */
 package org.apache.solr.search.neural;
 
-import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.DenseVectors;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.ExtendedQuery;
+import org.apache.solr.search.PostFilter;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.QueryParsing;
+import org.apache.solr.search.QueryUtils;
+import org.apache.solr.search.SyntaxError;
+import org.apache.solr.search.WrappedQuery;
 
 public class KnnQParser extends QParser {
 
   // retrieve the top K results based on the distance similarity function
   static final String TOP_K = "topK";
   static final int DEFAULT_TOP_K = 10;
+  // restrict the search of the main query to the documents matching the filter queries
+  static final String PRE_FILTER = "preFilter";
+  static final boolean DEFAULT_PRE_FILTER = true;
 
   /**
    * Constructor for the QParser
@@ -47,7 +59,7 @@ public class KnnQParser extends QParser {
   }
 
   @Override
-  public Query parse() {
+  public Query parse() throws SyntaxError {
     String denseVectorField = localParams.get(QueryParsing.F);
     String vectorToSearch = localParams.get(QueryParsing.V);
     int topK = localParams.getInt(TOP_K, DEFAULT_TOP_K);
@@ -71,46 +83,72 @@ public class KnnQParser extends QParser {
     }
 
     DenseVectorField denseVectorType = (DenseVectorField) fieldType;
-    float[] parsedVectorToSearch = parseVector(vectorToSearch, denseVectorType.getDimension());
-    return denseVectorType.getKnnVectorQuery(schemaField.getName(), parsedVectorToSearch, topK);
+    float[] parsedVectorToSearch =
+        DenseVectors.parse(vectorToSearch, denseVectorType.getDimension());
+    return denseVectorType.getKnnVectorQuery(
+        schemaField.getName(), parsedVectorToSearch, topK, getFilterQuery());
   }
 
   /**
-   * Parses a String vector.
+   * The filter queries of the request, combined as the non scoring clauses of a boolean query, if
+   * this parser builds the main query. Searching the k-nearest neighbours among the documents which
+   * match them, rather than filtering the neighbours found in the whole index, keeps returning topK
+   * results however selective the filters are.
    *
-   * @param value with format: [f1, f2, f3, f4...fn]
-   * @return a float array
+   * <p>The filters are kept as queries rather than as the DocSet of the current searcher, since the
+   * main query is the key of the queryResultCache and is replayed against new searchers by
+   * autowarming: the filter must be resolved by the searcher which rewrites the query.
+   *
+   * @return the query matching the filtered documents, or null to search the whole index
    */
-  private static float[] parseVector(String value, int dimension) {
-    if (!value.startsWith("[") || !value.endsWith("]")) {
-      throw new SolrException(
-          SolrException.ErrorCode.BAD_REQUEST,
-          "incorrect vector format."
-              + " The expected format is:'[f1,f2..f3]' where each element f is a float");
+  private Query getFilterQuery() throws SyntaxError {
+    if (isFilter()
+        || recurseCount != 0
+        || !localParams.getBool(PRE_FILTER, DEFAULT_PRE_FILTER)) {
+      return null;
     }
-
-    String[] elements = StringUtils.split(value.substring(1, value.length() - 1), ',');
-    if (elements.length != dimension) {
-      throw new SolrException(
-          SolrException.ErrorCode.BAD_REQUEST,
-          "incorrect vector dimension."
-              + " The vector value has size "
-              + elements.length
-              + " while it is expected a vector with size "
-              + dimension);
+    String[] fqs = req.getParams().getParams(CommonParams.FQ);
+    if (fqs == null || fqs.length == 0) {
+      return null;
     }
-    float[] vector = new float[dimension];
-    for (int i = 0; i < dimension; i++) {
-      try {
-        vector[i] = Float.parseFloat(elements[i]);
-      } catch (NumberFormatException e) {
-        throw new SolrException(
-            SolrException.ErrorCode.BAD_REQUEST,
-            "incorrect vector element: '"
-                + elements[i]
-                + "'. The expected format is:'[f1,f2..f3]' where each element f is a float");
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    boolean hasPositiveClause = false;
+    boolean hasClause = false;
+    for (String fq : fqs) {
+      if (fq == null || fq.trim().length() == 0) {
+        continue;
       }
+      QParser fqp = QParser.getParser(fq, req);
+      fqp.setIsFilter(true);
+      Query filter = fqp.getQuery();
+      if (filter == null) {
+        continue;
+      }
+      if (filter instanceof ExtendedQuery) {
+        ExtendedQuery eq = (ExtendedQuery) filter;
+        if (!eq.getCache() && eq.getCost() >= 100 && eq instanceof PostFilter) {
+          // post filters are left out, they still filter the neighbours found by the search
+          continue;
+        }
+      }
+      if (filter instanceof WrappedQuery) {
+        filter = ((WrappedQuery) filter).getWrappedQuery();
+      }
+      Query absFilter = QueryUtils.getAbs(filter);
+      if (absFilter == filter) {
+        builder.add(filter, BooleanClause.Occur.FILTER);
+        hasPositiveClause = true;
+      } else {
+        builder.add(absFilter, BooleanClause.Occur.MUST_NOT);
+      }
+      hasClause = true;
+    }
+    if (!hasClause) {
+      return null;
+    }
+    if (!hasPositiveClause) {
+      builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
     }
-    return vector;
+    return QueryUtils.build(builder, this);
   }
 }
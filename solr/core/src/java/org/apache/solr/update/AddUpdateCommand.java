@@ -57,6 +57,14 @@ public class AddUpdateCommand extends UpdateCommand {
 
   public boolean isLastDocInBatch = false;
 
+  /**
+   * Token streams of {@link #solrDoc} analyzed ahead of indexing, or null. Values which were not
+   * analyzed in advance are analyzed by the IndexWriter as usual.
+   *
+   * @see DocumentAnalysisCache
+   */
+  public DocumentAnalysisCache analysisCache;
+
   private BytesRef indexedId;
   private String indexedIdStr;
   private String selfOrNestedDocIdStr;
@@ -78,6 +86,7 @@ public class AddUpdateCommand extends UpdateCommand {
     selfOrNestedDocIdStr = null;
     updateTerm = null;
     isLastDocInBatch = false;
+    analysisCache = null;
     version = 0;
     prevVersion = -1;
   }
@@ -211,7 +220,7 @@ public class AddUpdateCommand extends UpdateCommand {
       final boolean ignoreNestedDocs = false; // throw an exception if found
       Document doc =
           DocumentBuilder.toDocument(solrDoc, req.getSchema(), forInPlaceUpdate, ignoreNestedDocs);
-      return Collections.singleton(doc);
+      return Collections.singleton(applyAnalysisCache(doc));
     }
 
     List<SolrInputDocument> all = flatten(solrDoc);
@@ -230,7 +239,17 @@ public class AddUpdateCommand extends UpdateCommand {
     }
 
     return () ->
-        all.stream().map(sdoc -> DocumentBuilder.toDocument(sdoc, req.getSchema())).iterator();
+        all.stream()
+            .map(sdoc -> applyAnalysisCache(DocumentBuilder.toDocument(sdoc, req.getSchema())))
+            .iterator();
+  }
+
+  private Document applyAnalysisCache(Document doc) {
+    // the cached tokens are only valid for the schema they were produced with
+    if (analysisCache == null || analysisCache.getSchema() != req.getSchema()) {
+      return doc;
+    }
+    return analysisCache.apply(doc);
   }
 
   private void addRootField(SolrInputDocument sdoc, String rootId) {
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * A small LRU cache of the documents most recently produced by full (non in-place) atomic updates,
+ * keyed by the indexed id of the root document. Each entry remembers the version the document was
+ * indexed with, and is only returned if that version is still the latest version known for the id,
+ * so any later add, in-place update or delete of the document makes the entry unusable.
+ *
+ * <p>This allows repeated atomic updates of the same document (e.g. counters) to skip reading and
+ * decoding the previous version of the document from the transaction log or the index.
+ *
+ * <p>Documents are copied on the way in and out, since atomic updates modify the documents they
+ * merge into.
+ */
+public class AtomicUpdateDocumentCache {
+
+  private final int maxSize;
+  private final Map<BytesRef, Entry> entries;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private static final class Entry {
+    final long version;
+    final SolrInputDocument doc;
+
+    Entry(long version, SolrInputDocument doc) {
+      this.version = version;
+      this.doc = doc;
+    }
+  }
+
+  public AtomicUpdateDocumentCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<BytesRef, Entry> eldest) {
+            return size() > AtomicUpdateDocumentCache.this.maxSize;
+          }
+        };
+  }
+
+  /**
+   * Returns a copy of the cached document for the given id, if it was cached with the given
+   * version, or null.
+   *
+   * @param indexedId indexed id of the root document
+   * @param currentVersion the latest version known for this id
+   */
+  public SolrInputDocument get(BytesRef indexedId, long currentVersion) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(indexedId);
+    }
+    if (entry == null || entry.version != currentVersion) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.doc.deepCopy();
+  }
+
+  /** Caches a copy of the document indexed for the given id and version. */
+  public void put(BytesRef indexedId, long version, SolrInputDocument doc) {
+    Entry entry = new Entry(version, doc.deepCopy());
+    synchronized (entries) {
+      entries.put(BytesRef.deepCopyOf(indexedId), entry);
+    }
+  }
+
+  public void invalidate(BytesRef indexedId) {
+    synchronized (entries) {
+      entries.remove(indexedId);
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+}
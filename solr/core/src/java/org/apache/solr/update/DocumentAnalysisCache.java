@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.util.AttributeSource;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.schema.CopyField;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+
+/**
+ * Holds the analyzed token streams of the tokenized field values of a {@link SolrInputDocument},
+ * computed ahead of indexing (typically on another thread). When the Lucene documents are built,
+ * any tokenized field whose value is the <em>very same</em> String instance that was analyzed is
+ * replayed from this cache instead of being analyzed again by the {@link
+ * org.apache.lucene.index.IndexWriter}.
+ *
+ * <p>Since entries are matched on the identity of the value, any modification of the document made
+ * after the analysis (e.g. by atomic updates) simply falls back to regular analysis for the
+ * affected values.
+ *
+ * @see org.apache.solr.update.processor.ParallelAnalysisUpdateProcessorFactory
+ */
+public final class DocumentAnalysisCache {
+
+  private final IndexSchema schema;
+  private final Map<String, IdentityHashMap<String, CapturedTokens>> fields = new HashMap<>();
+
+  private DocumentAnalysisCache(IndexSchema schema) {
+    this.schema = schema;
+  }
+
+  /**
+   * Analyzes all tokenized values of the given document, including nested child documents and
+   * copyField destinations, using the index analyzer of the schema.
+   */
+  public static DocumentAnalysisCache analyze(SolrInputDocument doc, IndexSchema schema)
+      throws IOException {
+    DocumentAnalysisCache cache = new DocumentAnalysisCache(schema);
+    cache.analyzeDocument(doc);
+    return cache;
+  }
+
+  /** The schema used to analyze the document. Cached tokens are only valid for this schema. */
+  public IndexSchema getSchema() {
+    return schema;
+  }
+
+  /** Number of distinct field values which have been analyzed. */
+  public int size() {
+    int size = 0;
+    for (Map<String, CapturedTokens> values : fields.values()) {
+      size += values.size();
+    }
+    return size;
+  }
+
+  private void analyzeDocument(SolrInputDocument doc) throws IOException {
+    for (SolrInputField field : doc) {
+      final String name = field.getName();
+      final SchemaField sf = schema.getFieldOrNull(name);
+      final List<CopyField> copyFields = schema.getCopyFieldsList(name);
+      for (Object value : field) {
+        if (value instanceof SolrInputDocument) {
+          analyzeDocument((SolrInputDocument) value);
+        } else if (value instanceof String) {
+          final String str = (String) value;
+          analyzeValue(sf, str);
+          for (CopyField cf : copyFields) {
+            // DocumentBuilder substrings values above maxChars, which would never match by identity
+            if (cf.getLimitedValue(str) == str) {
+              analyzeValue(cf.getDestination(), str);
+            }
+          }
+        }
+      }
+    }
+    if (doc.hasChildDocuments()) {
+      for (SolrInputDocument child : doc.getChildDocuments()) {
+        analyzeDocument(child);
+      }
+    }
+  }
+
+  private void analyzeValue(SchemaField sf, String value) throws IOException {
+    if (sf == null || !sf.indexed() || !sf.getType().isTokenized()) {
+      return;
+    }
+    IdentityHashMap<String, CapturedTokens> values =
+        fields.computeIfAbsent(sf.getName(), k -> new IdentityHashMap<>());
+    if (values.containsKey(value)) {
+      return;
+    }
+    try (TokenStream stream = schema.getIndexAnalyzer().tokenStream(sf.getName(), value)) {
+      values.put(value, CapturedTokens.capture(stream));
+    }
+  }
+
+  /**
+   * Returns a document in which the fields that have been analyzed in advance replay their cached
+   * tokens. Other fields are returned as-is. The given document is not modified.
+   */
+  public Document apply(Document doc) {
+    Document result = null;
+    List<IndexableField> docFields = doc.getFields();
+    for (int i = 0; i < docFields.size(); i++) {
+      IndexableField field = docFields.get(i);
+      CapturedTokens tokens = lookup(field);
+      if (tokens != null && result == null) {
+        result = new Document();
+        for (int j = 0; j < i; j++) {
+          result.add(docFields.get(j));
+        }
+      }
+      if (result != null) {
+        result.add(tokens == null ? field : new ReplayedField(field, tokens));
+      }
+    }
+    return result == null ? doc : result;
+  }
+
+  private CapturedTokens lookup(IndexableField field) {
+    IndexableFieldType type = field.fieldType();
+    if (!type.tokenized() || type.indexOptions() == IndexOptions.NONE) {
+      return null;
+    }
+    Map<String, CapturedTokens> values = fields.get(field.name());
+    if (values == null) {
+      return null;
+    }
+    String value = field.stringValue();
+    return value == null ? null : values.get(value);
+  }
+
+  /** The state of every token of an analyzed value, along with the final state after end(). */
+  static final class CapturedTokens {
+    private final AttributeSource attributes;
+    private final List<AttributeSource.State> states;
+    private final AttributeSource.State finalState;
+
+    private CapturedTokens(
+        AttributeSource attributes, List<AttributeSource.State> states, AttributeSource.State end) {
+      this.attributes = attributes;
+      this.states = states;
+      this.finalState = end;
+    }
+
+    static CapturedTokens capture(TokenStream stream) throws IOException {
+      List<AttributeSource.State> states = new ArrayList<>();
+      stream.reset();
+      while (stream.incrementToken()) {
+        states.add(stream.captureState());
+      }
+      stream.end();
+      // the analyzer reuses its streams, so keep a private copy of the attributes
+      return new CapturedTokens(stream.cloneAttributes(), states, stream.captureState());
+    }
+
+    TokenStream newTokenStream() {
+      return new ReplayTokenStream(attributes.cloneAttributes(), states, finalState);
+    }
+  }
+
+  private static final class ReplayTokenStream extends TokenStream {
+    private final List<AttributeSource.State> states;
+    private final AttributeSource.State finalState;
+    private int upto = 0;
+
+    ReplayTokenStream(
+        AttributeSource attributes,
+        List<AttributeSource.State> states,
+        AttributeSource.State finalState) {
+      super(attributes);
+      this.states = states;
+      this.finalState = finalState;
+    }
+
+    @Override
+    public boolean incrementToken() {
+      if (upto < states.size()) {
+        restoreState(states.get(upto++));
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void end() {
+      restoreState(finalState);
+    }
+
+    @Override
+    public void reset() {
+      upto = 0;
+    }
+  }
+
+  /** Delegates to the original field, except for the token stream which comes from the cache. */
+  private static final class ReplayedField implements IndexableField {
+    private final IndexableField in;
+    private final CapturedTokens tokens;
+
+    ReplayedField(IndexableField in, CapturedTokens tokens) {
+      this.in = in;
+      this.tokens = tokens;
+    }
+
+    @Override
+    public String name() {
+      return in.name();
+    }
+
+    @Override
+    public IndexableFieldType fieldType() {
+      return in.fieldType();
+    }
+
+    @Override
+    public TokenStream tokenStream(Analyzer analyzer, TokenStream reuse) {
+      return tokens.newTokenStream();
+    }
+
+    @Override
+    public BytesRef binaryValue() {
+      return in.binaryValue();
+    }
+
+    @Override
+    public String stringValue() {
+      return in.stringValue();
+    }
+
+    @Override
+    public Reader readerValue() {
+      return in.readerValue();
+    }
+
+    @Override
+    public Number numericValue() {
+      return in.numericValue();
+    }
+
+    @Override
+    public String toString() {
+      return in.toString();
+    }
+  }
+}
@@ -28,8 +28,11 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -42,6 +45,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.StrUtils;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrInfoBean;
 import org.apache.solr.handler.component.ShardHandler;
@@ -83,6 +87,7 @@ public class PeerSync implements SolrMetricProducer {
   private final boolean cantReachIsSuccess;
   private final boolean doFingerprint;
   private final boolean onlyIfActive;
+  private final int updatesBatchSize;
   private SolrCore core;
   private Updater updater;
 
@@ -103,6 +108,8 @@ public class PeerSync implements SolrMetricProducer {
     boolean doFingerprintComparison;
     Exception updateException;
     long totalRequestedUpdates;
+    // batches of missed updates still to be requested, in increasing version order
+    Deque<MissedUpdatesRequest> pendingBatches;
   }
 
   public PeerSync(SolrCore core, List<String> replicas, int nUpdates, boolean cantReachIsSuccess) {
@@ -126,6 +133,7 @@ public class PeerSync implements SolrMetricProducer {
 
     uhandler = core.getUpdateHandler();
     ulog = uhandler.getUpdateLog();
+    updatesBatchSize = ulog == null ? 0 : ulog.getPeerSyncBatchSize();
     // TODO: close
     shardHandlerFactory = core.getCoreContainer().getShardHandlerFactory();
     shardHandler = shardHandlerFactory.getShardHandler();
@@ -480,6 +488,22 @@ public class PeerSync implements SolrMetricProducer {
       return true;
     }
 
+    if (updatesBatchSize > 0 && updatesRequest.totalRequestedUpdates > updatesBatchSize) {
+      // fetch the missed updates in batches, so that each response stays reasonably small and the
+      // next batch can be fetched while the previous one is applied
+      sreq.pendingBatches =
+          new ArrayDeque<>(updatesRequest.splitIntoBatches(otherVersions, updatesBatchSize));
+      if (log.isInfoEnabled()) {
+        log.info(
+            "{} Requesting {} updates from {} in {} batches",
+            msg(),
+            updatesRequest.totalRequestedUpdates,
+            sreq.shards[0],
+            sreq.pendingBatches.size());
+      }
+      updatesRequest = sreq.pendingBatches.poll();
+    }
+
     sreq.totalRequestedUpdates = updatesRequest.totalRequestedUpdates;
     return requestUpdates(
         srsp, updatesRequest.versionsAndRanges, updatesRequest.totalRequestedUpdates);
@@ -518,7 +542,9 @@ public class PeerSync implements SolrMetricProducer {
     }
 
     // reuse our original request object
-    ShardRequest sreq = srsp.getShardRequest();
+    SyncShardRequest sreq = (SyncShardRequest) srsp.getShardRequest();
+    // the fingerprint is only needed along with the last batch of updates
+    boolean lastBatch = sreq.pendingBatches == null || sreq.pendingBatches.isEmpty();
 
     sreq.purpose = SHARD_REQUEST_PURPOSE_GET_UPDATES;
     sreq.params = new ModifiableSolrParams();
@@ -527,7 +553,7 @@ public class PeerSync implements SolrMetricProducer {
     sreq.params.set("getUpdates", versionsAndRanges);
     sreq.params.set("onlyIfActive", onlyIfActive);
 
-    sreq.params.set("fingerprint", doFingerprint);
+    sreq.params.set("fingerprint", doFingerprint && lastBatch);
     sreq.responses.clear(); // needs to be zeroed for correct correlation to occur
 
     shardHandler.submit(sreq, sreq.shards[0], sreq.params);
@@ -558,6 +584,15 @@ public class PeerSync implements SolrMetricProducer {
       sreq.fingerprint = IndexFingerprint.fromObject(fingerprint);
     }
 
+    MissedUpdatesRequest nextBatch =
+        sreq.pendingBatches == null ? null : sreq.pendingBatches.poll();
+    if (nextBatch != null) {
+      // fetch the next batch while this one is being applied. Batches are applied one at a time,
+      // in order, since the next response is only taken once this method returns.
+      sreq.totalRequestedUpdates = nextBatch.totalRequestedUpdates;
+      requestUpdates(srsp, nextBatch.versionsAndRanges, nextBatch.totalRequestedUpdates);
+    }
+
     try {
       this.updater.applyUpdates(updates, sreq.shards);
     } catch (Exception e) {
@@ -565,7 +600,8 @@ public class PeerSync implements SolrMetricProducer {
       return false;
     }
 
-    return compareFingerprint(sreq);
+    // the fingerprint can only be compared once all the batches have been applied
+    return nextBatch != null || compareFingerprint(sreq);
   }
 
   public static class PeerSyncResult {
@@ -936,5 +972,47 @@ public class PeerSync implements SolrMetricProducer {
       this.versionsAndRanges = versionsAndRanges;
       this.totalRequestedUpdates = totalRequestedUpdates;
     }
+
+    /**
+     * Splits this request into requests of at most <code>batchSize</code> versions each, in
+     * increasing version order.
+     *
+     * @param otherVersions the versions this request was built from, sorted with {@link
+     *     #absComparator}
+     */
+    List<MissedUpdatesRequest> splitIntoBatches(List<Long> otherVersions, int batchSize) {
+      List<MissedUpdatesRequest> batches = new ArrayList<>();
+      List<String> batchRanges = new ArrayList<>();
+      long batchUpdates = 0;
+      // ranges are built from the oldest versions to the newest ones
+      for (String range : StrUtils.splitSmart(versionsAndRanges, ",", true)) {
+        String[] rangeBounds = range.split("\\.{3}");
+        int lowIndex =
+            Collections.binarySearch(otherVersions, Long.valueOf(rangeBounds[0]), absComparator);
+        int highIndex =
+            Collections.binarySearch(otherVersions, Long.valueOf(rangeBounds[1]), absComparator);
+        if (lowIndex < 0 || highIndex < 0 || highIndex > lowIndex) {
+          // should not happen, but requesting everything at once is always correct
+          return Collections.singletonList(this);
+        }
+        // otherVersions are sorted with the highest version first
+        for (int start = lowIndex; start >= highIndex; ) {
+          int size = (int) Math.min(batchSize - batchUpdates, start - highIndex + 1);
+          int end = start - size + 1;
+          batchRanges.add(otherVersions.get(start) + "..." + otherVersions.get(end));
+          batchUpdates += size;
+          start = end - 1;
+          if (batchUpdates == batchSize) {
+            batches.add(of(String.join(",", batchRanges), batchUpdates));
+            batchRanges.clear();
+            batchUpdates = 0;
+          }
+        }
+      }
+      if (batchUpdates > 0) {
+        batches.add(of(String.join(",", batchRanges), batchUpdates));
+      }
+      return batches;
+    }
   }
 }
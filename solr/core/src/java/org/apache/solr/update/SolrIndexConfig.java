@@ -67,6 +67,12 @@ public class SolrIndexConfig implements MapSerializable {
   public final int maxBufferedDocs;
 
   public final double ramBufferSizeMB;
+  /**
+   * RAM buffer used while the collection is bulk loaded, see {@link
+   * org.apache.solr.common.cloud.DocCollection#isBulkLoad()}. -1 to keep using {@link
+   * #ramBufferSizeMB}.
+   */
+  public final double bulkLoadRamBufferSizeMB;
   public final int ramPerThreadHardLimitMB;
   /**
    * When using a custom merge policy that allows triggering synchronous merges on commit (see
@@ -98,6 +104,7 @@ public class SolrIndexConfig implements MapSerializable {
     useCompoundFile = false;
     maxBufferedDocs = -1;
     ramBufferSizeMB = 100;
+    bulkLoadRamBufferSizeMB = -1;
     ramPerThreadHardLimitMB = -1;
     maxCommitMergeWaitMillis = -1;
     writeLockTimeout = -1;
@@ -149,6 +156,8 @@ public class SolrIndexConfig implements MapSerializable {
     useCompoundFile = get("useCompoundFile").boolVal(def.useCompoundFile);
     maxBufferedDocs = get("maxBufferedDocs").intVal(def.maxBufferedDocs);
     ramBufferSizeMB = get("ramBufferSizeMB").doubleVal(def.ramBufferSizeMB);
+    bulkLoadRamBufferSizeMB =
+        get("bulkLoadRamBufferSizeMB").doubleVal(def.bulkLoadRamBufferSizeMB);
     maxCommitMergeWaitMillis = get("maxCommitMergeWaitTime").intVal(def.maxCommitMergeWaitMillis);
 
     // how do we validate the value??
@@ -201,6 +210,7 @@ public class SolrIndexConfig implements MapSerializable {
     map.put("useCompoundFile", useCompoundFile);
     map.put("maxBufferedDocs", maxBufferedDocs);
     map.put("ramBufferSizeMB", ramBufferSizeMB);
+    map.put("bulkLoadRamBufferSizeMB", bulkLoadRamBufferSizeMB);
     map.put("ramPerThreadHardLimitMB", ramPerThreadHardLimitMB);
     map.put("maxCommitMergeWaitTime", maxCommitMergeWaitMillis);
     map.put("writeLockTimeout", writeLockTimeout);
@@ -22,21 +22,26 @@ import java.lang.reflect.Array;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.index.CodecReader;
 import org.apache.lucene.index.FilterCodecReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.SlowCodecReaderWrapper;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
@@ -64,7 +69,9 @@ import org.apache.solr.common.cloud.CompositeIdRouter;
 import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.HashBasedRouter;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.IndexFetcher;
@@ -102,6 +109,71 @@ public class SolrIndexSplitter {
     }
   }
 
+  /** Default number of threads used to split an index. */
+  public static final int DEFAULT_NUM_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+  /**
+   * Progress of a split, which may be read from other threads while the split is running, e.g. to
+   * report the status of an async split request.
+   */
+  public static class SplitProgress {
+    public static final String PENDING = "pending";
+    public static final String FIND_DOC_SETS = "findDocSets";
+    public static final String CREATE_SUB_INDEXES = "createSubIndexes";
+    public static final String SWITCH_SUB_INDEXES = "switchSubIndexes";
+
+    private volatile String phase = PENDING;
+    private volatile int segments;
+    private volatile int partitions;
+    private final AtomicInteger segmentsProcessed = new AtomicInteger();
+    private final AtomicInteger partitionsProcessed = new AtomicInteger();
+
+    void start(int segments, int partitions) {
+      this.segments = segments;
+      this.partitions = partitions;
+    }
+
+    void setPhase(String phase) {
+      this.phase = phase;
+    }
+
+    void segmentProcessed() {
+      segmentsProcessed.incrementAndGet();
+    }
+
+    void partitionProcessed() {
+      partitionsProcessed.incrementAndGet();
+    }
+
+    public String getPhase() {
+      return phase;
+    }
+
+    public int getSegmentsProcessed() {
+      return segmentsProcessed.get();
+    }
+
+    public int getPartitionsProcessed() {
+      return partitionsProcessed.get();
+    }
+
+    public Map<String, Object> toMap() {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("phase", phase);
+      map.put("segments", segments);
+      map.put("segmentsProcessed", segmentsProcessed.get());
+      map.put("partitions", partitions);
+      map.put("partitionsProcessed", partitionsProcessed.get());
+      return map;
+    }
+
+    @Override
+    public String toString() {
+      return toMap().toString();
+    }
+  }
+
   final SplitIndexCommand cmd;
   final SolrIndexSearcher searcher;
   final SchemaField field;
@@ -214,190 +286,101 @@ public class SolrIndexSplitter {
   public void doSplit() throws IOException {
 
     List<LeafReaderContext> leaves = searcher.getRawReader().leaves();
-    Directory parentDirectory = searcher.getRawReader().directory();
-    List<FixedBitSet[]> segmentDocSets = new ArrayList<>(leaves.size());
-    SolrIndexConfig parentConfig = searcher.getCore().getSolrConfig().indexConfig;
     String timestamp = new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
 
     if (log.isInfoEnabled()) {
-      log.info("SolrIndexSplitter: partitions={} segments={}", numPieces, leaves.size());
+      log.info(
+          "SolrIndexSplitter: partitions={} segments={} threads={}",
+          numPieces,
+          leaves.size(),
+          cmd.numThreads);
     }
     RTimerTree t;
+    cmd.progress.start(leaves.size(), numPieces);
 
     // this tracks round-robin assignment of docs to partitions
     AtomicInteger currentPartition = new AtomicInteger();
+    Map<Object, FixedBitSet[]> docsToDeleteCache = new ConcurrentHashMap<>();
 
-    if (splitMethod != SplitMethod.LINK) {
-      t = timings.sub("findDocSetsPerLeaf");
-      for (LeafReaderContext readerContext : leaves) {
-        assert readerContext.ordInParent == segmentDocSets.size(); // make sure we're going in order
-        FixedBitSet[] docSets =
-            split(
-                readerContext,
-                numPieces,
-                field,
-                rangesArr,
-                splitKey,
-                hashRouter,
-                currentPartition,
-                false);
-        segmentDocSets.add(docSets);
-      }
-      t.stop();
+    ExecutorService executor = null;
+    int numThreads = Math.min(cmd.numThreads, Math.max(leaves.size(), numPieces));
+    if (numThreads > 1) {
+      executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              numThreads, new SolrNamedThreadFactory("SolrIndexSplitter"));
     }
-
-    Map<IndexReader.CacheKey, FixedBitSet[]> docsToDeleteCache = new ConcurrentHashMap<>();
-
-    // would it be more efficient to write segment-at-a-time to each new index?
-    // - need to worry about number of open descriptors
-    // - need to worry about if IW.addIndexes does a sync or not...
-    // - would be more efficient on the read side, but prob less efficient merging
-    for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
-      String partitionName =
-          "SolrIndexSplitter:partition="
-              + partitionNumber
-              + ",partitionCount="
-              + numPieces
-              + (cmd.ranges != null ? ",range=" + cmd.ranges.get(partitionNumber) : "");
-      log.info(partitionName);
-
-      boolean success = false;
-
-      RefCounted<IndexWriter> iwRef = null;
-      IndexWriter iw;
-      if (cmd.cores != null && splitMethod != SplitMethod.LINK) {
-        SolrCore subCore = cmd.cores.get(partitionNumber);
-        iwRef = subCore.getUpdateHandler().getSolrCoreState().getIndexWriter(subCore);
-        iw = iwRef.get();
+    try {
+      cmd.progress.setPhase(SplitProgress.FIND_DOC_SETS);
+      final List<FixedBitSet[]> segmentDocSets;
+      if (splitMethod != SplitMethod.LINK) {
+        t = timings.sub("findDocSetsPerLeaf");
+        segmentDocSets = findDocSets(leaves, currentPartition, false, executor);
+        t.stop();
       } else {
-        if (splitMethod == SplitMethod.LINK) {
-          SolrCore subCore = cmd.cores.get(partitionNumber);
-          String path = subCore.getDataDir() + INDEX_PREFIX + timestamp;
-          t = timings.sub("hardLinkCopy");
-          t.resume();
-          // copy by hard-linking
-          Directory splitDir =
-              subCore
-                  .getDirectoryFactory()
-                  .get(
-                      path,
-                      DirectoryFactory.DirContext.DEFAULT,
-                      subCore.getSolrConfig().indexConfig.lockType);
-          // the wrapper doesn't hold any resources itself so it doesn't need closing
-          HardlinkCopyDirectoryWrapper hardLinkedDir = new HardlinkCopyDirectoryWrapper(splitDir);
-          boolean copiedOk = false;
-          try {
-            for (String file : parentDirectory.listAll()) {
-              // we've closed the IndexWriter, so ignore write.lock
-              // its file may be present even when IndexWriter is closed but
-              // we've already checked that the lock is not held by anyone else
-              if (file.equals(IndexWriter.WRITE_LOCK_NAME)) {
-                continue;
-              }
-              hardLinkedDir.copyFrom(parentDirectory, file, file, IOContext.DEFAULT);
-            }
-            copiedOk = true;
-          } finally {
-            if (!copiedOk) {
-              subCore.getDirectoryFactory().doneWithDirectory(splitDir);
-              subCore.getDirectoryFactory().remove(splitDir);
-            }
-          }
-          t.pause();
-          IndexWriterConfig iwConfig = parentConfig.toIndexWriterConfig(subCore);
-          // don't run merges at this time
-          iwConfig.setMergePolicy(NoMergePolicy.INSTANCE);
-          t = timings.sub("createSubIW");
-          t.resume();
-          iw = new SolrIndexWriter(partitionName, splitDir, iwConfig);
-          t.pause();
-        } else {
-          SolrCore core = searcher.getCore();
-          String path = cmd.paths.get(partitionNumber);
-          t = timings.sub("createSubIW");
-          t.resume();
-          iw =
-              SolrIndexWriter.create(
-                  core,
-                  partitionName,
-                  path,
-                  core.getDirectoryFactory(),
-                  true,
-                  core.getLatestSchema(),
-                  core.getSolrConfig().indexConfig,
-                  core.getDeletionPolicy(),
-                  core.getCodec());
-          t.pause();
+        segmentDocSets = null;
+        // the hard-linked copies share the segments of the parent index, so the documents to
+        // delete from each partition only need to be found once per segment, in the parent index
+        t = timings.sub("findDocsToDeletePerLeaf");
+        List<FixedBitSet[]> docsToDelete = findDocSets(leaves, currentPartition, true, executor);
+        for (int i = 0; i < leaves.size(); i++) {
+          docsToDeleteCache.put(segmentKey(leaves.get(i).reader()), docsToDelete.get(i));
         }
+        t.stop();
       }
 
-      try {
-        if (splitMethod == SplitMethod.LINK) {
-          t = timings.sub("deleteDocuments");
-          t.resume();
-          // apply deletions specific to this partition. As a side-effect on the first call this
-          // also populates a cache of docsets to delete per leaf reader per partition, which is
-          // reused for subsequent partitions.
-          iw.deleteDocuments(
-              new SplittingQuery(
-                  partitionNumber,
-                  field,
-                  rangesArr,
-                  hashRouter,
-                  splitKey,
-                  docsToDeleteCache,
-                  currentPartition));
-          t.pause();
-        } else {
-          // This removes deletions but optimize might still be needed because sub-shards will have
-          // the same number of segments as the parent shard.
-          t = timings.sub("addIndexes");
-          t.resume();
-          for (int segmentNumber = 0; segmentNumber < leaves.size(); segmentNumber++) {
-            if (log.isInfoEnabled()) {
-              log.info(
-                  "SolrIndexSplitter: partition # {} partitionCount={} {} segment #={} segmentCount={}",
-                  partitionNumber,
-                  numPieces,
-                  (cmd.ranges != null ? " range=" + cmd.ranges.get(partitionNumber) : ""),
-                  segmentNumber,
-                  leaves.size()); // nowarn
-            }
-            CodecReader subReader = SlowCodecReaderWrapper.wrap(leaves.get(segmentNumber).reader());
-            iw.addIndexes(
-                new LiveDocsReader(subReader, segmentDocSets.get(segmentNumber)[partitionNumber]));
-          }
-          t.pause();
-        }
-        // we commit explicitly instead of sending a CommitUpdateCommand through the processor chain
-        // because the sub-shard cores will just ignore such a commit because the update log is not
-        // in active state at this time.
-        // TODO no commitUpdateCommand
-        SolrIndexWriter.setCommitData(iw, -1, cmd.commitData);
-        t = timings.sub("subIWCommit");
-        t.resume();
-        iw.commit();
-        t.pause();
-        success = true;
-      } finally {
-        if (iwRef != null) {
-          iwRef.decref();
+      // would it be more efficient to write segment-at-a-time to each new index?
+      // - need to worry about number of open descriptors
+      // - need to worry about if IW.addIndexes does a sync or not...
+      // - would be more efficient on the read side, but prob less efficient merging
+      cmd.progress.setPhase(SplitProgress.CREATE_SUB_INDEXES);
+      t = timings.sub("createSubIndexes");
+      // RTimerTree isn't thread-safe, each partition is timed by its own tree, started by the
+      // thread creating the partition and added to the timings once all the partitions are done
+      RTimerTree[] partitionTimings = new RTimerTree[numPieces];
+      List<Future<?>> partitions = new ArrayList<>(numPieces);
+      for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+        final int partition = partitionNumber;
+        if (executor == null) {
+          partitionTimings[partition] = new RTimerTree();
+          createSubIndex(
+              partition,
+              leaves,
+              segmentDocSets,
+              docsToDeleteCache,
+              currentPartition,
+              timestamp,
+              partitionTimings[partition]);
         } else {
-          if (success) {
-            t = timings.sub("subIWClose");
-            t.resume();
-            iw.close();
-            t.pause();
-          } else {
-            IOUtils.closeWhileHandlingException(iw);
-          }
-          if (splitMethod == SplitMethod.LINK) {
-            SolrCore subCore = cmd.cores.get(partitionNumber);
-            subCore.getDirectoryFactory().release(iw.getDirectory());
-          }
+          partitions.add(
+              executor.submit(
+                  () -> {
+                    partitionTimings[partition] = new RTimerTree();
+                    createSubIndex(
+                        partition,
+                        leaves,
+                        segmentDocSets,
+                        docsToDeleteCache,
+                        currentPartition,
+                        timestamp,
+                        partitionTimings[partition]);
+                    return null;
+                  }));
         }
       }
+      for (Future<?> future : partitions) {
+        await(future);
+      }
+      for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+        t.getChildren().add("partition" + partitionNumber, partitionTimings[partitionNumber]);
+      }
+      t.stop();
+    } finally {
+      if (executor != null) {
+        // also waits for the other partitions if one of them failed
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
     }
+    cmd.progress.setPhase(SplitProgress.SWITCH_SUB_INDEXES);
     // all sub-indexes created ok
     // when using hard-linking switch directories & refresh cores
     if (splitMethod == SplitMethod.LINK && cmd.cores != null) {
@@ -496,6 +479,249 @@ public class SolrIndexSplitter {
     }
   }
 
+  /**
+   * Finds the documents of each leaf which belong to (or, if <code>delete</code> is true, which
+   * don't belong to) each partition. Leaves are processed concurrently when an executor is given,
+   * unless documents are assigned to partitions in a round-robin fashion, which depends on the
+   * order of the leaves.
+   */
+  private List<FixedBitSet[]> findDocSets(
+      List<LeafReaderContext> leaves,
+      AtomicInteger currentPartition,
+      boolean delete,
+      ExecutorService executor)
+      throws IOException {
+    List<FixedBitSet[]> segmentDocSets = new ArrayList<>(leaves.size());
+    if (executor == null || rangesArr == null) {
+      for (LeafReaderContext readerContext : leaves) {
+        assert readerContext.ordInParent == segmentDocSets.size(); // make sure we're going in order
+        segmentDocSets.add(
+            split(
+                readerContext,
+                numPieces,
+                field,
+                rangesArr,
+                splitKey,
+                hashRouter,
+                currentPartition,
+                delete));
+        cmd.progress.segmentProcessed();
+      }
+      return segmentDocSets;
+    }
+    List<Future<FixedBitSet[]>> futures = new ArrayList<>(leaves.size());
+    for (LeafReaderContext readerContext : leaves) {
+      futures.add(
+          executor.submit(
+              () -> {
+                FixedBitSet[] docSets =
+                    split(
+                        readerContext,
+                        numPieces,
+                        field,
+                        rangesArr,
+                        splitKey,
+                        hashRouter,
+                        currentPartition,
+                        delete);
+                cmd.progress.segmentProcessed();
+                return docSets;
+              }));
+    }
+    for (Future<FixedBitSet[]> future : futures) {
+      segmentDocSets.add(await(future));
+    }
+    return segmentDocSets;
+  }
+
+  private void createSubIndex(
+      int partitionNumber,
+      List<LeafReaderContext> leaves,
+      List<FixedBitSet[]> segmentDocSets,
+      Map<Object, FixedBitSet[]> docsToDeleteCache,
+      AtomicInteger currentPartition,
+      String timestamp,
+      RTimerTree timings)
+      throws IOException {
+    Directory parentDirectory = searcher.getRawReader().directory();
+    SolrIndexConfig parentConfig = searcher.getCore().getSolrConfig().indexConfig;
+    String partitionName =
+        "SolrIndexSplitter:partition="
+            + partitionNumber
+            + ",partitionCount="
+            + numPieces
+            + (cmd.ranges != null ? ",range=" + cmd.ranges.get(partitionNumber) : "");
+    log.info(partitionName);
+
+    boolean success = false;
+    RTimerTree t;
+
+    RefCounted<IndexWriter> iwRef = null;
+    IndexWriter iw;
+    if (cmd.cores != null && splitMethod != SplitMethod.LINK) {
+      SolrCore subCore = cmd.cores.get(partitionNumber);
+      iwRef = subCore.getUpdateHandler().getSolrCoreState().getIndexWriter(subCore);
+      iw = iwRef.get();
+    } else {
+      if (splitMethod == SplitMethod.LINK) {
+        SolrCore subCore = cmd.cores.get(partitionNumber);
+        String path = subCore.getDataDir() + INDEX_PREFIX + timestamp;
+        t = timings.sub("hardLinkCopy");
+        // copy by hard-linking
+        Directory splitDir =
+            subCore
+                .getDirectoryFactory()
+                .get(
+                    path,
+                    DirectoryFactory.DirContext.DEFAULT,
+                    subCore.getSolrConfig().indexConfig.lockType);
+        // the wrapper doesn't hold any resources itself so it doesn't need closing
+        HardlinkCopyDirectoryWrapper hardLinkedDir = new HardlinkCopyDirectoryWrapper(splitDir);
+        boolean copiedOk = false;
+        try {
+          for (String file : parentDirectory.listAll()) {
+            // we've closed the IndexWriter, so ignore write.lock
+            // its file may be present even when IndexWriter is closed but
+            // we've already checked that the lock is not held by anyone else
+            if (file.equals(IndexWriter.WRITE_LOCK_NAME)) {
+              continue;
+            }
+            hardLinkedDir.copyFrom(parentDirectory, file, file, IOContext.DEFAULT);
+          }
+          copiedOk = true;
+        } finally {
+          if (!copiedOk) {
+            subCore.getDirectoryFactory().doneWithDirectory(splitDir);
+            subCore.getDirectoryFactory().remove(splitDir);
+          }
+        }
+        t.stop();
+        IndexWriterConfig iwConfig = parentConfig.toIndexWriterConfig(subCore);
+        // don't run merges at this time
+        iwConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+        t = timings.sub("createSubIW");
+        iw = new SolrIndexWriter(partitionName, splitDir, iwConfig);
+        t.stop();
+      } else {
+        SolrCore core = searcher.getCore();
+        String path = cmd.paths.get(partitionNumber);
+        t = timings.sub("createSubIW");
+        iw =
+            SolrIndexWriter.create(
+                core,
+                partitionName,
+                path,
+                core.getDirectoryFactory(),
+                true,
+                core.getLatestSchema(),
+                core.getSolrConfig().indexConfig,
+                core.getDeletionPolicy(),
+                core.getCodec());
+        t.stop();
+      }
+    }
+
+    try {
+      if (splitMethod == SplitMethod.LINK) {
+        t = timings.sub("deleteDocuments");
+        // apply deletions specific to this partition. Only the live docs of the hard-linked
+        // segments are written, removing the deleted documents is left to the merges which run
+        // once the sub-shard is active.
+        iw.deleteDocuments(
+            new SplittingQuery(
+                partitionNumber,
+                field,
+                rangesArr,
+                hashRouter,
+                splitKey,
+                docsToDeleteCache,
+                currentPartition,
+                timings));
+        t.stop();
+      } else {
+        // This removes deletions but optimize might still be needed because sub-shards will have
+        // the same number of segments as the parent shard.
+        t = timings.sub("addIndexes");
+        for (int segmentNumber = 0; segmentNumber < leaves.size(); segmentNumber++) {
+          if (log.isInfoEnabled()) {
+            log.info(
+                "SolrIndexSplitter: partition # {} partitionCount={} {} segment #={} segmentCount={}",
+                partitionNumber,
+                numPieces,
+                (cmd.ranges != null ? " range=" + cmd.ranges.get(partitionNumber) : ""),
+                segmentNumber,
+                leaves.size()); // nowarn
+          }
+          CodecReader subReader = SlowCodecReaderWrapper.wrap(leaves.get(segmentNumber).reader());
+          iw.addIndexes(
+              new LiveDocsReader(subReader, segmentDocSets.get(segmentNumber)[partitionNumber]));
+        }
+        t.stop();
+      }
+      // we commit explicitly instead of sending a CommitUpdateCommand through the processor chain
+      // because the sub-shard cores will just ignore such a commit because the update log is not
+      // in active state at this time.
+      // TODO no commitUpdateCommand
+      SolrIndexWriter.setCommitData(iw, -1, cmd.commitData);
+      t = timings.sub("subIWCommit");
+      iw.commit();
+      t.stop();
+      success = true;
+    } finally {
+      if (iwRef != null) {
+        iwRef.decref();
+      } else {
+        if (success) {
+          t = timings.sub("subIWClose");
+          iw.close();
+          t.stop();
+        } else {
+          IOUtils.closeWhileHandlingException(iw);
+        }
+        if (splitMethod == SplitMethod.LINK) {
+          SolrCore subCore = cmd.cores.get(partitionNumber);
+          subCore.getDirectoryFactory().release(iw.getDirectory());
+        }
+      }
+    }
+    timings.stop();
+    cmd.progress.partitionProcessed();
+    if (log.isInfoEnabled()) {
+      log.info("{} done: {}", partitionName, cmd.progress);
+    }
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Interrupted while splitting the index", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, cause);
+    }
+  }
+
+  /**
+   * Identifies a segment, along with its deletions, independently of the reader and directory it
+   * is read from, so that the hard-linked copies of a segment can share the same docsets.
+   */
+  static Object segmentKey(LeafReader reader) {
+    LeafReader unwrapped = FilterLeafReader.unwrap(reader);
+    if (unwrapped instanceof SegmentReader) {
+      SegmentCommitInfo info = ((SegmentReader) unwrapped).getSegmentInfo();
+      return info.info.name + "_" + info.getDelGen();
+    }
+    return reader.getCoreCacheHelper().getKey();
+  }
+
   private void openNewSearcher(SolrCore core) throws Exception {
     @SuppressWarnings("unchecked")
     Future<Void>[] waitSearcher = (Future<Void>[]) Array.newInstance(Future.class, 1);
@@ -511,8 +737,9 @@ public class SolrIndexSplitter {
     private final DocRouter.Range[] rangesArr;
     private final HashBasedRouter hashRouter;
     private final String splitKey;
-    private final Map<IndexReader.CacheKey, FixedBitSet[]> docsToDelete;
+    private final Map<Object, FixedBitSet[]> docsToDelete;
     private final AtomicInteger currentPartition;
+    private final RTimerTree timings;
 
     SplittingQuery(
         int partition,
@@ -520,8 +747,9 @@ public class SolrIndexSplitter {
         DocRouter.Range[] rangesArr,
         HashBasedRouter hashRouter,
         String splitKey,
-        Map<IndexReader.CacheKey, FixedBitSet[]> docsToDelete,
-        AtomicInteger currentPartition) {
+        Map<Object, FixedBitSet[]> docsToDelete,
+        AtomicInteger currentPartition,
+        RTimerTree timings) {
       this.partition = partition;
       this.field = field;
       this.rangesArr = rangesArr;
@@ -529,6 +757,7 @@ public class SolrIndexSplitter {
       this.splitKey = splitKey;
       this.docsToDelete = docsToDelete;
       this.currentPartition = currentPartition;
+      this.timings = timings;
     }
 
     @Override
@@ -579,14 +808,15 @@ public class SolrIndexSplitter {
     }
 
     private FixedBitSet findDocsToDelete(LeafReaderContext readerContext) throws IOException {
-      // check whether a cached copy of bitsets already exists for this reader
-      FixedBitSet[] perPartition =
-          docsToDelete.get(readerContext.reader().getCoreCacheHelper().getKey());
+      // check whether a cached copy of bitsets already exists for this segment, usually computed
+      // from the parent index before the sub-indexes were created
+      Object key = segmentKey(readerContext.reader());
+      FixedBitSet[] perPartition = docsToDelete.get(key);
       if (perPartition != null) {
         return perPartition[partition];
       }
       synchronized (docsToDelete) {
-        perPartition = docsToDelete.get(readerContext.reader().getCoreCacheHelper().getKey());
+        perPartition = docsToDelete.get(key);
         if (perPartition != null) {
           return perPartition[partition];
         }
@@ -601,7 +831,7 @@ public class SolrIndexSplitter {
                 hashRouter,
                 currentPartition,
                 true);
-        docsToDelete.put(readerContext.reader().getCoreCacheHelper().getKey(), perPartition);
+        docsToDelete.put(key, perPartition);
         return perPartition[partition];
       }
     }
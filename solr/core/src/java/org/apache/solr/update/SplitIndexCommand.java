@@ -43,6 +43,15 @@ public class SplitIndexCommand extends UpdateCommand {
    */
   public Map<String, String> commitData;
 
+  /**
+   * Maximum number of threads used to find the documents of each partition and to create the
+   * sub-indexes.
+   */
+  public int numThreads = SolrIndexSplitter.DEFAULT_NUM_THREADS;
+
+  /** Progress of the split, updated while it runs. */
+  public final SolrIndexSplitter.SplitProgress progress = new SolrIndexSplitter.SplitProgress();
+
   public SplitIndexCommand(
       SolrQueryRequest req,
       SolrQueryResponse rsp,
@@ -83,6 +92,7 @@ public class SplitIndexCommand extends UpdateCommand {
       sb.append(",split.key=").append(splitKey);
     }
     sb.append(",method=").append(splitMethod.toLower());
+    sb.append(",numThreads=").append(numThreads);
     if (commitData != null) {
       sb.append(",commitData=").append(commitData);
     }
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.update;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -35,7 +36,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.compress.LZ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.util.DataInputInputStream;
@@ -67,6 +71,9 @@ public class TransactionLog implements Closeable {
 
   public static final String END_MESSAGE = "SOLR_TLOG_END";
 
+  /** Documents serialized to fewer bytes than this are not worth compressing. */
+  public static final int MIN_COMPRESSED_DOC_SIZE = 512;
+
   long id;
   Path tlog;
   FileChannel channel;
@@ -84,6 +91,9 @@ public class TransactionLog implements Closeable {
   protected Map<String, Integer> globalStringMap = new HashMap<>();
   protected List<String> globalStringList = new ArrayList<>();
 
+  // whether documents of add records are written LZ4 compressed; logs may contain both
+  protected volatile boolean compressDocuments = false;
+
   // write a BytesRef as a byte array
   protected static final JavaBinCodec.ObjectResolver resolver =
       new JavaBinCodec.ObjectResolver() {
@@ -146,9 +156,55 @@ public class TransactionLog implements Closeable {
       if (UUID == tagByte) {
         return new java.util.UUID(dis.readLong(), dis.readLong());
       }
+      if (COMPRESSED_SOLRINPUTDOC == tagByte) {
+        return readCompressedSolrInputDocument(dis);
+      }
       return super.readObject(dis);
     }
 
+    /**
+     * Writes the document of an add record, LZ4 compressed if {@link #setCompressDocuments
+     * compression} is enabled and the serialized document is large enough to be worth it.
+     */
+    public void writeLogDocument(SolrInputDocument sdoc) throws IOException {
+      if (!compressDocuments) {
+        writeSolrInputDocument(sdoc);
+        return;
+      }
+
+      int bufSize = Math.min(1024 * 1024, Math.max(256, lastAddSize));
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(bufSize);
+      FastOutputStream out = FastOutputStream.wrap(bytes);
+      try (LogCodec docCodec = new LogCodec(resolver)) {
+        docCodec.init(out);
+        docCodec.writeSolrInputDocument(sdoc);
+      }
+      out.flush();
+      byte[] raw = bytes.toByteArray();
+      if (raw.length < MIN_COMPRESSED_DOC_SIZE) {
+        daos.write(raw);
+        return;
+      }
+
+      ByteBuffersDataOutput compressed = new ByteBuffersDataOutput();
+      LZ4.compress(raw, 0, raw.length, compressed, new LZ4.FastCompressionHashTable());
+      writeTag(COMPRESSED_SOLRINPUTDOC);
+      writeVInt(raw.length, daos);
+      writeVInt((int) compressed.size(), daos);
+      daos.write(compressed.toArrayCopy());
+    }
+
+    protected Object readCompressedSolrInputDocument(DataInputInputStream dis)
+        throws IOException {
+      int rawLength = readVInt(dis);
+      byte[] compressed = new byte[readVInt(dis)];
+      dis.readFully(compressed);
+      // leave room for the 8-byte copies of the LZ4 decompressor
+      byte[] raw = new byte[rawLength + 7];
+      LZ4.decompress(new ByteArrayDataInput(compressed), rawLength, raw, 0);
+      return readVal(new FastInputStream(null, raw, 0, rawLength));
+    }
+
     @Override
     public boolean writePrimitive(Object val) throws IOException {
       if (val instanceof java.util.UUID) {
@@ -329,6 +385,10 @@ public class TransactionLog implements Closeable {
 
     Map<String, Object> header = new LinkedHashMap<>();
     header.put("SOLR_TLOG", 1); // a magic string + version number
+    if (compressDocuments) {
+      // informational only: compressed documents are tagged, so readers don't need it
+      header.put("compression", "lz4");
+    }
     header.put("strings", globalStringList);
     codec.marshal(header, fos);
 
@@ -356,6 +416,18 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * Enables or disables LZ4 compression of the documents of the add records written from now on.
+   * Records already written are not affected, and logs mixing both are readable.
+   */
+  public void setCompressDocuments(boolean compressDocuments) {
+    this.compressDocuments = compressDocuments;
+  }
+
+  public boolean isCompressDocuments() {
+    return compressDocuments;
+  }
+
   int lastAddSize;
 
   /**
@@ -402,12 +474,12 @@ public class TransactionLog implements Closeable {
         codec.writeLong(cmd.getVersion());
         codec.writeLong(prevPointer);
         codec.writeLong(cmd.prevVersion);
-        codec.writeSolrInputDocument(cmd.getSolrInputDocument());
+        codec.writeLogDocument(cmd.getSolrInputDocument());
       } else {
         codec.writeTag(JavaBinCodec.ARR, 3);
         codec.writeInt(UpdateLog.ADD); // should just take one byte
         codec.writeLong(cmd.getVersion());
-        codec.writeSolrInputDocument(cmd.getSolrInputDocument());
+        codec.writeLogDocument(cmd.getSolrInputDocument());
       }
       lastAddSize = (int) out.size();
 
@@ -827,6 +899,12 @@ public class TransactionLog implements Closeable {
             // reading it completely.
             return null;
           }
+
+          @Override
+          protected Object readCompressedSolrInputDocument(DataInputInputStream dis) {
+            // same as above, no need to decompress it
+            return null;
+          }
         };
 
     // length of the next record (the next one closer to the start of the log file)
@@ -39,6 +39,8 @@ public abstract class UpdateCommand implements Cloneable {
   // doing an add.
   public static int CLEAR_CACHES = 0x00000010;
   public static int IGNORE_INDEXWRITER = 0x00000020;
+  // update command is indexed while the collection is bulk loaded, and is not written to the log.
+  public static int BULK_LOAD = 0x00000040;
 
   public UpdateCommand(SolrQueryRequest req) {
     this.req = req;
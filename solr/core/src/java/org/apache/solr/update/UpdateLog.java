@@ -214,11 +214,17 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected final int numDeletesToKeep = 1000;
   protected final int numDeletesByQueryToKeep = 100;
   protected int numRecordsToKeep;
+  protected int peerSyncBatchSize;
   protected int maxNumLogsToKeep;
   // This should only be used to initialize VersionInfo... the actual number of buckets may be
   // rounded up to a power of two.
   protected int numVersionBuckets;
+  protected AtomicUpdateDocumentCache atomicUpdateCache;
+  protected boolean compressDocuments;
+  // documents have been added without being logged since the last hard commit
+  protected volatile boolean uncommittedBulkLoadUpdates = false;
   protected Long maxVersionFromIndex = null;
+  protected final UpdateVisibilityTracker visibilityTracker = new UpdateVisibilityTracker();
   protected boolean existOldBufferLog = false;
 
   // keep track of deletes only... this is not updated on an add
@@ -332,6 +338,23 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     return numRecordsToKeep;
   }
 
+  /**
+   * Maximum number of updates {@link PeerSync} requests from a replica at once, or 0 to request
+   * all the missed updates in a single request.
+   */
+  public int getPeerSyncBatchSize() {
+    return peerSyncBatchSize;
+  }
+
+  /**
+   * Returns true if documents have been added in bulk load mode, so without being written to the
+   * update log, since the last hard commit. Those documents would be lost if the node stopped
+   * before the next hard commit.
+   */
+  public boolean hasUncommittedBulkLoadUpdates() {
+    return uncommittedBulkLoadUpdates;
+  }
+
   public int getMaxNumLogsToKeep() {
     return maxNumLogsToKeep;
   }
@@ -340,6 +363,20 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     return numVersionBuckets;
   }
 
+  /** Whether the documents of the add records of new transaction logs are LZ4 compressed. */
+  public boolean isCompressDocuments() {
+    return compressDocuments;
+  }
+
+  /**
+   * Returns the cache of documents produced by full atomic updates, or null if disabled.
+   *
+   * @see AtomicUpdateDocumentCache
+   */
+  public AtomicUpdateDocumentCache getAtomicUpdateCache() {
+    return atomicUpdateCache;
+  }
+
   protected static int objToInt(Object obj, int def) {
     if (obj != null) {
       return Integer.parseInt(obj.toString());
@@ -354,18 +391,27 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     numRecordsToKeep = objToInt(info.initArgs.get("numRecordsToKeep"), 100);
     maxNumLogsToKeep = objToInt(info.initArgs.get("maxNumLogsToKeep"), 10);
     numVersionBuckets = objToInt(info.initArgs.get("numVersionBuckets"), 65536);
+    peerSyncBatchSize = objToInt(info.initArgs.get("peerSyncBatchSize"), 0);
     if (numVersionBuckets <= 0)
       throw new SolrException(
           SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
+    compressDocuments =
+        Boolean.parseBoolean(String.valueOf(info.initArgs.get("compressDocuments")));
+    int atomicUpdateCacheSize = objToInt(info.initArgs.get("atomicUpdateCacheSize"), 0);
+    atomicUpdateCache =
+        atomicUpdateCacheSize > 0 ? new AtomicUpdateDocumentCache(atomicUpdateCacheSize) : null;
 
     log.info(
-        "Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
+        "Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={} peerSyncBatchSize={} atomicUpdateCacheSize={} compressDocuments={}",
         dataDir,
         defaultSyncLevel,
         numRecordsToKeep,
         maxNumLogsToKeep,
-        numVersionBuckets);
+        numVersionBuckets,
+        peerSyncBatchSize,
+        atomicUpdateCacheSize,
+        compressDocuments);
   }
 
   /* Note, when this is called, uhandler is not completely constructed.
@@ -506,6 +552,14 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     replayOpsMeter = solrMetricsContext.meter("ops", scope, "replay");
     copyOverOldUpdatesMeter = solrMetricsContext.meter("ops", scope, "copyOverOldUpdates");
     solrMetricsContext.gauge(() -> state.getValue(), true, "state", scope);
+    if (atomicUpdateCache != null) {
+      solrMetricsContext.gauge(
+          () -> atomicUpdateCache.getHits(), true, "hits", scope, "atomicUpdateCache");
+      solrMetricsContext.gauge(
+          () -> atomicUpdateCache.getMisses(), true, "misses", scope, "atomicUpdateCache");
+      solrMetricsContext.gauge(
+          () -> atomicUpdateCache.size(), true, "size", scope, "atomicUpdateCache");
+    }
   }
 
   @Override
@@ -612,11 +666,17 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       long pos = -1;
       long prevPointer = getPrevPointerForUpdate(cmd);
 
-      // don't log if we are replaying from another log
-      if (!updateFromOldTlogs(cmd)) {
+      // don't log if we are replaying from another log, or bulk loading. In the latter case only
+      // the version is tracked, and the document will only be durable after the next hard commit.
+      if ((cmd.getFlags() & UpdateCommand.BULK_LOAD) != 0) {
+        uncommittedBulkLoadUpdates = true;
+      } else if (!updateFromOldTlogs(cmd)) {
         ensureLog();
         pos = tlog.write(cmd, prevPointer);
       }
+      if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) == 0) {
+        visibilityTracker.logged(cmd.getVersion());
+      }
 
       if (!clearCaches) {
         // TODO: in the future we could support a real position for a REPLAY update.
@@ -683,10 +743,16 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         ensureLog();
         pos = tlog.writeDelete(cmd);
       }
+      if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) == 0) {
+        visibilityTracker.logged(cmd.getVersion());
+      }
 
       LogPtr ptr = new LogPtr(pos, cmd.version);
       map.put(br, ptr);
       oldDeletes.put(br, ptr);
+      if (atomicUpdateCache != null) {
+        atomicUpdateCache.invalidate(br);
+      }
 
       if (trace) {
         log.trace(
@@ -719,6 +785,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         // affected and hence we must purge our caches.
         openRealtimeSearcher();
         trackDeleteByQuery(cmd.getQuery(), cmd.getVersion());
+        visibilityTracker.logged(cmd.getVersion());
+        if (atomicUpdateCache != null) {
+          atomicUpdateCache.clear();
+        }
 
         if (trace) {
           LogPtr ptr = new LogPtr(pos, cmd.getVersion());
@@ -857,6 +927,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       // since we're changing the log, we must change the map.
       newMap();
 
+      // documents added without logging them are part of this commit
+      uncommittedBulkLoadUpdates = false;
+
       if (prevTlog != null) {
         globalStrings = prevTlog.getGlobalStrings();
       }
@@ -891,6 +964,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         // prevTlog.decref();
         prevTlog = null;
       }
+      if (atomicUpdateCache != null) {
+        atomicUpdateCache.clear();
+      }
     }
   }
 
@@ -899,6 +975,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     trace = log.isTraceEnabled();
 
     synchronized (this) {
+      if (cmd.softCommit || cmd.openSearcher) {
+        visibilityTracker.searcherOpening();
+      }
       if (!cmd.softCommit) return; // already handled this at the start of the hard commit
       newMap();
 
@@ -933,9 +1012,30 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
                 + System.identityHashCode(prevMap2));
       }
       clearOldMaps();
+
+      if (cmd.softCommit || cmd.openSearcher) {
+        // the searcher opened by the commit is the newest one, even if it isn't registered yet
+        RefCounted<SolrIndexSearcher> holder = uhandler.core.getNewestSearcher(false);
+        if (holder != null) {
+          try {
+            visibilityTracker.searcherOpened(holder.get().getIndexReader().getVersion());
+          } finally {
+            holder.decref();
+          }
+        }
+      }
     }
   }
 
+  /**
+   * Tracks whether the updates of this log are visible to the searchers of the core.
+   *
+   * @see org.apache.solr.common.cloud.VersionToken
+   */
+  public UpdateVisibilityTracker getVisibilityTracker() {
+    return visibilityTracker;
+  }
+
   /**
    * Goes over backwards, following the prevPointer, to merge all partial updates into the passed
    * doc. Stops at either a full document, or if there are no previous entries to follow in the
@@ -1076,6 +1176,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   public Object lookup(BytesRef indexedId) {
     LogPtr entry;
     TransactionLog lookupLog;
+    boolean reopenSearcher = false;
 
     synchronized (this) {
       entry = map.get(indexedId);
@@ -1102,7 +1203,22 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       if (entry == null) {
         return null;
       }
-      lookupLog.incref();
+      if (entry.pointer < 0) {
+        // the update wasn't logged, as it was replayed from an old log or added in bulk load mode,
+        // in which case there may be no log at all
+        reopenSearcher = uncommittedBulkLoadUpdates;
+      } else {
+        lookupLog.incref();
+      }
+    }
+
+    if (entry.pointer < 0) {
+      if (reopenSearcher) {
+        // documents added in bulk load mode are only in the index writer, so that the caller
+        // finds them with a new realtime searcher
+        openRealtimeSearcher();
+      }
+      return null;
     }
 
     try {
@@ -1413,6 +1529,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         String.format(Locale.ROOT, LOG_FILENAME_PATTERN, BUFFER_TLOG_NAME, System.nanoTime());
     bufferTlog = newTransactionLog(tlogDir.resolve(newLogName), globalStrings, false);
     bufferTlog.isBuffer = true;
+    bufferTlog.setCompressDocuments(compressDocuments);
   }
 
   // Cleanup old buffer tlogs
@@ -1432,6 +1549,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (tlog == null) {
       String newLogName = String.format(Locale.ROOT, LOG_FILENAME_PATTERN, TLOG_NAME, id);
       tlog = newTransactionLog(tlogDir.resolve(newLogName), globalStrings, false);
+      tlog.setCompressDocuments(compressDocuments);
     }
   }
 
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks whether the updates logged by an {@link UpdateLog} can be seen by the searchers of the
+ * core, so that queries carrying a {@link org.apache.solr.common.cloud.VersionToken} can tell
+ * whether the registered searcher sees the updates of the token.
+ *
+ * <p>The updates logged between two openings of a main searcher form a batch, of which only the
+ * lowest version is kept. A batch is visible to the searchers whose reader is at least as recent
+ * as the reader opened at the end of the batch. This is conservative: a batch is unseen as long as
+ * any of its updates may be, and updates which became visible some other way (e.g. a core reload)
+ * are only considered visible once the next commit opened a searcher.
+ */
+public class UpdateVisibilityTracker {
+
+  private static final long NONE = Long.MAX_VALUE;
+  // batches of searchers which may not be registered yet, older batches are merged beyond this
+  private static final int MAX_OPENED = 64;
+
+  // lowest version logged since a main searcher was last opened
+  private long unseenMinVersion = NONE;
+  // lowest version of the searcher being opened, if any
+  private long openingMinVersion = NONE;
+  private boolean opening = false;
+  // {reader version, lowest version} of the recently opened searchers, oldest first
+  private final ArrayDeque<long[]> opened = new ArrayDeque<>();
+
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  /** Called when an update is logged, after it was applied to the index writer. */
+  public synchronized void logged(long version) {
+    unseenMinVersion = Math.min(unseenMinVersion, Math.abs(version));
+  }
+
+  /** Called before a main searcher is opened: the updates logged so far will be visible in it. */
+  public synchronized void searcherOpening() {
+    openingMinVersion = Math.min(openingMinVersion, unseenMinVersion);
+    unseenMinVersion = NONE;
+    opening = true;
+  }
+
+  /** Called once the searcher announced by {@link #searcherOpening()} was opened. */
+  public synchronized void searcherOpened(long readerVersion) {
+    if (!opening) {
+      return;
+    }
+    opening = false;
+    long minVersion = openingMinVersion;
+    openingMinVersion = NONE;
+    // the new reader sees all the previous batches. Readers which don't look older were opened by
+    // another index writer, e.g. before a core reload, so merge their batches into this one
+    while (!opened.isEmpty() && opened.peekLast()[0] >= readerVersion) {
+      minVersion = Math.min(minVersion, opened.removeLast()[1]);
+    }
+    if (minVersion == NONE) {
+      return;
+    }
+    if (opened.size() >= MAX_OPENED) {
+      // merging the two oldest batches delays the visibility of the oldest one
+      long[] oldest = opened.removeFirst();
+      long[] next = opened.peekFirst();
+      next[1] = Math.min(next[1], oldest[1]);
+    }
+    opened.addLast(new long[] {readerVersion, minVersion});
+  }
+
+  /**
+   * Whether the updates logged with a version up to the given one can be seen by a searcher with
+   * the given reader version.
+   *
+   * @param version highest version of the updates, its sign is ignored
+   * @param readerVersion version of the reader of the searcher, see {@link
+   *     org.apache.lucene.index.DirectoryReader#getVersion()}
+   */
+  public synchronized boolean isVisible(long version, long readerVersion) {
+    version = Math.abs(version);
+    if (unseenMinVersion <= version || openingMinVersion <= version) {
+      return false;
+    }
+    // searchers only get more recent, batches seen by this one are seen by the next ones too
+    while (!opened.isEmpty() && opened.peekFirst()[0] <= readerVersion) {
+      opened.removeFirst();
+    }
+    for (long[] batch : opened) {
+      if (batch[1] <= version) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Lock held by the queries which open a new searcher to see their updates, so that concurrent
+   * queries wait for the same searcher rather than each opening one. It is not the lock of the
+   * other methods of this class, so updates aren't blocked while the searcher is opened.
+   */
+  public ReentrantLock getRefreshLock() {
+    return refreshLock;
+  }
+}
@@ -51,6 +51,7 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.AtomicUpdateDocumentCache;
 import org.apache.solr.update.CommitUpdateCommand;
 import org.apache.solr.update.DeleteUpdateCommand;
 import org.apache.solr.update.SolrCmdDistributor;
@@ -131,6 +132,9 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
   @VisibleForTesting VersionInfo vinfo;
   private final boolean versionsStored;
   private boolean returnVersions;
+  private final boolean returnVersionToken;
+  // highest version this leader assigned to the updates of the request, for the version token
+  protected long maxLeaderVersion = 0;
 
   private NamedList<Object> addsResponse = null;
   private NamedList<Object> deleteResponse = null;
@@ -180,8 +184,13 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     this.ulog = req.getCore().getUpdateHandler().getUpdateLog();
     this.vinfo = ulog == null ? null : ulog.getVersionInfo();
+    if (vinfo != null) {
+      // a core loaded with lazySearcher seeds its version buckets before versioning any update
+      req.getCore().ensureVersionBucketsSeeded();
+    }
     versionsStored = this.vinfo != null && this.vinfo.getVersionField() != null;
     returnVersions = req.getParams().getBool(UpdateParams.VERSIONS, false);
+    returnVersionToken = req.getParams().getBool(UpdateParams.VERSION_TOKEN, false);
 
     // TODO: better way to get the response, or pass back info to it?
     // SolrRequestInfo reqInfo = returnVersions ? SolrRequestInfo.getRequestInfo() : null;
@@ -242,6 +251,10 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     doDistribAdd(cmd);
 
+    if (!forwardToLeader) {
+      trackLeaderVersion(cmd.getVersion());
+    }
+
     // TODO: what to do when no idField?
     if (returnVersions && rsp != null && idField != null) {
       if (addsResponse == null) {
@@ -375,6 +388,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
       throws IOException {
     try {
       BytesRef idBytes = cmd.getIndexedId();
+      boolean isAtomicUpdate = false;
       bucket.signalAll();
       // just in case anyone is waiting let them know that we have a new update
       // we obtain the version when synchronized and then do the add so we can ensure that
@@ -403,7 +417,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
             versionOnUpdate = 0;
           }
 
-          getUpdatedDocument(cmd, versionOnUpdate);
+          isAtomicUpdate = getUpdatedDocument(cmd, versionOnUpdate);
 
           // leaders can also be in buffering state during "migrate" API call, see SOLR-5308
           if (forwardedFromCollection
@@ -543,6 +557,11 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
       // TODO: possibly set checkDeleteByQueries as a flag on the command?
       doLocalAdd(cmd);
 
+      if (isAtomicUpdate && !cmd.isInPlaceUpdate() && ulog.getAtomicUpdateCache() != null) {
+        // the next atomic update of this document can start from it, as long as it's the latest
+        ulog.getAtomicUpdateCache().put(cmd.getIndexedId(), cmd.getVersion(), cmd.solrDoc);
+      }
+
       if (clonedDoc != null) {
         cmd.solrDoc = clonedDoc;
       }
@@ -784,15 +803,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     // full (non-inplace) atomic update
 
-    final SolrInputDocument oldRootDocWithChildren =
-        RealTimeGetComponent.getInputDocument(
-            req.getCore(),
-            rootIdBytes,
-            rootIdBytes,
-            null,
-            null,
-            RealTimeGetComponent.Resolution
-                .ROOT_WITH_CHILDREN); // when no children, just fetches the doc
+    final SolrInputDocument oldRootDocWithChildren = getOldRootDocWithChildren(rootIdBytes);
 
     SolrInputDocument sdoc = cmd.getSolrInputDocument();
     SolrInputDocument mergedDoc;
@@ -818,6 +829,32 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
     return true;
   }
 
+  /**
+   * Fetches the latest version of the root document to merge a full atomic update into, from the
+   * {@link org.apache.solr.update.AtomicUpdateDocumentCache} if the cached document is still the
+   * latest version, or else from the update log or the index.
+   */
+  private SolrInputDocument getOldRootDocWithChildren(BytesRef rootIdBytes) throws IOException {
+    AtomicUpdateDocumentCache cache = ulog.getAtomicUpdateCache();
+    if (cache != null) {
+      Long currentVersion = vinfo.lookupVersion(rootIdBytes);
+      if (currentVersion != null && currentVersion > 0) {
+        SolrInputDocument cached = cache.get(rootIdBytes, currentVersion);
+        if (cached != null) {
+          return cached;
+        }
+      }
+    }
+    // when no children, just fetches the doc
+    return RealTimeGetComponent.getInputDocument(
+        req.getCore(),
+        rootIdBytes,
+        rootIdBytes,
+        null,
+        null,
+        RealTimeGetComponent.Resolution.ROOT_WITH_CHILDREN);
+  }
+
   @Override
   public void processDelete(DeleteUpdateCommand cmd) throws IOException {
 
@@ -852,6 +889,10 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     doDistribDeleteById(cmd);
 
+    if (!forwardToLeader) {
+      trackLeaderVersion(cmd.getVersion());
+    }
+
     // cmd.getIndexId == null when delete by query
     // TODO: what to do when no idField?
     if (returnVersions && rsp != null && cmd.getIndexedId() != null && idField != null) {
@@ -866,6 +907,12 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
     }
   }
 
+  private void trackLeaderVersion(long version) {
+    if (returnVersionToken && isLeader) {
+      maxLeaderVersion = Math.max(maxLeaderVersion, Math.abs(version));
+    }
+  }
+
   /**
    * This method can be overridden to tamper with the cmd after the localDeleteById operation
    *
@@ -938,6 +985,8 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     doDistribDeleteByQuery(cmd, replicas, coll);
 
+    trackLeaderVersion(cmd.getVersion());
+
     if (returnVersions && rsp != null) {
       if (deleteByQueryResponse == null) {
         deleteByQueryResponse = new NamedList<>(1);
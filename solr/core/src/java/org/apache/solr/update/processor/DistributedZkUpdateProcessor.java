@@ -49,6 +49,7 @@ import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.RoutingRule;
 import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.cloud.VersionToken;
 import org.apache.solr.common.cloud.ZkCoreNodeProps;
 import org.apache.solr.common.cloud.ZkNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
@@ -83,6 +84,7 @@ public class DistributedZkUpdateProcessor extends DistributedUpdateProcessor {
   private Set<String> skippedCoreNodeNames;
   private final String collection;
   private boolean readOnlyCollection = false;
+  private boolean bulkLoadCollection = false;
   private boolean broadcastDeleteById = false;
 
   // The cached immutable clusterState for the update... usually refreshed for each individual
@@ -124,6 +126,7 @@ public class DistributedZkUpdateProcessor extends DistributedUpdateProcessor {
     if (coll != null) {
       // check readOnly property in coll state
       readOnlyCollection = coll.isReadOnly();
+      bulkLoadCollection = coll.isBulkLoad();
     }
   }
 
@@ -271,6 +274,18 @@ public class DistributedZkUpdateProcessor extends DistributedUpdateProcessor {
       throw new SolrException(ErrorCode.FORBIDDEN, "Collection " + collection + " is read-only.");
     }
 
+    if (bulkLoadCollection) {
+      // atomic updates need to read the latest version of the document from the update log
+      if (DistribPhase.parseParam(req.getParams().get(DISTRIB_UPDATE_PARAM))
+              != DistribPhase.FROMLEADER
+          && AtomicUpdateDocumentMerger.isAtomicUpdate(cmd)) {
+        throw new SolrException(
+            ErrorCode.BAD_REQUEST,
+            "Atomic updates are not supported while collection " + collection + " is bulk loaded.");
+      }
+      cmd.setFlags(cmd.getFlags() | UpdateCommand.BULK_LOAD);
+    }
+
     setupRequest(cmd);
 
     // check if client has requested minimum replication factor information. will set
@@ -1419,6 +1434,14 @@ public class DistributedZkUpdateProcessor extends DistributedUpdateProcessor {
     if (0 < errorsForClient.size()) {
       throw new DistributedUpdatesAsyncException(errorsForClient);
     }
+    if (maxLeaderVersion > 0) {
+      // only covers the updates this core was the leader for, the versions of forwarded updates
+      // are not returned by the other leaders
+      rsp.getResponseHeader()
+          .add(
+              VersionToken.RESPONSE_KEY,
+              VersionToken.of(cloudDesc.getShardId(), maxLeaderVersion).toString());
+    }
   }
 
   /** If necessary, include in the response the achieved replication factor */
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update.processor;
+
+import static org.apache.solr.common.SolrException.ErrorCode.SERVER_ERROR;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.DocumentAnalysisCache;
+import org.apache.solr.update.MergeIndexesCommand;
+import org.apache.solr.update.RollbackUpdateCommand;
+import org.apache.solr.util.plugin.SolrCoreAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Analyzes the tokenized fields of the documents of an update request on a thread pool, so that
+ * the analysis of a large bulk request is not serialized on the request thread.
+ *
+ * <p>Added documents are buffered in batches of <code>batchSize</code>. The analysis of each
+ * document of a batch is submitted to a pool of <code>threads</code> threads, and the resulting
+ * token streams are attached to the {@link AddUpdateCommand} (see {@link DocumentAnalysisCache}).
+ * The documents are then handed over to the rest of the chain <em>on the request thread and in
+ * their original order</em>, so versioning, update log and distribution semantics are unchanged;
+ * the IndexWriter simply replays the pre-computed tokens instead of analyzing the values again.
+ * Any other command (delete, commit, ...) first flushes the pending batch.
+ *
+ * <p>The following configuration options are supported:
+ *
+ * <ul>
+ *   <li><code>threads</code> - Size of the analysis thread pool, shared by all requests of the
+ *       core. Defaults to the number of available processors.
+ *   <li><code>batchSize</code> - Maximum number of documents buffered before being passed to the
+ *       next processor. Defaults to 100.
+ * </ul>
+ *
+ * <p>This processor should be configured before the {@link DistributedUpdateProcessorFactory},
+ * since anything configured after it runs while holding the version lock of the document. Since
+ * documents are buffered, errors are reported when a batch is flushed, which is why this processor
+ * should not be combined with a {@link TolerantUpdateProcessorFactory} configured before it.
+ * Buffered documents must not be modified by the client once passed to this processor; none of the
+ * request loaders shipped with Solr do.
+ *
+ * <pre class="prettyprint">
+ * &lt;processor class="solr.ParallelAnalysisUpdateProcessorFactory"&gt;
+ *   &lt;int name="threads"&gt;8&lt;/int&gt;
+ *   &lt;int name="batchSize"&gt;200&lt;/int&gt;
+ * &lt;/processor&gt;</pre>
+ *
+ * @since 10.0.0
+ */
+public class ParallelAnalysisUpdateProcessorFactory extends UpdateRequestProcessorFactory
+    implements SolrCoreAware, UpdateRequestProcessorFactory.RunAlways {
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final String THREADS_PARAM = "threads";
+  public static final String BATCH_SIZE_PARAM = "batchSize";
+
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private int batchSize = 100;
+  private ExecutorService executor;
+
+  @Override
+  public void init(NamedList<?> args) {
+    SolrParams params = args.toSolrParams();
+    threads = params.getInt(THREADS_PARAM, threads);
+    batchSize = params.getInt(BATCH_SIZE_PARAM, batchSize);
+    args.remove(THREADS_PARAM);
+    args.remove(BATCH_SIZE_PARAM);
+
+    if (threads < 1) {
+      throw new SolrException(SERVER_ERROR, THREADS_PARAM + " must be greater than 0");
+    }
+    if (batchSize < 1) {
+      throw new SolrException(SERVER_ERROR, BATCH_SIZE_PARAM + " must be greater than 0");
+    }
+    if (args.size() > 0) {
+      throw new SolrException(SERVER_ERROR, "Unexpected init param(s): '" + args.getName(0) + "'");
+    }
+  }
+
+  @Override
+  public void inform(SolrCore core) {
+    executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            threads, new SolrNamedThreadFactory("parallelAnalysis"));
+    core.addCloseHook(
+        new CloseHook() {
+          @Override
+          public void postClose(SolrCore core) {
+            ExecutorUtil.shutdownAndAwaitTermination(executor);
+          }
+        });
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public UpdateRequestProcessor getInstance(
+      SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor next) {
+    return new ParallelAnalysisUpdateProcessor(executor, batchSize, req.getSchema(), next);
+  }
+
+  static class ParallelAnalysisUpdateProcessor extends UpdateRequestProcessor {
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final IndexSchema schema;
+
+    private final List<AddUpdateCommand> pending = new ArrayList<>();
+    private final List<Future<DocumentAnalysisCache>> analyses = new ArrayList<>();
+
+    ParallelAnalysisUpdateProcessor(
+        ExecutorService executor, int batchSize, IndexSchema schema, UpdateRequestProcessor next) {
+      super(next);
+      this.executor = executor;
+      this.batchSize = batchSize;
+      this.schema = schema;
+    }
+
+    @Override
+    public void processAdd(AddUpdateCommand cmd) throws IOException {
+      if (cmd.isInPlaceUpdate()) {
+        // only docValues are written, there is nothing to analyze
+        flush();
+        super.processAdd(cmd);
+        return;
+      }
+      // the loaders reuse the command for the next document, but not the document itself
+      AddUpdateCommand copy = (AddUpdateCommand) cmd.clone();
+      SolrInputDocument doc = copy.solrDoc;
+      analyses.add(executor.submit(() -> DocumentAnalysisCache.analyze(doc, schema)));
+      pending.add(copy);
+      if (pending.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    @Override
+    public void processDelete(DeleteUpdateCommand cmd) throws IOException {
+      flush();
+      super.processDelete(cmd);
+    }
+
+    @Override
+    public void processMergeIndexes(MergeIndexesCommand cmd) throws IOException {
+      flush();
+      super.processMergeIndexes(cmd);
+    }
+
+    @Override
+    public void processCommit(CommitUpdateCommand cmd) throws IOException {
+      flush();
+      super.processCommit(cmd);
+    }
+
+    @Override
+    public void processRollback(RollbackUpdateCommand cmd) throws IOException {
+      flush();
+      super.processRollback(cmd);
+    }
+
+    @Override
+    public void finish() throws IOException {
+      flush();
+      super.finish();
+    }
+
+    @Override
+    protected void doClose() {
+      // the request failed before the pending documents could be flushed
+      cancelPending();
+    }
+
+    private void flush() throws IOException {
+      try {
+        for (int i = 0; i < pending.size(); i++) {
+          AddUpdateCommand cmd = pending.get(i);
+          cmd.analysisCache = awaitAnalysis(analyses.get(i));
+          super.processAdd(cmd);
+        }
+      } finally {
+        cancelPending();
+      }
+    }
+
+    private DocumentAnalysisCache awaitAnalysis(Future<DocumentAnalysisCache> analysis) {
+      try {
+        return analysis.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(SERVER_ERROR, "Interrupted while analyzing documents", e);
+      } catch (ExecutionException e) {
+        // index the document the regular way, so that the error is reported for the right document
+        log.debug("Unable to analyze document ahead of indexing", e.getCause());
+        return null;
+      }
+    }
+
+    private void cancelPending() {
+      for (Future<DocumentAnalysisCache> analysis : analyses) {
+        analysis.cancel(false);
+      }
+      analyses.clear();
+      pending.clear();
+    }
+  }
+}
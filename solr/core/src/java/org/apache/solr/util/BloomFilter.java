@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.util;
+
+import java.nio.ByteBuffer;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.util.Hash;
+
+/**
+ * A bloom filter of terms or long values, which can be serialized and merged with the filters of
+ * other shards as long as they have the same number of bits and hash functions. The bit indexes
+ * of a value are derived from the two halves of its 128 bits murmur3 hash, so a value is hashed
+ * only once whatever the number of hash functions. Instances aren't thread safe.
+ *
+ * @lucene.internal
+ */
+public class BloomFilter {
+
+  private static final int SEED = 0x5b1b3a7d;
+  // so that the serialized filter fits in a byte[]
+  public static final long MAX_BITS = 8L * (Integer.MAX_VALUE - 64);
+
+  private final long[] bits;
+  private final long numBits;
+  private final int numHashes;
+  private final Hash.LongPair hash = new Hash.LongPair();
+
+  public BloomFilter(long numBits, int numHashes) {
+    if (numBits < 1 || numBits > MAX_BITS) {
+      throw new IllegalArgumentException("Invalid number of bits: " + numBits);
+    }
+    if (numHashes < 1) {
+      throw new IllegalArgumentException("Invalid number of hash functions: " + numHashes);
+    }
+    this.bits = new long[(int) ((numBits + 63) >>> 6)];
+    this.numBits = numBits;
+    this.numHashes = numHashes;
+  }
+
+  /** Returns the number of bits of a filter holding expectedKeys with the given error rate. */
+  public static long optimalNumBits(long expectedKeys, double fpp) {
+    if (expectedKeys < 1) {
+      throw new IllegalArgumentException("Invalid number of keys: " + expectedKeys);
+    }
+    if (!(fpp > 0 && fpp < 1)) {
+      throw new IllegalArgumentException("Invalid false positive rate: " + fpp);
+    }
+    double numBits = -expectedKeys * Math.log(fpp) / (Math.log(2) * Math.log(2));
+    return Math.min(MAX_BITS, Math.max(64, (long) Math.ceil(numBits)));
+  }
+
+  /** Returns the number of hash functions minimizing the error rate of the given filter size. */
+  public static int optimalNumHashes(long expectedKeys, long numBits) {
+    return Math.max(1, (int) Math.round((double) numBits / expectedKeys * Math.log(2)));
+  }
+
+  public long getNumBits() {
+    return numBits;
+  }
+
+  public int getNumHashes() {
+    return numHashes;
+  }
+
+  public void add(BytesRef term) {
+    Hash.murmurhash3_x64_128(term.bytes, term.offset, term.length, SEED, hash);
+    set(hash.val1, hash.val2);
+  }
+
+  public void add(long value) {
+    long h1 = Hash.fmix64(value ^ SEED);
+    set(h1, Hash.fmix64(h1));
+  }
+
+  /** Returns false if the term was never added, true if it probably was. */
+  public boolean mightContain(BytesRef term) {
+    Hash.murmurhash3_x64_128(term.bytes, term.offset, term.length, SEED, hash);
+    return get(hash.val1, hash.val2);
+  }
+
+  /** Returns false if the value was never added, true if it probably was. */
+  public boolean mightContain(long value) {
+    long h1 = Hash.fmix64(value ^ SEED);
+    return get(h1, Hash.fmix64(h1));
+  }
+
+  private void set(long h1, long h2) {
+    long combined = h1;
+    for (int i = 0; i < numHashes; i++) {
+      long index = (combined & Long.MAX_VALUE) % numBits;
+      bits[(int) (index >>> 6)] |= 1L << index;
+      combined += h2;
+    }
+  }
+
+  private boolean get(long h1, long h2) {
+    long combined = h1;
+    for (int i = 0; i < numHashes; i++) {
+      long index = (combined & Long.MAX_VALUE) % numBits;
+      if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+        return false;
+      }
+      combined += h2;
+    }
+    return true;
+  }
+
+  /** Adds the values of another filter with the same number of bits and hash functions. */
+  public void union(BloomFilter other) {
+    if (numBits != other.numBits || numHashes != other.numHashes) {
+      throw new IllegalArgumentException(
+          "Can't merge a filter of "
+              + other.numBits
+              + " bits and "
+              + other.numHashes
+              + " hash functions into a filter of "
+              + numBits
+              + " bits and "
+              + numHashes
+              + " hash functions");
+    }
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] |= other.bits[i];
+    }
+  }
+
+  /** Returns the number of bits set. */
+  public long cardinality() {
+    long cardinality = 0;
+    for (long word : bits) {
+      cardinality += Long.bitCount(word);
+    }
+    return cardinality;
+  }
+
+  /** Estimates the number of distinct values added from the number of bits set. */
+  public long estimatedKeys() {
+    double fill = (double) cardinality() / numBits;
+    if (fill >= 1) {
+      return Long.MAX_VALUE;
+    }
+    return Math.round(-((double) numBits / numHashes) * Math.log1p(-fill));
+  }
+
+  /** Estimates the probability that a value that was never added is reported as contained. */
+  public double estimatedFalsePositiveRate() {
+    return Math.pow((double) cardinality() / numBits, numHashes);
+  }
+
+  public byte[] toBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Long.BYTES * bits.length);
+    buffer.putLong(numBits).putInt(numHashes);
+    for (long word : bits) {
+      buffer.putLong(word);
+    }
+    return buffer.array();
+  }
+
+  public static BloomFilter fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    BloomFilter filter = new BloomFilter(buffer.getLong(), buffer.getInt());
+    if (buffer.remaining() != Long.BYTES * filter.bits.length) {
+      throw new IllegalArgumentException(
+          "Invalid serialized filter of " + bytes.length + " bytes");
+    }
+    for (int i = 0; i < filter.bits.length; i++) {
+      filter.bits[i] = buffer.getLong();
+    }
+    return filter;
+  }
+}
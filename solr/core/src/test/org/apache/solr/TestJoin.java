@@ -304,6 +304,40 @@ public class TestJoin extends SolrTestCaseJ4 {
         "/response=={'numFound':2,'start':0,'numFoundExact':true,'docs':[{'id':'3'},{'id':'4'}]}");
   }
 
+  @Test
+  public void testJoinCache() throws Exception {
+    indexEmployeeDocs();
+    ModifiableSolrParams p = params("sort", "id asc", "fl", "id");
+
+    for (String method : new String[] {"index", "topLevelDV"}) {
+      String join = "{!join from=dept_ss_dv to=dept_id_indexed_sdv method=" + method + "}";
+      // the second query reuses the from side cached by the first one
+      assertJQ(
+          req(p, "q", join + "title:MTS"),
+          "/response=={'numFound':3,'start':0,'numFoundExact':true,'docs':[{'id':'10'},{'id':'12'},{'id':'13'}]}");
+      assertJQ(
+          req(p, "q", "*:*", "fq", join + "title:MTS"),
+          "/response=={'numFound':3,'start':0,'numFoundExact':true,'docs':[{'id':'10'},{'id':'12'},{'id':'13'}]}");
+    }
+    // one entry per method
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              assertEquals(2, searcher.getCache("joinCache").size());
+              return null;
+            });
+
+    // the cached from terms don't depend on the to field
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!join from=dept_ss_dv to=dept_ss_dv}title:MTS",
+            "debugQuery",
+            "true"),
+        "/debug/join/{!join from=dept_ss_dv to=dept_ss_dv}title:MTS=={'_MATCH_':'fromSetSize,fromCacheHit', 'fromSetSize':2, 'fromCacheHit':true}");
+  }
+
   @Test
   @SuppressWarnings({"unchecked"})
   public void testRandomJoin() throws Exception {
@@ -102,4 +102,102 @@ public class ClusterStateTest extends SolrTestCaseJ4 {
         "Provided liveNodes not used properly", 2, loadedClusterState.getLiveNodes().size());
     assertEquals("Should not have collections", 0, loadedClusterState.getCollectionsMap().size());
   }
+
+  @Test
+  public void testCopyWithLiveNodes() {
+    String state =
+        "{'coll1':{'configName':'conf','router':{'name':'compositeId'},'shards':{"
+            + "'shard1':{'range':'80000000-7fffffff','state':'active','replicas':{"
+            + replicaJson("core_node1", "active", true)
+            + "}}}}}";
+    DocCollection coll = parse(state, 1, null);
+    ClusterState before = new ClusterState(Set.of("127.0.0.1:8983_solr"), Map.of("coll1", coll));
+    assertEquals(Set.of("127.0.0.1:8983"), before.getHostAllowList());
+    ClusterState after =
+        before.copyWithLiveNodes(Set.of("127.0.0.1:8983_solr", "127.0.0.1:7574_solr"));
+
+    // the published state is not modified, so its readers keep a consistent view
+    assertEquals(Set.of("127.0.0.1:8983_solr"), before.getLiveNodes());
+    assertEquals(Set.of("127.0.0.1:8983"), before.getHostAllowList());
+    assertEquals(Set.of("127.0.0.1:8983", "127.0.0.1:7574"), after.getHostAllowList());
+    assertSame(coll, after.getCollection("coll1"));
+  }
+
+  @Test
+  public void testUnchangedReplicasAreShared() {
+    String state =
+        "{'coll1':{'configName':'conf','router':{'name':'compositeId'},'shards':{"
+            + "'shard1':{'range':'80000000-ffffffff','state':'active','replicas':{"
+            + replicaJson("core_node1", "active", true)
+            + ","
+            + replicaJson("core_node2", "active", false)
+            + "}},"
+            + "'shard2':{'range':'0-7fffffff','state':'active','replicas':{"
+            + replicaJson("core_node3", "active", true)
+            + "}}}}}";
+    DocCollection previous = parse(state, 1, null);
+    assertEquals("core_node1", previous.getLeader("shard1").getName());
+
+    // the leader of shard1 goes down, and core_node2 takes over
+    String newState =
+        state
+            .replace(
+                replicaJson("core_node1", "active", true), replicaJson("core_node1", "down", false))
+            .replace(
+                replicaJson("core_node2", "active", false),
+                replicaJson("core_node2", "active", true));
+    DocCollection current = parse(newState, 2, previous);
+
+    assertEquals(2, current.getZNodeVersion());
+    assertSame(previous.getSlice("shard2"), current.getSlice("shard2"));
+    assertSame(previous.getReplica("core_node3"), current.getReplica("core_node3"));
+    assertNotSame(previous.getSlice("shard1"), current.getSlice("shard1"));
+    assertNotSame(previous.getReplica("core_node1"), current.getReplica("core_node1"));
+    assertNotSame(previous.getReplica("core_node2"), current.getReplica("core_node2"));
+    assertEquals(Replica.State.DOWN, current.getReplica("core_node1").getState());
+    assertEquals("core_node2", current.getLeader("shard1").getName());
+    assertEquals(Replica.State.ACTIVE, previous.getReplica("core_node1").getState());
+    assertEquals(parse(newState, 2, null).toString(), current.toString());
+
+    // a new replica is added to shard2
+    String withNewReplica =
+        newState.replace(
+            replicaJson("core_node3", "active", true),
+            replicaJson("core_node3", "active", true)
+                + ","
+                + replicaJson("core_node4", "recovering", false));
+    DocCollection added = parse(withNewReplica, 3, current);
+    assertSame(current.getSlice("shard1"), added.getSlice("shard1"));
+    assertSame(current.getReplica("core_node3"), added.getReplica("core_node3"));
+    assertNotSame(current.getSlice("shard2"), added.getSlice("shard2"));
+    assertEquals(2, added.getSlice("shard2").getReplicas().size());
+    assertEquals(Replica.State.RECOVERING, added.getReplica("core_node4").getState());
+
+    // the replica is removed again
+    DocCollection removed = parse(newState, 4, added);
+    assertSame(added.getReplica("core_node3"), removed.getReplica("core_node3"));
+    assertNotSame(added.getSlice("shard2"), removed.getSlice("shard2"));
+    assertNull(removed.getReplica("core_node4"));
+  }
+
+  private static String replicaJson(String name, String state, boolean leader) {
+    return "'"
+        + name
+        + "':{'core':'coll1_"
+        + name
+        + "','base_url':'http://127.0.0.1:8983/solr','node_name':'127.0.0.1:8983_solr',"
+        + "'type':'NRT','state':'"
+        + state
+        + "'"
+        + (leader ? ",'leader':'true'" : "")
+        + "}";
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static DocCollection parse(String json, int version, DocCollection previous) {
+    Map<String, Object> stateMap =
+        (Map<String, Object>) Utils.fromJSONString(json.replace('\'', '"'));
+    return ClusterState.createFromCollectionMap(version, stateMap, Set.of(), previous)
+        .getCollection("coll1");
+  }
 }
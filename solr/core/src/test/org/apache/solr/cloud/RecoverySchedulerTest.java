@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class RecoverySchedulerTest extends SolrTestCase {
+
+  @Test
+  public void testUnlimited() throws Exception {
+    RecoveryScheduler scheduler = new RecoveryScheduler(-1, -1);
+    assertNull(scheduler.getRateLimiter());
+    try (RecoveryScheduler.Permit p1 = scheduler.acquire("core1", () -> 0, () -> false);
+        RecoveryScheduler.Permit p2 = scheduler.acquire("core2", () -> 0, () -> false)) {
+      assertNotNull(p1);
+      assertNotNull(p2);
+      assertEquals(0, scheduler.getQueueSize());
+    }
+    scheduler.close();
+  }
+
+  @Test
+  public void testFewestActiveReplicasFirst() throws Exception {
+    RecoveryScheduler scheduler = new RecoveryScheduler(1, 10);
+    assertNotNull(scheduler.getRateLimiter());
+    RecoveryScheduler.Permit first = scheduler.acquire("core0", () -> 0, () -> false);
+    assertEquals(1, scheduler.getRunning());
+
+    List<String> order = new CopyOnWriteArrayList<>();
+    BlockingQueue<RecoveryScheduler.Permit> permits = new LinkedBlockingQueue<>();
+    Thread t1 = startWaiter(scheduler, "core1", 2, order, permits);
+    waitForQueueSize(scheduler, 1);
+    Thread t2 = startWaiter(scheduler, "core2", 1, order, permits);
+    waitForQueueSize(scheduler, 2);
+
+    first.close();
+    // closing twice must not release another slot
+    first.close();
+    RecoveryScheduler.Permit next = permits.poll(30, TimeUnit.SECONDS);
+    assertNotNull(next);
+    assertEquals(List.of("core2"), order);
+    assertEquals(1, scheduler.getRunning());
+    assertEquals(1, scheduler.getQueueSize());
+
+    next.close();
+    next = permits.poll(30, TimeUnit.SECONDS);
+    assertNotNull(next);
+    assertEquals(List.of("core2", "core1"), order);
+    next.close();
+    assertEquals(0, scheduler.getRunning());
+
+    t1.join();
+    t2.join();
+    scheduler.close();
+  }
+
+  @Test
+  public void testCancelledWhileWaiting() throws Exception {
+    RecoveryScheduler scheduler = new RecoveryScheduler(1, -1);
+    RecoveryScheduler.Permit first = scheduler.acquire("core0", () -> 0, () -> false);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    BlockingQueue<Boolean> result = new LinkedBlockingQueue<>();
+    Thread t =
+        new Thread(
+            () -> {
+              try {
+                result.add(scheduler.acquire("core1", () -> 0, cancelled::get) == null);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    t.start();
+    waitForQueueSize(scheduler, 1);
+    cancelled.set(true);
+    assertEquals(Boolean.TRUE, result.poll(30, TimeUnit.SECONDS));
+    assertEquals(0, scheduler.getQueueSize());
+    first.close();
+    assertEquals(0, scheduler.getRunning());
+    t.join();
+    scheduler.close();
+  }
+
+  private static Thread startWaiter(
+      RecoveryScheduler scheduler,
+      String coreName,
+      int activeReplicas,
+      List<String> order,
+      BlockingQueue<RecoveryScheduler.Permit> permits) {
+    Thread t =
+        new Thread(
+            () -> {
+              try {
+                RecoveryScheduler.Permit permit =
+                    scheduler.acquire(coreName, () -> activeReplicas, () -> false);
+                order.add(coreName);
+                permits.add(permit);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    t.start();
+    return t;
+  }
+
+  private static void waitForQueueSize(RecoveryScheduler scheduler, int size)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (scheduler.getQueueSize() != size) {
+      assertTrue("timed out waiting for the queue to grow", System.nanoTime() < deadline);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -266,6 +266,45 @@ public class TestHashPartitioner extends SolrTestCaseJ4 {
     }
   }
 
+  public void testActiveSliceForHash() {
+    DocRouter router = DocRouter.getDocRouter(CompositeIdRouter.NAME);
+    DocCollection coll = createCollection(TestUtil.nextInt(random(), 1, 20), router);
+    for (Slice slice : coll.getActiveSlicesArr()) {
+      Range range = slice.getRange();
+      assertSame(slice, coll.getActiveSliceForHash(range.min));
+      assertSame(slice, coll.getActiveSliceForHash(range.max));
+    }
+    for (int i = 0; i < 1000; i++) {
+      int hash = random().nextInt();
+      Slice expected = null;
+      for (Slice slice : coll.getActiveSlicesArr()) {
+        if (slice.getRange().includes(hash)) {
+          expected = slice;
+        }
+      }
+      assertSame(expected, coll.getActiveSliceForHash(hash));
+    }
+
+    // ranges which don't cover the whole hash space
+    Map<String, Slice> slices = new HashMap<>();
+    slices.put(
+        "shard1", new Slice("shard1", null, map("range", new Range(-100, -1)), "collection1"));
+    slices.put(
+        "shard2", new Slice("shard2", null, map("range", new Range(10, 100)), "collection1"));
+    DocCollection partial =
+        new DocCollection(
+            "collection1",
+            slices,
+            Collections.singletonMap(
+                ZkStateReader.CONFIGNAME_PROP, ConfigSetsHandler.DEFAULT_CONFIGSET_NAME),
+            router);
+    assertNull(partial.getActiveSliceForHash(-101));
+    assertEquals("shard1", partial.getActiveSliceForHash(-100).getName());
+    assertNull(partial.getActiveSliceForHash(5));
+    assertEquals("shard2", partial.getActiveSliceForHash(100).getName());
+    assertNull(partial.getActiveSliceForHash(101));
+  }
+
   //    public void testPrintHashCodes() throws Exception {
   //     // from negative to positive, the upper bits of the hash ranges should be
   //     // shard1: 11
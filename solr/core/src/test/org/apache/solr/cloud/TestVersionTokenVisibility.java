@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Queries sent to a replica with the version token of updates made through {@link
+ * org.apache.solr.client.solrj.impl.CloudSolrClient} see these updates.
+ */
+public class TestVersionTokenVisibility extends SolrCloudTestCase {
+  private static final String COLLECTION = "version_token";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    // the configset has no auto commit, updates are only visible once a commit opens a searcher
+    configureCluster(2).addConfig("conf", configset("cloud-minimal")).configure();
+
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 1, 2)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 1, 2);
+  }
+
+  /** Adds a document through the cloud client and returns the version token of the update. */
+  private static String addWithVersionToken(String id) throws Exception {
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", id);
+    UpdateRequest req = new UpdateRequest();
+    req.add(doc);
+    req.setParam(UpdateParams.VERSION_TOKEN, "true");
+    UpdateResponse rsp = req.process(cluster.getSolrClient(), COLLECTION);
+    String token = rsp.getVersionToken();
+    assertNotNull("no version token in " + rsp.getResponseHeader(), token);
+    assertTrue(token, token.startsWith("shard1:"));
+    return token;
+  }
+
+  private static Replica getNonLeader() throws Exception {
+    Slice shard = getCollectionState(COLLECTION).getSlice("shard1");
+    Replica leader = cluster.getZkStateReader().getLeaderRetry(COLLECTION, "shard1");
+    List<Replica> others = shard.getReplicas(r -> !r.getName().equals(leader.getName()));
+    assertEquals(1, others.size());
+    return others.get(0);
+  }
+
+  private static long count(SolrClient replica, String id, String... params) throws Exception {
+    SolrQuery query = new SolrQuery("q", "id:" + id, "distrib", "false");
+    for (int i = 0; i < params.length; i += 2) {
+      query.set(params[i], params[i + 1]);
+    }
+    return replica.query(query).getResults().getNumFound();
+  }
+
+  @Test
+  public void testQueryWaitsForCommit() throws Exception {
+    String token = addWithVersionToken("1");
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareSingleThreadExecutor(
+            new SolrNamedThreadFactory("testQueryWaitsForCommit"));
+    try (SolrClient replica = getHttpSolrClient(getNonLeader().getCoreUrl())) {
+      // the update was applied by the replica, but isn't visible without a new searcher
+      assertEquals(0, count(replica, "1"));
+
+      Future<Long> waiting =
+          executor.submit(
+              () ->
+                  count(
+                      replica,
+                      "1",
+                      CommonParams.VERSION_TOKEN,
+                      token,
+                      CommonParams.VERSION_TOKEN_WAIT,
+                      "30000"));
+      Thread.sleep(500);
+      assertFalse("the query didn't wait for a searcher seeing the update", waiting.isDone());
+
+      cluster.getSolrClient().commit(COLLECTION, true, true, true);
+      assertEquals(1L, (long) waiting.get(30, TimeUnit.SECONDS));
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  @Test
+  public void testReplicaOpensSearcher() throws Exception {
+    String token = addWithVersionToken("2");
+    try (SolrClient replica = getHttpSolrClient(getNonLeader().getCoreUrl())) {
+      assertEquals(0, count(replica, "2"));
+      // without a commit in time, the NRT replica opens a searcher itself
+      assertEquals(
+          1,
+          count(
+              replica,
+              "2",
+              CommonParams.VERSION_TOKEN,
+              token,
+              CommonParams.VERSION_TOKEN_WAIT,
+              "100"));
+      // which the queries without a token then use too
+      assertEquals(1, count(replica, "2"));
+    }
+  }
+}
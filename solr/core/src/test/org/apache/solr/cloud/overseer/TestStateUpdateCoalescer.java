@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud.overseer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.cloud.Overseer;
+import org.apache.solr.common.cloud.ZkNodeProps;
+import org.apache.solr.common.cloud.ZkStateReader;
+
+public class TestStateUpdateCoalescer extends SolrTestCaseJ4 {
+
+  public void testSupersededStates() {
+    List<ZkNodeProps> messages =
+        List.of(
+            state("c1", "core_node1", "down"),
+            state("c1", "core_node2", "down"),
+            state("c2", "core_node1", "down"),
+            state("c1", "core_node1", "recovering"),
+            state("c1", "core_node1", "active"),
+            state("c1", "core_node2", "recovering"));
+    assertArrayEquals(
+        new boolean[] {true, true, false, true, false, false},
+        StateUpdateCoalescer.findSuperseded(messages));
+    assertEquals(3, StateUpdateCoalescer.count(StateUpdateCoalescer.findSuperseded(messages)));
+  }
+
+  public void testActiveStateIsNeverSuperseded() {
+    List<ZkNodeProps> messages =
+        List.of(state("c1", "core_node1", "active"), state("c1", "core_node1", "down"));
+    assertArrayEquals(new boolean[] {false, false}, StateUpdateCoalescer.findSuperseded(messages));
+  }
+
+  public void testOtherMessagesPreventCoalescing() {
+    ZkNodeProps leader =
+        new ZkNodeProps(
+            Overseer.QUEUE_OPERATION,
+            OverseerAction.LEADER.toLower(),
+            ZkStateReader.COLLECTION_PROP,
+            "c1",
+            ZkStateReader.SHARD_ID_PROP,
+            "shard1");
+    ZkNodeProps downNode =
+        new ZkNodeProps(
+            Overseer.QUEUE_OPERATION,
+            OverseerAction.DOWNNODE.toLower(),
+            ZkStateReader.NODE_NAME_PROP,
+            "node1");
+    List<ZkNodeProps> messages =
+        List.of(
+            state("c1", "core_node1", "down"),
+            state("c2", "core_node1", "down"),
+            leader,
+            state("c1", "core_node1", "recovering"),
+            state("c2", "core_node1", "recovering"),
+            state("c2", "core_node2", "down"),
+            downNode,
+            state("c2", "core_node2", "recovering"));
+    assertArrayEquals(
+        new boolean[] {false, true, false, false, false, false, false, false},
+        StateUpdateCoalescer.findSuperseded(messages));
+  }
+
+  public void testDifferentReplicaProperties() {
+    ZkNodeProps unnamed = state("c1", "core_node1", "down");
+    unnamed.getProperties().remove(ZkStateReader.CORE_NODE_NAME_PROP);
+    ZkNodeProps otherCore = state("c1", "core_node1", "down");
+    otherCore.getProperties().put(ZkStateReader.CORE_NAME_PROP, "other");
+    ZkNodeProps forced = state("c1", "core_node1", "down");
+    forced.getProperties().put(ZkStateReader.FORCE_SET_STATE_PROP, "true");
+    List<ZkNodeProps> messages =
+        List.of(unnamed, otherCore, forced, state("c1", "core_node1", "recovering"));
+    assertArrayEquals(
+        new boolean[] {false, false, false, false}, StateUpdateCoalescer.findSuperseded(messages));
+  }
+
+  private static ZkNodeProps state(String collection, String coreNodeName, String state) {
+    return new ZkNodeProps(
+        new HashMap<>(
+            Map.of(
+                Overseer.QUEUE_OPERATION,
+                OverseerAction.STATE.toLower(),
+                ZkStateReader.COLLECTION_PROP,
+                collection,
+                ZkStateReader.SHARD_ID_PROP,
+                "shard1",
+                ZkStateReader.CORE_NODE_NAME_PROP,
+                coreNodeName,
+                ZkStateReader.CORE_NAME_PROP,
+                collection + "_" + coreNodeName,
+                ZkStateReader.NODE_NAME_PROP,
+                "node1",
+                ZkStateReader.FORCE_SET_STATE_PROP,
+                "false",
+                ZkStateReader.STATE_PROP,
+                state)));
+  }
+}
@@ -82,6 +82,17 @@ public class CoreSorterTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testShardsWithoutActiveLeaderFirst() {
+    CountsForEachShard withLeader = new CountsForEachShard(0, 3, 1);
+    CountsForEachShard withoutLeader = new CountsForEachShard(1, 0, 2);
+    withoutLeader.withoutActiveLeader = true;
+    List<CountsForEachShard> copy = new ArrayList<>(Arrays.asList(withLeader, withoutLeader));
+    Collections.shuffle(copy, random());
+    Collections.sort(copy, CoreSorter.countsComparator);
+    assertEquals(Arrays.asList(withoutLeader, withLeader), copy);
+  }
+
   @Test
   public void integrationTest() {
     assumeWorkingMockito();
@@ -16,13 +16,20 @@
  */
 package org.apache.solr.core;
 
+import com.codahale.metrics.Timer;
 import java.io.IOException;
 import java.util.Map;
 import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.lucene90.Lucene90StoredFieldsFormat;
 import org.apache.lucene.codecs.lucene91.Lucene91Codec.Mode;
+import org.apache.lucene.codecs.lucene91.Lucene91HnswVectorsFormat;
 import org.apache.lucene.codecs.perfield.PerFieldDocValuesFormat;
+import org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat;
 import org.apache.lucene.codecs.perfield.PerFieldPostingsFormat;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergeScheduler;
 import org.apache.lucene.index.SegmentInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.tests.util.TestUtil;
@@ -32,6 +39,7 @@ import org.apache.solr.common.util.NamedList;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.IndexSchemaFactory;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.TestHarness;
 import org.junit.BeforeClass;
 
@@ -106,6 +114,126 @@ public class TestCodecSupport extends SolrTestCaseJ4 {
     assertEquals("Asserting", format.getDocValuesFormatForField("bar_direct").getName());
   }
 
+  public void testKnnVectorsFormats() {
+    Codec codec = h.getCore().getCodec();
+    PerFieldKnnVectorsFormat format = (PerFieldKnnVectorsFormat) codec.knnVectorsFormat();
+
+    KnnVectorsFormat vectorFormat = format.getKnnVectorsFormatForField("vector");
+    assertTrue(vectorFormat instanceof ConcurrentKnnVectorsFormat);
+    assertEquals("Lucene91HnswVectorsFormat", vectorFormat.getName());
+
+    // the graph parameters of the field type apply without a codecFormat
+    KnnVectorsFormat graphFormat = format.getKnnVectorsFormatForField("vector_graph");
+    assertTrue(graphFormat instanceof ConcurrentKnnVectorsFormat);
+    KnnVectorsFormat graphDelegate = ((ConcurrentKnnVectorsFormat) graphFormat).getDelegate();
+    assertTrue(graphDelegate instanceof Lucene91HnswVectorsFormat);
+    assertNotSame(((ConcurrentKnnVectorsFormat) vectorFormat).getDelegate(), graphDelegate);
+
+    // each field gets its own instance, to be written in its own files
+    assertNotSame(vectorFormat, format.getKnnVectorsFormatForField("vector"));
+  }
+
+  public void testVectorWriterMetrics() {
+    assertU(delQ("*:*"));
+    assertU(commit());
+    SolrCore core = h.getCore();
+    Timer flushTimer = core.getSolrMetricsContext().timer("flush", "INDEX", "vectors");
+    Timer mergeTimer = core.getSolrMetricsContext().timer("merge", "INDEX", "vectors");
+    long flushes = flushTimer.getCount();
+    long merges = mergeTimer.getCount();
+
+    for (int i = 0; i < 2; i++) {
+      assertU(
+          add(
+              doc(
+                  "string_f", Integer.toString(i),
+                  "vector", "1.0", "vector", "0.0", "vector", "0.0", "vector", "0.0",
+                  "vector_graph", "0.0", "vector_graph", "1.0", "vector_graph", "0.0",
+                  "vector_graph", "0.0")));
+      assertU(commit());
+    }
+    // both fields of both segments
+    assertEquals(flushes + 4, flushTimer.getCount());
+
+    assertU(optimize("maxSegments", "1"));
+    assertTrue(mergeTimer.getCount() > merges);
+
+    assertQ(
+        req("q", "{!knn f=vector topK=2}[1.0, 0.0, 0.0, 0.0]"), "//result[@numFound='2']");
+    assertQ(
+        req("q", "{!knn f=vector_graph topK=2}[1.0, 0.0, 0.0, 0.0]"),
+        "//result[@numFound='2']");
+  }
+
+  public void testThrottledVectorMerge() throws Exception {
+    assertU(delQ("*:*"));
+    assertU(commit());
+    SolrCore core = h.getCore();
+    RefCounted<IndexWriter> iwRef = core.getSolrCoreState().getIndexWriter(core);
+    try {
+      MergeScheduler mergeScheduler = iwRef.get().getConfig().getMergeScheduler();
+      assumeTrue(
+          "the merge scheduler doesn't throttle merges",
+          mergeScheduler instanceof ConcurrentMergeScheduler);
+      ConcurrentMergeScheduler cms = (ConcurrentMergeScheduler) mergeScheduler;
+      double forceMergeMBPerSec = cms.getForceMergeMBPerSec();
+      // forced merges are throttled enough for the merge thread to pause while writing the graphs
+      cms.setForceMergeMBPerSec(0.5);
+      try {
+        for (int segment = 0; segment < 2; segment++) {
+          StringBuilder docs = new StringBuilder("[");
+          for (int i = 0; i < 1000; i++) {
+            docs.append(i == 0 ? "" : ",")
+                .append("{\"string_f\":\"")
+                .append(segment)
+                .append('-')
+                .append(i)
+                .append("\",\"vector\":")
+                .append(randomVector())
+                .append(",\"vector_graph\":")
+                .append(randomVector())
+                .append('}');
+          }
+          updateJ(docs.append(']').toString(), null);
+          assertU(commit());
+        }
+        assertU(optimize("maxSegments", "1"));
+      } finally {
+        cms.setForceMergeMBPerSec(forceMergeMBPerSec);
+      }
+    } finally {
+      iwRef.decref();
+    }
+
+    assertQ(req("q", "*:*", "rows", "0"), "//result[@numFound='2000']");
+    assertQ(
+        req("q", "{!knn f=vector_graph topK=2}[1.0, 0.0, 0.0, 0.0]"),
+        "//result[@numFound='2']");
+  }
+
+  private static String randomVector() {
+    return "["
+        + random().nextFloat()
+        + ","
+        + random().nextFloat()
+        + ","
+        + random().nextFloat()
+        + ","
+        + (random().nextFloat() + 0.1f)
+        + "]";
+  }
+
+  public void testBadVectorWriterThreads() {
+    final SchemaCodecFactory factory = new SchemaCodecFactory();
+    final NamedList<Object> nl = new NamedList<>();
+    nl.add(SchemaCodecFactory.VECTOR_WRITER_THREADS, 0);
+    SolrException thrown = expectThrows(SolrException.class, () -> factory.init(nl));
+    assertEquals(SolrException.ErrorCode.SERVER_ERROR.code, thrown.code());
+    assertTrue(
+        "Unexpected Exception message: " + thrown.getMessage(),
+        thrown.getMessage().contains("Invalid vectorWriterThreads: '0'"));
+  }
+
   private void reloadCoreAndRecreateIndex() {
     h.getCoreContainer().reload(h.coreName);
     assertU(delQ("*:*"));
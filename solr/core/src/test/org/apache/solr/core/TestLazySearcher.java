@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Timer;
+import java.util.Map;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/** Tests the lazySearcher and searcherMaxIdleTime settings. */
+public class TestLazySearcher extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // idle searchers are released by the test itself
+    System.setProperty("solr.idleSearcherCheckIntervalMs", "3600000");
+    initCore("solrconfig-lazysearcher.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.idleSearcherCheckIntervalMs");
+  }
+
+  public void testSearcherOpenedOnDemand() throws Exception {
+    SolrCore core = h.getCore();
+    assertTrue(core.isSearcherDeferred());
+    assertNull(core.getRegisteredSearcher());
+
+    assertQ(req("q", "*:*"), "//result[@numFound='0']");
+    assertFalse(core.isSearcherDeferred());
+    assertEquals(1, getColdStartTimer(core).getCount());
+
+    assertU(adoc("id", "1"));
+    assertU(commit());
+    assertQ(req("q", "*:*"), "//result[@numFound='1']");
+    assertEquals(1, getColdStartTimer(core).getCount());
+
+    // searcherMaxIdleTime is 100ms
+    RefCounted<SolrIndexSearcher> inUse = core.getSearcher();
+    Thread.sleep(200);
+    assertTrue(core.releaseSearcherIfIdle());
+    assertTrue(core.isSearcherDeferred());
+    assertNull(core.getRegisteredSearcher());
+    assertFalse(core.releaseSearcherIfIdle());
+    // searchers still in use are only closed once released
+    assertEquals(1, inUse.get().getIndexReader().numDocs());
+    inUse.decref();
+    assertEquals(1, getMetric(core, "SEARCHER.new.idleReleased", Counter.class).getCount());
+
+    assertQ(req("q", "*:*"), "//result[@numFound='1']");
+    assertFalse(core.isSearcherDeferred());
+    assertEquals(2, getColdStartTimer(core).getCount());
+    assertFalse(core.releaseSearcherIfIdle());
+  }
+
+  private static Timer getColdStartTimer(SolrCore core) {
+    return getMetric(core, "SEARCHER.new.coldStart", Timer.class);
+  }
+
+  private static <T extends Metric> T getMetric(SolrCore core, String name, Class<T> type) {
+    Map<String, Metric> metrics =
+        h.getCoreContainer()
+            .getMetricManager()
+            .registry(core.getCoreMetricManager().getRegistryName())
+            .getMetrics();
+    return type.cast(metrics.get(name));
+  }
+}
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.DenseVectors;
 import org.apache.solr.core.AbstractBadConfigTestBase;
 import org.hamcrest.MatcherAssert;
 import org.junit.Assert;
@@ -166,18 +167,34 @@ public class DenseVectorFieldTest extends AbstractBadConfigTestBase {
 
   @Test
   public void parseVector_NotAList_shouldThrowException() {
+    toTest = new DenseVectorField(3);
     RuntimeException thrown =
         Assert.assertThrows(
-            "Single string value should throw an exception",
+            "Single string value which isn't Base64 should throw an exception",
             SolrException.class,
             () -> {
-              toTest.parseVector("string");
+              toTest.parseVector("not base64!");
             });
     MatcherAssert.assertThat(
         thrown.getMessage(),
         is(
             "incorrect vector format."
-                + " The expected format is an array :'[f1,f2..f3]' where each element f is a float"));
+                + " The expected format is an array :'[f1,f2..f3]' where each element f is a float"
+                + " or the Base64 encoded little-endian floats"));
+
+    // "string" is valid Base64 without padding, for 4 bytes, so a single float
+    thrown =
+        Assert.assertThrows(
+            "Base64 value with the wrong number of floats should throw an exception",
+            SolrException.class,
+            () -> {
+              toTest.parseVector("string");
+            });
+    MatcherAssert.assertThat(
+        thrown.getMessage(),
+        is(
+            "incorrect vector dimension."
+                + " The vector value has size 1 while it is expected a vector with size 3"));
 
     thrown =
         Assert.assertThrows(
@@ -283,6 +300,49 @@ public class DenseVectorFieldTest extends AbstractBadConfigTestBase {
     MatcherAssert.assertThat(toTest.parseVector(Arrays.asList(5.5f, 7.7f, 9.8f)), is(expected));
   }
 
+  @Test
+  public void parseVector_binary_shouldParseFloatArray() {
+    toTest = new DenseVectorField(3);
+    float[] expected = new float[] {5.5f, -7.7f, 9.8f};
+
+    MatcherAssert.assertThat(toTest.parseVector(expected.clone()), is(expected));
+    MatcherAssert.assertThat(toTest.parseVector(DenseVectors.toBytes(expected)), is(expected));
+    MatcherAssert.assertThat(toTest.parseVector(DenseVectors.toBase64(expected)), is(expected));
+
+    RuntimeException thrown =
+        Assert.assertThrows(
+            "Incorrect vector dimension should throw an exception",
+            SolrException.class,
+            () -> {
+              toTest.parseVector(DenseVectors.toBase64(new float[] {1.0f, 1.5f}));
+            });
+    MatcherAssert.assertThat(
+        thrown.getMessage(),
+        is(
+            "incorrect vector dimension. The vector value has size 2 while it is expected a vector with size 3"));
+  }
+
+  @Test
+  public void indexing_binaryVector_shouldBeIndexed() throws Exception {
+    try {
+      initCore("solrconfig-basic.xml", "schema-densevector.xml");
+
+      float[] vector = new float[] {1f, 2f, 3f, 4f};
+      SolrInputDocument floatArrayDoc = new SolrInputDocument();
+      floatArrayDoc.addField("id", "0");
+      floatArrayDoc.addField("vector", vector);
+      assertU(adoc(floatArrayDoc));
+      assertU(adoc("id", "1", "vector", DenseVectors.toBase64(vector)));
+      assertU(commit());
+
+      assertQ(
+          req("q", "{!knn f=vector topK=2}" + DenseVectors.toBase64(vector), "fl", "id"),
+          "//result[@numFound='2']");
+    } finally {
+      deleteCore();
+    }
+  }
+
   @Test
   public void indexing_incorrectVectorFormat_shouldThrowException() throws Exception {
     try {
@@ -357,6 +417,45 @@ public class DenseVectorFieldTest extends AbstractBadConfigTestBase {
     }
   }
 
+  @Test
+  public void fieldDefinition_storedEncoding_shouldLoadSchemaField() throws Exception {
+    try {
+      initCore("solrconfig-basic.xml", "schema-densevector.xml");
+      IndexSchema schema = h.getCore().getLatestSchema();
+
+      MatcherAssert.assertThat(
+          ((DenseVectorField) schema.getField("vector").getType()).getStoredEncoding(),
+          is(DenseVectorField.StoredEncoding.FLOATS));
+      MatcherAssert.assertThat(
+          ((DenseVectorField) schema.getField("vector_binary").getType()).getStoredEncoding(),
+          is(DenseVectorField.StoredEncoding.BINARY));
+    } finally {
+      deleteCore();
+    }
+  }
+
+  @Test
+  public void query_storedEncodedField_shouldBeReturnedInResults() throws Exception {
+    try {
+      initCore("solrconfig-basic.xml", "schema-densevector.xml");
+
+      SolrInputDocument doc1 = new SolrInputDocument();
+      doc1.addField("id", "0");
+      doc1.addField("vector_binary", Arrays.asList(1.1f, 2.1f, 3.1f, 4.1f));
+      assertU(adoc(doc1));
+      assertU(commit());
+
+      assertJQ(
+          req("q", "id:0", "fl", "vector_binary"),
+          "/response/docs/[0]=={'vector_binary':[1.1,2.1,3.1,4.1]}");
+      assertQ(
+          req("q", "{!knn f=vector_binary topK=1}[1.1, 2.1, 3.1, 4.1]", "fl", "id"),
+          "//result[@numFound='1']");
+    } finally {
+      deleteCore();
+    }
+  }
+
   /** Not Supported */
   @Test
   public void query_rangeSearch_shouldThrowException() throws Exception {
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import org.apache.solr.BaseDistributedSearchTestCase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the coordinator fuses the rankings of a {@link HybridQuery} over the whole
+ * collection, like a single core does.
+ *
+ * <p>The main query is a function query and the vector query returns all the documents, so that
+ * the rankings of each query don't depend on how the documents are distributed.
+ */
+public class DistributedHybridQueryTest extends BaseDistributedSearchTestCase {
+
+  public DistributedHybridQueryTest() {
+    stress = 0;
+  }
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema15.xml");
+  }
+
+  @Test
+  @ShardsFixed(num = 3)
+  public void test() throws Exception {
+    del("*:*");
+
+    for (int i = 0; i < 30; i++) {
+      float angle = (float) (i * Math.PI / 60);
+      index_specific(
+          i % 3,
+          "id",
+          Integer.toString(i),
+          "sort_i",
+          Integer.toString((i * 7) % 30),
+          "vector",
+          Arrays.asList((float) Math.cos(angle), (float) Math.sin(angle), 0f, 0f));
+    }
+    commit();
+
+    handle.clear();
+    handle.put("QTime", SKIPVAL);
+    handle.put("timestamp", SKIPVAL);
+    handle.put("maxScore", SKIPVAL);
+    handle.put("_version_", SKIP);
+
+    String vq = "{!knn f=vector topK=30}[1.0, 0.0, 0.0, 0.0]";
+    for (String rq :
+        new String[] {
+          "{!hybrid vectorQuery=$vq hybridDocs=10}",
+          "{!hybrid vectorQuery=$vq hybridDocs=10 rrfK=5 vectorWeight=2}",
+          "{!hybrid vectorQuery=$vq hybridDocs=10 fusion=linear}"
+        }) {
+      query("q", "{!func}sort_i", "rq", rq, "vq", vq, "fl", "id,score", "rows", "10");
+      query("q", "{!func}sort_i", "rq", rq, "vq", vq, "fl", "id,score", "start", "5", "rows", "5");
+      // the shards get the results from the query result cache, without the rankings
+      query("q", "{!func}sort_i", "rq", rq, "vq", vq, "fl", "id,score", "rows", "10");
+    }
+
+    query(
+        "q", "{!func}sort_i",
+        "rq", "{!hybrid vectorQuery=$vq hybridDocs=10}",
+        "vq", vq,
+        "fq", "sort_i:[5 TO *]",
+        "fl", "id,score",
+        "rows", "10");
+  }
+}
@@ -1310,6 +1310,33 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testHybridQuery() throws Exception {
+    final String defType = HybridQParserPlugin.NAME;
+    SolrQueryRequest req =
+        req("vq", "{!knn f=vector topK=10}[1.0,2.0,3.0,4.0]", "hdocs", "20", "k", "30");
+    try {
+      assertQueryEquals(
+          defType,
+          req,
+          "{!hybrid vectorQuery=$vq hybridDocs=$hdocs rrfK=$k}",
+          "{!hybrid vectorQuery=$vq hybridDocs=20 rrfK=30 fusion=rrf}",
+          "{!hybrid vectorQuery=$vq hybridDocs=20 rrfK=30 lexicalWeight=1 vectorWeight=1.0}");
+    } finally {
+      req.close();
+    }
+
+    req = req("vq", "{!knn f=vector topK=10}[1.0,2.0,3.0,4.0]", "lw", "0.5");
+    try {
+      assertQueryEquals(
+          defType,
+          req,
+          "{!hybrid vectorQuery=$vq fusion=linear lexicalWeight=$lw vectorWeight=2}",
+          "{!hybrid vectorQuery=$vq fusion=LINEAR lexicalWeight=0.5 vectorWeight=2.0}");
+    } finally {
+      req.close();
+    }
+  }
+
   /**
    * NOTE: defType is not only used to pick the parser, but also to record the parser being tested
    * for coverage sanity checking
@@ -1404,6 +1431,7 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
     assertFuncEquals("agg_unique(foo_i)", "agg_unique(foo_i)");
     assertFuncEquals("agg_uniqueBlock(foo_i)", "agg_uniqueBlock(foo_i)");
     assertFuncEquals("agg_hll(foo_i)", "agg_hll(foo_i)");
+    assertFuncEquals("agg_bloom(foo_i)", "agg_bloom(foo_i,1000000,0.01)");
     assertFuncEquals("agg_sumsq(foo_i)", "agg_sumsq(foo_i)");
     assertFuncEquals("agg_percentile(foo_i,50)", "agg_percentile(foo_i,50)");
     assertFuncEquals("agg_variance(foo_i)", "agg_variance(foo_i)");
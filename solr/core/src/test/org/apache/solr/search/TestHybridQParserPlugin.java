@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestHybridQParserPlugin extends SolrTestCaseJ4 {
+
+  // each document matches one clause, so the lexical ranking is 5, 2, 1
+  private static final String LEXICAL = "id:5^=3 id:2^=2 id:1^=1";
+  // the vector ranking is 1, 3
+  private static final String VECTOR = "{!knn f=vector topK=2}[1.0, 0.0, 0.0, 0.0]";
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema15.xml");
+    index("1", 1f, 0f, 0f, 0f);
+    index("2", 0f, 1f, 0f, 0f);
+    index("3", 0.9f, 0.1f, 0f, 0f);
+    assertU(commit());
+    index("4", 0f, 0f, 1f, 0f);
+    index("5", 0f, 0f, 0f, 1f);
+    assertU(commit());
+  }
+
+  private static void index(String id, Float... vector) {
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", id);
+    doc.addField("vector", Arrays.asList(vector));
+    assertU(adoc(doc));
+  }
+
+  @Test
+  public void testReciprocalRankFusion() {
+    // 1: 1/63 + 1/61, 5: 1/61, 2 and 3: 1/62 (ties keep the lexical order first)
+    assertQ(
+        req("q", LEXICAL, "rq", "{!hybrid vectorQuery=$vq}", "vq", VECTOR, "fl", "id,score"),
+        "//result[@numFound='4']",
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='5']",
+        "//result/doc[3]/str[@name='id'][.='2']",
+        "//result/doc[4]/str[@name='id'][.='3']");
+
+    assertQ(
+        req(
+            "q", LEXICAL,
+            "rq", "{!hybrid vectorQuery=$vq}",
+            "vq", VECTOR,
+            "start", "1",
+            "rows", "2"),
+        "//result[@numFound='4']",
+        "count(//result/doc)=2",
+        "//result/doc[1]/str[@name='id'][.='5']",
+        "//result/doc[2]/str[@name='id'][.='2']");
+
+    // the lexical ranking wins with a lower rank constant and a higher weight
+    assertQ(
+        req(
+            "q", LEXICAL,
+            "rq", "{!hybrid vectorQuery=$vq rrfK=0 lexicalWeight=3}",
+            "vq", VECTOR),
+        "//result/doc[1]/str[@name='id'][.='5']",
+        "//result/doc[2]/str[@name='id'][.='1']",
+        "//result/doc[3]/str[@name='id'][.='2']",
+        "//result/doc[4]/str[@name='id'][.='3']");
+  }
+
+  @Test
+  public void testLinearFusion() {
+    // normalized lexical scores 5: 1, 2: 0.5, 1: 0, and vector scores 1: 1, 3: 0
+    assertQ(
+        req("q", LEXICAL, "rq", "{!hybrid vectorQuery=$vq fusion=linear}", "vq", VECTOR),
+        "//result[@numFound='4']",
+        "//result/doc[1]/str[@name='id'][.='5']",
+        "//result/doc[2]/str[@name='id'][.='1']",
+        "//result/doc[3]/str[@name='id'][.='2']",
+        "//result/doc[4]/str[@name='id'][.='3']");
+
+    assertQ(
+        req(
+            "q", LEXICAL,
+            "rq", "{!hybrid vectorQuery=$vq fusion=linear vectorWeight=2}",
+            "vq", VECTOR),
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='5']",
+        "//result/doc[3]/str[@name='id'][.='2']",
+        "//result/doc[4]/str[@name='id'][.='3']");
+  }
+
+  @Test
+  public void testFilterQuery() {
+    assertQ(
+        req(
+            "q", LEXICAL,
+            "rq", "{!hybrid vectorQuery=$vq}",
+            "vq", "{!knn f=vector topK=1}[1.0, 0.0, 0.0, 0.0]",
+            "fq", "-id:1"),
+        "//result[@numFound='3']",
+        "//result/doc[1]/str[@name='id'][.='5']",
+        "//result/doc[2]/str[@name='id'][.='3']",
+        "//result/doc[3]/str[@name='id'][.='2']");
+  }
+
+  @Test
+  public void testFuse() {
+    HybridQuery query =
+        new HybridQuery(new MatchNoDocsQuery(), HybridQuery.Fusion.RRF, 10, 60, 1f, 1f);
+    List<Map.Entry<String, Float>> fused =
+        query.fuse(
+            List.of("a", "b"), new float[] {3f, 2f}, List.of("b", "c"), new float[] {0.9f, 0.8f});
+    assertEquals("b", fused.get(0).getKey());
+    assertEquals(1f / 62 + 1f / 61, fused.get(0).getValue(), 0f);
+    assertEquals("a", fused.get(1).getKey());
+    assertEquals("c", fused.get(2).getKey());
+
+    query = new HybridQuery(new MatchNoDocsQuery(), HybridQuery.Fusion.LINEAR, 10, 60, 1f, 1f);
+    fused = query.fuse(List.of("a"), new float[] {3f}, List.of(), new float[0]);
+    assertEquals("a", fused.get(0).getKey());
+    assertEquals(1f, fused.get(0).getValue(), 0f);
+  }
+
+  @Test
+  public void testBadRequests() {
+    assertQEx(
+        "vectorQuery is mandatory",
+        req("q", LEXICAL, "rq", "{!hybrid}"),
+        SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx(
+        "unknown fusion",
+        req("q", LEXICAL, "rq", "{!hybrid vectorQuery=$vq fusion=max}", "vq", VECTOR),
+        SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx(
+        "cursors aren't supported",
+        req(
+            "q", LEXICAL,
+            "rq", "{!hybrid vectorQuery=$vq}",
+            "vq", VECTOR,
+            "sort", "id asc",
+            "cursorMark", "*"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+}
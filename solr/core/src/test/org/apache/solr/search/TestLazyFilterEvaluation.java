@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import com.codahale.metrics.Gauge;
+import java.util.Map;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Verify that broad filters are evaluated lazily when a selective filter leads */
+public class TestLazyFilterEvaluation extends SolrTestCaseJ4 {
+
+  private static final int NUM_DOCS = 100;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solr.test.lazyFilterRatio", "10");
+    initCore("solrconfig.xml", "schema_latest.xml");
+    for (int i = 0; i < NUM_DOCS; i++) {
+      assertU(adoc("id", Integer.toString(i), "cat_s", "all", "n_i", Integer.toString(i)));
+    }
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.test.lazyFilterRatio");
+  }
+
+  private static long lookupFilterCacheInserts(SolrCore core) {
+    return (long)
+        ((MetricsMap)
+                ((SolrMetricManager.GaugeWrapper<?>)
+                        core.getCoreMetricManager()
+                            .getRegistry()
+                            .getMetrics()
+                            .get("CACHE.searcher.filterCache"))
+                    .getGauge())
+            .getValue()
+            .get("inserts");
+  }
+
+  private static long lookupLazyFilters(SolrCore core) {
+    return (long)
+        ((Gauge<?>)
+                core.getCoreMetricManager()
+                    .getRegistry()
+                    .getMetrics()
+                    .get("SEARCHER.searcher.lazyFilters"))
+            .getValue();
+  }
+
+  @Test
+  public void testLazyFilters() throws Exception {
+    SolrCore core = h.getCore();
+    // the count of trie range queries can't be estimated, they're always computed
+    final long lazyRanges = Boolean.getBoolean(NUMERIC_POINTS_SYSPROP) ? 1 : 0;
+
+    // the term and point range filters match 10 times more documents than id:3
+    assertJQ(
+        req("q", "*:*", "fq", "cat_s:all", "fq", "n_i:[0 TO 1000]", "fq", "id:3"),
+        "/response/numFound==1",
+        "/response/docs/[0]/id=='3'");
+    assertEquals(2 - lazyRanges, lookupFilterCacheInserts(core));
+    assertEquals(1 + lazyRanges, lookupLazyFilters(core));
+
+    // negative filters are always computed
+    assertJQ(
+        req("q", "*:*", "fq", "cat_s:all", "fq", "-id:5", "fq", "id:4", "sort", "id asc"),
+        "/response/numFound==1",
+        "/response/docs/[0]/id=='4'");
+    assertEquals(4 - lazyRanges, lookupFilterCacheInserts(core));
+    assertEquals(2 + lazyRanges, lookupLazyFilters(core));
+
+    // the broad filter is computed when it's alone, and is cached from then on
+    assertJQ(req("q", "*:*", "fq", "cat_s:all", "rows", "0"), "/response/numFound==100");
+    assertEquals(5 - lazyRanges, lookupFilterCacheInserts(core));
+    assertJQ(
+        req("q", "*:*", "fq", "cat_s:all", "fq", "id:3", "sort", "id desc"),
+        "/response/numFound==1");
+    assertEquals(5 - lazyRanges, lookupFilterCacheInserts(core));
+    assertEquals(2 + lazyRanges, lookupLazyFilters(core));
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestQueryNormalizer extends SolrTestCaseJ4 {
+
+  private static final Query A = new TermQuery(new Term("f", "a"));
+  private static final Query B = new TermQuery(new Term("f", "b"));
+  private static final Query C = new TermQuery(new Term("f", "c"));
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solr.test.normalizeCacheKeys", "true");
+    // missing filters are then looked up before being computed
+    System.setProperty("solr.test.lazyFilterRatio", "10");
+    initCore("solrconfig.xml", "schema_latest.xml");
+    for (int i = 0; i < 10; i++) {
+      assertU(adoc("id", Integer.toString(i), "field_s", "d" + i));
+    }
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.test.normalizeCacheKeys");
+    System.clearProperty("solr.test.lazyFilterRatio");
+  }
+
+  private static BooleanQuery bool(Object... clauses) {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    for (int i = 0; i < clauses.length; i += 2) {
+      builder.add((Query) clauses[i], (Occur) clauses[i + 1]);
+    }
+    return builder.build();
+  }
+
+  private static void assertFilterNormalizesTo(Query expected, Query query) {
+    Query normalized = QueryNormalizer.normalizeFilter(query);
+    assertEquals(expected, normalized);
+    // normalizing is idempotent, so that warmed cache entries have the same keys
+    assertEquals(normalized, QueryNormalizer.normalizeFilter(normalized));
+  }
+
+  @Test
+  public void testScoringQueries() {
+    assertSame(A, QueryNormalizer.normalize(A));
+    assertEquals(A, QueryNormalizer.normalize(bool(A, Occur.MUST)));
+    assertEquals(A, QueryNormalizer.normalize(bool(A, Occur.SHOULD)));
+    assertEquals(A, QueryNormalizer.normalize(new BoostQuery(bool(A, Occur.MUST), 1f)));
+    assertEquals(
+        new BoostQuery(A, 2f), QueryNormalizer.normalize(new BoostQuery(bool(A, Occur.MUST), 2f)));
+
+    // scoring clauses are kept, even when duplicated, non scoring clauses are normalized
+    Query query = bool(A, Occur.MUST, A, Occur.MUST, B, Occur.FILTER, B, Occur.FILTER);
+    assertEquals(
+        bool(A, Occur.MUST, A, Occur.MUST, B, Occur.FILTER), QueryNormalizer.normalize(query));
+    query = bool(A, Occur.SHOULD, new ConstantScoreQuery(bool(B, Occur.MUST)), Occur.SHOULD);
+    assertEquals(
+        bool(A, Occur.SHOULD, new ConstantScoreQuery(B), Occur.SHOULD),
+        QueryNormalizer.normalize(query));
+
+    // the order of the clauses doesn't matter
+    assertEquals(
+        QueryNormalizer.normalize(bool(A, Occur.SHOULD, B, Occur.SHOULD)),
+        QueryNormalizer.normalize(bool(B, Occur.SHOULD, A, Occur.SHOULD)));
+  }
+
+  @Test
+  public void testFilterQueries() {
+    assertFilterNormalizesTo(A, new ConstantScoreQuery(new BoostQuery(A, 3f)));
+    assertFilterNormalizesTo(A, bool(A, Occur.MUST, A, Occur.FILTER));
+    assertFilterNormalizesTo(
+        bool(A, Occur.FILTER, B, Occur.FILTER), bool(A, Occur.MUST, B, Occur.MUST));
+    // nested conjunctions and disjunctions are flattened
+    assertFilterNormalizesTo(
+        bool(A, Occur.FILTER, B, Occur.FILTER, C, Occur.MUST_NOT),
+        bool(A, Occur.MUST, bool(B, Occur.MUST, C, Occur.MUST_NOT), Occur.MUST));
+    assertFilterNormalizesTo(
+        bool(A, Occur.SHOULD, B, Occur.SHOULD, C, Occur.SHOULD),
+        bool(A, Occur.SHOULD, bool(B, Occur.SHOULD, C, Occur.SHOULD), Occur.SHOULD));
+    // optional clauses don't matter when there are required ones
+    assertFilterNormalizesTo(A, bool(A, Occur.MUST, B, Occur.SHOULD));
+
+    // pure negative nested queries match nothing, they can't be flattened
+    Query negative = bool(A, Occur.MUST, bool(B, Occur.MUST_NOT), Occur.MUST);
+    assertFilterNormalizesTo(
+        bool(A, Occur.FILTER, bool(B, Occur.MUST_NOT), Occur.FILTER), negative);
+    // duplicate optional clauses count against the minimum number that should match
+    BooleanQuery.Builder minShouldMatch = new BooleanQuery.Builder();
+    minShouldMatch.add(A, Occur.SHOULD).add(A, Occur.SHOULD).add(B, Occur.SHOULD);
+    minShouldMatch.setMinimumNumberShouldMatch(2);
+    Query query = minShouldMatch.build();
+    assertSame(query, QueryNormalizer.normalizeFilter(query));
+    // a single optional clause is its query with a minimum of one that should match
+    BooleanQuery.Builder optional = new BooleanQuery.Builder();
+    optional.add(A, Occur.SHOULD).setMinimumNumberShouldMatch(1);
+    assertFilterNormalizesTo(A, optional.build());
+    // but a single required clause doesn't match anything then, it isn't its query
+    BooleanQuery.Builder required = new BooleanQuery.Builder();
+    required.add(A, Occur.FILTER).setMinimumNumberShouldMatch(1);
+    query = required.build();
+    assertSame(query, QueryNormalizer.normalizeFilter(query));
+    BooleanQuery.Builder must = new BooleanQuery.Builder();
+    must.add(A, Occur.MUST).setMinimumNumberShouldMatch(1);
+    assertFilterNormalizesTo(query, must.build());
+  }
+
+  @Test
+  public void testFilterLists() {
+    List<Query> filters = Arrays.asList(A, B);
+    assertSame(filters, QueryNormalizer.normalizeFilters(filters));
+    assertEquals(
+        Arrays.asList(A, B),
+        QueryNormalizer.normalizeFilters(Arrays.asList(A, new ConstantScoreQuery(B), A)));
+
+    // filters that aren't cached may be post filters, they're kept
+    WrappedQuery uncached = new WrappedQuery(A);
+    uncached.setCache(false);
+    filters = Arrays.asList(uncached, uncached);
+    assertSame(filters, QueryNormalizer.normalizeFilters(filters));
+  }
+
+  private static Map<String, Object> getMetricsMap(SolrCore core, String name) {
+    return ((MetricsMap)
+            ((SolrMetricManager.GaugeWrapper<?>)
+                    core.getCoreMetricManager().getRegistry().getMetrics().get(name))
+                .getGauge())
+        .getValue();
+  }
+
+  @Test
+  public void testCacheHits() throws Exception {
+    SolrCore core = h.getCore();
+
+    // the sort differs so that the second request misses the queryResultCache
+    assertJQ(req("q", "*:*", "fq", "field_s:(d0 OR d1)"), "/response/numFound==2");
+    assertJQ(
+        req("q", "*:*", "fq", "(field_s:d1 OR field_s:d0)^=2", "sort", "id asc"),
+        "/response/numFound==2");
+    Map<String, Object> filterCache = getMetricsMap(core, "CACHE.searcher.filterCache");
+    assertEquals(1L, filterCache.get("inserts"));
+    assertEquals(1L, filterCache.get("hits"));
+
+    assertJQ(req("q", "field_s:d0", "fq", "field_s:d0"), "/response/numFound==1");
+    assertJQ(
+        req("q", "{!bool must=$m}", "m", "field_s:d0", "fq", "field_s:d0", "fq", "field_s:d0"),
+        "/response/numFound==1");
+    Map<String, Object> queryResultCache =
+        getMetricsMap(core, "CACHE.searcher.queryResultCache");
+    assertEquals(3L, queryResultCache.get("inserts"));
+    assertEquals(1L, queryResultCache.get("hits"));
+
+    Map<String, Object> normalized =
+        getMetricsMap(core, "SEARCHER.searcher.normalizedCacheKeys");
+    assertEquals(2L, normalized.get("queryResultCache"));
+    long count = (Long) normalized.get("filterCache");
+    assertTrue(count > 0);
+
+    // a missing filter is normalized for the lookup only, not again to be computed
+    assertJQ(req("q", "*:*", "fq", "field_s:d5^=3", "rows", "0"), "/response/numFound==1");
+    normalized = getMetricsMap(core, "SEARCHER.searcher.normalizedCacheKeys");
+    assertEquals(count + 1, normalized.get("filterCache"));
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.solr.client.solrj.request.CollectionAdminRequest;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.junit.BeforeClass;
@@ -200,6 +201,53 @@ public class CrossCollectionJoinQueryTest extends SolrCloudTestCase {
               client.getClusterStateProvider().getQuorumHosts()),
           true);
 
+      // ship a bloom filter of the join keys instead of the keys, sized so that this test doesn't
+      // get false positives
+      for (String field : new String[] {"product_id_i", "product_id_l", "product_id_s"}) {
+        testCcJoinQuery(
+            String.format(
+                Locale.ROOT,
+                "{!join method=crossCollection fromIndex=products from=%s to=%s bloomFilter=true bloomExpectedKeys=1000 bloomFpp=0.000001}size_s:M",
+                field,
+                field),
+            true);
+        testCcJoinQuery(
+            String.format(
+                Locale.ROOT,
+                "{!join method=crossCollection solrUrl=\"%s\" fromIndex=products from=%s to=%s bloomFilter=true bloomExpectedKeys=1000 bloomFpp=0.000001}size_s:M",
+                getSolrUrl(),
+                field,
+                field),
+            true);
+      }
+      assertResultCount(
+          "parts",
+          "{!join method=crossCollection fromIndex=products from=product_id_s to=product_id_s bloomFilter=true fq=product_id_s:1}size_s:M",
+          2,
+          true);
+      assertResultCount(
+          "parts",
+          "{!join method=crossCollection fromIndex=products from=product_id_s to=product_id_s bloomFilter=true}size_s:XXL",
+          0,
+          true);
+      // int and long keys are hashed the same way, string and numeric keys aren't
+      assertResultCount(
+          "parts",
+          "{!join method=crossCollection fromIndex=products from=product_id_i to=product_id_l bloomFilter=true bloomExpectedKeys=1000 bloomFpp=0.000001}size_s:M",
+          NUM_PRODUCTS / 2,
+          true);
+      SolrException e =
+          expectThrows(
+              SolrException.class,
+              () ->
+                  assertResultCount(
+                      "parts",
+                      "{!join method=crossCollection fromIndex=products from=product_id_s to=product_id_i bloomFilter=true}size_s:M",
+                      0,
+                      true));
+      assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+      assertTrue(e.getMessage(), e.getMessage().contains("has keys of type TERMS"));
+
       // Test the ability to set other parameters on crossCollection join and have them passed
       // through
       assertResultCount(
@@ -236,6 +284,9 @@ public class CrossCollectionJoinQueryTest extends SolrCloudTestCase {
     testCcJoinQuery(
         "{!join method=crossCollection fromIndex=products from=product_id_s to=product_id_s routed=false}size_s:M",
         true);
+    testCcJoinQuery(
+        "{!join method=crossCollection fromIndex=products from=product_id_s to=product_id_s routed=false bloomFilter=true bloomExpectedKeys=1000 bloomFpp=0.000001}size_s:M",
+        true);
     // The join_nonrouted query parser doesn't assume that the collection was routed on product_id,
     // so we should get the full set of results.
     testCcJoinQuery(
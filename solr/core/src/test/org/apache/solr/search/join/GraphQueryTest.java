@@ -140,6 +140,63 @@ public class GraphQueryTest extends SolrTestCaseJ4 {
     assertJQ(
         req(p, "q", "{!graph from=${node_id} to=${edge_id} returnRoot=false maxDepth=1}id:doc_1"),
         "/response/numFound==1");
+
+    // 8->(1,-2)->(3,9)->(4,5)->7, a budget truncates the level that reaches it
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} maxNodes=1}id:doc_8"),
+        "/response/numFound==1");
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} maxNodes=3}id:doc_8"),
+        "/response/numFound==3");
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} maxNodes=4}id:doc_8"),
+        "/response/numFound==4");
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} maxNodes=100}id:doc_8"),
+        "/response/numFound==8");
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} returnRoot=false maxNodes=4}id:doc_8"),
+        "/response/numFound==3");
+
+    // the traversal with ordinals, for string fields with docValues, has the same results
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} useOrdinals=true}id:doc_8"),
+        "/response/numFound==8");
+    assertJQ(
+        req(p, "q", "{!graph from=${edge_id} to=${node_id} maxDepth=1 useOrdinals=true}id:doc_1"),
+        "/response/numFound==3");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!graph from=${node_id} to=${edge_id} useOrdinals=true returnRoot=false returnOnlyLeaf=true maxDepth=2}id:doc_8"),
+        "/response/numFound==1");
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} useOrdinals=true maxNodes=4}id:doc_8"),
+        "/response/numFound==4");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!graph from=${node_id} to=${edge_id} useOrdinals=true traversalFilter='text:foo11'}id:doc_8"),
+        "/response/numFound==2");
+
+    // the segments are collected concurrently, with the same results
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} useOrdinals=true threads=4}id:doc_8"),
+        "/response/numFound==8");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!graph from=${edge_id} to=${node_id} maxDepth=1 useOrdinals=true threads=4}id:doc_1"),
+        "/response/numFound==3");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!graph from=${node_id} to=${edge_id} useOrdinals=true threads=4 traversalFilter='text:foo11'}id:doc_8"),
+        "/response/numFound==2");
   }
 
   @Test
@@ -169,6 +226,22 @@ public class GraphQueryTest extends SolrTestCaseJ4 {
             String.valueOf(SolrException.ErrorCode.BAD_REQUEST.code)));
   }
 
+  @Test
+  public void testGraphQueryParserBudgetValidation() {
+    assertQEx(
+        "threads must be a positive number",
+        req("q", "{!graph from=node_s to=edge_ss threads=0}id:doc_1"),
+        SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx(
+        "maxNodes must be -1 (no limit) or a positive number",
+        req("q", "{!graph from=node_s to=edge_ss maxNodes=-2}id:doc_1"),
+        SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx(
+        "maxNodes must be -1 (no limit) or a positive number",
+        req("q", "{!graph from=node_s to=edge_ss maxNodes=0}id:doc_1"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+
   public void doGraphQuery(SolrParams p) {
     String message = p.get("message");
     int errorCode = p.getInt("errorCode", SolrException.ErrorCode.UNKNOWN.code);
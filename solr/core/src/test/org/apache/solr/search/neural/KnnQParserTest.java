@@ -20,11 +20,13 @@ import static org.apache.solr.search.neural.KnnQParser.DEFAULT_TOP_K;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.DenseVectors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -288,6 +290,32 @@ public class KnnQParserTest extends SolrTestCaseJ4 {
         "//result/doc[10]/str[@name='id'][.='8']");
   }
 
+  @Test
+  public void base64Vector_shouldRankBySimilarityFunction() {
+    float[] vector = new float[] {1.0f, 2.0f, 3.0f, 4.0f};
+    String base64 = DenseVectors.toBase64(vector);
+    String urlSafeBase64 = Base64.getUrlEncoder().encodeToString(DenseVectors.toBytes(vector));
+
+    for (String vectorToSearch : Arrays.asList(base64, urlSafeBase64)) {
+      assertQ(
+          req(CommonParams.Q, "{!knn f=vector topK=3}" + vectorToSearch, "fl", "id"),
+          "//result[@numFound='3']",
+          "//result/doc[1]/str[@name='id'][.='1']",
+          "//result/doc[2]/str[@name='id'][.='4']",
+          "//result/doc[3]/str[@name='id'][.='2']");
+    }
+
+    assertQEx(
+        "incorrect vector dimension should throw Exception",
+        "incorrect vector dimension. The vector value has size 3 while it is expected a vector with size 4",
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=3}" + DenseVectors.toBase64(new float[] {1.0f, 2.0f, 3.0f}),
+            "fl",
+            "id"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+
   @Test
   public void knnQueryWithFilterQuery_shouldIntersectResults() {
     String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
@@ -304,18 +332,28 @@ public class KnnQParserTest extends SolrTestCaseJ4 {
         "//result/doc[1]/str[@name='id'][.='1']",
         "//result/doc[2]/str[@name='id'][.='2']",
         "//result/doc[3]/str[@name='id'][.='7']");
+    /* The k-nearest neighbours are searched among the documents matching the filter queries */
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=4}" + vectorToSearch,
+            "fq",
+            "id:(3 4 9 2)",
+            "fl",
+            "id"),
+        "//result[@numFound='4']",
+        "//result/doc[1]/str[@name='id'][.='4']",
+        "//result/doc[2]/str[@name='id'][.='2']",
+        "//result/doc[3]/str[@name='id'][.='3']",
+        "//result/doc[4]/str[@name='id'][.='9']");
     /*
-     * This behavior is counter-intuitive.
-     * You would expect the query to apply to only the results filtered by the filter query.
-     * So you ideally would like to see the following ranked list as a result: [4,2,3,9].
-     * To get this please use the knn query parser as a reranker, example in a following test.
-     * This is how filter queries work(it's just intersection of the bitsets coming from each query and filter query):
+     * Without pre-filtering, the ranked list of the whole index is intersected with the filter:
      * Ranked List from q=[1,4,2,10] <intersects> Set from fq={3,4,9,2} = [4,2]
      * */
     assertQ(
         req(
             CommonParams.Q,
-            "{!knn f=vector topK=4}" + vectorToSearch,
+            "{!knn f=vector topK=4 preFilter=false}" + vectorToSearch,
             "fq",
             "id:(3 4 9 2)",
             "fl",
@@ -337,6 +375,72 @@ public class KnnQParserTest extends SolrTestCaseJ4 {
         "//result/doc[2]/str[@name='id'][.='4']");
   }
 
+  @Test
+  public void knnQueryWithSeveralFilterQueries_shouldSearchTheirIntersection() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=2}" + vectorToSearch,
+            "fq",
+            "id:(1 2 3 4 5 6)",
+            "fq",
+            "-id:(1 4)",
+            "fq",
+            "{!cache=false}id:(2 3 5 6 7)",
+            "fl",
+            "id"),
+        "//result[@numFound='2']",
+        "//result/doc[1]/str[@name='id'][.='2']",
+        "//result/doc[2]/str[@name='id'][.='3']");
+  }
+
+  @Test
+  public void knnQueryWithFilterQuery_shouldBeCorrectOnceWarmed() throws Exception {
+    // a config whose queryResultCache is autowarmed
+    deleteCore();
+    initCore("solrconfig.xml", "schema-densevector.xml");
+    for (SolrInputDocument doc : prepareDocs()) {
+      assertU(adoc(doc));
+    }
+    assertU(commit());
+
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+    String[] params =
+        new String[] {
+          CommonParams.Q,
+          "{!knn f=vector topK=2}" + vectorToSearch,
+          "fq",
+          "id:(2 4 9 14)",
+          "fl",
+          "id"
+        };
+    assertQ(
+        req(params),
+        "//result[@numFound='2']",
+        "//result/doc[1]/str[@name='id'][.='4']",
+        "//result/doc[2]/str[@name='id'][.='2']");
+
+    // the filter matches other documents in the new searcher, which replays the query to warm the
+    // queryResultCache
+    SolrInputDocument updated = new SolrInputDocument();
+    updated.addField(IDField, 4);
+    updated.addField(vectorField, Arrays.asList(1.4f, 2.4f, 3.4f, 4.4f));
+    assertU(adoc(updated));
+    SolrInputDocument added = new SolrInputDocument();
+    added.addField(IDField, 14);
+    added.addField(vectorField, Arrays.asList(1f, 2f, 3f, 4f));
+    assertU(adoc(added));
+    assertU(commit());
+
+    assertQ(
+        req(params),
+        "//result[@numFound='2']",
+        "//result/doc[1]/str[@name='id'][.='14']",
+        "//result/doc[2]/str[@name='id'][.='4']");
+  }
+
   /*
    * See {@link org.apache.solr.search.ReRankQParserPlugin.ReRankQueryRescorer.combine} for more details.
    * */
@@ -449,6 +449,30 @@ public class PeerSyncTest extends BaseDistributedSearchTestCase {
     testHandleVersionsWithRangesMissingOneRange(false /* duplicateMiddle */);
     testHandleVersionsWithRangesMissingOneRange(true /* duplicateMiddle */);
     testHandleVersionsWithRangesMissingTwoRanges();
+    testSplitIntoBatches();
+  }
+
+  private static void testSplitIntoBatches() {
+    List<Long> otherVersions = new ArrayList<>();
+    for (long v = 20; v > 0; v--) {
+      otherVersions.add(v % 3 == 0 ? -v : v);
+    }
+    // requested versions are 2..8 and 11..17
+    MissedUpdatesRequest mur = MissedUpdatesRequest.of("2...8,11...17", 14);
+
+    List<MissedUpdatesRequest> batches = mur.splitIntoBatches(otherVersions, 5);
+    assertEquals(3, batches.size());
+    assertEquals("2...-6", batches.get(0).versionsAndRanges);
+    assertEquals(5L, batches.get(0).totalRequestedUpdates);
+    assertEquals("7...8,11...13", batches.get(1).versionsAndRanges);
+    assertEquals(5L, batches.get(1).totalRequestedUpdates);
+    assertEquals("14...17", batches.get(2).versionsAndRanges);
+    assertEquals(4L, batches.get(2).totalRequestedUpdates);
+
+    batches = mur.splitIntoBatches(otherVersions, 100);
+    assertEquals(1, batches.size());
+    assertEquals("2...8,11...17", batches.get(0).versionsAndRanges);
+    assertEquals(14L, batches.get(0).totalRequestedUpdates);
   }
 
   private static void testHandleVersionsWithRangesNoOther() {
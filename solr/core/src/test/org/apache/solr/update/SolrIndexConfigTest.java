@@ -200,6 +200,9 @@ public class SolrIndexConfigTest extends SolrTestCaseJ4 {
     ++mSizeExpected;
     assertTrue(m.get("ramBufferSizeMB") instanceof Double);
 
+    ++mSizeExpected;
+    assertTrue(m.get("bulkLoadRamBufferSizeMB") instanceof Double);
+
     ++mSizeExpected;
     assertTrue(m.get("maxCommitMergeWaitTime") instanceof Integer);
 
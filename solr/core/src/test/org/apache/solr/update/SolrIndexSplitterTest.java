@@ -19,11 +19,18 @@ package org.apache.solr.update;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import java.io.File;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.solr.SolrTestCaseJ4;
@@ -154,6 +161,181 @@ public class SolrIndexSplitterTest extends SolrTestCaseJ4 {
     }
   }
 
+  /** Adds documents in several segments, and returns how many documents each range has. */
+  private int[] addSegments(PlainIdRouter router, List<DocRouter.Range> ranges) {
+    int[] expected = new int[ranges.size()];
+    int numDocs = 0;
+    for (int segment = 0; segment < 5; segment++) {
+      for (int i = 0; i < 10; i++) {
+        String id = "doc" + numDocs++;
+        assertU(adoc("id", id));
+        int hash = router.sliceHash(id, null, null, null);
+        for (int r = 0; r < ranges.size(); r++) {
+          if (ranges.get(r).includes(hash)) {
+            expected[r]++;
+          }
+        }
+      }
+      assertU(commit());
+    }
+    return expected;
+  }
+
+  @Test
+  public void testSplitByPathsParallel() throws Exception {
+    LocalSolrQueryRequest request = null;
+    try {
+      // create several segments, which are split concurrently
+      PlainIdRouter router = new PlainIdRouter();
+      List<DocRouter.Range> ranges =
+          router.partitionRange(2, new DocRouter.Range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+      int[] expected = addSegments(router, ranges);
+
+      request = lrf.makeRequest("q", "dummy");
+      int numSegments = request.getSearcher().getRawReader().leaves().size();
+      SplitIndexCommand command =
+          new SplitIndexCommand(
+              request,
+              new SolrQueryResponse(),
+              Lists.newArrayList(indexDir1.getAbsolutePath(), indexDir2.getAbsolutePath()),
+              null,
+              ranges,
+              router,
+              null,
+              null,
+              SolrIndexSplitter.SplitMethod.REWRITE);
+      command.numThreads = 4;
+      doSplit(command);
+
+      assertEquals(numSegments, command.progress.getSegmentsProcessed());
+      assertEquals(2, command.progress.getPartitionsProcessed());
+      File[] indexDirs = new File[] {indexDir1, indexDir2};
+      for (int i = 0; i < indexDirs.length; i++) {
+        Directory directory =
+            h.getCore()
+                .getDirectoryFactory()
+                .get(
+                    indexDirs[i].getAbsolutePath(),
+                    DirectoryFactory.DirContext.DEFAULT,
+                    h.getCore().getSolrConfig().indexConfig.lockType);
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+          assertEquals("wrong number of docs in split index" + i, expected[i], reader.numDocs());
+        } finally {
+          h.getCore().getDirectoryFactory().release(directory);
+        }
+      }
+    } finally {
+      if (request != null) request.close(); // decrefs the searcher
+    }
+  }
+
+  @Test
+  public void testSplitByCoresParallelLink() throws Exception {
+    // the sub-indexes are hard linked copies of the parent index, check that it's supported here
+    Path linkDir = createTempDir();
+    Path linkTarget = Files.createFile(linkDir.resolve("target"));
+    try {
+      Files.createLink(linkDir.resolve("link"), linkTarget);
+    } catch (UnsupportedOperationException | IOException e) {
+      assumeNoException("hard links aren't supported", e);
+    }
+
+    PlainIdRouter router = new PlainIdRouter();
+    List<DocRouter.Range> ranges =
+        router.partitionRange(2, new DocRouter.Range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    int[] expected = addSegments(router, ranges);
+
+    SolrCore core1 = null, core2 = null;
+    try {
+      core1 =
+          h.getCoreContainer()
+              .create(
+                  "split1",
+                  ImmutableMap.of(
+                      "dataDir", indexDir1.getAbsolutePath(), "configSet", "cloud-minimal"));
+      core2 =
+          h.getCoreContainer()
+              .create(
+                  "split2",
+                  ImmutableMap.of(
+                      "dataDir", indexDir2.getAbsolutePath(), "configSet", "cloud-minimal"));
+
+      Path parentIndexDir = Path.of(h.getCore().getIndexDir());
+      LocalSolrQueryRequest request = null;
+      try {
+        request = lrf.makeRequest("q", "dummy");
+        DirectoryReader parentReader = request.getSearcher().getRawReader();
+        int numSegments = parentReader.leaves().size();
+        // the documents to delete from the hard-linked copies are found once per segment of the
+        // parent index, so the key of a segment must not depend on the reader it's read from
+        try (DirectoryReader otherReader = DirectoryReader.open(parentReader.directory())) {
+          for (int i = 0; i < numSegments; i++) {
+            LeafReader leaf = parentReader.leaves().get(i).reader();
+            LeafReader otherLeaf = otherReader.leaves().get(i).reader();
+            assertNotSame(
+                leaf.getCoreCacheHelper().getKey(), otherLeaf.getCoreCacheHelper().getKey());
+            assertEquals(
+                SolrIndexSplitter.segmentKey(leaf), SolrIndexSplitter.segmentKey(otherLeaf));
+          }
+        }
+
+        SplitIndexCommand command =
+            new SplitIndexCommand(
+                request,
+                new SolrQueryResponse(),
+                null,
+                Lists.newArrayList(core1, core2),
+                ranges,
+                router,
+                null,
+                null,
+                SolrIndexSplitter.SplitMethod.LINK);
+        command.numThreads = 4;
+        doSplit(command);
+
+        assertEquals(numSegments, command.progress.getSegmentsProcessed());
+        assertEquals(2, command.progress.getPartitionsProcessed());
+      } finally {
+        if (request != null) request.close();
+      }
+
+      SolrCore[] cores = new SolrCore[] {core1, core2};
+      for (int i = 0; i < cores.length; i++) {
+        // the segment files of the sub-index are hard links to the files of the parent index,
+        // only the deletions and the commit points are its own
+        Path subIndexDir = Path.of(cores[i].getNewIndexDir());
+        int linkedFiles = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(subIndexDir)) {
+          for (Path file : files) {
+            String name = file.getFileName().toString();
+            Path parentFile = parentIndexDir.resolve(name);
+            if (name.startsWith(IndexFileNames.SEGMENTS)
+                || name.endsWith(".liv")
+                || name.equals(IndexWriter.WRITE_LOCK_NAME)
+                || !Files.exists(parentFile)) {
+              continue;
+            }
+            assertTrue(name + " isn't a hard link", Files.isSameFile(file, parentFile));
+            linkedFiles++;
+          }
+        }
+        assertTrue("no hard linked segment file in split index" + i, linkedFiles > 0);
+
+        @SuppressWarnings("resource")
+        final EmbeddedSolrServer server =
+            new EmbeddedSolrServer(h.getCoreContainer(), cores[i].getName());
+        server.commit(true, true);
+        assertEquals(
+            "wrong number of docs in split index" + i,
+            expected[i],
+            server.query(new SolrQuery("*:*")).getResults().getNumFound());
+      }
+    } finally {
+      h.getCoreContainer().unload("split2");
+      h.getCoreContainer().unload("split1");
+    }
+  }
+
   private void doSplit(SplitIndexCommand command) throws Exception {
     NamedList<Object> results = new NamedList<>();
     new SolrIndexSplitter(command).split(results);
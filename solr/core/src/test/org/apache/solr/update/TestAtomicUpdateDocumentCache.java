@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+public class TestAtomicUpdateDocumentCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solr.ulog.atomicUpdateCacheSize", "10");
+    initCore("solrconfig-tlog.xml", "schema15.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.ulog.atomicUpdateCacheSize");
+  }
+
+  @Before
+  public void before() {
+    clearIndex();
+    assertU(commit());
+  }
+
+  private AtomicUpdateDocumentCache cache() {
+    return h.getCore().getUpdateHandler().getUpdateLog().getAtomicUpdateCache();
+  }
+
+  public void testCacheVersioning() {
+    AtomicUpdateDocumentCache cache = new AtomicUpdateDocumentCache(2);
+    BytesRef id = new BytesRef("1");
+    SolrInputDocument doc = sdoc("id", "1", "val_i", 1);
+    cache.put(id, 10L, doc);
+
+    assertNull(cache.get(id, 11L));
+    SolrInputDocument cached = cache.get(id, 10L);
+    assertEquals(doc.toString(), cached.toString());
+    assertNotSame(doc, cached);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    cache.put(new BytesRef("2"), 20L, sdoc("id", "2"));
+    cache.put(new BytesRef("3"), 30L, sdoc("id", "3"));
+    assertEquals(2, cache.size());
+    assertNull("eldest entry should have been evicted", cache.get(id, 10L));
+  }
+
+  public void testRepeatedAtomicUpdates() throws Exception {
+    assertNotNull(cache());
+    long hits = cache().getHits();
+
+    addAndGetVersion(sdoc("id", "1", "val_i", 0, "title_s", "counter"), null);
+    for (int i = 0; i < 5; i++) {
+      addAndGetVersion(sdoc("id", "1", "val_i", map("inc", 1)), null);
+    }
+    // the first atomic update has to read the doc from the update log
+    assertEquals(4, cache().getHits() - hits);
+
+    assertJQ(
+        req("qt", "/get", "id", "1", "fl", "id,val_i,title_s"),
+        "=={'doc':{'id':'1','val_i':5,'title_s':['counter']}}");
+    assertU(commit());
+    assertJQ(req("q", "id:1"), "/response/docs/[0]/val_i==5");
+
+    // after a delete, the cached document must not be resurrected
+    assertU(delI("1"));
+    addAndGetVersion(sdoc("id", "1", "val_i", map("inc", 1)), null);
+    assertJQ(
+        req("qt", "/get", "id", "1", "fl", "id,val_i,title_s"), "=={'doc':{'id':'1','val_i':1}}");
+  }
+
+  public void testNonAtomicUpdateMakesEntryStale() throws Exception {
+    addAndGetVersion(sdoc("id", "2", "val_i", 0), null);
+    addAndGetVersion(sdoc("id", "2", "val_i", map("inc", 1)), null);
+    // a regular add changes the version, so the cached document no longer applies
+    addAndGetVersion(sdoc("id", "2", "val_i", 10), null);
+    long hits = cache().getHits();
+    addAndGetVersion(sdoc("id", "2", "val_i", map("inc", 1)), null);
+    assertEquals(hits, cache().getHits());
+    assertJQ(req("qt", "/get", "id", "2", "fl", "id,val_i"), "=={'doc':{'id':'2','val_i':11}}");
+  }
+}
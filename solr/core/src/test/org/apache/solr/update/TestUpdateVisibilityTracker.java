@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.VersionToken;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+public class TestUpdateVisibilityTracker extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-tlog.xml", "schema15.xml");
+  }
+
+  @Before
+  public void before() {
+    clearIndex();
+    assertU(commit());
+  }
+
+  public void testBatches() {
+    UpdateVisibilityTracker tracker = new UpdateVisibilityTracker();
+    assertTrue(tracker.isVisible(100, 1));
+
+    tracker.logged(100);
+    tracker.logged(-110);
+    assertFalse(tracker.isVisible(100, 1));
+    assertTrue(tracker.isVisible(99, 1));
+
+    tracker.searcherOpening();
+    assertFalse(tracker.isVisible(100, 1));
+    tracker.logged(120);
+    tracker.searcherOpened(2);
+    // the searcher with reader version 2 isn't registered yet
+    assertFalse(tracker.isVisible(110, 1));
+    assertTrue(tracker.isVisible(110, 2));
+    // logged after the searcher was opened
+    assertFalse(tracker.isVisible(120, 2));
+
+    tracker.searcherOpening();
+    tracker.searcherOpened(3);
+    assertTrue(tracker.isVisible(120, 3));
+  }
+
+  public void testReaderOfAnotherWriter() {
+    UpdateVisibilityTracker tracker = new UpdateVisibilityTracker();
+    tracker.logged(100);
+    tracker.searcherOpening();
+    tracker.searcherOpened(50);
+    tracker.logged(110);
+    tracker.searcherOpening();
+    // e.g. a new index writer after a core reload, with lower reader versions
+    tracker.searcherOpened(5);
+    assertFalse(tracker.isVisible(100, 4));
+    assertTrue(tracker.isVisible(110, 5));
+  }
+
+  public void testSoftCommit() throws Exception {
+    UpdateVisibilityTracker tracker =
+        h.getCore().getUpdateHandler().getUpdateLog().getVisibilityTracker();
+    assertU(adoc("id", "1"));
+    long version = getVersion("1");
+    assertFalse(tracker.isVisible(version, registeredReaderVersion()));
+
+    // a hard commit which doesn't open a searcher doesn't make the update visible
+    assertU(commit("openSearcher", "false"));
+    assertFalse(tracker.isVisible(version, registeredReaderVersion()));
+
+    assertU(commit("softCommit", "true"));
+    assertTrue(tracker.isVisible(version, registeredReaderVersion()));
+
+    assertU(delI("1"));
+    long deleteVersion = getVersion("1");
+    assertTrue(deleteVersion < 0);
+    assertFalse(tracker.isVisible(deleteVersion, registeredReaderVersion()));
+    assertU(commit());
+    assertTrue(tracker.isVisible(deleteVersion, registeredReaderVersion()));
+  }
+
+  public void testVersionToken() {
+    VersionToken token = VersionToken.parse("shard1:10|shard2:-20");
+    assertEquals(10, token.getVersion("shard1"));
+    assertEquals(20, token.getVersion("shard2"));
+    assertEquals(-1, token.getVersion("shard3"));
+
+    VersionToken merged = VersionToken.merge(token, VersionToken.of("shard1", 15));
+    assertEquals("shard1:15|shard2:20", merged.toString());
+    assertSame(token, VersionToken.merge(token, null));
+    assertNull(VersionToken.parse(""));
+    expectThrows(SolrException.class, () -> VersionToken.parse("shard1"));
+    expectThrows(SolrException.class, () -> VersionToken.parse("shard1:x"));
+  }
+
+  private long getVersion(String id) {
+    return h.getCore().getUpdateHandler().getUpdateLog().lookupVersion(new BytesRef(id));
+  }
+
+  private long registeredReaderVersion() {
+    RefCounted<SolrIndexSearcher> holder = h.getCore().getSearcher();
+    try {
+      return holder.get().getIndexReader().getVersion();
+    } finally {
+      holder.decref();
+    }
+  }
+}
@@ -71,4 +71,47 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testCompressedDocuments() throws IOException {
+    String tlogFileName =
+        String.format(
+            Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, Long.MAX_VALUE);
+    Path path = createTempDir();
+    Path logFile = path.resolve(tlogFileName);
+    String bigValue = "compressible value ".repeat(200);
+    long bigPos;
+    try (TransactionLog tlog = new TransactionLog(logFile, null)) {
+      tlog.deleteOnClose = false;
+      tlog.setCompressDocuments(true);
+      AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+
+      SolrInputDocument small = new SolrInputDocument();
+      small.addField("id", "small");
+      updateCommand.solrDoc = small;
+      tlog.write(updateCommand);
+
+      SolrInputDocument big = new SolrInputDocument();
+      big.addField("id", "big");
+      big.addField("text", bigValue);
+      updateCommand.solrDoc = big;
+      bigPos = tlog.write(updateCommand);
+
+      SolrInputDocument doc = (SolrInputDocument) ((List<?>) tlog.lookup(bigPos)).get(2);
+      assertEquals(bigValue, doc.getFieldValue("text"));
+
+      // the compressed record is much smaller than the value it holds
+      assertTrue(tlog.getLogSize() - bigPos < bigValue.length() / 2);
+    }
+
+    try (TransactionLog tlog = new TransactionLog(logFile, null, true)) {
+      LogReader reader = tlog.getReader(0);
+      SolrInputDocument doc = (SolrInputDocument) ((List<?>) reader.next()).get(2);
+      assertEquals("small", doc.getFieldValue("id"));
+      doc = (SolrInputDocument) ((List<?>) reader.next()).get(2);
+      assertEquals("big", doc.getFieldValue("id"));
+      assertEquals(bigValue, doc.getFieldValue("text"));
+      assertNull(reader.next());
+    }
+  }
 }
@@ -218,6 +218,28 @@ public class UpdateLogTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testBulkLoadAddsAreNotLogged() {
+    ulogCommit(ulog);
+    long logSize = ulog.getCurrentLogSizeFromStream();
+    BytesRef indexedId = new BytesRef("2");
+    try (SolrQueryRequest req = req()) {
+      AddUpdateCommand cmd =
+          buildAddUpdateCommand(req, sdoc("id", "2", "title_s", "bulk", "_version_", "400"));
+      cmd.setFlags(UpdateCommand.BULK_LOAD);
+      ulog.add(cmd);
+    }
+    assertTrue(ulog.hasUncommittedBulkLoadUpdates());
+    assertEquals(logSize, ulog.getCurrentLogSizeFromStream());
+
+    // the version is tracked, but the document can't be read back from the log
+    assertEquals(400L, ulog.lookupVersion(indexedId).longValue());
+    assertNull(ulog.lookup(indexedId));
+
+    ulogCommit(ulog);
+    assertFalse(ulog.hasUncommittedBulkLoadUpdates());
+  }
+
   /** Simulate a commit on a given updateLog */
   private static void ulogCommit(UpdateLog ulog) {
     try (SolrQueryRequest req = req()) {
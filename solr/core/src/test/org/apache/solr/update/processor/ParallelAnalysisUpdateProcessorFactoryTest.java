@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.update.DocumentAnalysisCache;
+import org.apache.solr.update.DocumentBuilder;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+public class ParallelAnalysisUpdateProcessorFactoryTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-update-processor-chains.xml", "schema.xml");
+  }
+
+  @Before
+  public void clearIndex() {
+    assertU(delQ("*:*"));
+    assertU(commit());
+  }
+
+  public void testReplayedTokensMatchAnalysis() throws Exception {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    SolrInputDocument sdoc = sdoc("id", "1", "subject", "The Quick brown foxes jumped");
+
+    DocumentAnalysisCache cache = DocumentAnalysisCache.analyze(sdoc, schema);
+    // subject, and its copyField destination text
+    assertEquals(2, cache.size());
+
+    Document doc = cache.apply(DocumentBuilder.toDocument(sdoc, schema));
+    for (String field : new String[] {"subject", "text"}) {
+      IndexableField indexable = doc.getField(field);
+      assertNotNull(field, indexable);
+      List<String> replayed = tokens(indexable.tokenStream(schema.getIndexAnalyzer(), null));
+      List<String> expected =
+          tokens(schema.getIndexAnalyzer().tokenStream(field, indexable.stringValue()));
+      assertEquals(expected, replayed);
+      assertFalse(replayed.isEmpty());
+    }
+  }
+
+  public void testModifiedValuesAreNotReplayed() throws Exception {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    SolrInputDocument sdoc = sdoc("id", "1", "subject", "original value");
+    DocumentAnalysisCache cache = DocumentAnalysisCache.analyze(sdoc, schema);
+
+    sdoc.setField("subject", "modified value");
+    Document doc = DocumentBuilder.toDocument(sdoc, schema);
+    assertSame(doc, cache.apply(doc));
+  }
+
+  public void testIndexing() throws Exception {
+    StringBuilder docs = new StringBuilder("<add>");
+    for (int i = 0; i < 10; i++) {
+      docs.append(
+          doc("id", Integer.toString(i), "subject", "quick brown fox " + i, "title", "title " + i));
+    }
+    docs.append("</add>");
+    addDoc(docs.toString(), "parallel-analysis");
+    addDoc(commit(), "parallel-analysis");
+
+    assertQ(req("q", "*:*"), "//result[@numFound='10']");
+    assertQ(req("q", "subject:\"quick brown fox 7\""), "//result[@numFound='1']");
+    assertQ(req("q", "text:\"brown fox\""), "//result[@numFound='10']");
+    assertQ(req("q", "title:3"), "//result[@numFound='1']", "//str[@name='id'][.='3']");
+
+    // deletes flush the pending documents first, in order
+    addDoc(
+        "<update><add>"
+            + doc("id", "10", "subject", "lazy dog")
+            + "</add><delete><id>10</id></delete><add>"
+            + doc("id", "11", "subject", "lazy dog")
+            + "</add></update>",
+        "parallel-analysis");
+    addDoc(commit(), "parallel-analysis");
+    assertQ(req("q", "subject:dog"), "//result[@numFound='1']", "//str[@name='id'][.='11']");
+  }
+
+  private static List<String> tokens(TokenStream stream) throws Exception {
+    List<String> tokens = new ArrayList<>();
+    try (TokenStream ts = stream) {
+      CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+      PositionIncrementAttribute posInc = ts.addAttribute(PositionIncrementAttribute.class);
+      OffsetAttribute offset = ts.addAttribute(OffsetAttribute.class);
+      ts.reset();
+      while (ts.incrementToken()) {
+        tokens.add(term + "/" + posInc.getPositionIncrement() + "/" + offset.startOffset());
+      }
+      ts.end();
+      tokens.add("end:" + offset.endOffset());
+    }
+    return tokens;
+  }
+}
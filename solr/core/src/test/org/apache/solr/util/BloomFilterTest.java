@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class BloomFilterTest extends SolrTestCase {
+
+  private static BloomFilter newFilter(int expectedKeys, double fpp) {
+    long numBits = BloomFilter.optimalNumBits(expectedKeys, fpp);
+    return new BloomFilter(numBits, BloomFilter.optimalNumHashes(expectedKeys, numBits));
+  }
+
+  @Test
+  public void testNoFalseNegatives() {
+    BloomFilter filter = newFilter(1000, 0.01);
+    for (int i = 0; i < 1000; i++) {
+      filter.add(new BytesRef("key" + i));
+      filter.add(i * 31L);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(filter.mightContain(new BytesRef("key" + i)));
+      assertTrue(filter.mightContain(i * 31L));
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    BloomFilter filter = newFilter(10000, 0.01);
+    for (int i = 0; i < 10000; i++) {
+      filter.add(new BytesRef("key" + i));
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (filter.mightContain(new BytesRef("other" + i))) {
+        falsePositives++;
+      }
+    }
+    // the expected rate is 1%, leave a lot of room as the hashes are fixed
+    assertTrue("false positives: " + falsePositives, falsePositives < 300);
+    assertEquals(0.01, filter.estimatedFalsePositiveRate(), 0.005);
+    assertEquals(10000, filter.estimatedKeys(), 500);
+  }
+
+  @Test
+  public void testUnionAndSerialization() {
+    BloomFilter left = newFilter(100, 0.01);
+    BloomFilter right = newFilter(100, 0.01);
+    for (int i = 0; i < 50; i++) {
+      left.add(i);
+      right.add(i + 50);
+    }
+    BloomFilter merged = BloomFilter.fromBytes(left.toBytes());
+    assertEquals(left.cardinality(), merged.cardinality());
+    merged.union(BloomFilter.fromBytes(right.toBytes()));
+    for (int i = 0; i < 100; i++) {
+      assertTrue(merged.mightContain(i));
+    }
+
+    BloomFilter other = newFilter(1000, 0.01);
+    expectThrows(IllegalArgumentException.class, () -> merged.union(other));
+  }
+}
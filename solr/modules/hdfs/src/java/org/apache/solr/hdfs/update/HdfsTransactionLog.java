@@ -539,6 +539,12 @@ public class HdfsTransactionLog extends TransactionLog {
             // reading it completely.
             return null;
           }
+
+          @Override
+          protected Object readCompressedSolrInputDocument(DataInputInputStream dis) {
+            // same as above, no need to decompress it
+            return null;
+          }
         };
 
     int nextLength; // length of the next record (the next one closer to the start of the log file)
@@ -323,6 +323,7 @@ public class HdfsUpdateLog extends UpdateLog {
         new HdfsTransactionLog(
             fs, new Path(tlogDir, newLogName), globalStrings, tlogDfsReplication);
     bufferTlog.isBuffer = true;
+    bufferTlog.setCompressDocuments(compressDocuments);
   }
 
   @Override
@@ -352,6 +353,7 @@ public class HdfsUpdateLog extends UpdateLog {
       HdfsTransactionLog ntlog =
           new HdfsTransactionLog(
               fs, new Path(tlogDir, newLogName), globalStrings, tlogDfsReplication);
+      ntlog.setCompressDocuments(compressDocuments);
       tlog = ntlog;
     }
   }
@@ -36,6 +36,7 @@ import org.apache.solr.client.solrj.response.CollectionAdminResponse;
 import org.apache.solr.common.cloud.Aliases;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
@@ -158,6 +159,58 @@ public abstract class BaseHttpClusterStateProvider implements ClusterStateProvid
     return cs;
   }
 
+  /**
+   * Waits up to <code>waitMs</code> ms for the state of any of the given collections to change,
+   * using the state versions endpoint of a live node. Versions are opaque numbers returned by a
+   * previous call; a negative version other than -1 means that the version is not known yet, and is
+   * returned right away. The upper 32 bits of a version are the znode version of the state of the
+   * collection, and -1 means that the collection does not exist.
+   *
+   * @param versions the last known state versions, keyed by collection name
+   * @return the new state versions of the collections whose state changed, possibly empty
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Long> waitForStateVersionChanges(Map<String, Long> versions, long waitMs)
+      throws SolrServerException, IOException {
+    StringBuilder versionsParam = new StringBuilder();
+    for (Map.Entry<String, Long> e : versions.entrySet()) {
+      if (versionsParam.length() > 0) {
+        versionsParam.append('|');
+      }
+      versionsParam.append(e.getKey()).append(':').append(e.getValue());
+    }
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set("versions", versionsParam.toString());
+    params.set("wait", Long.toString(waitMs));
+    QueryRequest request = new QueryRequest(params);
+    request.setPath(CommonParams.STATE_VERSIONS_PATH);
+
+    SolrServerException lastError = null;
+    for (String nodeName : getLiveNodes()) {
+      String baseUrl = Utils.getBaseUrlForNodeName(nodeName, urlScheme);
+      try (SolrClient client = getSolrClient(baseUrl)) {
+        Object response = client.request(request).get("stateVersions");
+        Map<String, Object> changed =
+            response instanceof NamedList
+                ? ((NamedList<Object>) response).asShallowMap()
+                : (Map<String, Object>) response;
+        Map<String, Long> result = new HashMap<>();
+        if (changed != null) {
+          for (Map.Entry<String, Object> e : changed.entrySet()) {
+            result.put(e.getKey(), ((Number) e.getValue()).longValue());
+          }
+        }
+        return result;
+      } catch (SolrServerException | IOException e) {
+        log.warn("Attempt to fetch state versions from {} failed.", baseUrl, e);
+        lastError = new SolrServerException(e);
+      }
+    }
+    throw lastError != null
+        ? lastError
+        : new SolrServerException("No live node to fetch state versions from");
+  }
+
   @Override
   public Set<String> getLiveNodes() {
     if (liveNodes == null) {
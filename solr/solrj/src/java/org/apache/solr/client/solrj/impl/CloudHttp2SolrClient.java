@@ -40,6 +40,7 @@ public class CloudHttp2SolrClient extends CloudSolrClient {
   private final LBHttp2SolrClient lbClient;
   private final Http2SolrClient myClient;
   private final boolean clientIsInternal;
+  private final StateVersionWatcher stateVersionWatcher;
 
   /**
    * Create a new client object that connects to Zookeeper and is always aware of the SolrCloud
@@ -87,10 +88,24 @@ public class CloudHttp2SolrClient extends CloudSolrClient {
       this.stateProvider = builder.stateProvider;
     }
     this.lbClient = new LBHttp2SolrClient(myClient);
+    if (builder.stateChangeNotifications
+        && this.stateProvider instanceof BaseHttpClusterStateProvider) {
+      this.stateVersionWatcher =
+          new StateVersionWatcher(
+              this,
+              (BaseHttpClusterStateProvider) this.stateProvider,
+              builder.stateChangeWaitMs);
+      this.stateVersionWatcher.start();
+    } else {
+      this.stateVersionWatcher = null;
+    }
   }
 
   @Override
   public void close() throws IOException {
+    if (stateVersionWatcher != null) {
+      stateVersionWatcher.close();
+    }
     stateProvider.close();
     lbClient.close();
 
@@ -114,6 +129,11 @@ public class CloudHttp2SolrClient extends CloudSolrClient {
     return myClient;
   }
 
+  @Override
+  protected boolean isCachingFetchedStates() {
+    return stateVersionWatcher != null;
+  }
+
   @Override
   protected boolean wasCommError(Throwable rootCause) {
     return false;
@@ -130,6 +150,8 @@ public class CloudHttp2SolrClient extends CloudSolrClient {
     protected boolean parallelUpdates = true;
     protected ClusterStateProvider stateProvider;
     protected Http2SolrClient.Builder internalClientBuilder;
+    protected boolean stateChangeNotifications = false;
+    protected long stateChangeWaitMs = 30000;
 
     /**
      * Provide a series of Solr URLs to be used when configuring {@link CloudHttp2SolrClient}
@@ -220,6 +242,26 @@ public class CloudHttp2SolrClient extends CloudSolrClient {
       return this;
     }
 
+    /**
+     * Tells {@link CloudHttp2SolrClient.Builder} whether created clients which fetch the cluster
+     * state from Solr URLs should be notified of changes of the collections they use, so that their
+     * cached collection states are refreshed as soon as they change (e.g. after a leader election),
+     * rather than after a request was sent using a stale state. Clients using ZooKeeper are always
+     * notified of such changes.
+     *
+     * <p>If enabled, created clients keep a request to a Solr node pending for up to <code>
+     * waitMs</code> ms, which should be smaller than the idle timeout of the client and of the Solr
+     * nodes. If not set, this defaults to 'false'.
+     */
+    public Builder withStateChangeNotifications(boolean enabled, long waitMs) {
+      if (waitMs <= 0) {
+        throw new IllegalArgumentException("waitMs must be greater than 0");
+      }
+      this.stateChangeNotifications = enabled;
+      this.stateChangeWaitMs = waitMs;
+      return this;
+    }
+
     public Builder withHttpClient(Http2SolrClient httpClient) {
       if (this.internalClientBuilder != null) {
         throw new IllegalStateException(
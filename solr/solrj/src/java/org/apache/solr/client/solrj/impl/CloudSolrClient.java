@@ -74,6 +74,7 @@ import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.ImplicitDocRouter;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.cloud.VersionToken;
 import org.apache.solr.common.cloud.ZkCoreNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.ModifiableSolrParams;
@@ -722,6 +723,7 @@ public abstract class CloudSolrClient extends SolrClient {
     T condensed = supplier.get();
     int status = 0;
     Integer rf = null;
+    VersionToken versionToken = null;
 
     // TolerantUpdateProcessor
     List<SimpleOrderedMap<String>> toleratedErrors = null;
@@ -743,6 +745,10 @@ public abstract class CloudSolrClient extends SolrClient {
         Integer routeRf = (Integer) rfObj;
         if (rf == null || routeRf < rf) rf = routeRf;
       }
+      Object tokenObj = header.get(VersionToken.RESPONSE_KEY);
+      if (tokenObj != null) {
+        versionToken = VersionToken.merge(versionToken, VersionToken.parse(tokenObj.toString()));
+      }
 
       @SuppressWarnings("unchecked")
       List<SimpleOrderedMap<String>> shardTolerantErrors =
@@ -781,6 +787,7 @@ public abstract class CloudSolrClient extends SolrClient {
     cheader.add("status", status);
     cheader.add("QTime", timeMillis);
     if (rf != null) cheader.add(UpdateRequest.REPFACT, rf);
+    if (versionToken != null) cheader.add(VersionToken.RESPONSE_KEY, versionToken.toString());
     if (null != toleratedErrors) {
       cheader.add("maxErrors", ToleratedUpdateError.getUserFriendlyMaxErrors(maxToleratedErrors));
       cheader.add("errors", toleratedErrors);
@@ -1312,15 +1319,15 @@ public abstract class CloudSolrClient extends SolrClient {
     }
     if (!ref.isLazilyLoaded()) {
       // it is readily available just return it
-      return ref.get();
+      DocCollection fetchedCol = ref.get();
+      if (fetchedCol != null && isCachingFetchedStates()) {
+        // it was fetched from a Solr node: cache it since it is kept up to date
+        collectionStateCache.put(collection, new ExpiringCachedDocCollection(fetchedCol));
+      }
+      return fetchedCol;
     }
-    List<Object> locks = this.locks;
-    final Object lock =
-        locks.get(
-            Math.abs(
-                Hash.murmurhash3_x86_32(collection, 0, collection.length(), 0) % locks.size()));
     DocCollection fetchedCol = null;
-    synchronized (lock) {
+    synchronized (getCollectionLock(collection)) {
       /*we have waited for sometime just check once again*/
       cacheEntry = collectionStateCache.get(collection);
       col = cacheEntry == null ? null : cacheEntry.cached;
@@ -1341,6 +1348,45 @@ public abstract class CloudSolrClient extends SolrClient {
     }
   }
 
+  /**
+   * Whether collection states which are not lazily loaded by the {@link ClusterStateProvider}, but
+   * fetched from a Solr node on each call, should be cached. This is only worth doing if the cache
+   * is refreshed when these states change.
+   */
+  protected boolean isCachingFetchedStates() {
+    return false;
+  }
+
+  private Object getCollectionLock(String collection) {
+    List<Object> locks = this.locks;
+    return locks.get(
+        Math.abs(Hash.murmurhash3_x86_32(collection, 0, collection.length(), 0) % locks.size()));
+  }
+
+  /**
+   * Fetches the state of a cached collection again, unless it is no longer cached or its cached
+   * state has the given znode version.
+   *
+   * @param znodeVersion the current znode version of the state of the collection, or -1 to always
+   *     fetch it
+   */
+  void refreshCachedCollection(String collection, int znodeVersion) {
+    synchronized (getCollectionLock(collection)) {
+      ExpiringCachedDocCollection cacheEntry = collectionStateCache.get(collection);
+      if (cacheEntry == null
+          || (znodeVersion >= 0 && cacheEntry.cached.getZNodeVersion() == znodeVersion)) {
+        return;
+      }
+      ClusterState.CollectionRef ref = getCollectionRef(collection);
+      DocCollection fetchedCol = ref == null ? null : ref.get();
+      if (fetchedCol == null) {
+        collectionStateCache.remove(collection);
+      } else {
+        collectionStateCache.put(collection, new ExpiringCachedDocCollection(fetchedCol));
+      }
+    }
+  }
+
   ClusterState.CollectionRef getCollectionRef(String collection) {
     return getClusterStateProvider().getState(collection);
   }
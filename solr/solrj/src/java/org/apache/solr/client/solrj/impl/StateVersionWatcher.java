@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the collection states cached by a {@link CloudSolrClient} up to date when the cluster state
+ * is fetched over HTTP, by long-polling the state versions endpoint of the Solr nodes (see {@link
+ * BaseHttpClusterStateProvider#waitForStateVersionChanges(Map, long)}). The state of a cached
+ * collection is fetched again as soon as it changes, e.g. after a leader election, rather than
+ * after a request was routed using the stale state.
+ */
+class StateVersionWatcher implements Runnable, Closeable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // version sent for collections whose version is not known yet
+  private static final long UNKNOWN_VERSION = -2;
+  // time to wait before checking again when no collection is cached
+  private static final long IDLE_WAIT_MS = 1000;
+  // time to wait before retrying after an error
+  private static final long RETRY_WAIT_MS = 5000;
+
+  private final CloudSolrClient client;
+  private final BaseHttpClusterStateProvider stateProvider;
+  private final long waitMs;
+  private final ExecutorService executor;
+  private final Map<String, Long> versions = new HashMap<>();
+  private volatile boolean closed = false;
+
+  StateVersionWatcher(
+      CloudSolrClient client, BaseHttpClusterStateProvider stateProvider, long waitMs) {
+    this.client = client;
+    this.stateProvider = stateProvider;
+    this.waitMs = waitMs;
+    this.executor =
+        ExecutorUtil.newMDCAwareSingleThreadExecutor(
+            new SolrNamedThreadFactory("CloudSolrClient StateVersionWatcher"));
+  }
+
+  void start() {
+    executor.submit(this);
+  }
+
+  @Override
+  public void run() {
+    while (!closed) {
+      try {
+        if (!watchOnce()) {
+          Thread.sleep(IDLE_WAIT_MS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (BaseHttpSolrClient.RemoteSolrException e) {
+        if (closed) {
+          return;
+        }
+        if (e.code() == 400 || e.code() == 404) {
+          log.warn(
+              "The Solr nodes don't support state change notifications, cached collection states will only be refreshed when they are found to be stale",
+              e);
+          return;
+        }
+        log.warn("Unable to watch the state of the cached collections", e);
+        if (!sleepBeforeRetry()) {
+          return;
+        }
+      } catch (Exception e) {
+        if (closed) {
+          return;
+        }
+        log.warn("Unable to watch the state of the cached collections", e);
+        if (!sleepBeforeRetry()) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for a change of the cached collections, and refreshes the ones which changed.
+   *
+   * @return false if no collection is cached
+   */
+  boolean watchOnce() throws SolrServerException, IOException {
+    Set<String> cached = new HashSet<>(client.collectionStateCache.keySet());
+    versions.keySet().retainAll(cached);
+    if (cached.isEmpty()) {
+      return false;
+    }
+    for (String collection : cached) {
+      versions.putIfAbsent(collection, UNKNOWN_VERSION);
+    }
+
+    Map<String, Long> changed = stateProvider.waitForStateVersionChanges(versions, waitMs);
+    for (Map.Entry<String, Long> e : changed.entrySet()) {
+      Long previous = versions.put(e.getKey(), e.getValue());
+      if (previous == null) {
+        continue;
+      }
+      if (previous == UNKNOWN_VERSION) {
+        // the cached state may have been fetched before the collection changed, compare the
+        // version of the state.json (upper 32 bits)
+        client.refreshCachedCollection(e.getKey(), (int) (e.getValue() >> 32));
+      } else {
+        client.refreshCachedCollection(e.getKey(), -1);
+      }
+    }
+    return true;
+  }
+
+  private boolean sleepBeforeRetry() {
+    try {
+      Thread.sleep(RETRY_WAIT_MS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    ExecutorUtil.shutdownNowAndAwaitTermination(executor);
+  }
+}
@@ -68,7 +68,7 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
 
   /** The set of modifiable collection properties */
   public static final java.util.List<String> MODIFIABLE_COLLECTION_PROPERTIES =
-      Arrays.asList(REPLICATION_FACTOR, COLL_CONF, PER_REPLICA_STATE, READ_ONLY);
+      Arrays.asList(REPLICATION_FACTOR, COLL_CONF, PER_REPLICA_STATE, READ_ONLY, BULK_LOAD);
 
   protected final CollectionAction action;
 
@@ -1554,6 +1554,7 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
     protected Boolean splitByPrefix;
     protected Integer numSubShards;
     protected Float splitFuzz;
+    protected Integer splitThreads;
 
     private Properties properties;
 
@@ -1598,6 +1599,15 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
       return splitFuzz;
     }
 
+    public SplitShard setSplitThreads(Integer splitThreads) {
+      this.splitThreads = splitThreads;
+      return this;
+    }
+
+    public Integer getSplitThreads() {
+      return splitThreads;
+    }
+
     public SplitShard setSplitKey(String splitKey) {
       this.splitKey = splitKey;
       return this;
@@ -1650,6 +1660,9 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
       if (splitFuzz != null) {
         params.set(CommonAdminParams.SPLIT_FUZZ, String.valueOf(splitFuzz));
       }
+      if (splitThreads != null) {
+        params.set(CommonAdminParams.SPLIT_THREADS, splitThreads);
+      }
 
       if (splitByPrefix != null) {
         params.set(CommonAdminParams.SPLIT_BY_PREFIX, splitByPrefix);
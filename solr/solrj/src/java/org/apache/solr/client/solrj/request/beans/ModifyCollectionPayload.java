@@ -25,6 +25,8 @@ public class ModifyCollectionPayload implements ReflectMapWriter {
 
   @JsonProperty public Boolean readOnly;
 
+  @JsonProperty public Boolean bulkLoad;
+
   @JsonProperty public String config;
 
   @JsonProperty public Map<String, Object> properties;
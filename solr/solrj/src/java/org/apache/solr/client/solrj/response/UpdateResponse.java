@@ -16,11 +16,24 @@
  */
 package org.apache.solr.client.solrj.response;
 
+import org.apache.solr.common.cloud.VersionToken;
+import org.apache.solr.common.util.NamedList;
+
 /**
  * TODO -- mostly a stub until we have a defined output format
  *
  * @since solr 1.3
  */
 public class UpdateResponse extends SolrResponseBase {
-  // nothing special now...
+
+  /**
+   * The version token of the updates, if they were sent with <code>versionToken=true</code>.
+   *
+   * @see VersionToken
+   */
+  public String getVersionToken() {
+    NamedList<?> header = getResponseHeader();
+    Object token = header == null ? null : header.get(VersionToken.RESPONSE_KEY);
+    return token == null ? null : token.toString();
+  }
 }
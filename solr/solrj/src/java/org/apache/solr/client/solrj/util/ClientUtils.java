@@ -32,6 +32,7 @@ import org.apache.solr.common.SolrInputField;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.ContentStreamBase;
+import org.apache.solr.common.util.DenseVectors;
 import org.apache.solr.common.util.XML;
 
 /**
@@ -105,6 +106,8 @@ public class ClientUtils {
     } else if (v instanceof byte[]) {
       byte[] bytes = (byte[]) v;
       v = Base64.getEncoder().encodeToString(bytes);
+    } else if (v instanceof float[]) {
+      v = DenseVectors.toBase64((float[]) v);
     } else if (v instanceof ByteBuffer) {
       ByteBuffer bytes = (ByteBuffer) v;
       v =
@@ -40,7 +40,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Immutable state of the cloud. Normally you can get the state by using {@link
- * ZkStateReader#getClusterState()}.
+ * ZkStateReader#getClusterState()}, which publishes a new instance whenever the state changes, so
+ * that readers can use an instance without locking. Only the lazily loaded collections (see {@link
+ * CollectionRef#isLazilyLoaded()}) may fetch their state when they are resolved.
  *
  * @lucene.experimental
  */
@@ -48,7 +50,7 @@ public class ClusterState implements JSONWriter.Writable {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final Map<String, CollectionRef> collectionStates, immutableCollectionStates;
-  private Set<String> liveNodes;
+  private final Set<String> liveNodes;
   private Set<String> hostAllowList;
 
   /** Use this constr when ClusterState is meant for consumption. */
@@ -93,6 +95,15 @@ public class ClusterState implements JSONWriter.Writable {
     return result;
   }
 
+  /**
+   * Returns a new cluster state object with the same collections and the given live nodes.
+   *
+   * @param liveNodes the live nodes of the new cluster state
+   */
+  public ClusterState copyWithLiveNodes(Set<String> liveNodes) {
+    return new ClusterState(collectionStates, liveNodes);
+  }
+
   /**
    * Returns true if the specified collection name exists, false otherwise.
    *
@@ -106,7 +117,16 @@ public class ClusterState implements JSONWriter.Writable {
 
   /** Get the named DocCollection object, or throw an exception if it doesn't exist. */
   public DocCollection getCollection(String collection) {
-    DocCollection coll = getCollectionOrNull(collection);
+    return getCollection(collection, false);
+  }
+
+  /**
+   * Get the named DocCollection object, or throw an exception if it doesn't exist.
+   *
+   * @param allowCached allow LazyCollectionRefs to use a time-based cached value
+   */
+  public DocCollection getCollection(String collection, boolean allowCached) {
+    DocCollection coll = getCollectionOrNull(collection, allowCached);
     if (coll == null)
       throw new SolrException(ErrorCode.BAD_REQUEST, "Could not find collection : " + collection);
     return coll;
@@ -237,10 +257,35 @@ public class ClusterState implements JSONWriter.Writable {
    * @param zkClient ZK client
    * @return the ClusterState
    */
-  @SuppressWarnings({"unchecked"})
   @Deprecated
   public static ClusterState createFromJsonSupportingLegacyConfigName(
       int version, byte[] bytes, Set<String> liveNodes, String coll, SolrZkClient zkClient) {
+    return createFromJsonSupportingLegacyConfigName(
+        version, bytes, liveNodes, coll, zkClient, null);
+  }
+
+  /**
+   * Create a ClusterState from Json. This method supports legacy configName location
+   *
+   * @param bytes a byte array of a Json representation of a mapping from collection name to the
+   *     Json representation of a {@link DocCollection} as written by {@link #write(JSONWriter)}. It
+   *     can represent one or more collections.
+   * @param liveNodes list of live nodes
+   * @param coll collection name
+   * @param zkClient ZK client
+   * @param previous a previous state of the collection, whose unchanged shards and replicas are
+   *     shared with the new state. May be null.
+   * @return the ClusterState
+   */
+  @SuppressWarnings({"unchecked"})
+  @Deprecated
+  public static ClusterState createFromJsonSupportingLegacyConfigName(
+      int version,
+      byte[] bytes,
+      Set<String> liveNodes,
+      String coll,
+      SolrZkClient zkClient,
+      DocCollection previous) {
     if (bytes == null || bytes.length == 0) {
       return new ClusterState(liveNodes, Collections.emptyMap());
     }
@@ -267,17 +312,29 @@ public class ClusterState implements JSONWriter.Writable {
         }
       }
     }
-    return createFromCollectionMap(version, stateMap, liveNodes);
+    return createFromCollectionMap(version, stateMap, liveNodes, previous);
   }
 
   public static ClusterState createFromCollectionMap(
       int version, Map<String, Object> stateMap, Set<String> liveNodes) {
+    return createFromCollectionMap(version, stateMap, liveNodes, null);
+  }
+
+  /**
+   * @param previous a previous state of one of the collections, whose unchanged shards and replicas
+   *     are shared with the new state of that collection. May be null.
+   */
+  public static ClusterState createFromCollectionMap(
+      int version, Map<String, Object> stateMap, Set<String> liveNodes, DocCollection previous) {
     Map<String, CollectionRef> collections = new LinkedHashMap<>(stateMap.size());
     for (Entry<String, Object> entry : stateMap.entrySet()) {
       String collectionName = entry.getKey();
+      DocCollection previousColl =
+          previous != null && previous.getName().equals(collectionName) ? previous : null;
       @SuppressWarnings({"unchecked"})
       DocCollection coll =
-          collectionFromObjects(collectionName, (Map<String, Object>) entry.getValue(), version);
+          collectionFromObjects(
+              collectionName, (Map<String, Object>) entry.getValue(), version, previousColl);
       collections.put(collectionName, new CollectionRef(coll));
     }
 
@@ -286,7 +343,7 @@ public class ClusterState implements JSONWriter.Writable {
 
   // TODO move to static DocCollection.loadFromMap
   private static DocCollection collectionFromObjects(
-      String name, Map<String, Object> objs, int version) {
+      String name, Map<String, Object> objs, int version, DocCollection previous) {
     Map<String, Object> props;
     Map<String, Slice> slices;
 
@@ -306,6 +363,9 @@ public class ClusterState implements JSONWriter.Writable {
       slices = Slice.loadAllFromMap(name, objs);
       props = Collections.emptyMap();
     } else {
+      if (previous != null) {
+        previous.shareUnchanged(sliceObjs);
+      }
       slices = Slice.loadAllFromMap(name, sliceObjs);
       props = new HashMap<>(objs);
       objs.remove(DocCollection.SHARDS);
@@ -358,11 +418,6 @@ public class ClusterState implements JSONWriter.Writable {
     } else return liveNodes.equals(other.liveNodes);
   }
 
-  /** Internal API used only by ZkStateReader */
-  void setLiveNodes(Set<String> liveNodes) {
-    this.liveNodes = liveNodes;
-  }
-
   /**
    * Be aware that this may return collections which may not exist now. You can confirm that this
    * collection exists after verifying CollectionRef.get() != null
@@ -413,6 +468,7 @@ public class ClusterState implements JSONWriter.Writable {
     protected final AtomicInteger gets = new AtomicInteger();
     private final DocCollection coll;
 
+    /** Number of times this ref was resolved, only counted for lazily loaded refs. */
     public int getCount() {
       return gets.get();
     }
@@ -437,7 +493,7 @@ public class ClusterState implements JSONWriter.Writable {
      * @return The collection state modeled in zookeeper
      */
     public DocCollection get(boolean allowCached) {
-      gets.incrementAndGet();
+      // not counted, since all the requests of a node share the refs of the watched collections
       return coll;
     }
 
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.common.cloud;
 
+import static org.apache.solr.common.cloud.ZkStateReader.BULK_LOAD;
 import static org.apache.solr.common.cloud.ZkStateReader.CONFIGNAME_PROP;
 import static org.apache.solr.common.cloud.ZkStateReader.NRT_REPLICAS;
 import static org.apache.solr.common.cloud.ZkStateReader.PULL_REPLICAS;
@@ -26,7 +27,9 @@ import static org.apache.solr.common.util.Utils.toJSONString;
 
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -58,6 +61,10 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
   private final Map<String, Slice> slices;
   private final Map<String, Slice> activeSlices;
   private final Slice[] activeSlicesArr;
+  // the active slices sorted by the start of their hash range, and these starts, to find the slice
+  // of a hash with a binary search. Null if an active slice has no range or if the ranges overlap
+  private final Slice[] activeSlicesByRange;
+  private final int[] activeRangeStarts;
   private final Map<String, List<Replica>> nodeNameReplicas;
   private final Map<String, List<Replica>> nodeNameLeaderReplicas;
   private final DocRouter router;
@@ -68,6 +75,7 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
   private final Integer numTlogReplicas;
   private final Integer numPullReplicas;
   private final Boolean readOnly;
+  private final Boolean bulkLoad;
   private final Boolean perReplicaState;
   private final Map<String, Replica> replicaMap = new HashMap<>();
   private volatile PerReplicaStates perReplicaStates;
@@ -111,6 +119,8 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
         .ifPresent(it -> perReplicaStates = it.getStates());
     Boolean readOnly = (Boolean) verifyProp(props, READ_ONLY);
     this.readOnly = readOnly == null ? Boolean.FALSE : readOnly;
+    Boolean bulkLoad = (Boolean) verifyProp(props, BULK_LOAD);
+    this.bulkLoad = bulkLoad == null ? Boolean.FALSE : bulkLoad;
 
     Iterator<Map.Entry<String, Slice>> iter = slices.entrySet().iterator();
 
@@ -127,6 +137,15 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
       }
     }
     this.activeSlicesArr = activeSlices.values().toArray(new Slice[activeSlices.size()]);
+    this.activeSlicesByRange = sortByRange(activeSlicesArr);
+    if (activeSlicesByRange != null) {
+      this.activeRangeStarts = new int[activeSlicesByRange.length];
+      for (int i = 0; i < activeSlicesByRange.length; i++) {
+        activeRangeStarts[i] = activeSlicesByRange[i].getRange().min;
+      }
+    } else {
+      this.activeRangeStarts = null;
+    }
     this.router = router;
     this.znode = ZkStateReader.getCollectionPath(name);
     assert name != null && slices != null;
@@ -163,6 +182,40 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     return result;
   }
 
+  /**
+   * Replaces, in the shards of a newer state of this collection (typically just parsed from its
+   * state.json), every replica and shard whose properties did not change by the corresponding
+   * instance of this collection. {@link Slice#loadAllFromMap(String, Map)} then shares these
+   * instances instead of creating them again, so that a change to a few replicas of a large
+   * collection (e.g. a replica going down or a new leader) only creates the replicas and shards
+   * that actually changed.
+   *
+   * @param sliceObjs the generic shard maps of the newer state. Modified in place.
+   */
+  @SuppressWarnings({"unchecked"})
+  void shareUnchanged(Map<String, Object> sliceObjs) {
+    for (Map.Entry<String, Object> sliceEntry : sliceObjs.entrySet()) {
+      Slice slice = slices.get(sliceEntry.getKey());
+      if (slice == null || !(sliceEntry.getValue() instanceof Map)) continue;
+      Map<String, Object> sliceProps = (Map<String, Object>) sliceEntry.getValue();
+      Object replicaObjs = sliceProps.get(Slice.REPLICAS);
+      if (replicaObjs instanceof Map) {
+        for (Map.Entry<String, Object> replicaEntry :
+            ((Map<String, Object>) replicaObjs).entrySet()) {
+          Replica replica = slice.getReplica(replicaEntry.getKey());
+          if (replica != null
+              && replicaEntry.getValue() instanceof Map
+              && replica.hasProperties((Map<String, Object>) replicaEntry.getValue())) {
+            replicaEntry.setValue(replica);
+          }
+        }
+      }
+      if (slice.hasProperties(sliceProps)) {
+        sliceEntry.setValue(slice);
+      }
+    }
+  }
+
   private void addNodeNameReplica(Replica replica) {
     List<Replica> replicas = nodeNameReplicas.get(replica.getNodeName());
     if (replicas == null) {
@@ -196,6 +249,7 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
         return Integer.parseInt(o.toString());
       case PER_REPLICA_STATE:
       case READ_ONLY:
+      case BULK_LOAD:
         return Boolean.parseBoolean(o.toString());
       case "snitch":
       default:
@@ -254,6 +308,49 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     return activeSlicesArr;
   }
 
+  private static Slice[] sortByRange(Slice[] slices) {
+    Slice[] sorted = slices.clone();
+    for (Slice slice : sorted) {
+      if (slice.getRange() == null) {
+        return null;
+      }
+    }
+    Arrays.sort(sorted, Comparator.comparingInt(slice -> slice.getRange().min));
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i].getRange().min <= sorted[i - 1].getRange().max) {
+        return null;
+      }
+    }
+    return sorted;
+  }
+
+  /**
+   * Returns the active slice whose hash range includes the given hash, or null if there is none.
+   * The slices are looked up with a binary search over their ranges, precomputed when the state of
+   * the collection is created.
+   */
+  public Slice getActiveSliceForHash(int hash) {
+    if (activeSlicesByRange == null) {
+      for (Slice slice : activeSlicesArr) {
+        DocRouter.Range range = slice.getRange();
+        if (range != null && range.includes(hash)) {
+          return slice;
+        }
+      }
+      return null;
+    }
+    int idx = Arrays.binarySearch(activeRangeStarts, hash);
+    if (idx < 0) {
+      // the last range starting before the hash
+      idx = -idx - 2;
+      if (idx < 0) {
+        return null;
+      }
+    }
+    Slice slice = activeSlicesByRange[idx];
+    return slice.getRange().includes(hash) ? slice : null;
+  }
+
   /** Get the map of all slices (sliceName-&gt;Slice) for this collection. */
   public Map<String, Slice> getSlicesMap() {
     return slices;
@@ -307,6 +404,14 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     return readOnly;
   }
 
+  /**
+   * Whether the collection is being bulk loaded: added documents are not written to the update
+   * log, and atomic updates are rejected, until this mode is turned off again.
+   */
+  public boolean isBulkLoad() {
+    return bulkLoad;
+  }
+
   @Override
   public String toString() {
     return "DocCollection("
@@ -69,11 +69,8 @@ public abstract class HashBasedRouter extends DocRouter {
   }
 
   protected Slice hashToSlice(int hash, DocCollection collection) {
-    final Slice[] slices = collection.getActiveSlicesArr();
-    for (Slice slice : slices) {
-      Range range = slice.getRange();
-      if (range != null && range.includes(hash)) return slice;
-    }
+    Slice slice = collection.getActiveSliceForHash(hash);
+    if (slice != null) return slice;
     throw new SolrException(
         SolrException.ErrorCode.BAD_REQUEST,
         "No active slice servicing hash code "
@@ -125,6 +125,20 @@ public class Replica extends ZkNodeProps implements MapWriter {
     }
   }
 
+  /** Properties always set by {@link #validate()}, from the other properties or their defaults */
+  private static final Set<String> DERIVED_PROPS =
+      Set.of(
+          ZkStateReader.COLLECTION_PROP,
+          ZkStateReader.SHARD_ID_PROP,
+          ZkStateReader.CORE_NODE_NAME_PROP,
+          ZkStateReader.NODE_NAME_PROP,
+          ZkStateReader.CORE_NAME_PROP,
+          ZkStateReader.REPLICA_TYPE,
+          ZkStateReader.STATE_PROP);
+
+  /** Properties which are read from the per-replica state, if any */
+  private static final Set<String> PRS_PROPS = Set.of(ZkStateReader.STATE_PROP, Slice.LEADER);
+
   // immutable
   public final String name; // coreNode name
   public final String node;
@@ -245,6 +259,38 @@ public class Replica extends ZkNodeProps implements MapWriter {
     propMap.put(ZkStateReader.STATE_PROP, state.toString());
   }
 
+  /**
+   * Returns true if a replica created from the given properties, as read from the state of its
+   * collection, would be equal to this one. Used to share unchanged replicas between successive
+   * versions of a {@link DocCollection}.
+   */
+  boolean hasProperties(Map<String, Object> props) {
+    PerReplicaStates.State newReplicaState =
+        ClusterState.getReplicaStatesProvider()
+            .get()
+            .map(it -> it.getStates().get(name))
+            .orElse(null);
+    if (!Objects.equals(replicaState, newReplicaState)) {
+      return false;
+    }
+    for (Map.Entry<String, Object> e : props.entrySet()) {
+      if (replicaState != null && PRS_PROPS.contains(e.getKey())) {
+        continue; // overridden by the per-replica state
+      }
+      if (!Objects.equals(e.getValue(), propMap.get(e.getKey()))) {
+        return false;
+      }
+    }
+    for (String key : propMap.keySet()) {
+      if (!props.containsKey(key)
+          && !DERIVED_PROPS.contains(key)
+          && !(replicaState != null && PRS_PROPS.contains(key))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public String getCollection() {
     return collection;
   }
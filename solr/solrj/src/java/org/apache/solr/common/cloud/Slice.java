@@ -28,6 +28,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -70,6 +71,40 @@ public class Slice extends ZkNodeProps implements Iterable<Replica> {
     return replicas.values().iterator();
   }
 
+  /**
+   * Returns true if a slice created from the given properties, as read from the state of its
+   * collection, would be equal to this one. The replicas must already have been resolved to
+   * {@link Replica} instances, and are compared by identity.
+   */
+  boolean hasProperties(Map<String, Object> props) {
+    Object replicaObjs = props.get(REPLICAS);
+    Map<?, ?> newReplicas = replicaObjs instanceof Map ? (Map<?, ?>) replicaObjs : Map.of();
+    if (newReplicas.size() != replicas.size()) {
+      return false;
+    }
+    for (Map.Entry<?, ?> e : newReplicas.entrySet()) {
+      if (replicas.get(e.getKey()) != e.getValue()) {
+        return false;
+      }
+    }
+    for (Map.Entry<String, Object> e : props.entrySet()) {
+      if (REPLICAS.equals(e.getKey())) {
+        continue;
+      }
+      if (!Objects.equals(e.getValue(), propMap.get(e.getKey()))) {
+        return false;
+      }
+    }
+    for (String key : propMap.keySet()) {
+      if (!props.containsKey(key)
+          && !REPLICAS.equals(key)
+          && !ZkStateReader.STATE_PROP.equals(key)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /** Make a copy with a modified replica */
   public Slice copyWith(Replica modified) {
     if (log.isDebugEnabled()) {
@@ -34,9 +34,11 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.StringUtils;
 import org.apache.solr.common.cloud.ConnectionManager.IsClosed;
+import org.apache.solr.common.util.Compressor;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.common.util.ZLibCompressor;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoAuthException;
@@ -86,10 +88,40 @@ public class SolrZkClient implements Closeable {
 
   private IsClosed higherLevelIsClosed;
 
+  private Compressor stateCompressor = new ZLibCompressor();
+  private int minStateByteLenForCompression = -1;
+
   public int getZkClientTimeout() {
     return zkClientTimeout;
   }
 
+  /**
+   * Enables the compression of collection states written through {@link #compressState(byte[])}
+   * when they are at least <code>minStateByteLenForCompression</code> bytes long. -1 disables the
+   * compression. Compressed states are always decompressed by {@link #getData}, whatever this
+   * setting.
+   */
+  public void setMinStateByteLenForCompression(int minStateByteLenForCompression) {
+    this.minStateByteLenForCompression = minStateByteLenForCompression;
+  }
+
+  public int getMinStateByteLenForCompression() {
+    return minStateByteLenForCompression;
+  }
+
+  /**
+   * Returns the given serialized collection state, compressed if state compression is enabled and
+   * the state is large enough.
+   *
+   * @see #setMinStateByteLenForCompression(int)
+   */
+  public byte[] compressState(byte[] data) {
+    if (minStateByteLenForCompression < 0 || data.length < minStateByteLenForCompression) {
+      return data;
+    }
+    return stateCompressor.compressBytes(data);
+  }
+
   // expert: for tests
   public SolrZkClient() {}
 
@@ -357,11 +389,23 @@ public class SolrZkClient implements Closeable {
   public byte[] getData(
       final String path, final Watcher watcher, final Stat stat, boolean retryOnConnLoss)
       throws KeeperException, InterruptedException {
+    byte[] data;
     if (retryOnConnLoss) {
-      return zkCmdExecutor.retryOperation(() -> keeper.getData(path, wrapWatcher(watcher), stat));
+      data = zkCmdExecutor.retryOperation(() -> keeper.getData(path, wrapWatcher(watcher), stat));
     } else {
-      return keeper.getData(path, wrapWatcher(watcher), stat);
+      data = keeper.getData(path, wrapWatcher(watcher), stat);
+    }
+    // only cluster state may be compressed, other nodes such as config files are returned as-is
+    if (path.startsWith(ZkStateReader.COLLECTIONS_ZKNODE)
+        && stateCompressor.isCompressedBytes(data)) {
+      try {
+        data = stateCompressor.decompressBytes(data);
+      } catch (Exception e) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR, "Unable to decompress data of " + path, e);
+      }
     }
+    return data;
   }
 
   /** Returns node's state */
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.cloud;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.util.StrUtils;
+
+/**
+ * Per shard versions of the updates made by a client, as <code>shard1:v1|shard2:v2</code>, where
+ * each version is the highest version assigned by the leader of the shard to these updates.
+ *
+ * <p>Update requests sent with <code>versionToken=true</code> return the token of their updates in
+ * their response header. Queries which send it back as <code>versionToken</code> only run on
+ * searchers which can see these updates, which lets clients read their own writes without waiting
+ * for a soft commit or using realtime get.
+ */
+public class VersionToken {
+
+  /** Key of the token in the response header of updates. */
+  public static final String RESPONSE_KEY = "versionToken";
+
+  private final Map<String, Long> versions;
+
+  private VersionToken(Map<String, Long> versions) {
+    this.versions = versions;
+  }
+
+  public static VersionToken of(String shard, long version) {
+    Map<String, Long> versions = new LinkedHashMap<>();
+    versions.put(shard, Math.abs(version));
+    return new VersionToken(versions);
+  }
+
+  /**
+   * Parses a token.
+   *
+   * @return the token, or null if the given string is null or empty
+   */
+  public static VersionToken parse(String token) {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    Map<String, Long> versions = new LinkedHashMap<>();
+    for (String pair : StrUtils.splitSmart(token, '|')) {
+      int sep = pair.lastIndexOf(':');
+      if (sep <= 0 || sep == pair.length() - 1) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "Invalid version token: " + token);
+      }
+      try {
+        versions.merge(
+            pair.substring(0, sep), Math.abs(Long.parseLong(pair.substring(sep + 1))), Math::max);
+      } catch (NumberFormatException e) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "Invalid version token: " + token, e);
+      }
+    }
+    return new VersionToken(versions);
+  }
+
+  /**
+   * Merges two tokens, keeping the highest version of each shard. Either token may be null.
+   *
+   * @return a new token, or null if both tokens are null
+   */
+  public static VersionToken merge(VersionToken a, VersionToken b) {
+    if (a == null || b == null) {
+      return a == null ? b : a;
+    }
+    Map<String, Long> versions = new LinkedHashMap<>(a.versions);
+    b.versions.forEach((shard, version) -> versions.merge(shard, version, Math::max));
+    return new VersionToken(versions);
+  }
+
+  /** The version of the given shard, or -1 if the token has no update for this shard. */
+  public long getVersion(String shard) {
+    Long version = versions.get(shard);
+    return version == null ? -1 : version;
+  }
+
+  public Map<String, Long> getVersions() {
+    return Collections.unmodifiableMap(versions);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, Long> e : versions.entrySet()) {
+      if (sb.length() > 0) {
+        sb.append('|');
+      }
+      sb.append(e.getKey()).append(':').append(e.getValue());
+    }
+    return sb.toString();
+  }
+}
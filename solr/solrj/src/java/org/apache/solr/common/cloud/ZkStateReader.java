@@ -43,6 +43,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
@@ -136,6 +137,7 @@ public class ZkStateReader implements SolrCloseable {
   public static final String NRT_REPLICAS = "nrtReplicas";
   public static final String TLOG_REPLICAS = "tlogReplicas";
   public static final String READ_ONLY = "readOnly";
+  public static final String BULK_LOAD = "bulkLoad";
 
   public static final String CONFIGS_ZKNODE = "/configs";
   public static final String CONFIGNAME_PROP = "configName";
@@ -651,8 +653,9 @@ public class ZkStateReader implements SolrCloseable {
 
   private class LazyCollectionRef extends ClusterState.CollectionRef {
     private final String collName;
+    private final ReentrantLock fetchLock = new ReentrantLock();
     private volatile long lastUpdateTime;
-    private DocCollection cachedDocCollection;
+    private volatile DocCollection cachedDocCollection;
 
     public LazyCollectionRef(String collName) {
       super(null);
@@ -661,8 +664,23 @@ public class ZkStateReader implements SolrCloseable {
     }
 
     @Override
-    public synchronized DocCollection get(boolean allowCached) {
+    public DocCollection get(boolean allowCached) {
       gets.incrementAndGet();
+      // readers which accept a cached state never wait for a thread fetching it from ZooKeeper
+      DocCollection cached = allowCached ? cachedDocCollection : null;
+      if (cached == null) {
+        fetchLock.lock();
+      } else if (System.nanoTime() - lastUpdateTime <= LAZY_CACHE_TIME || !fetchLock.tryLock()) {
+        return cached;
+      }
+      try {
+        return fetch(allowCached);
+      } finally {
+        fetchLock.unlock();
+      }
+    }
+
+    private DocCollection fetch(boolean allowCached) {
       if (!allowCached
           || lastUpdateTime < 0
           || System.nanoTime() - lastUpdateTime > LAZY_CACHE_TIME) {
@@ -681,8 +699,9 @@ public class ZkStateReader implements SolrCloseable {
         }
         if (shouldFetch) {
           cachedDocCollection = getCollectionLive(collName);
-          lastUpdateTime = System.nanoTime();
         }
+        // the state was either fetched or found to be up to date
+        lastUpdateTime = System.nanoTime();
       }
       return cachedDocCollection;
     }
@@ -728,7 +747,8 @@ public class ZkStateReader implements SolrCloseable {
       oldLiveNodes = this.liveNodes;
       this.liveNodes = newLiveNodes;
       if (clusterState != null) {
-        clusterState.setLiveNodes(newLiveNodes);
+        // publish a new state rather than changing the one readers may be using
+        clusterState = clusterState.copyWithLiveNodes(newLiveNodes);
       }
     }
     if (oldLiveNodes.size() != newLiveNodes.size()) {
@@ -1560,11 +1580,17 @@ public class ZkStateReader implements SolrCloseable {
         byte[] data = zkClient.getData(collectionPath, watcher, stat, true);
 
         // This factory method can detect a missing configName and supply it by reading it from the
-        // old ZK location.
+        // old ZK location. Shards and replicas which did not change since the state we already
+        // have are shared rather than created again.
         // TODO in Solr 10 remove that factory method
         ClusterState state =
             ClusterState.createFromJsonSupportingLegacyConfigName(
-                stat.getVersion(), data, Collections.emptySet(), coll, zkClient);
+                stat.getVersion(),
+                data,
+                Collections.emptySet(),
+                coll,
+                zkClient,
+                watchedCollectionStates.get(coll));
 
         ClusterState.CollectionRef collectionRef = state.getCollectionStates().get(coll);
         return collectionRef == null ? null : collectionRef.get();
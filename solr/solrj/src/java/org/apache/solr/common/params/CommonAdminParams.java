@@ -26,6 +26,8 @@ public interface CommonAdminParams {
   String IN_PLACE_MOVE = "inPlaceMove";
   /** Method to use for shard splitting. */
   String SPLIT_METHOD = "splitMethod";
+  /** Number of threads to use for shard splitting. */
+  String SPLIT_THREADS = "splitThreads";
   /** Key to use during shard splitting */
   String SPLIT_KEY = "split.key";
   /** Check distribution of documents to prefixes in shard to determine how to split */
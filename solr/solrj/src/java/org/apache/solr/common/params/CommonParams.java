@@ -189,6 +189,7 @@ public interface CommonParams {
   String ZK_STATUS_PATH = "/admin/zookeeper/status";
   String SYSTEM_INFO_PATH = "/admin/info/system";
   String METRICS_PATH = "/admin/metrics";
+  String STATE_VERSIONS_PATH = "/admin/stateVersions";
 
   String STATUS = "status";
 
@@ -206,7 +207,8 @@ public interface CommonParams {
           ZK_STATUS_PATH,
           AUTHC_PATH,
           AUTHZ_PATH,
-          METRICS_PATH);
+          METRICS_PATH,
+          STATE_VERSIONS_PATH);
   String APISPEC_LOCATION = "apispec/";
   String INTROSPECT = "/_introspect";
 
@@ -298,6 +300,18 @@ public interface CommonParams {
 
   String FAIL_ON_VERSION_CONFLICTS = "failOnVersionConflicts";
 
+  /**
+   * Version token returned by updates (see {@link UpdateParams#VERSION_TOKEN}): the query only
+   * runs on searchers which can see the updates of the token.
+   */
+  String VERSION_TOKEN = "versionToken";
+
+  /**
+   * Maximum time in ms a query waits for a replica to see the updates of its {@link
+   * #VERSION_TOKEN}, before the replica opens a new searcher or rejects the query.
+   */
+  String VERSION_TOKEN_WAIT = "versionToken.wait";
+
   String ID = "id";
   String JSON_MIME = "application/json";
 
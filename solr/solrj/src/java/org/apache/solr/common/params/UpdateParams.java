@@ -71,6 +71,12 @@ public interface UpdateParams {
   /** Return versions of updates? */
   public static final String VERSIONS = "versions";
 
+  /**
+   * Return a version token in the response header, which queries can send back (see {@link
+   * CommonParams#VERSION_TOKEN}) to see the updates of this request.
+   */
+  public static final String VERSION_TOKEN = "versionToken";
+
   /**
    * If set to true, then Solr must fail to process any Atomic Update which can not be done
    * "In-Place" with out re-indexing the entire document.
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.apache.solr.common.SolrException;
+
+/**
+ * Binary encoding of dense vectors: the 4 bytes of each float in little-endian order, as raw bytes
+ * or in Base64. The Base64 form can be used instead of <code>[f1, f2, ... fn]</code> both to index
+ * a dense vector field and in <code>{!knn}</code> queries, and is much cheaper to parse.
+ */
+public class DenseVectors {
+
+  private DenseVectors() {}
+
+  public static byte[] toBytes(float[] vector) {
+    ByteBuffer buf = ByteBuffer.allocate(vector.length * Float.BYTES);
+    buf.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(vector);
+    return buf.array();
+  }
+
+  /**
+   * Decodes the floats of the given bytes.
+   *
+   * @throws IllegalArgumentException if the length isn't a multiple of 4
+   */
+  public static float[] fromBytes(byte[] bytes, int offset, int length) {
+    if (length % Float.BYTES != 0) {
+      throw new IllegalArgumentException(
+          "the length of an encoded vector must be a multiple of 4, got " + length);
+    }
+    float[] vector = new float[length / Float.BYTES];
+    ByteBuffer.wrap(bytes, offset, length)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .asFloatBuffer()
+        .get(vector);
+    return vector;
+  }
+
+  /** Encodes the vector in standard Base64, with padding. */
+  public static String toBase64(float[] vector) {
+    return Base64.getEncoder().encodeToString(toBytes(vector));
+  }
+
+  /**
+   * Decodes a vector encoded in Base64, with either the standard or the URL safe alphabet.
+   *
+   * @throws IllegalArgumentException if the value isn't valid Base64 or doesn't encode floats
+   */
+  public static float[] fromBase64(String value) {
+    boolean urlSafe = value.indexOf('-') >= 0 || value.indexOf('_') >= 0;
+    byte[] bytes = (urlSafe ? Base64.getUrlDecoder() : Base64.getDecoder()).decode(value);
+    return fromBytes(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Parses a vector of the given dimension from its text form.
+   *
+   * @param value with format: [f1, f2, f3, f4...fn], or the Base64 encoded little-endian floats
+   * @return a float array
+   * @throws SolrException with BAD_REQUEST if the value isn't a vector of the given dimension
+   */
+  public static float[] parse(String value, int dimension) {
+    if (!value.startsWith("[")) {
+      float[] vector;
+      try {
+        vector = fromBase64(value);
+      } catch (IllegalArgumentException e) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "incorrect vector format."
+                + " The expected format is:'[f1,f2..f3]' where each element f is a float,"
+                + " or the Base64 encoded little-endian floats",
+            e);
+      }
+      if (vector.length != dimension) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "incorrect vector dimension."
+                + " The vector value has size "
+                + vector.length
+                + " while it is expected a vector with size "
+                + dimension);
+      }
+      return vector;
+    }
+    if (!value.endsWith("]")) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "incorrect vector format."
+              + " The expected format is:'[f1,f2..f3]' where each element f is a float");
+    }
+
+    // empty elements are skipped
+    List<String> elements = new ArrayList<>(dimension);
+    for (int start = 1, end; start < value.length() - 1; start = end + 1) {
+      end = value.indexOf(',', start);
+      if (end < 0) {
+        end = value.length() - 1;
+      }
+      if (end > start) {
+        elements.add(value.substring(start, end));
+      }
+    }
+    if (elements.size() != dimension) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "incorrect vector dimension."
+              + " The vector value has size "
+              + elements.size()
+              + " while it is expected a vector with size "
+              + dimension);
+    }
+    float[] vector = new float[dimension];
+    for (int i = 0; i < dimension; i++) {
+      try {
+        vector[i] = Float.parseFloat(elements.get(i));
+      } catch (NumberFormatException e) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "incorrect vector element: '"
+                + elements.get(i)
+                + "'. The expected format is:'[f1,f2..f3]' where each element f is a float");
+      }
+    }
+    return vector;
+  }
+}
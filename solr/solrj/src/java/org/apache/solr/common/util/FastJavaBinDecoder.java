@@ -557,6 +557,14 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
         entry.consumedFully = true;
       }
     },
+    _FLOAT_ARR(FLOAT_ARR, LOWER_5_BITS, DataEntry.Type.JAVA_OBJ) {
+      // doesn't support streaming
+      @Override
+      public void lazyRead(EntryImpl entry, StreamCodec codec) throws IOException {
+        entry.objVal = codec.readFloatArray(codec.dis);
+        entry.consumedFully = true;
+      }
+    },
     // types that combine tag + length (or other info) in a single byte
     _TAG_AND_LEN(TAG_AND_LEN, UPPER_3_BITS, null),
     _STR(STR, UPPER_3_BITS, DataEntry.Type.STR) {
@@ -99,6 +99,8 @@ public class JavaBinCodec implements PushWriter {
       ENUM_FIELD_VALUE = 18,
       MAP_ENTRY = 19,
       UUID = 20, // This is reserved to be used only in LogCodec
+      COMPRESSED_SOLRINPUTDOC = 21, // This is reserved to be used only in LogCodec
+      FLOAT_ARR = 22,
       // types that combine tag + length (or other info) in a single byte
       TAG_AND_LEN = (byte) (1 << 5),
       STR = (byte) (1 << 5),
@@ -344,6 +346,8 @@ public class JavaBinCodec implements PushWriter {
         return readMapEntry(dis);
       case MAP_ENTRY_ITER:
         return readMapIter(dis);
+      case FLOAT_ARR:
+        return readFloatArray(dis);
     }
 
     throw new RuntimeException("Unknown type " + tagByte);
@@ -528,6 +532,22 @@ public class JavaBinCodec implements PushWriter {
     dis.readFully(arr);
     return arr;
   }
+
+  /** Writes the floats of the array, typically a dense vector, without boxing them. */
+  public void writeFloatArray(float[] arr) throws IOException {
+    writeTag(FLOAT_ARR, arr.length);
+    for (float f : arr) {
+      daos.writeFloat(f);
+    }
+  }
+
+  public float[] readFloatArray(DataInputInputStream dis) throws IOException {
+    float[] arr = new float[readVInt(dis)];
+    for (int i = 0; i < arr.length; i++) {
+      arr[i] = dis.readFloat();
+    }
+    return arr;
+  }
   // use this to ignore the writable interface because , child docs will ignore the fl flag
   // is it a good design?
   private boolean ignoreWritable = false;
@@ -1090,6 +1110,9 @@ public class JavaBinCodec implements PushWriter {
       ByteBuffer buf = (ByteBuffer) val;
       writeByteArray(buf.array(), buf.arrayOffset() + buf.position(), buf.limit() - buf.position());
       return true;
+    } else if (val instanceof float[]) {
+      writeFloatArray((float[]) val);
+      return true;
     } else if (val == END_OBJ) {
       writeTag(END);
       return true;
@@ -22,6 +22,7 @@ import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
@@ -97,6 +98,8 @@ public interface TextWriter extends PushWriter {
     } else if (val instanceof byte[]) {
       byte[] arr = (byte[]) val;
       writeByteArr(name, arr, 0, arr.length);
+    } else if (val instanceof float[]) {
+      writeFloatArr(name, (float[]) val);
     } else if (val instanceof EnumFieldValue) {
       if (raw) {
         writeStrRaw(name, val.toString());
@@ -194,6 +197,14 @@ public interface TextWriter extends PushWriter {
         false);
   }
 
+  default void writeFloatArr(String name, float[] val) throws IOException {
+    List<Float> floats = new ArrayList<>(val.length);
+    for (float f : val) {
+      floats.add(f);
+    }
+    writeArray(name, floats, false);
+  }
+
   default void writeInt(String name, int val) throws IOException {
     writeInt(name, Integer.toString(val));
   }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Compressor} using the zlib format of {@link Deflater}. Compressed data starts with a magic
+ * prefix, whose first byte is 0 so that it can't be the beginning of a JSON document, followed by
+ * the version of the format.
+ */
+public class ZLibCompressor implements Compressor {
+
+  private static final byte[] MAGIC = {0, 'S', 'Z', 'C'};
+  private static final byte VERSION = 1;
+  private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+  @Override
+  public boolean isCompressedBytes(byte[] data) {
+    if (data == null || data.length < HEADER_LENGTH) {
+      return false;
+    }
+    return Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+  }
+
+  @Override
+  public byte[] decompressBytes(byte[] data) throws DataFormatException {
+    if (!isCompressedBytes(data)) {
+      throw new DataFormatException("Missing compression header");
+    }
+    if (data[MAGIC.length] != VERSION) {
+      throw new DataFormatException("Unsupported compression version " + data[MAGIC.length]);
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int count = inflater.inflate(buffer);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DataFormatException("Truncated compressed data");
+        }
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    } finally {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public byte[] compressBytes(byte[] data) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+      out.write(MAGIC, 0, MAGIC.length);
+      out.write(VERSION);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        int count = deflater.deflate(buffer);
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.util.TimeOut;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CloudHttp2SolrClientStateNotificationsTest extends SolrCloudTestCase {
+  private static final String COLLECTION = "stateNotifications";
+
+  private static List<String> solrUrls;
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    configureCluster(2)
+        .addConfig(
+            "conf",
+            getFile("solrj")
+                .toPath()
+                .resolve("solr")
+                .resolve("configsets")
+                .resolve("streaming")
+                .resolve("conf"))
+        .configure();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 1, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 1, 1);
+    solrUrls = Collections.singletonList(cluster.getJettySolrRunner(0).getBaseUrl().toString());
+  }
+
+  @Test
+  public void testWaitForStateVersionChanges() throws Exception {
+    try (Http2ClusterStateProvider stateProvider = new Http2ClusterStateProvider(solrUrls, null)) {
+      Map<String, Long> versions =
+          stateProvider.waitForStateVersionChanges(Map.of(COLLECTION, -2L, "missing", -2L), 0);
+      assertEquals(-1L, (long) versions.get("missing"));
+      final long version = versions.get(COLLECTION);
+      DocCollection coll = cluster.getZkStateReader().getCollection(COLLECTION);
+      assertEquals(coll.getZNodeVersion(), (int) (version >> 32));
+
+      // nothing changed
+      versions = stateProvider.waitForStateVersionChanges(Map.of(COLLECTION, version), 100);
+      assertTrue(versions.isEmpty());
+
+      ExecutorService executor =
+          ExecutorUtil.newMDCAwareSingleThreadExecutor(new SolrNamedThreadFactory("stateVersions"));
+      try {
+        Future<Map<String, Long>> changed =
+            executor.submit(
+                () -> stateProvider.waitForStateVersionChanges(Map.of(COLLECTION, version), 60000));
+        int replicas = coll.getReplicas().size();
+        CollectionAdminRequest.addReplicaToShard(COLLECTION, "shard1")
+            .process(cluster.getSolrClient());
+        Map<String, Long> newVersions = changed.get(30, TimeUnit.SECONDS);
+        assertNotEquals(version, (long) newVersions.get(COLLECTION));
+        cluster.waitForActiveCollection(COLLECTION, 1, replicas + 1);
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+    }
+  }
+
+  @Test
+  public void testCachedStateIsRefreshed() throws Exception {
+    try (CloudHttp2SolrClient client =
+        new CloudHttp2SolrClient.Builder(solrUrls)
+            .withStateChangeNotifications(true, 5000)
+            .build()) {
+      final int replicas = client.getDocCollection(COLLECTION, null).getReplicas().size();
+      assertNotNull(client.collectionStateCache.get(COLLECTION));
+
+      CollectionAdminRequest.addReplicaToShard(COLLECTION, "shard1")
+          .process(cluster.getSolrClient());
+      cluster.waitForActiveCollection(COLLECTION, 1, replicas + 1);
+
+      new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+          .waitFor(
+              "The cached state of the collection was not refreshed",
+              () -> {
+                CloudSolrClient.ExpiringCachedDocCollection cached =
+                    client.collectionStateCache.get(COLLECTION);
+                return cached != null
+                    && cached.cached.getReplicas().size() == replicas + 1
+                    && cached.cached.getReplicas().stream()
+                        .allMatch(r -> r.getState() == Replica.State.ACTIVE);
+              });
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -418,6 +419,35 @@ public class TestJavaBinCodec extends SolrTestCaseJ4 {
     assertNull(grandChildDocuments.get(0).getChildDocuments());
   }
 
+  @Test
+  public void testFloatArray() throws IOException {
+    float[] vector = new float[] {1.5f, -2.25f, Float.MAX_VALUE, 0f};
+    assertArrayEquals(vector, (float[]) serializeAndDeserialize(vector), 0f);
+
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", "1");
+    doc.addField("vector", vector);
+    SolrInputDocument result = (SolrInputDocument) serializeAndDeserialize(doc);
+    assertArrayEquals(vector, (float[]) result.getFieldValue("vector"), 0f);
+
+    // the floats aren't boxed: the version, a tag, the length and 4 bytes per float
+    assertEquals(1 + 1 + 1 + vector.length * Float.BYTES, getBytes(vector).length);
+  }
+
+  @Test
+  public void testDenseVectorsEncoding() {
+    float[] vector = new float[] {1.5f, -2.25f, Float.MIN_VALUE, 0f};
+    byte[] bytes = DenseVectors.toBytes(vector);
+    assertEquals(vector.length * Float.BYTES, bytes.length);
+    // little-endian 1.5f
+    assertArrayEquals(new byte[] {0, 0, (byte) 0xc0, 0x3f}, Arrays.copyOf(bytes, 4));
+    assertArrayEquals(vector, DenseVectors.fromBase64(DenseVectors.toBase64(vector)), 0f);
+    assertArrayEquals(
+        vector, DenseVectors.fromBase64(Base64.getUrlEncoder().encodeToString(bytes)), 0f);
+    expectThrows(IllegalArgumentException.class, () -> DenseVectors.fromBytes(bytes, 0, 7));
+    expectThrows(IllegalArgumentException.class, () -> DenseVectors.fromBase64("[1.0, 2.0]"));
+  }
+
   @Test
   public void testStringCaching() throws Exception {
     Map<String, Object> m = Map.of("key1", "val1", "key2", "val2");
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import org.apache.solr.SolrTestCase;
+
+public class TestZLibCompressor extends SolrTestCase {
+
+  public void testRoundTrip() throws Exception {
+    Map<String, Object> state = new LinkedHashMap<>();
+    int numShards = atLeast(100);
+    for (int i = 0; i < numShards; i++) {
+      state.put("shard" + i, Map.of("range", "80000000-ffffffff", "state", "active"));
+    }
+    byte[] json = Utils.toJSON(Map.of("collection1", state));
+
+    ZLibCompressor compressor = new ZLibCompressor();
+    assertFalse(compressor.isCompressedBytes(json));
+
+    byte[] compressed = compressor.compressBytes(json);
+    assertTrue(compressor.isCompressedBytes(compressed));
+    assertTrue(compressed.length < json.length);
+    assertArrayEquals(json, compressor.decompressBytes(compressed));
+  }
+
+  public void testNotCompressed() {
+    ZLibCompressor compressor = new ZLibCompressor();
+    assertFalse(compressor.isCompressedBytes(null));
+    assertFalse(compressor.isCompressedBytes(new byte[0]));
+    assertFalse(compressor.isCompressedBytes("{}".getBytes(StandardCharsets.UTF_8)));
+    assertFalse(compressor.isCompressedBytes("[1]".getBytes(StandardCharsets.UTF_8)));
+    // "x^" is a valid zlib header, but isn't compressed data
+    assertFalse(compressor.isCompressedBytes("x^{}".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  public void testUnsupportedVersion() {
+    ZLibCompressor compressor = new ZLibCompressor();
+    byte[] compressed = compressor.compressBytes("{}".getBytes(StandardCharsets.UTF_8));
+    compressed[4]++;
+    assertTrue(compressor.isCompressedBytes(compressed));
+    expectThrows(DataFormatException.class, () -> compressor.decompressBytes(compressed));
+  }
+}